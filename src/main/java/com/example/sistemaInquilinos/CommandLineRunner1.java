@@ -2,6 +2,8 @@ package com.example.sistemaInquilinos;
 
 import com.example.sistemaInquilinos.entidad.*;
 import com.example.sistemaInquilinos.repositorio.*;
+import com.example.sistemaInquilinos.servicio.deudaInmuebleServicio;
+import com.example.sistemaInquilinos.servicio.resumenMensualServicio;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -18,6 +20,10 @@ public class CommandLineRunner1 {
     private final inquilinoRespositorio inquilinoRepositorio;
     private final inmuebleRepositorio inmuebleRepositorio;
     private final pagosRepositorio pagosRepositorio;
+    private final deudaInmuebleRepositorio deudaInmuebleRepositorio;
+    private final deudaInmuebleServicio deudaInmuebleServicio;
+    private final resumenMensualRepositorio resumenMensualRepositorio;
+    private final resumenMensualServicio resumenMensualServicio;
     private final PasswordEncoder passwordEncoder;
 
     @Bean
@@ -47,9 +53,9 @@ public class CommandLineRunner1 {
             // ============================
             if (inquilinoRepositorio.count() == 0) {
 
-                inquilino i1 = new inquilino(null, "Carlos López", "12345678A", "600111222", "carlos@email.com");
-                inquilino i2 = new inquilino(null, "Laura Pérez", "87654321B", "600333444", "laura@email.com");
-                inquilino i3 = new inquilino(null, "Miguel Torres", "11223344C", "600555666", "miguel@email.com");
+                inquilino i1 = new inquilino(null, "Carlos López", "12345678A", "600111222", "carlos@email.com", null);
+                inquilino i2 = new inquilino(null, "Laura Pérez", "87654321B", "600333444", "laura@email.com", null);
+                inquilino i3 = new inquilino(null, "Miguel Torres", "11223344C", "600555666", "miguel@email.com", null);
 
                 inquilinoRepositorio.saveAll(List.of(i1, i2, i3));
 
@@ -71,6 +77,7 @@ public class CommandLineRunner1 {
                         900.0,
                         estadoInmueble.OCUPADO,
                         inquilinos.get(0),
+                        null,
                         null
                 );
 
@@ -82,6 +89,7 @@ public class CommandLineRunner1 {
                         750.0,
                         estadoInmueble.CON_DEUDA,
                         inquilinos.get(1),
+                        null,
                         null
                 );
 
@@ -93,6 +101,7 @@ public class CommandLineRunner1 {
                         600.0,
                         estadoInmueble.VACIO,
                         null,
+                        null,
                         null
                 );
 
@@ -117,7 +126,8 @@ public class CommandLineRunner1 {
                         0.0,
                         true,
                         inquilinos.get(0),
-                        inmuebles.get(0)
+                        inmuebles.get(0),
+                        null
                 );
 
                 pagos p2 = new pagos(
@@ -128,7 +138,8 @@ public class CommandLineRunner1 {
                         750.0,
                         false,
                         inquilinos.get(1),
-                        inmuebles.get(1)
+                        inmuebles.get(1),
+                        null
                 );
 
                 pagos p3 = new pagos(
@@ -139,7 +150,8 @@ public class CommandLineRunner1 {
                         1500.0,
                         false,
                         inquilinos.get(1),
-                        inmuebles.get(1)
+                        inmuebles.get(1),
+                        null
                 );
 
                 pagosRepositorio.saveAll(List.of(p1, p2, p3));
@@ -147,6 +159,28 @@ public class CommandLineRunner1 {
                 System.out.println("✅ Pagos creados");
             }
 
+            // ============================
+            // ✅ CALCULAR DEUDA ACUMULADA
+            // ============================
+            // Los pagos creados aquí (o los de una base de datos anterior)
+            // no pasan por el servicio, así que se calcula la deuda desde cero
+            if (deudaInmuebleRepositorio.count() == 0 && pagosRepositorio.count() > 0) {
+
+                deudaInmuebleServicio.reconstruir();
+
+                System.out.println("✅ Deuda por inmueble calculada");
+            }
+
+            // ============================
+            // ✅ CALCULAR RESUMEN MENSUAL
+            // ============================
+            if (resumenMensualRepositorio.count() == 0 && pagosRepositorio.count() > 0) {
+
+                resumenMensualServicio.reconstruir();
+
+                System.out.println("✅ Resumen mensual calculado");
+            }
+
             System.out.println("🚀 SISTEMA LISTO PARA SER PROBADO");
         };
     }
@@ -0,0 +1,68 @@
+package com.example.sistemaInquilinos.configuracion;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuración de la caché en memoria de lecturas frecuentes.
+ *
+ * Cada caché tiene su propio tiempo de vida y tamaño máximo (Caffeine),
+ * configurables en application.properties. Las entradas se eliminan cuando
+ * se guarda o elimina el dato correspondiente (@CacheEvict en los servicios);
+ * el tiempo de vida solo es una red de seguridad.
+ *
+ * Las cachés son transaccionales: si la eliminación ocurre dentro de una
+ * transacción, se aplica tras el commit, para que una lectura concurrente
+ * no vuelva a guardar el dato anterior.
+ *
+ * Se registran estadísticas (aciertos, fallos, expulsiones) que Actuator
+ * publica en /actuator/metrics/cache.gets y /actuator/metrics/cache.evictions.
+ */
+@Configuration // Indica que esta clase contiene configuración de Spring
+@EnableCaching // Activa @Cacheable y @CacheEvict
+public class cacheConfig {
+
+    // Nombres de las cachés
+    public static final String INMUEBLES = "inmuebles";
+    public static final String INQUILINOS = "inquilinos";
+    public static final String IMPAGOS = "impagos";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.inmuebles.ttl:10m}") Duration ttlInmuebles,
+            @Value("${cache.inmuebles.tamanio-maximo:10000}") long tamanioInmuebles,
+            @Value("${cache.inquilinos.ttl:10m}") Duration ttlInquilinos,
+            @Value("${cache.inquilinos.tamanio-maximo:10000}") long tamanioInquilinos,
+            @Value("${cache.impagos.ttl:1m}") Duration ttlImpagos,
+            @Value("${cache.impagos.tamanio-maximo:1}") long tamanioImpagos) {
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+
+        cacheManager.setCaches(List.of(
+                crear(INMUEBLES, ttlInmuebles, tamanioInmuebles),
+                crear(INQUILINOS, ttlInquilinos, tamanioInquilinos),
+                crear(IMPAGOS, ttlImpagos, tamanioImpagos)
+        ));
+
+        return cacheManager;
+    }
+
+    private Cache crear(String nombre, Duration ttl, long tamanioMaximo) {
+        return new TransactionAwareCacheDecorator(new CaffeineCache(nombre, Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(tamanioMaximo)
+                .recordStats()
+                .build(), false));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.resultadoBusquedaDTO;
+import com.example.sistemaInquilinos.dto.tipoDocumentoBusqueda;
+import com.example.sistemaInquilinos.servicio.busquedaTextoServicio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * Controlador REST de la búsqueda de texto: un único cuadro de búsqueda
+ * que encuentra inquilinos (por nombre, DNI o email) e inmuebles (por dirección o ciudad).
+ */
+@RestController // Indica que esta clase es un controlador REST
+@RequestMapping("/busqueda") // Ruta base de este controlador
+@CrossOrigin(origins = "http://localhost:4200") // Permite peticiones desde el cliente Angular
+public class busquedaControlador {
+
+    // Logger para mostrar mensajes en consola
+    private static final Logger logger = LoggerFactory.getLogger(busquedaControlador.class);
+
+    // Número de resultados si no se indica "limite"
+    private static final int LIMITE_POR_DEFECTO = 20;
+
+    // Servicio con el índice de búsqueda
+    @Autowired
+    private busquedaTextoServicio busquedaTextoServicio;
+
+    /**
+     * Busca inquilinos e inmuebles que contienen todas las palabras de "q"
+     * (completas o fragmentos, sin importar mayúsculas ni tildes).
+     * Con "tipo" (inquilino o inmueble) se limita a uno de los dos.
+     *
+     * URL: GET /busqueda?q=garcia&tipo=inquilino&limite=20
+     */
+    @GetMapping
+    public ResponseEntity<resultadoBusquedaDTO> buscar(
+            @RequestParam String q,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Integer limite) {
+
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Falta el texto a buscar");
+        }
+
+        resultadoBusquedaDTO resultado = busquedaTextoServicio.buscar(
+                q, tipoDocumentoBusqueda.desde(tipo), limite != null ? limite : LIMITE_POR_DEFECTO);
+
+        logger.info("Búsqueda de texto '" + q + "': " + resultado.getResultados().size()
+                + " resultados en " + resultado.getMicrosegundos() + " µs");
+
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Vuelve a crear el índice desde la base de datos
+     * (por ejemplo, tras modificar datos directamente en la base de datos).
+     *
+     * URL: POST /busqueda/reindexar
+     */
+    @PostMapping("/reindexar")
+    public ResponseEntity<Map<String, Integer>> reindexar() {
+
+        int documentos = busquedaTextoServicio.reconstruir();
+
+        logger.info("Índice de búsqueda reconstruido con " + documentos + " documentos");
+
+        return ResponseEntity.ok(Map.of("documentos", documentos));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.servicio.conflictoVersionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Convierte los conflictos de versión (bloqueo optimista) de cualquier controlador
+ * en una respuesta 409 CONFLICT cuyo cuerpo es el estado actual del registro.
+ */
+@RestControllerAdvice
+public class conflictoVersionControlador {
+
+    // Logger para mostrar los conflictos devueltos al cliente
+    private static final Logger logger = LoggerFactory.getLogger(conflictoVersionControlador.class);
+
+    @ExceptionHandler(conflictoVersionException.class)
+    public ResponseEntity<Object> conflictoVersion(conflictoVersionException e) {
+
+        logger.info("409 por conflicto de versión: " + e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getActual());
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.sistemaInquilinos.controlador;
 
+import com.example.sistemaInquilinos.dto.campoAutocompletado;
+import com.example.sistemaInquilinos.dto.filtroInmuebles;
 import com.example.sistemaInquilinos.dto.inmuebleDTO;
+import com.example.sistemaInquilinos.dto.paginaInmueblesDTO;
+import com.example.sistemaInquilinos.dto.sugerenciaUbicacionDTO;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.servicioDTO.inmuebleDTOServicioBusqueda;
 import com.example.sistemaInquilinos.servicioDTO.inmuebleDTOServicioLista;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.servicio.autocompletadoInmueblesServicio;
 import com.example.sistemaInquilinos.servicio.inmuebleServicio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +46,14 @@ public class inmuebleControlador {
     @Autowired
     private inmuebleDTOServicioLista inmuebleDTOServicioLista;
 
+    // Servicio que busca inmuebles con filtros y los devuelve paginados
+    @Autowired
+    private inmuebleDTOServicioBusqueda inmuebleDTOServicioBusqueda;
+
+    // Servicio que sugiere ciudades y códigos postales sin consultar la base de datos
+    @Autowired
+    private autocompletadoInmueblesServicio autocompletadoInmueblesServicio;
+
     /**
      * Obtiene el listado de todos los inmuebles en formato DTO.
      * Se usa DTO para no exponer directamente la entidad completa.
@@ -66,6 +82,69 @@ public class inmuebleControlador {
         return respuesta;
     }
 
+    /**
+     * Busca inmuebles filtrando en el servidor, con orden y paginación por cursor.
+     *
+     * Todos los filtros son opcionales y se combinan entre sí:
+     * ciudad, codigoPostal (o su comienzo), precioMinimo, precioMaximo y estado
+     * (se puede repetir: estado=OCUPADO&estado=CON_DEUDA).
+     * Orden: id (por defecto), id_desc, precio o precio_desc.
+     *
+     * URL: GET /inmuebles/buscar?ciudad=Madrid&precioMaximo=900&orden=precio&cursor=...&tamanio=50
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<paginaInmueblesDTO> buscarInmuebles(
+            @RequestParam(required = false) String ciudad,
+            @RequestParam(required = false) String codigoPostal,
+            @RequestParam(required = false) Double precioMinimo,
+            @RequestParam(required = false) Double precioMaximo,
+            @RequestParam(required = false) List<estadoInmueble> estado,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio) {
+
+        filtroInmuebles filtro = new filtroInmuebles(
+                vacioANull(ciudad), vacioANull(codigoPostal), precioMinimo, precioMaximo, estado);
+
+        paginaInmueblesDTO pagina = inmuebleDTOServicioBusqueda.buscar(filtro, orden, cursor, tamanio);
+
+        logger.info("Búsqueda de inmuebles " + filtro + ": " + pagina.getContenido().size() + " resultados");
+
+        return ResponseEntity.ok(pagina);
+    }
+
+    /**
+     * Sugiere ciudades o códigos postales que empiezan por lo escrito,
+     * de más a menos inmuebles, con cuántos hay en cada estado.
+     *
+     * URL: GET /inmuebles/autocompletar/ciudad?prefijo=mad&limite=10
+     * URL: GET /inmuebles/autocompletar/codigoPostal?prefijo=280
+     */
+    @GetMapping("/autocompletar/{campo}")
+    public ResponseEntity<List<sugerenciaUbicacionDTO>> autocompletar(
+            @PathVariable String campo,
+            @RequestParam(defaultValue = "") String prefijo,
+            @RequestParam(defaultValue = "10") int limite) {
+
+        return ResponseEntity.ok(
+                autocompletadoInmueblesServicio.sugerir(campoAutocompletado.desde(campo), prefijo, limite));
+    }
+
+    /**
+     * Cuenta los inmuebles cuya ciudad o código postal empieza por el prefijo
+     * (en total y por estado).
+     *
+     * URL: GET /inmuebles/autocompletar/codigoPostal/conteo?prefijo=28
+     */
+    @GetMapping("/autocompletar/{campo}/conteo")
+    public ResponseEntity<sugerenciaUbicacionDTO> contarPorPrefijo(
+            @PathVariable String campo,
+            @RequestParam(defaultValue = "") String prefijo) {
+
+        return ResponseEntity.ok(
+                autocompletadoInmueblesServicio.contar(campoAutocompletado.desde(campo), prefijo));
+    }
+
     /**
      * Crea un nuevo inmueble en la base de datos.
      *
@@ -101,6 +180,7 @@ public class inmuebleControlador {
 
     /**
      * Actualiza un inmueble existente.
+     * Devuelve 409 (con el inmueble actual) si la "version" enviada está obsoleta.
      *
      * URL: PUT /inmuebles/listado/{idInmueble}
      */
@@ -109,24 +189,33 @@ public class inmuebleControlador {
             @PathVariable int idInmueble,
             @RequestBody inmueble inmuebleRecibido) {
 
-        // Se busca el inmueble en la base de datos
-        inmueble inmueble = this.inmuebleServicio.buscarInmueblePorId(idInmueble);
+        // Se actualizan y guardan los datos del inmueble
+        inmueble inmueble = this.inmuebleServicio.actualizarInmueble(idInmueble, inmuebleRecibido);
 
         if (inmueble == null) {
             logger.info("No existe el inmueble con id: " + idInmueble);
             return ResponseEntity.notFound().build();
         }
 
-        // Se actualizan los datos del inmueble
-        inmueble.setDireccion(inmuebleRecibido.getDireccion());
-        inmueble.setCiudad(inmuebleRecibido.getCiudad());
-        inmueble.setCodigoPostal(inmuebleRecibido.getCodigoPostal());
-        inmueble.setPrecioMensual(inmuebleRecibido.getPrecioMensual());
-        inmueble.setEstado(inmuebleRecibido.getEstado());
-        inmueble.setInquilino(inmuebleRecibido.getInquilino());
+        return ResponseEntity.ok(inmueble);
+    }
+
+    /**
+     * Modifica solo los campos enviados del inmueble, por ejemplo {"estado": "VACIO"}.
+     *
+     * URL: PATCH /inmuebles/listado/{idInmueble}
+     */
+    @PatchMapping("/listado/{idInmueble}")
+    public ResponseEntity<inmueble> parchearInmueble(
+            @PathVariable int idInmueble,
+            @RequestBody ObjectNode cambios) {
+
+        inmueble inmueble = this.inmuebleServicio.parchearInmueble(idInmueble, cambios);
 
-        // Se guarda el inmueble actualizado
-        this.inmuebleServicio.guardarInmueble(inmueble);
+        if (inmueble == null) {
+            logger.info("No existe el inmueble con id: " + idInmueble);
+            return ResponseEntity.notFound().build();
+        }
 
         return ResponseEntity.ok(inmueble);
     }
@@ -157,4 +246,8 @@ public class inmuebleControlador {
             return ResponseEntity.ok(respuesta);
         }
     }
+
+    private String vacioANull(String texto) {
+        return texto == null || texto.isBlank() ? null : texto.trim();
+    }
 }
@@ -2,6 +2,7 @@ package com.example.sistemaInquilinos.controlador;
 
 import com.example.sistemaInquilinos.entidad.inquilino;
 import com.example.sistemaInquilinos.servicio.inquilinoServicio;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -85,6 +86,7 @@ public class inquilinoControlador {
 
     /**
      * Actualiza un inquilino existente.
+     * Con una "version" antigua responde 409 y el inquilino tal como está guardado.
      *
      * URL: PUT /inquilinos/listado/{idInquilino}
      */
@@ -93,17 +95,33 @@ public class inquilinoControlador {
             @PathVariable int idInquilino,
             @RequestBody inquilino inquilinoRecibido) {
 
-        // Se busca el inquilino en la base de datos
-        inquilino inquilino = this.inquilinoServicio.buscarInquilinoPorId(idInquilino);
+        // Se actualizan y guardan los datos del inquilino
+        inquilino inquilino = this.inquilinoServicio.actualizarInquilino(idInquilino, inquilinoRecibido);
+
+        if (inquilino == null) {
+            logger.info("No existe el inquilino con id: " + idInquilino);
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(inquilino);
+    }
 
-        // Se actualizan los datos del inquilino
-        inquilino.setNombre(inquilinoRecibido.getNombre());
-        inquilino.setDni(inquilinoRecibido.getDni());
-        inquilino.setTelefono(inquilinoRecibido.getTelefono());
-        inquilino.setEmail(inquilinoRecibido.getEmail());
+    /**
+     * Modifica solo los campos enviados del inquilino (por ejemplo, solo el teléfono).
+     *
+     * URL: PATCH /inquilinos/listado/{idInquilino}
+     */
+    @PatchMapping("/listado/{idInquilino}")
+    public ResponseEntity<inquilino> parchearInquilino(
+            @PathVariable int idInquilino,
+            @RequestBody ObjectNode cambios) {
 
-        // Se guarda la información actualizada
-        this.inquilinoServicio.guardarInquilino(inquilino);
+        inquilino inquilino = this.inquilinoServicio.parchearInquilino(idInquilino, cambios);
+
+        if (inquilino == null) {
+            logger.info("No existe el inquilino con id: " + idInquilino);
+            return ResponseEntity.notFound().build();
+        }
 
         return ResponseEntity.ok(inquilino);
     }
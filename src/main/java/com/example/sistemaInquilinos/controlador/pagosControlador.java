@@ -1,30 +1,56 @@
 package com.example.sistemaInquilinos.controlador;
 
+import com.example.sistemaInquilinos.dto.archivoPagosDTO;
+import com.example.sistemaInquilinos.dto.facturacionMensualDTO;
+import com.example.sistemaInquilinos.dto.formatoExportacion;
+import com.example.sistemaInquilinos.dto.informeAntiguedadDeudaDTO;
+import com.example.sistemaInquilinos.dto.paginaPagosDTO;
 import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.dto.resultadoIdempotente;
+import com.example.sistemaInquilinos.dto.resumenMensualDTO;
+import com.example.sistemaInquilinos.dto.verificacionResumenDTO;
 import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.servicio.antiguedadDeudaServicio;
+import com.example.sistemaInquilinos.servicio.archivoPagosServicio;
+import com.example.sistemaInquilinos.servicio.exportacionPagosServicio;
+import com.example.sistemaInquilinos.servicio.facturacionMensualServicio;
+import com.example.sistemaInquilinos.servicio.idempotenciaServicio;
 import com.example.sistemaInquilinos.servicio.pagosServicio;
-import com.example.sistemaInquilinos.servicioDTO.pagosDTOServicioLista;
+import com.example.sistemaInquilinos.servicio.resumenMensualServicio;
+import com.example.sistemaInquilinos.servicioDTO.pagosDTOServicioPagina;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
+import java.security.Principal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST encargado de gestionar los pagos del sistema.
  *
  * Se encarga de:
- * - Listar pagos
+ * - Listar pagos (completo o paginado por cursor)
  * - Crear pagos
  * - Actualizar pagos
  * - Eliminar pagos
  * - Buscar pagos por inmueble
  * - Buscar pagos por fecha
  * - Listar impagos
+ * - Consultar y reconstruir la deuda acumulada por inmueble
+ * - Informe de antigüedad de la deuda
+ * - Resumen mensual de facturación y cobro por ciudad
+ * - Generar los pagos de un mes para todos los inmuebles ocupados
+ * - Exportar todos los pagos (NDJSON o CSV)
+ * - Archivar los años cerrados y consultar su histórico
  */
 @RestController
 @RequestMapping("/pagos")
@@ -37,9 +63,33 @@ public class pagosControlador {
     @Autowired
     private pagosServicio pagosServicio;
 
-    // Servicio encargado de convertir entidad pagos a pagosDTO
+    // Servicio que devuelve los pagos paginados por cursor
     @Autowired
-    private pagosDTOServicioLista pagosDTOServicioLista;
+    private pagosDTOServicioPagina pagosDTOServicioPagina;
+
+    // Servicio que exporta todos los pagos escribiendo directamente en la respuesta
+    @Autowired
+    private exportacionPagosServicio exportacionPagosServicio;
+
+    // Servicio que genera por lotes los pagos mensuales de todos los inmuebles
+    @Autowired
+    private facturacionMensualServicio facturacionMensualServicio;
+
+    // Servicio que genera el informe de antigüedad de la deuda
+    @Autowired
+    private antiguedadDeudaServicio antiguedadDeudaServicio;
+
+    // Servicio que mantiene el resumen mensual de facturación y cobro
+    @Autowired
+    private resumenMensualServicio resumenMensualServicio;
+
+    // Servicio que evita crear pagos duplicados cuando el cliente reintenta
+    @Autowired
+    private idempotenciaServicio idempotenciaServicio;
+
+    // Servicio que archiva los años cerrados y lee su histórico
+    @Autowired
+    private archivoPagosServicio archivoPagosServicio;
 
     /**
      * Obtiene el listado completo de pagos en formato DTO.
@@ -49,16 +99,8 @@ public class pagosControlador {
     @GetMapping("/listado")
     public List<pagosDTO> obtenerListaPagos() {
 
-        // Se obtiene la lista completa de pagos desde la base de datos
-        List<pagos> pagos = pagosServicio.listarPagos();
-
-        // Se convierte la lista a DTOs
-        List<pagosDTO> respuesta = new ArrayList<>();
-
-        for (pagos todos : pagos) {
-            pagosDTO dto = pagosDTOServicioLista.convertirAPagosDTO(todos);
-            respuesta.add(dto);
-        }
+        // Se obtiene la lista completa de pagos ya en formato DTO (una sola consulta)
+        List<pagosDTO> respuesta = pagosServicio.listarPagos();
 
         logger.info("Listado de pagos DTO:");
         respuesta.forEach(reducido -> logger.info(reducido.toString()));
@@ -66,6 +108,32 @@ public class pagosControlador {
         return respuesta;
     }
 
+    /**
+     * Obtiene una página de pagos en formato DTO, paginada por cursor.
+     *
+     * La primera página se pide sin cursor; las siguientes con el
+     * "siguienteCursor" devuelto en la anterior. Filtros opcionales:
+     * anio, mes, pagado e idInmueble.
+     *
+     * URL: GET /pagos/listado/pagina?cursor=...&tamanio=50
+     */
+    @GetMapping("/listado/pagina")
+    public ResponseEntity<paginaPagosDTO> obtenerPaginaPagos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio,
+            @RequestParam(required = false) Integer anio,
+            @RequestParam(required = false) Integer mes,
+            @RequestParam(required = false) Boolean pagado,
+            @RequestParam(required = false) Integer idInmueble) {
+
+        if (mes != null) {
+            pagosServicio.validarMes(mes);
+        }
+
+        return ResponseEntity.ok(
+                pagosDTOServicioPagina.obtenerPagina(cursor, tamanio, anio, mes, pagado, idInmueble));
+    }
+
     /**
      * Obtiene un pago por su ID.
      *
@@ -74,14 +142,13 @@ public class pagosControlador {
     @GetMapping("/listado/{idPago}")
     public ResponseEntity<pagosDTO> obtenerPagoPorId(@PathVariable Integer idPago) {
 
-        pagos pago = pagosServicio.buscarPagoPorId(idPago);
+        pagosDTO dto = pagosServicio.buscarPagoDTOPorId(idPago);
 
-        if (pago == null) {
+        if (dto == null) {
             logger.warn("Pago NO encontrado con ID: " + idPago);
             return ResponseEntity.notFound().build();
         }
 
-        pagosDTO dto = pagosDTOServicioLista.convertirAPagosDTO(pago);
         logger.info("Pago encontrado DTO: " + dto);
 
         return ResponseEntity.ok(dto);
@@ -90,20 +157,36 @@ public class pagosControlador {
     /**
      * Crea un nuevo pago en la base de datos.
      *
+     * Si se envía la cabecera Idempotency-Key, los reintentos con la misma clave
+     * (y el mismo cuerpo) devuelven el pago creado la primera vez, sin crear otro.
+     * Las repeticiones llevan la cabecera Idempotent-Replayed: true.
+     *
      * URL: POST /pagos/listado/nuevo
      */
     @PostMapping("/listado/nuevo")
-    public ResponseEntity<pagos> crearPago(@Valid @RequestBody pagos pagoRecibido) {
+    public ResponseEntity<pagos> crearPago(
+            @Valid @RequestBody pagos pagoRecibido,
+            @RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia,
+            Principal usuario) {
 
         logger.info("Pago recibido para crear: " + pagoRecibido);
 
-        pagos guardado = pagosServicio.guardarPago(pagoRecibido);
+        if (claveIdempotencia == null) {
+            return ResponseEntity.ok(pagosServicio.guardarPago(pagoRecibido));
+        }
+
+        resultadoIdempotente<pagos> resultado = idempotenciaServicio.ejecutar(
+                usuario.getName(), claveIdempotencia, pagoRecibido,
+                () -> pagosServicio.guardarPago(pagoRecibido));
 
-        return ResponseEntity.ok(guardado);
+        return ResponseEntity.ok()
+                .header("Idempotent-Replayed", String.valueOf(resultado.repetido()))
+                .body(resultado.valor());
     }
 
     /**
      * Actualiza un pago existente.
+     * Si se envía "version" y no coincide con la actual, responde 409 con el pago actual.
      *
      * URL: PUT /pagos/listado/{idPago}
      */
@@ -112,28 +195,42 @@ public class pagosControlador {
             @PathVariable Integer idPago,
             @Valid @RequestBody pagos pagoRecibido) {
 
-        pagos pagoBD = pagosServicio.buscarPagoPorId(idPago);
+        // Se actualizan los datos del pago (409 si la versión enviada no es la actual)
+        pagos actualizado = pagosServicio.actualizarPago(idPago, pagoRecibido);
 
-        if (pagoBD == null) {
+        if (actualizado == null) {
             logger.warn("Pago NO encontrado para actualizar: " + idPago);
             return ResponseEntity.notFound().build();
         }
 
-        // Se actualizan los datos del pago
-        pagoBD.setAnio(pagoRecibido.getAnio());
-        pagoBD.setMes(pagoRecibido.getMes());
-        pagoBD.setMontoDeuda(pagoRecibido.getMontoDeuda());
-        pagoBD.setPagado(pagoRecibido.getPagado());
-        pagoBD.setInquilino(pagoRecibido.getInquilino());
-        pagoBD.setInmueble(pagoRecibido.getInmueble());
-
-        pagos actualizado = pagosServicio.guardarPago(pagoBD);
-
         logger.info("Pago actualizado: " + actualizado);
 
         return ResponseEntity.ok(actualizado);
     }
 
+    /**
+     * Modifica solo los campos enviados del pago.
+     * Lo habitual es marcarlo como cobrado: {"pagado": true}.
+     *
+     * URL: PATCH /pagos/listado/{idPago}
+     */
+    @PatchMapping("/listado/{idPago}")
+    public ResponseEntity<pagos> parchearPago(
+            @PathVariable Integer idPago,
+            @RequestBody ObjectNode cambios) {
+
+        pagos pago = pagosServicio.parchearPago(idPago, cambios);
+
+        if (pago == null) {
+            logger.warn("Pago NO encontrado para modificar: " + idPago);
+            return ResponseEntity.notFound().build();
+        }
+
+        logger.info("Pago modificado: " + pago);
+
+        return ResponseEntity.ok(pago);
+    }
+
     /**
      * Elimina un pago por su ID.
      *
@@ -164,17 +261,11 @@ public class pagosControlador {
     @GetMapping("/listado/porInmueble/{idInmueble}")
     public ResponseEntity<List<pagosDTO>> obtenerPagosPorInmueble(@PathVariable Integer idInmueble) {
 
-        List<pagos> lista = pagosServicio.listarPagosPorInmueble(idInmueble);
+        // Los pagos llegan ya en formato DTO
+        List<pagosDTO> respuesta = pagosServicio.listarPagosPorInmueble(idInmueble);
 
-        if (lista == null) {
+        if (respuesta.isEmpty()) {
             logger.warn("No hay pagos para el inmueble con ID: " + idInmueble);
-            return ResponseEntity.ok(new ArrayList<>());
-        }
-
-        // Conversión a DTO
-        List<pagosDTO> respuesta = new ArrayList<>();
-        for (pagos historico : lista) {
-            respuesta.add(pagosDTOServicioLista.convertirAPagosDTO(historico));
         }
 
         logger.info("Histórico de pagos DTO para inmueble " + idInmueble);
@@ -190,18 +281,27 @@ public class pagosControlador {
     @GetMapping("/listado/impagos")
     public ResponseEntity<List<pagosDTO>> obtenerImpagos() {
 
-        List<pagos> lista = pagosServicio.listarImpagos();
-        List<pagosDTO> respuesta = new ArrayList<>();
-
-        for (pagos p : lista) {
-            respuesta.add(pagosDTOServicioLista.convertirAPagosDTO(p));
-        }
+        List<pagosDTO> respuesta = pagosServicio.listarImpagos();
 
         logger.info("Listado de impagos devuelto");
 
         return ResponseEntity.ok(respuesta);
     }
 
+    /**
+     * Obtiene una página de pagos impagados, paginada por cursor.
+     *
+     * URL: GET /pagos/listado/impagos/pagina?cursor=...&tamanio=50
+     */
+    @GetMapping("/listado/impagos/pagina")
+    public ResponseEntity<paginaPagosDTO> obtenerPaginaImpagos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio) {
+
+        return ResponseEntity.ok(
+                pagosDTOServicioPagina.obtenerPagina(cursor, tamanio, null, null, false, null));
+    }
+
     /**
      * Obtiene pagos filtrados por año y mes.
      *
@@ -212,14 +312,219 @@ public class pagosControlador {
             @PathVariable Integer anio,
             @PathVariable Integer mes) {
 
-        List<pagos> lista = pagosServicio.buscarPagosPorAnioYMes(anio, mes);
+        List<pagosDTO> dto = pagosServicio.buscarPagosPorAnioYMes(anio, mes);
+
+        return ResponseEntity.ok(dto);
+    }
+
+    /**
+     * Obtiene una página de pagos de un año y mes, paginada por cursor.
+     *
+     * URL: GET /pagos/listado/porFecha/{anio}/{mes}/pagina?cursor=...&tamanio=50
+     */
+    @GetMapping("/listado/porFecha/{anio}/{mes}/pagina")
+    public ResponseEntity<paginaPagosDTO> obtenerPaginaPagosPorFecha(
+            @PathVariable Integer anio,
+            @PathVariable Integer mes,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio) {
+
+        pagosServicio.validarMes(mes);
+
+        return ResponseEntity.ok(
+                pagosDTOServicioPagina.obtenerPagina(cursor, tamanio, anio, mes, null, null));
+    }
+
+    /**
+     * Obtiene la deuda acumulada de un inmueble.
+     * Se lee de la tabla de deudas, sin recorrer el histórico de pagos.
+     *
+     * URL: GET /pagos/deuda/{idInmueble}
+     */
+    @GetMapping("/deuda/{idInmueble}")
+    public ResponseEntity<Map<String, Object>> obtenerDeudaPorInmueble(@PathVariable Integer idInmueble) {
+
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("idInmueble", idInmueble);
+        respuesta.put("montoDeuda", pagosServicio.calcularDeudaTotalPorInmueble(idInmueble));
+
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Recalcula desde cero la deuda acumulada de todos los inmuebles.
+     * Solo debería ser necesario tras cargas masivas o si se detecta un descuadre.
+     *
+     * URL: POST /pagos/deuda/reconstruir
+     */
+    @PostMapping("/deuda/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirDeudas() {
+
+        int inmuebles = pagosServicio.reconstruirDeudas();
+
+        logger.info("Deuda reconstruida para " + inmuebles + " inmuebles");
+
+        Map<String, Integer> respuesta = new HashMap<>();
+        respuesta.put("inmueblesConDeuda", inmuebles);
 
-        List<pagosDTO> dto = new ArrayList<>();
-        for (pagos conversion : lista) {
-            pagosDTO convertido = pagosDTOServicioLista.convertirAPagosDTO(conversion);
-            dto.add(convertido);
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Genera el pago de un mes para todos los inmuebles OCUPADO o CON_DEUDA
+     * en un único proceso por lotes. Si el mes ya estaba generado no crea duplicados.
+     *
+     * URL: POST /pagos/facturacion/{anio}/{mes}
+     */
+    @PostMapping("/facturacion/{anio}/{mes}")
+    public ResponseEntity<facturacionMensualDTO> generarFacturacionMensual(
+            @PathVariable Integer anio,
+            @PathVariable Integer mes) {
+
+        facturacionMensualDTO resultado = facturacionMensualServicio.generarMes(anio, mes);
+
+        logger.info("Facturación mensual generada: " + resultado);
+
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Informe de antigüedad de la deuda (0-30, 31-60, 61-90 y más de 90 días)
+     * por inmueble, por ciudad y de toda la cartera.
+     *
+     * Si no se indica anio y mes se calcula a fecha del mes actual.
+     *
+     * URL: GET /pagos/informes/antiguedadDeuda?anio=2025&mes=3
+     */
+    @GetMapping("/informes/antiguedadDeuda")
+    public ResponseEntity<informeAntiguedadDeudaDTO> obtenerAntiguedadDeuda(
+            @RequestParam(required = false) Integer anio,
+            @RequestParam(required = false) Integer mes) {
+
+        informeAntiguedadDeudaDTO informe = antiguedadDeudaServicio.generarInforme(anio, mes);
+
+        logger.info("Informe de antigüedad de deuda " + informe.getMes() + "/" + informe.getAnio()
+                + ": " + informe.getPorInmueble().size() + " inmuebles con deuda");
+
+        return ResponseEntity.ok(informe);
+    }
+
+    /**
+     * Resumen de lo facturado y cobrado en un mes, una fila por ciudad.
+     *
+     * Se lee de la tabla de resumen ya agregada, sin recorrer los pagos del mes.
+     *
+     * URL: GET /pagos/resumenMensual/{anio}/{mes}
+     */
+    @GetMapping("/resumenMensual/{anio}/{mes}")
+    public List<resumenMensualDTO> obtenerResumenMensual(
+            @PathVariable Integer anio,
+            @PathVariable Integer mes) {
+
+        pagosServicio.validarMes(mes);
+
+        return resumenMensualServicio.consultarMes(anio, mes);
+    }
+
+    /**
+     * Compara el resumen mensual con los pagos y lo reconstruye si no cuadra.
+     *
+     * URL: POST /pagos/resumenMensual/verificar
+     */
+    @PostMapping("/resumenMensual/verificar")
+    public ResponseEntity<verificacionResumenDTO> verificarResumenMensual() {
+
+        verificacionResumenDTO resultado = resumenMensualServicio.verificar();
+
+        logger.info("Verificación del resumen mensual: " + resultado);
+
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Exporta todos los pagos en NDJSON (un JSON por línea) o CSV.
+     *
+     * Los pagos se escriben en la respuesta a medida que se leen de la base
+     * de datos, sin cargar la lista completa en memoria.
+     *
+     * URL: GET /pagos/exportar?formato=ndjson
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarPagos(
+            @RequestParam(defaultValue = "ndjson") String formato) {
+
+        formatoExportacion formatoSalida = formatoExportacion.desde(formato);
+
+        boolean csv = formatoSalida == formatoExportacion.CSV;
+
+        logger.info("Exportación de pagos solicitada en formato " + formatoSalida);
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"pagos." + (csv ? "csv" : "ndjson") + "\"")
+                .body(exportacionPagosServicio.exportar(formatoSalida));
+    }
+
+    /**
+     * Archiva un año terminado con todos sus pagos cobrados: sus pagos salen
+     * de la tabla pagos y se guardan comprimidos en el archivo.
+     *
+     * URL: POST /pagos/archivo/{anio}
+     */
+    @PostMapping("/archivo/{anio}")
+    public ResponseEntity<archivoPagosDTO> archivarAnio(@PathVariable Integer anio) {
+
+        archivoPagosDTO resultado = archivoPagosServicio.archivarAnio(anio);
+
+        logger.info("Año archivado: " + resultado);
+
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Archiva todos los años terminados que tienen todos sus pagos cobrados
+     * (lo mismo que hace la tarea programada).
+     *
+     * URL: POST /pagos/archivo
+     */
+    @PostMapping("/archivo")
+    public List<archivoPagosDTO> archivarAniosCerrados() {
+        return archivoPagosServicio.archivarAniosCerrados();
+    }
+
+    /**
+     * Lista los años archivados con sus totales.
+     *
+     * URL: GET /pagos/archivo
+     */
+    @GetMapping("/archivo")
+    public List<archivoPagosDTO> obtenerAniosArchivados() {
+        return archivoPagosServicio.listarAnios(null);
+    }
+
+    /**
+     * Obtiene los pagos archivados de un año, opcionalmente de un inmueble y un mes.
+     *
+     * Es más lento que los listados normales: los pagos se descomprimen al leerlos.
+     *
+     * URL: GET /pagos/archivo/{anio}?idInmueble=...&mes=...
+     */
+    @GetMapping("/archivo/{anio}")
+    public ResponseEntity<List<pagosDTO>> obtenerPagosArchivados(
+            @PathVariable Integer anio,
+            @RequestParam(required = false) Integer idInmueble,
+            @RequestParam(required = false) Integer mes) {
+
+        if (mes != null) {
+            pagosServicio.validarMes(mes);
         }
 
-        return ResponseEntity.ok(dto);
+        if (!archivoPagosServicio.estaArchivado(anio)) {
+            logger.warn("El año " + anio + " no está archivado");
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(archivoPagosServicio.consultar(anio, idInmueble, mes));
     }
 }
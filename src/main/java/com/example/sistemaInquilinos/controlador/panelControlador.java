@@ -0,0 +1,71 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.conteoPanelDTO;
+import com.example.sistemaInquilinos.dto.memoriaPanelDTO;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.servicio.panelFiltrosServicio;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST de los paneles: conteos de inmuebles y pagos por cualquier
+ * combinación de filtros, calculados en memoria sin consultar la base de datos.
+ *
+ * Cada parámetro se puede repetir (estado=OCUPADO&estado=CON_DEUDA) para admitir
+ * varios valores; los parámetros distintos se combinan entre sí.
+ */
+@RestController // Indica que esta clase es un controlador REST
+@RequestMapping("/panel") // Ruta base de este controlador
+@CrossOrigin(origins = "http://localhost:4200") // Permite peticiones desde el cliente Angular
+public class panelControlador {
+
+    // Servicio con los índices de los paneles
+    @Autowired
+    private panelFiltrosServicio panelFiltrosServicio;
+
+    /**
+     * Cuenta los inmuebles que cumplen los filtros y, si se indica, los reparte
+     * por estado o por ciudad.
+     *
+     * URL: GET /panel/inmuebles?estado=OCUPADO&ciudad=Madrid&ciudad=Bilbao&agruparPor=estado
+     */
+    @GetMapping("/inmuebles")
+    public ResponseEntity<conteoPanelDTO> contarInmuebles(
+            @RequestParam(required = false) List<estadoInmueble> estado,
+            @RequestParam(required = false) List<String> ciudad,
+            @RequestParam(required = false) String agruparPor) {
+
+        return ResponseEntity.ok(panelFiltrosServicio.contarInmuebles(estado, ciudad, agruparPor));
+    }
+
+    /**
+     * Cuenta los pagos que cumplen los filtros ("estado" y "ciudad" son los de su inmueble)
+     * y, si se indica, los reparte por año, mes, pagado, estado o ciudad.
+     *
+     * URL: GET /panel/pagos?anio=2024&pagado=false&ciudad=Madrid&agruparPor=mes
+     */
+    @GetMapping("/pagos")
+    public ResponseEntity<conteoPanelDTO> contarPagos(
+            @RequestParam(required = false) List<Integer> anio,
+            @RequestParam(required = false) List<Integer> mes,
+            @RequestParam(required = false) Boolean pagado,
+            @RequestParam(required = false) List<estadoInmueble> estado,
+            @RequestParam(required = false) List<String> ciudad,
+            @RequestParam(required = false) String agruparPor) {
+
+        return ResponseEntity.ok(panelFiltrosServicio.contarPagos(anio, mes, pagado, estado, ciudad, agruparPor));
+    }
+
+    /**
+     * Memoria que ocupan los índices de los paneles.
+     *
+     * URL: GET /panel/memoria
+     */
+    @GetMapping("/memoria")
+    public ResponseEntity<memoriaPanelDTO> memoria() {
+        return ResponseEntity.ok(panelFiltrosServicio.memoria());
+    }
+}
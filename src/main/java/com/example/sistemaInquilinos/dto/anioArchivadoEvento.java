@@ -0,0 +1,8 @@
+package com.example.sistemaInquilinos.dto;
+
+/**
+ * Evento que publica archivoPagosServicio cuando los pagos de un año
+ * salen de la tabla pagos (todos a la vez, con un solo DELETE).
+ */
+public record anioArchivadoEvento(Integer anio) {
+}
@@ -0,0 +1,50 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la deuda pendiente repartida por antigüedad.
+ *
+ * Se usa para cada inmueble, para cada ciudad (idInmueble = null)
+ * y para toda la cartera (idInmueble y ciudad = null).
+ *
+ * La antigüedad se mide por meses desde el periodo (anio, mes) del pago
+ * hasta el mes de referencia del informe:
+ * - hasta30Dias: mes de referencia (o posterior)
+ * - de31a60Dias: un mes antes
+ * - de61a90Dias: dos meses antes
+ * - masDe90Dias: tres meses antes o más
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear instancias con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos (lo usa la consulta JPQL)
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class antiguedadDeudaDTO {
+
+    // ID del inmueble (null en los totales por ciudad y de la cartera)
+    private Integer idInmueble;
+
+    // Ciudad del inmueble (null en el total de la cartera)
+    private String ciudad;
+
+    // Importe pendiente de 0 a 30 días
+    private Double hasta30Dias;
+
+    // Importe pendiente de 31 a 60 días
+    private Double de31a60Dias;
+
+    // Importe pendiente de 61 a 90 días
+    private Double de61a90Dias;
+
+    // Importe pendiente de más de 90 días
+    private Double masDe90Dias;
+
+    // Importe pendiente total
+    private Double total;
+
+    // Número de pagos pendientes
+    private Long pagosPendientes;
+}
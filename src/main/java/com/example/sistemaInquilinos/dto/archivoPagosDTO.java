@@ -0,0 +1,35 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con los datos de un año archivado: cuántos pagos tiene,
+ * cuánto suman y cuánto ocupan antes y después de comprimirlos.
+ *
+ * Lo devuelven tanto el archivado de un año como el listado de años archivados.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el resultado con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class archivoPagosDTO {
+
+    // Año archivado
+    private Integer anio;
+
+    // Bloques guardados (uno por inmueble)
+    private Long bloques;
+
+    // Pagos archivados
+    private Long pagos;
+
+    // Suma del alquiler de los pagos archivados
+    private Double importeTotal;
+
+    // Tamaño de los pagos en JSON antes y después de comprimir, en bytes
+    private Long bytesOriginales;
+    private Long bytesComprimidos;
+}
@@ -0,0 +1,28 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.pagos;
+
+/**
+ * Atributos de un pago por los que filtran los paneles: inmueble, año, mes y si está pagado.
+ *
+ * Se leen todos al arrancar y después los publican pagosServicio y facturacionMensualServicio
+ * como evento en cada alta, cambio o baja (la baja, con todo a null salvo el ID).
+ * Llevan la versión (@Version) del pago para descartar los que lleguen atrasados.
+ */
+public record atributosPago(Integer idPago, Integer idInmueble, Integer anio, Integer mes, Boolean pagado,
+                            Long version) {
+
+    public static atributosPago de(pagos pago) {
+        Integer idInmueble = pago.getInmueble() != null ? pago.getInmueble().getIdInmueble() : null;
+        return new atributosPago(pago.getIdPago(), idInmueble, pago.getAnio(), pago.getMes(), pago.getPagado(),
+                pago.getVersion());
+    }
+
+    public static atributosPago eliminado(Integer idPago) {
+        return new atributosPago(idPago, null, null, null, null, null);
+    }
+
+    public boolean esEliminado() {
+        return idInmueble == null && anio == null && mes == null && pagado == null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.sistemaInquilinos.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Enum con los campos del inmueble que admiten autocompletado.
+ */
+public enum campoAutocompletado {
+
+    CIUDAD,
+
+    CODIGO_POSTAL;
+
+    /**
+     * Convierte el campo de la URL ("ciudad" o "codigoPostal") en un campo válido.
+     * Si no es válido, responde con un 400 (BAD_REQUEST).
+     */
+    public static campoAutocompletado desde(String texto) {
+        return switch (texto.trim().toLowerCase()) {
+            case "ciudad" -> CIUDAD;
+            case "codigopostal", "codigo_postal", "codigo-postal" -> CODIGO_POSTAL;
+            default -> throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Campo no válido (ciudad o codigoPostal)"
+            );
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.sistemaInquilinos.dto;
+
+/**
+ * Datos mínimos de un inmueble ocupado al que hay que generar el cargo del mes.
+ *
+ * Se leen en una sola consulta y se usan para insertar los pagos por lotes.
+ */
+public record cargoMensual(
+        Integer idInmueble,
+        Integer idInquilino,
+        String ciudad,
+        Double precioMensual,
+        Double deudaPrevia) {
+
+    /**
+     * Importe que se añade a la deuda del inmueble con el nuevo cargo.
+     */
+    public double importe() {
+        return precioMensual != null ? precioMensual : 0.0;
+    }
+}
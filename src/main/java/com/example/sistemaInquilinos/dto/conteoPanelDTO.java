@@ -0,0 +1,28 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO con el resultado de un filtro de los paneles: cuántos registros lo cumplen
+ * y, si se pide, cuántos de ellos hay por cada valor de otro atributo.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el conteo con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class conteoPanelDTO {
+
+    // Registros que cumplen todos los filtros
+    private Integer total;
+
+    // Reparto del total por el atributo de "agruparPor" (null si no se pide)
+    private Map<String, Integer> grupos;
+
+    // Tiempo del cálculo en memoria, en microsegundos
+    private Long microsegundos;
+}
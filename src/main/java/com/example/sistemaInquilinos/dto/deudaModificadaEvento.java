@@ -0,0 +1,11 @@
+package com.example.sistemaInquilinos.dto;
+
+/**
+ * Evento que se publica cuando un cambio en los pagos puede haber modificado
+ * la deuda de un inmueble (alta, cambio o baja de un pago, facturación mensual).
+ *
+ * Lo consume estadoInmuebleServicio para recalcular el estado del inmueble
+ * (OCUPADO / CON_DEUDA) fuera de la petición.
+ */
+public record deudaModificadaEvento(Integer idInmueble) {
+}
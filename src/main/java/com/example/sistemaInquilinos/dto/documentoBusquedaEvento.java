@@ -0,0 +1,52 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.inquilino;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evento que se publica al guardar o eliminar un inquilino o un inmueble,
+ * para actualizar el índice de búsqueda de texto (busquedaTextoServicio).
+ *
+ * Se publica ya con la versión confirmada (tras volcar el cambio): los eventos
+ * pueden aplicarse desordenados y el índice descarta los más antiguos.
+ *
+ * @param campos  Texto de los campos indexados; null si el registro se ha eliminado.
+ * @param version Versión del registro (@Version); null si se ha eliminado.
+ */
+public record documentoBusquedaEvento(tipoDocumentoBusqueda tipo, Integer id, Map<String, String> campos,
+                                      Long version) {
+
+    public static documentoBusquedaEvento de(inquilino inquilino) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        poner(campos, "nombre", inquilino.getNombre());
+        poner(campos, "dni", inquilino.getDni());
+        poner(campos, "email", inquilino.getEmail());
+        return new documentoBusquedaEvento(tipoDocumentoBusqueda.INQUILINO, inquilino.getIdInquilino(), campos,
+                inquilino.getVersion());
+    }
+
+    public static documentoBusquedaEvento de(inmueble inmueble) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        poner(campos, "direccion", inmueble.getDireccion());
+        poner(campos, "ciudad", inmueble.getCiudad());
+        return new documentoBusquedaEvento(tipoDocumentoBusqueda.INMUEBLE, inmueble.getIdInmueble(), campos,
+                inmueble.getVersion());
+    }
+
+    public static documentoBusquedaEvento eliminado(tipoDocumentoBusqueda tipo, Integer id) {
+        return new documentoBusquedaEvento(tipo, id, null, null);
+    }
+
+    public boolean esEliminado() {
+        return campos == null;
+    }
+
+    private static void poner(Map<String, String> campos, String nombre, String valor) {
+        if (valor != null && !valor.isBlank()) {
+            campos.put(nombre, valor);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+
+/**
+ * Evento que publica estadoInmuebleServicio cuando el recálculo cambia el estado
+ * de un inmueble (OCUPADO / CON_DEUDA) sin pasar por inmuebleServicio.
+ *
+ * @param version Versión del inmueble tras el cambio: el UPDATE también la incrementa.
+ */
+public record estadoInmuebleCambiadoEvento(Integer idInmueble, estadoInmueble estado, Long version) {
+}
@@ -0,0 +1,36 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de generar los cargos de un mes para todos los inmuebles ocupados.
+ *
+ * Incluye cuántos pagos se han creado y el rendimiento del proceso.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el resultado con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class facturacionMensualDTO {
+
+    // Año facturado
+    private Integer anio;
+
+    // Mes facturado (1–12)
+    private Integer mes;
+
+    // Número de pagos creados (0 si el mes ya estaba generado)
+    private Integer pagosGenerados;
+
+    // Tamaño de lote usado en las inserciones JDBC
+    private Integer tamanioLote;
+
+    // Tiempo total del proceso en milisegundos
+    private Long milisegundos;
+
+    // Rendimiento: pagos generados por segundo
+    private Double pagosPorSegundo;
+}
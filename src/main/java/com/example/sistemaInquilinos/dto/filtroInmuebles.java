@@ -0,0 +1,22 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+
+import java.util.List;
+
+/**
+ * Filtros de la búsqueda de inmuebles. Los que llegan a null (o vacíos) no se aplican.
+ *
+ * @param ciudad       Ciudad exacta.
+ * @param codigoPostal Código postal o su comienzo (por ejemplo "280" para 28001, 28002...).
+ * @param precioMinimo Precio mensual mínimo (incluido).
+ * @param precioMaximo Precio mensual máximo (incluido).
+ * @param estados      Estados admitidos.
+ */
+public record filtroInmuebles(
+        String ciudad,
+        String codigoPostal,
+        Double precioMinimo,
+        Double precioMaximo,
+        List<estadoInmueble> estados) {
+}
@@ -0,0 +1,31 @@
+package com.example.sistemaInquilinos.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Enum con los formatos disponibles para exportar pagos.
+ */
+public enum formatoExportacion {
+
+    // Un objeto JSON por línea
+    NDJSON,
+
+    // Valores separados por comas, con cabecera
+    CSV;
+
+    /**
+     * Convierte el texto recibido en la URL en un formato válido.
+     * Si no es válido, responde con un 400 (BAD_REQUEST).
+     */
+    public static formatoExportacion desde(String texto) {
+        try {
+            return formatoExportacion.valueOf(texto.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Formato de exportación no válido (ndjson o csv)"
+            );
+        }
+    }
+}
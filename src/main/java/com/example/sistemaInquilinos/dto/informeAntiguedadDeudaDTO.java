@@ -0,0 +1,36 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el informe de antigüedad de la deuda.
+ *
+ * Incluye los totales por inmueble, por ciudad y de toda la cartera
+ * a fecha del mes de referencia.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el informe con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class informeAntiguedadDeudaDTO {
+
+    // Año del mes de referencia
+    private Integer anio;
+
+    // Mes de referencia (1–12)
+    private Integer mes;
+
+    // Deuda por inmueble (solo inmuebles con pagos pendientes)
+    private List<antiguedadDeudaDTO> porInmueble;
+
+    // Deuda por ciudad
+    private List<antiguedadDeudaDTO> porCiudad;
+
+    // Deuda de toda la cartera
+    private antiguedadDeudaDTO cartera;
+}
@@ -1,5 +1,6 @@
 package com.example.sistemaInquilinos.dto;
 
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -51,4 +52,14 @@ public class inmuebleDTO {
 
     // ID del inquilino asociado (no se envía el objeto completo)
     private Integer idInquilino;
+
+    /**
+     * Constructor usado por las consultas JPQL que devuelven directamente el DTO
+     * (el estado llega como enum).
+     */
+    public inmuebleDTO(Integer idInmueble, String direccion, String ciudad, String codigoPostal,
+                       Double precioMensual, estadoInmueble estado, Integer idInquilino) {
+        this(idInmueble, direccion, ciudad, codigoPostal, precioMensual,
+                estado != null ? estado.name() : null, idInquilino);
+    }
 }
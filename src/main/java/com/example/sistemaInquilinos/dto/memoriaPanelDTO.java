@@ -0,0 +1,31 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo que ocupan en memoria los índices de los paneles.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el informe con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class memoriaPanelDTO {
+
+    // Registros indexados
+    private Integer inmuebles;
+    private Integer pagos;
+
+    // Número de mapas de bits (uno por atributo y valor)
+    private Integer mapas;
+
+    // Bytes de los mapas de bits
+    private Long bytesMapas;
+
+    // Bytes de los datos auxiliares (atributos actuales de cada registro, para poder cambiarlos)
+    private Long bytesAuxiliares;
+
+    private Long bytesTotales;
+}
@@ -0,0 +1,59 @@
+package com.example.sistemaInquilinos.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Enum con los órdenes disponibles en la búsqueda de inmuebles.
+ *
+ * Todos terminan en el ID del inmueble para que el orden sea estable
+ * y se pueda paginar por cursor.
+ */
+public enum ordenInmuebles {
+
+    // Por ID, de menor a mayor (orden por defecto)
+    ID,
+
+    // Por ID, de mayor a menor (los más recientes primero)
+    ID_DESC,
+
+    // Por precio mensual, de menor a mayor
+    PRECIO,
+
+    // Por precio mensual, de mayor a menor
+    PRECIO_DESC;
+
+    /**
+     * Indica si el orden es descendente.
+     */
+    public boolean descendente() {
+        return this == ID_DESC || this == PRECIO_DESC;
+    }
+
+    /**
+     * Indica si se ordena por precio (y el cursor debe llevar el precio).
+     */
+    public boolean porPrecio() {
+        return this == PRECIO || this == PRECIO_DESC;
+    }
+
+    /**
+     * Convierte el texto recibido en la URL en un orden válido (id por defecto).
+     * Si no es válido, responde con un 400 (BAD_REQUEST).
+     */
+    public static ordenInmuebles desde(String texto) {
+
+        if (texto == null || texto.isBlank()) {
+            return ID;
+        }
+
+        try {
+            return ordenInmuebles.valueOf(texto.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Orden no válido (id, id_desc, precio o precio_desc)"
+            );
+        }
+    }
+}
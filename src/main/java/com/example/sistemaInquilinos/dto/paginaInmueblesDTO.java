@@ -0,0 +1,30 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO que representa una página del resultado de la búsqueda de inmuebles.
+ *
+ * Igual que en los pagos, la siguiente página se pide enviando el
+ * "siguienteCursor" recibido (con los mismos filtros y orden) hasta que llegue a null.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear la página con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class paginaInmueblesDTO {
+
+    // Inmuebles de esta página, en el orden pedido
+    private List<inmuebleDTO> contenido;
+
+    // Cursor opaco para pedir la siguiente página (null si es la última)
+    private String siguienteCursor;
+
+    // Número de inmuebles pedidos por página
+    private Integer tamanio;
+}
@@ -0,0 +1,30 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO que representa una página de pagos paginada por cursor.
+ *
+ * El frontend pide la primera página sin cursor y después va enviando
+ * el "siguienteCursor" recibido hasta que llegue a null (no hay más pagos).
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear la página con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class paginaPagosDTO {
+
+    // Pagos de esta página, ordenados por ID
+    private List<pagosDTO> contenido;
+
+    // Cursor opaco para pedir la siguiente página (null si es la última)
+    private String siguienteCursor;
+
+    // Número de pagos pedidos por página
+    private Integer tamanio;
+}
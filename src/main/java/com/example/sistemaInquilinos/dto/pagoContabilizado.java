@@ -0,0 +1,42 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.pagos;
+
+/**
+ * Foto mínima de un pago con los datos que afectan a la deuda del inmueble.
+ *
+ * Se compara la foto anterior (la que hay en base de datos) con la nueva
+ * para aplicar solo la diferencia sobre la deuda acumulada, en lugar de
+ * recorrer todo el histórico de pagos del inmueble.
+ */
+public record pagoContabilizado(
+        Integer idInmueble,
+        Integer anio,
+        Integer mes,
+        Double precioAlquiler,
+        Boolean pagado) {
+
+    /**
+     * Crea la foto a partir de la entidad pago.
+     */
+    public static pagoContabilizado de(pagos pago) {
+        Integer idInmueble = pago.getInmueble() != null ? pago.getInmueble().getIdInmueble() : null;
+        return new pagoContabilizado(idInmueble, pago.getAnio(), pago.getMes(),
+                pago.getPrecioAlquiler(), pago.getPagado());
+    }
+
+    /**
+     * Un pago cuenta como deuda solo si está marcado explícitamente como NO pagado
+     * (mismo criterio que el listado de impagos).
+     */
+    public boolean pendiente() {
+        return idInmueble != null && Boolean.FALSE.equals(pagado);
+    }
+
+    /**
+     * Importe con el que el pago contribuye a la deuda del inmueble.
+     */
+    public double importePendiente() {
+        return pendiente() && precioAlquiler != null ? precioAlquiler : 0.0;
+    }
+}
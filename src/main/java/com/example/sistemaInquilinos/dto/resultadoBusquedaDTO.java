@@ -0,0 +1,38 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con el resultado de una búsqueda de texto sobre inquilinos e inmuebles.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el resultado con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class resultadoBusquedaDTO {
+
+    // Texto buscado
+    private String consulta;
+
+    // Coincidencias, de mayor a menor puntuación
+    private List<coincidencia> resultados;
+
+    // Tiempo de la búsqueda en el índice, en microsegundos
+    private Long microsegundos;
+
+    /**
+     * Un inquilino o inmueble encontrado.
+     *
+     * @param campos      Campos indexados del registro (nombre, dni, email o direccion, ciudad).
+     * @param puntuacion  Mayor cuanto mejor coincide: palabra completa, comienzo de palabra o fragmento.
+     */
+    public record coincidencia(tipoDocumentoBusqueda tipo, Integer id, Map<String, String> campos,
+                               double puntuacion) {
+    }
+}
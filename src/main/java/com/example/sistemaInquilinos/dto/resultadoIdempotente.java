@@ -0,0 +1,10 @@
+package com.example.sistemaInquilinos.dto;
+
+/**
+ * Resultado de una operación protegida con Idempotency-Key.
+ *
+ * @param valor    Respuesta de la operación (la original si es una repetición).
+ * @param repetido true si no se ha ejecutado la operación y se devuelve la respuesta guardada.
+ */
+public record resultadoIdempotente<T>(T valor, boolean repetido) {
+}
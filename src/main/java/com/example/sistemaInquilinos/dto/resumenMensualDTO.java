@@ -0,0 +1,40 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con lo facturado y cobrado en un mes para una ciudad.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear instancias con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class resumenMensualDTO {
+
+    // Año del resumen
+    private Integer anio;
+
+    // Mes del resumen (1–12)
+    private Integer mes;
+
+    // Ciudad ("" para pagos sin inmueble o sin ciudad)
+    private String ciudad;
+
+    // Suma del alquiler de todos los pagos del mes
+    private Double importeFacturado;
+
+    // Suma del alquiler de los pagos ya pagados
+    private Double importeCobrado;
+
+    // Diferencia entre lo facturado y lo cobrado
+    private Double importePendiente;
+
+    // Número de pagos del mes
+    private Long pagosFacturados;
+
+    // Número de pagos del mes ya pagados
+    private Long pagosCobrados;
+}
@@ -0,0 +1,29 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO de una sugerencia del autocompletado de ciudad o código postal,
+ * o del conteo de inmuebles bajo un prefijo.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear la sugerencia con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class sugerenciaUbicacionDTO {
+
+    // Ciudad o código postal sugerido (en el conteo, el prefijo consultado)
+    private String valor;
+
+    // Número de inmuebles con ese valor (o que empiezan por el prefijo)
+    private Integer inmuebles;
+
+    // Los mismos inmuebles, por estado
+    private Map<estadoInmueble, Integer> porEstado;
+}
@@ -0,0 +1,36 @@
+package com.example.sistemaInquilinos.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Enum con los tipos de registro que contiene el índice de búsqueda de texto.
+ */
+public enum tipoDocumentoBusqueda {
+
+    // Se indexan nombre, DNI y email
+    INQUILINO,
+
+    // Se indexan dirección y ciudad
+    INMUEBLE;
+
+    /**
+     * Convierte el texto recibido en la URL en un tipo válido (null si no se indica).
+     * Si no es válido, responde con un 400 (BAD_REQUEST).
+     */
+    public static tipoDocumentoBusqueda desde(String texto) {
+
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+
+        try {
+            return tipoDocumentoBusqueda.valueOf(texto.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Tipo de búsqueda no válido (inquilino o inmueble)"
+            );
+        }
+    }
+}
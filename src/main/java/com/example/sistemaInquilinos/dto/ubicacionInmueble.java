@@ -0,0 +1,31 @@
+package com.example.sistemaInquilinos.dto;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+
+/**
+ * Ciudad, código postal y estado de un inmueble: lo que necesita el autocompletado.
+ *
+ * Se lee de la base de datos al arrancar (sin cargar el resto del inmueble)
+ * y lo publican como evento inmuebleServicio, cada vez que guarda o elimina un inmueble,
+ * y estadoInmuebleServicio, cuando el recálculo le cambia el estado.
+ * Un inmueble eliminado se publica con los tres campos y la versión a null.
+ *
+ * @param version Versión del inmueble (@Version) ya confirmada: permite descartar los eventos atrasados.
+ */
+public record ubicacionInmueble(Integer idInmueble, String ciudad, String codigoPostal, estadoInmueble estado,
+                                Long version) {
+
+    public static ubicacionInmueble de(inmueble inmueble) {
+        return new ubicacionInmueble(inmueble.getIdInmueble(), inmueble.getCiudad(), inmueble.getCodigoPostal(),
+                inmueble.getEstado(), inmueble.getVersion());
+    }
+
+    public static ubicacionInmueble eliminado(Integer idInmueble) {
+        return new ubicacionInmueble(idInmueble, null, null, null, null);
+    }
+
+    public boolean esEliminado() {
+        return ciudad == null && codigoPostal == null && estado == null && version == null;
+    }
+}
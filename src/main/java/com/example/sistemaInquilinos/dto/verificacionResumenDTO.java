@@ -0,0 +1,26 @@
+package com.example.sistemaInquilinos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de comparar el resumen mensual guardado
+ * con el calculado desde la tabla pagos.
+ */
+@Data // Genera getters, setters, equals, hashCode y toString automáticamente
+@Builder // Permite crear el resultado con el patrón Builder
+@AllArgsConstructor // Constructor con todos los atributos
+@NoArgsConstructor // Constructor vacío necesario para serialización JSON
+public class verificacionResumenDTO {
+
+    // Filas (anio, mes, ciudad) comparadas
+    private Integer filasComprobadas;
+
+    // Filas que no coincidían (incluye las que faltaban o sobraban)
+    private Integer filasConDiferencias;
+
+    // Indica si se ha reconstruido la tabla para corregir las diferencias
+    private Boolean reconstruido;
+}
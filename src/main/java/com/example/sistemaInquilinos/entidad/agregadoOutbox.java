@@ -0,0 +1,16 @@
+package com.example.sistemaInquilinos.entidad;
+
+/**
+ * Tipo de registro al que se refiere un evento del outbox.
+ */
+public enum agregadoOutbox {
+
+    // Un pago (tabla pagos)
+    PAGO,
+
+    // Un inmueble (tabla inmueble)
+    INMUEBLE,
+
+    // Un inquilino (tabla inquilino)
+    INQUILINO
+}
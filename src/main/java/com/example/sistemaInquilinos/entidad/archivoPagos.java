@@ -0,0 +1,91 @@
+package com.example.sistemaInquilinos.entidad;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Entidad que representa un bloque de pagos archivados.
+ *
+ * Se corresponde con la tabla "archivo_pagos". Cuando un año está cerrado y todos
+ * sus pagos están cobrados, sus pagos salen de la tabla "pagos" y se guardan aquí,
+ * un bloque por (anio, inmueble) con la lista de pagos en JSON comprimido con GZIP.
+ *
+ * Así la tabla pagos solo contiene los años abiertos y sus consultas no recorren
+ * el histórico. El histórico se sigue pudiendo consultar descomprimiendo los bloques
+ * (ver archivoPagosServicio).
+ */
+@Entity // Indica que es una entidad JPA
+@Table(
+        name = "archivo_pagos", // Nombre de la tabla en la base de datos
+        indexes = {
+                // Lectura de los bloques de un año, o de un inmueble en un año
+                @Index(name = "idx_archivo_pagos_anio_inmueble", columnList = "anio, id_inmueble")
+        }
+)
+@Data // Genera getters, setters, toString, equals y hashCode
+@Builder // Permite crear los bloques con el patrón Builder
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class archivoPagos {
+
+    /**
+     * Identificador del bloque (Primary Key).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_bloque")
+    private Long idBloque;
+
+    /**
+     * Año de los pagos del bloque.
+     */
+    @Column(nullable = false)
+    private Integer anio;
+
+    /**
+     * Inmueble de los pagos del bloque (sin clave foránea: el inmueble puede borrarse después).
+     * Es null para los pagos que no tenían inmueble.
+     */
+    @Column(name = "id_inmueble")
+    private Integer idInmueble;
+
+    /**
+     * Número de pagos guardados en el bloque.
+     */
+    @Column(name = "numero_pagos", nullable = false)
+    private Integer numeroPagos;
+
+    /**
+     * Suma del alquiler de los pagos del bloque (para los totales sin descomprimir).
+     */
+    @Column(name = "importe_total", nullable = false)
+    private Double importeTotal;
+
+    /**
+     * Tamaño del bloque sin comprimir y comprimido, en bytes.
+     */
+    @Column(name = "bytes_originales", nullable = false)
+    private Integer bytesOriginales;
+
+    @Column(name = "bytes_comprimidos", nullable = false)
+    private Integer bytesComprimidos;
+
+    /**
+     * Lista de pagosDTO en JSON, comprimida con GZIP.
+     */
+    @ToString.Exclude
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] datos;
+
+    /**
+     * Momento en que se archivó el bloque.
+     */
+    @Column(name = "fecha_archivo", nullable = false)
+    private Instant fechaArchivo;
+}
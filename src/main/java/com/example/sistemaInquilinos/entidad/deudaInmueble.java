@@ -0,0 +1,44 @@
+package com.example.sistemaInquilinos.entidad;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad que representa la deuda acumulada de un Inmueble.
+ *
+ * Se corresponde con la tabla "deuda_inmueble" en la base de datos.
+ * Guarda el total pendiente ya sumado, de forma que consultar o actualizar
+ * la deuda de un inmueble no depende de cuántos pagos tenga en su histórico.
+ *
+ * Se mantiene aplicando diferencias (deltas) cada vez que se crea,
+ * actualiza o elimina un pago, y puede reconstruirse desde cero.
+ */
+@Entity // Indica que es una entidad JPA
+@Table(name = "deuda_inmueble") // Nombre de la tabla en la base de datos
+@Data // Genera getters, setters, toString, equals y hashCode
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class deudaInmueble {
+
+    /**
+     * ID del inmueble al que pertenece la deuda (Primary Key).
+     * No se genera automáticamente: es el mismo ID que el del inmueble.
+     */
+    @Id
+    @Column(name = "id_inmueble")
+    private Integer idInmueble;
+
+    /**
+     * Suma del alquiler de todos los pagos no pagados del inmueble.
+     */
+    @Column(name = "monto_deuda", nullable = false)
+    private Double montoDeuda;
+
+    /**
+     * Número de pagos no pagados del inmueble.
+     */
+    @Column(name = "pagos_pendientes", nullable = false)
+    private Long pagosPendientes;
+}
@@ -0,0 +1,69 @@
+package com.example.sistemaInquilinos.entidad;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entidad que representa un cambio pendiente de enviar a otros sistemas
+ * (contabilidad, notificaciones...). Tabla "evento_outbox".
+ *
+ * Se inserta en la misma transacción que el cambio del pago, inmueble o inquilino:
+ * si la transacción se deshace, el evento tampoco existe. El publicadorOutbox
+ * lee la tabla por lotes, entrega los eventos y borra los ya entregados.
+ */
+@Entity // Indica que es una entidad JPA
+@Table(name = "evento_outbox") // Nombre de la tabla en la base de datos
+@Data // Genera getters, setters, toString, equals y hashCode
+@Builder // Permite crear eventos con el patrón Builder
+@AllArgsConstructor // Constructor con todos los campos (necesario para @Builder)
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class eventoOutbox {
+
+    /**
+     * Identificador del evento. Los eventos se entregan en orden de ID.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long idEvento;
+
+    /**
+     * Tipo de registro que ha cambiado.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "agregado", nullable = false, length = 20)
+    private agregadoOutbox agregado;
+
+    /**
+     * ID del pago, inmueble o inquilino que ha cambiado.
+     */
+    @Column(name = "id_agregado", nullable = false)
+    private Integer idAgregado;
+
+    /**
+     * Alta, modificación o baja.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private tipoEventoOutbox tipo;
+
+    /**
+     * Datos del registro después del cambio, en JSON (null en las bajas).
+     * Se envía tal cual dentro del evento, sin volver a escaparlo.
+     */
+    @JsonRawValue
+    @Column(name = "carga", columnDefinition = "TEXT")
+    private String carga;
+
+    /**
+     * Momento en que se confirmó el cambio (para medir el retraso de entrega).
+     */
+    @Column(name = "fecha_creacion", nullable = false)
+    private Instant fechaCreacion;
+}
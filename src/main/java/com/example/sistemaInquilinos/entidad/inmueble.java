@@ -1,9 +1,14 @@
 package com.example.sistemaInquilinos.entidad;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.List;
 
@@ -15,10 +20,29 @@ import java.util.List;
  * el inquilino asociado y su historial de pagos.
  */
 @Entity // Indica que esta clase es una entidad JPA
-@Table(name = "inmueble") // Nombre de la tabla en la base de datos
+@Table(
+        name = "inmueble", // Nombre de la tabla en la base de datos
+        indexes = {
+                // Búsqueda de inmuebles (inmuebleRepositorioBusqueda): cada filtro de igualdad
+                // seguido del precio, para filtrar por rango de precio u ordenar por él
+                // sin leer las filas de otros valores. El ID va al final para el cursor.
+                @Index(name = "idx_inmueble_ciudad_precio", columnList = "ciudad, precio_mensual, id_inmueble"),
+                @Index(name = "idx_inmueble_cp_precio", columnList = "codigo_postal, precio_mensual, id_inmueble"),
+                @Index(name = "idx_inmueble_estado_precio", columnList = "estado, precio_mensual, id_inmueble"),
+                // Mismos filtros con el orden por defecto (por ID): ciudad o un solo estado
+                // se leen ya ordenados. El código postal es un prefijo (rango), así que
+                // con él se ordena siempre; el índice anterior limita las filas leídas.
+                @Index(name = "idx_inmueble_ciudad_id", columnList = "ciudad, id_inmueble"),
+                @Index(name = "idx_inmueble_estado_id", columnList = "estado, id_inmueble"),
+                // Sin filtros: orden y rangos de precio
+                @Index(name = "idx_inmueble_precio", columnList = "precio_mensual, id_inmueble")
+        }
+)
+@DynamicUpdate // Los UPDATE incluyen solo las columnas que cambian
 @Data // Genera getters, setters, toString, equals y hashCode automáticamente
 @AllArgsConstructor // Constructor con todos los campos
 @NoArgsConstructor // Constructor vacío (necesario para JPA)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // El inmueble de un pago puede ser una referencia LAZY
 public class inmueble {
 
     /**
@@ -72,7 +96,24 @@ public class inmueble {
      *
      * mappedBy = "inmueble":
      * Indica que la relación está controlada desde la entidad "pagos".
+     *
+     * @JsonIgnore: no se envía en el JSON del inmueble (cada pago vuelve a incluir
+     * el inmueble y se produciría una recursión infinita). El histórico de pagos
+     * se consulta en GET /pagos/listado/porInmueble/{idInmueble}.
+     * Por el mismo motivo se excluye de toString, equals y hashCode.
      */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "inmueble")
     private List<pagos> pagos;
+
+    /**
+     * Versión del inmueble para el bloqueo optimista (@Version).
+     * Hibernate la incrementa en cada UPDATE y lo rechaza si otro cambio
+     * se ha guardado antes. Las filas que ya existían empiezan en 0.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
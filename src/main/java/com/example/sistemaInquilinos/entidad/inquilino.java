@@ -1,9 +1,11 @@
 package com.example.sistemaInquilinos.entidad;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Entidad que representa a un Inquilino dentro del sistema.
@@ -16,6 +18,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor // Constructor con todos los atributos
 @NoArgsConstructor  // Constructor vacío necesario para JPA
 @Table(name = "inquilino") // Nombre de la tabla en la base de datos
+@DynamicUpdate // El UPDATE solo incluye las columnas modificadas (PATCH)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Permite enviar en JSON el proxy LAZY del inquilino de un inmueble
 public class inquilino {
 
     /**
@@ -39,5 +43,8 @@ public class inquilino {
     // Email del inquilino
     private String email;
 
-
+    // Versión para el bloqueo optimista: cambia en cada actualización (las filas antiguas empiezan en 0)
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
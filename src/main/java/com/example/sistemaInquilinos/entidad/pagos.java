@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Entidad que representa un Pago dentro del sistema.
@@ -14,10 +15,23 @@ import lombok.NoArgsConstructor;
  * Cada pago está asociado a un inquilino y a un inmueble.
  */
 @Entity // Indica que es una entidad JPA
-@Table(name = "pagos") // Nombre de la tabla en la base de datos
+@Table(
+        name = "pagos", // Nombre de la tabla en la base de datos
+        // Un inmueble tiene como mucho un pago por mes: ni dos facturaciones a la vez
+        // (aunque sea en instancias distintas) ni un pago manual pueden duplicarlo.
+        // Su índice también sirve para buscar el pago de un inmueble en un mes (facturación mensual)
+        uniqueConstraints = @UniqueConstraint(name = "uk_pagos_inmueble_periodo",
+                columnNames = {"id_inmueble", "anio", "mes"}),
+        indexes = {
+                // Paginación por cursor de impagos y de pagos por año y mes
+                @Index(name = "idx_pagos_pagado_id", columnList = "pagado, id_pago"),
+                @Index(name = "idx_pagos_periodo_id", columnList = "anio, mes, id_pago")
+        }
+)
 @Data // Genera getters, setters, toString, equals y hashCode
 @AllArgsConstructor // Constructor con todos los campos
 @NoArgsConstructor // Constructor vacío necesario para JPA
+@DynamicUpdate // Al marcar un pago como pagado se actualiza solo esa columna (y la versión)
 public class pagos {
 
     /**
@@ -86,4 +100,14 @@ public class pagos {
             referencedColumnName = "id_inmueble" // PK en tabla inmueble
     )
     private inmueble inmueble;
+
+    /**
+     * Versión del pago (bloqueo optimista).
+     * Si dos peticiones modifican el mismo pago a la vez, la segunda en guardar
+     * falla en lugar de sobrescribir a la primera. Las filas existentes empiezan en 0
+     * (también los pagos que inserta la facturación mensual).
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
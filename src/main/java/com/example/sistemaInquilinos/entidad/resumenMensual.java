@@ -0,0 +1,55 @@
+package com.example.sistemaInquilinos.entidad;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad que representa el resumen de facturación y cobro de un mes en una ciudad.
+ *
+ * Se corresponde con la tabla "resumen_mensual" en la base de datos.
+ * Guarda ya sumados los importes de los pagos de cada (anio, mes, ciudad),
+ * de forma que los paneles mensuales leen unas pocas filas en lugar de
+ * agregar toda la tabla pagos.
+ *
+ * Igual que la deuda por inmueble, se mantiene aplicando diferencias cada vez que
+ * pagosServicio crea, actualiza o elimina un pago, y puede reconstruirse desde cero.
+ */
+@Entity // Indica que es una entidad JPA
+@Table(name = "resumen_mensual") // Nombre de la tabla en la base de datos
+@Data // Genera getters, setters, toString, equals y hashCode
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class resumenMensual {
+
+    /**
+     * Clave compuesta (anio, mes, ciudad).
+     */
+    @EmbeddedId
+    private resumenMensualId id;
+
+    /**
+     * Suma del alquiler de todos los pagos del mes (facturado).
+     */
+    @Column(name = "importe_facturado", nullable = false)
+    private Double importeFacturado;
+
+    /**
+     * Suma del alquiler de los pagos del mes marcados como pagados (cobrado).
+     */
+    @Column(name = "importe_cobrado", nullable = false)
+    private Double importeCobrado;
+
+    /**
+     * Número de pagos del mes.
+     */
+    @Column(name = "pagos_facturados", nullable = false)
+    private Long pagosFacturados;
+
+    /**
+     * Número de pagos del mes marcados como pagados.
+     */
+    @Column(name = "pagos_cobrados", nullable = false)
+    private Long pagosCobrados;
+}
@@ -0,0 +1,34 @@
+package com.example.sistemaInquilinos.entidad;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Clave compuesta del resumen mensual: año, mes y ciudad.
+ *
+ * Los pagos sin inmueble (o de un inmueble sin ciudad) se agrupan
+ * con ciudad vacía ("").
+ */
+@Embeddable // Clave que se guarda como columnas de la propia tabla
+@Data // Genera getters, setters, toString, equals y hashCode (necesarios en una clave)
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class resumenMensualId implements Serializable {
+
+    // Año del resumen
+    @Column(nullable = false)
+    private Integer anio;
+
+    // Mes del resumen (1–12)
+    @Column(nullable = false)
+    private Integer mes;
+
+    // Ciudad de los inmuebles resumidos
+    @Column(nullable = false)
+    private String ciudad;
+}
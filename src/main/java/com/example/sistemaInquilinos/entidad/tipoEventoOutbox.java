@@ -0,0 +1,16 @@
+package com.example.sistemaInquilinos.entidad;
+
+/**
+ * Tipo de cambio que registra un evento del outbox.
+ */
+public enum tipoEventoOutbox {
+
+    // Se ha dado de alta el registro
+    CREADO,
+
+    // Se han modificado uno o varios campos del registro
+    MODIFICADO,
+
+    // Se ha eliminado el registro (el evento no lleva datos)
+    ELIMINADO
+}
@@ -0,0 +1,51 @@
+package com.example.sistemaInquilinos.entidad;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entidad que representa un token revocado antes de caducar (logout o refresh ya usado).
+ *
+ * Se corresponde con la tabla "token_revocado". Solo se guarda el id del token (jti)
+ * y su expiración: cuando el token caduca la fila deja de hacer falta y se borra.
+ * La comprobación en cada petición no lee esta tabla, sino la copia en memoria
+ * de tokensRevocadosServicio; la tabla permite recuperarla al reiniciar y pasar
+ * a cada instancia lo que revocan las demás.
+ */
+@Entity // Indica que es una entidad JPA
+@Table(
+        name = "token_revocado", // Nombre de la tabla en la base de datos
+        indexes = {
+                // Limpieza periódica de los ya caducados
+                @Index(name = "idx_token_revocado_expiracion", columnList = "expiracion"),
+                // Sincronización periódica entre instancias (los revocados desde la anterior)
+                @Index(name = "idx_token_revocado_revocado", columnList = "revocado")
+        }
+)
+@Data // Genera getters, setters, toString, equals y hashCode
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor // Constructor vacío necesario para JPA
+public class tokenRevocado {
+
+    /**
+     * Id del token (claim "jti").
+     */
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    /**
+     * Momento en el que el token habría caducado igualmente.
+     */
+    @Column(nullable = false)
+    private Instant expiracion;
+
+    /**
+     * Momento en el que se revocó (null en las filas anteriores a esta columna).
+     */
+    private Instant revocado;
+}
@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -54,6 +55,13 @@ public class usuario implements UserDetails {
     @Column(name = "role")
     private Role role;
 
+    /**
+     * Momento del último cambio del usuario (rol, contraseña...).
+     * Los tokens de refresco emitidos hasta entonces ya no valen, también tras reiniciar.
+     */
+    @Column(name = "revocado_en")
+    private Instant revocadoEn;
+
     /**
      * Devuelve los permisos del usuario a Spring Security.
      *
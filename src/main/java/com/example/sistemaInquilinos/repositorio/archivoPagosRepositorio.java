@@ -0,0 +1,47 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.dto.archivoPagosDTO;
+import com.example.sistemaInquilinos.entidad.archivoPagos;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repositorio JPA para los bloques de pagos archivados.
+ *
+ * Todas las lecturas van por el índice (anio, id_inmueble).
+ */
+public interface archivoPagosRepositorio extends JpaRepository<archivoPagos, Long> {
+
+    /**
+     * Bloques de un año, ordenados por inmueble.
+     */
+    List<archivoPagos> findByAnioOrderByIdInmuebleAsc(Integer anio);
+
+    /**
+     * Bloque(s) de un inmueble en un año.
+     */
+    List<archivoPagos> findByAnioAndIdInmueble(Integer anio, Integer idInmueble);
+
+    /**
+     * Años que ya tienen pagos archivados.
+     */
+    @Query("SELECT DISTINCT a.anio FROM archivoPagos a ORDER BY a.anio")
+    List<Integer> listarAnios();
+
+    /**
+     * Totales de cada año archivado, sin descomprimir ningún bloque.
+     */
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.archivoPagosDTO(
+                a.anio, COUNT(a), SUM(a.numeroPagos), SUM(a.importeTotal),
+                SUM(a.bytesOriginales), SUM(a.bytesComprimidos))
+            FROM archivoPagos a
+            WHERE (:anio IS NULL OR a.anio = :anio)
+            GROUP BY a.anio
+            ORDER BY a.anio
+            """)
+    List<archivoPagosDTO> resumirAnios(@Param("anio") Integer anio);
+}
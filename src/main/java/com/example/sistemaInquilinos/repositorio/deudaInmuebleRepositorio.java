@@ -0,0 +1,80 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.entidad.deudaInmueble;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repositorio JPA para la entidad deudaInmueble.
+ *
+ * Permite leer y actualizar la deuda acumulada de cada inmueble
+ * por su ID (una sola fila por inmueble).
+ */
+public interface deudaInmuebleRepositorio extends JpaRepository<deudaInmueble, Integer> {
+
+    /**
+     * Pone a cero la deuda de todos los inmuebles. Al ser un UPDATE de toda la tabla
+     * bloquea todas sus filas hasta el final de la transacción: los pagos que se
+     * guardan a la vez (bloquear) esperan a que termine la reconstrucción.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE deuda_inmueble SET monto_deuda = 0, pagos_pendientes = 0")
+    int ponerACero();
+
+    /**
+     * Escribe la deuda de cada inmueble calculada desde la tabla pagos en una sola sentencia.
+     * Las filas que ya existen se sobrescriben y las que faltan se crean, así que no
+     * falla si un pago ha creado la fila de su inmueble mientras tanto.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO deuda_inmueble (id_inmueble, monto_deuda, pagos_pendientes)
+            SELECT id_inmueble, COALESCE(SUM(precio_alquiler), 0), COUNT(*)
+            FROM pagos
+            WHERE pagado = false AND id_inmueble IS NOT NULL
+            GROUP BY id_inmueble
+            ON DUPLICATE KEY UPDATE
+                monto_deuda = VALUES(monto_deuda),
+                pagos_pendientes = VALUES(pagos_pendientes)
+            """)
+    void recalcularDesdePagos();
+
+    /**
+     * Número de inmuebles con algún pago pendiente.
+     */
+    long countByPagosPendientesGreaterThan(Long pagosPendientes);
+
+    /**
+     * Crea la fila de deuda del inmueble a cero si todavía no existe.
+     * Si ya existe no la modifica.
+     *
+     * No vuelca antes los cambios pendientes (FLUSH_MODE COMMIT): el pago que se está
+     * guardando se escribe una sola vez al confirmar, con un único incremento de versión.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(nativeQuery = true, value = """
+            INSERT INTO deuda_inmueble (id_inmueble, monto_deuda, pagos_pendientes)
+            VALUES (:idInmueble, 0, 0)
+            ON DUPLICATE KEY UPDATE id_inmueble = id_inmueble
+            """)
+    int crearSiNoExiste(@Param("idInmueble") Integer idInmueble);
+
+    /**
+     * Lee la deuda del inmueble bloqueando su fila hasta el final de la transacción.
+     *
+     * Equivale a: SELECT ... FROM deuda_inmueble WHERE id_inmueble = ? FOR UPDATE
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM deudaInmueble d WHERE d.idInmueble = :idInmueble")
+    Optional<deudaInmueble> bloquear(@Param("idInmueble") Integer idInmueble);
+}
@@ -0,0 +1,19 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Repositorio JPA para los eventos pendientes del outbox.
+ */
+public interface eventoOutboxRepositorio extends JpaRepository<eventoOutbox, Long> {
+
+    /**
+     * Siguiente lote de eventos pendientes, del más antiguo al más reciente.
+     * Se resuelve con la clave primaria: no necesita índices adicionales.
+     */
+    List<eventoOutbox> findAllByOrderByIdEventoAsc(Limit limite);
+}
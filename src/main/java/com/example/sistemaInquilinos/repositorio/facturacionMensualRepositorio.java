@@ -0,0 +1,170 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.dto.cargoMensual;
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Repositorio JDBC para la generación masiva de los cargos mensuales.
+ *
+ * No usa JPA a propósito: los pagos tienen ID IDENTITY y Hibernate no puede
+ * agrupar en lotes sus INSERT. Con JdbcTemplate se envían por lotes
+ * (y en MySQL, con rewriteBatchedStatements, como INSERT multi-fila).
+ */
+@Repository // Componente de acceso a datos gestionado por Spring
+@RequiredArgsConstructor // Inyección automática del JdbcTemplate mediante constructor
+public class facturacionMensualRepositorio {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Obtiene los inmuebles ocupados (OCUPADO o CON_DEUDA) que todavía
+     * no tienen pago para ese año y mes, junto con su deuda actual.
+     *
+     * El NOT EXISTS hace que generar dos veces el mismo mes no cree duplicados
+     * (y la restricción única de pagos, que no los cree otra generación a la vez).
+     */
+    public List<cargoMensual> buscarInmueblesSinCargo(int anio, int mes) {
+        return jdbcTemplate.query("""
+                        SELECT i.id_inmueble, i.id_inquilino, i.ciudad, i.precio_mensual,
+                               COALESCE(d.monto_deuda, 0) AS deuda
+                        FROM inmueble i
+                        LEFT JOIN deuda_inmueble d ON d.id_inmueble = i.id_inmueble
+                        WHERE i.estado IN ('OCUPADO', 'CON_DEUDA')
+                          AND NOT EXISTS (
+                              SELECT 1 FROM pagos p
+                              WHERE p.id_inmueble = i.id_inmueble AND p.anio = ? AND p.mes = ?)
+                        ORDER BY i.id_inmueble
+                        """,
+                (rs, fila) -> new cargoMensual(
+                        rs.getInt("id_inmueble"),
+                        (Integer) rs.getObject("id_inquilino"),
+                        rs.getString("ciudad"),
+                        (Double) rs.getObject("precio_mensual"),
+                        rs.getDouble("deuda")),
+                anio, mes);
+    }
+
+    /**
+     * Inserta un pago no pagado por cada cargo, en lotes del tamaño indicado.
+     *
+     * @return IDs generados de los pagos, en el mismo orden que los cargos.
+     */
+    public List<Integer> insertarPagos(int anio, int mes, List<cargoMensual> cargos, int tamanioLote) {
+
+        List<Integer> ids = new ArrayList<>(cargos.size());
+
+        for (int desde = 0; desde < cargos.size(); desde += tamanioLote) {
+
+            List<cargoMensual> lote = cargos.subList(desde, Math.min(desde + tamanioLote, cargos.size()));
+            GeneratedKeyHolder claves = new GeneratedKeyHolder();
+
+            jdbcTemplate.batchUpdate(conexion -> conexion.prepareStatement("""
+                            INSERT INTO pagos (anio, mes, precio_alquiler, monto_deuda, pagado, id_inquilino, id_inmueble)
+                            VALUES (?, ?, ?, ?, false, ?, ?)
+                            """, new String[]{"id_pago"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            cargoMensual cargo = lote.get(i);
+                            ps.setInt(1, anio);
+                            ps.setInt(2, mes);
+                            ps.setObject(3, cargo.precioMensual(), Types.DOUBLE);
+                            // Igual que en guardarPago: deuda del inmueble incluyendo este pago
+                            ps.setDouble(4, cargo.deudaPrevia() + cargo.importe());
+                            ps.setObject(5, cargo.idInquilino(), Types.INTEGER);
+                            ps.setInt(6, cargo.idInmueble());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return lote.size();
+                        }
+                    },
+                    claves);
+
+            // Una fila de claves por pago insertado, con su id_pago
+            claves.getKeyList().forEach(fila -> ids.add(((Number) fila.values().iterator().next()).intValue()));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Suma cada cargo a la deuda acumulada de su inmueble, en lotes.
+     * Si el inmueble aún no tiene fila de deuda, se crea en la misma sentencia.
+     */
+    public void sumarDeudas(List<cargoMensual> cargos, int tamanioLote) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO deuda_inmueble (id_inmueble, monto_deuda, pagos_pendientes)
+                        VALUES (?, ?, 1)
+                        ON DUPLICATE KEY UPDATE
+                            monto_deuda = monto_deuda + VALUES(monto_deuda),
+                            pagos_pendientes = pagos_pendientes + 1
+                        """,
+                cargos, tamanioLote, (ps, cargo) -> {
+                    ps.setInt(1, cargo.idInmueble());
+                    ps.setDouble(2, cargo.importe());
+                });
+    }
+
+    /**
+     * Suma los cargos del mes al resumen mensual: una fila por ciudad.
+     * Los cargos son pagos nuevos no pagados, así que solo aumentan lo facturado.
+     */
+    public void sumarResumen(int anio, int mes, List<cargoMensual> cargos, int tamanioLote) {
+
+        Map<String, DoubleSummaryStatistics> porCiudad = cargos.stream()
+                .collect(Collectors.groupingBy(
+                        cargo -> cargo.ciudad() != null ? cargo.ciudad() : "",
+                        Collectors.summarizingDouble(cargoMensual::importe)));
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO resumen_mensual
+                            (anio, mes, ciudad, importe_facturado, importe_cobrado, pagos_facturados, pagos_cobrados)
+                        VALUES (?, ?, ?, ?, 0, ?, 0)
+                        ON DUPLICATE KEY UPDATE
+                            importe_facturado = importe_facturado + VALUES(importe_facturado),
+                            pagos_facturados = pagos_facturados + VALUES(pagos_facturados)
+                        """,
+                new ArrayList<>(porCiudad.entrySet()), tamanioLote, (ps, ciudad) -> {
+                    ps.setInt(1, anio);
+                    ps.setInt(2, mes);
+                    ps.setString(3, ciudad.getKey());
+                    ps.setDouble(4, ciudad.getValue().getSum());
+                    ps.setLong(5, ciudad.getValue().getCount());
+                });
+    }
+
+    /**
+     * Inserta en el outbox los eventos de los pagos generados, en lotes
+     * (con JPA serían un INSERT por evento, igual que los pagos).
+     */
+    public void insertarEventos(List<eventoOutbox> eventosOutbox, int tamanioLote) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO evento_outbox (agregado, id_agregado, tipo, carga, fecha_creacion)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                eventosOutbox, tamanioLote, (ps, evento) -> {
+                    ps.setString(1, evento.getAgregado().name());
+                    ps.setInt(2, evento.getIdAgregado());
+                    ps.setString(3, evento.getTipo().name());
+                    ps.setString(4, evento.getCarga());
+                    ps.setTimestamp(5, Timestamp.from(evento.getFechaCreacion()));
+                });
+    }
+}
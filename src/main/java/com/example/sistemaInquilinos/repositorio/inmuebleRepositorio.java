@@ -1,7 +1,17 @@
 package com.example.sistemaInquilinos.repositorio;
 
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
 import com.example.sistemaInquilinos.entidad.inmueble;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio JPA para la entidad Inmueble.
@@ -14,8 +24,72 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * - findById(id)     -> buscar un inmueble por ID
  * - save(inmueble)  -> guardar o actualizar un inmueble
  * - deleteById(id)  -> eliminar un inmueble por ID
+ *
+ * La búsqueda con filtros se hereda de inmuebleRepositorioBusqueda.
  */
-public interface inmuebleRepositorio extends JpaRepository<inmueble, Integer> {
-    // No es necesario añadir métodos personalizados de momento,
-    // ya que JpaRepository cubre todas las operaciones básicas.
+public interface inmuebleRepositorio extends JpaRepository<inmueble, Integer>, inmuebleRepositorioBusqueda {
+
+    /**
+     * Busca un inmueble por su ID cargando también su inquilino en la misma consulta.
+     *
+     * Se usa para guardar el inmueble en caché: fuera de la sesión de Hibernate
+     * el inquilino LAZY ya no podría cargarse.
+     *
+     * Equivale a: SELECT ... FROM inmueble LEFT JOIN inquilino ... WHERE id_inmueble = ?
+     */
+    @EntityGraph(attributePaths = "inquilino")
+    @Query("SELECT i FROM inmueble i WHERE i.idInmueble = :idInmueble")
+    Optional<inmueble> buscarConInquilino(@Param("idInmueble") Integer idInmueble);
+
+    /**
+     * Obtiene solo la ciudad guardada de un inmueble, sin cargarlo.
+     *
+     * Equivale a: SELECT ciudad FROM inmueble WHERE id_inmueble = ?
+     */
+    @Query("SELECT i.ciudad FROM inmueble i WHERE i.idInmueble = :idInmueble")
+    Optional<String> buscarCiudad(@Param("idInmueble") Integer idInmueble);
+
+    /**
+     * Cambia el estado del inmueble solo si está en uno de los estados indicados
+     * y no tiene ya el nuevo estado. Incrementa la versión (bloqueo optimista).
+     *
+     * @return 1 si se ha cambiado, 0 si no hacía falta.
+     */
+    @Modifying
+    @Query("""
+            UPDATE VERSIONED inmueble i
+            SET i.estado = :estado
+            WHERE i.idInmueble = :idInmueble
+              AND i.estado IN :desde
+              AND i.estado <> :estado
+            """)
+    int cambiarEstado(@Param("idInmueble") Integer idInmueble,
+                      @Param("estado") estadoInmueble estado,
+                      @Param("desde") Collection<estadoInmueble> desde);
+
+    /**
+     * IDs de los inmuebles que están en alguno de los estados indicados.
+     *
+     * Equivale a: SELECT id_inmueble FROM inmueble WHERE estado IN (...)
+     */
+    @Query("SELECT i.idInmueble FROM inmueble i WHERE i.estado IN :estados ORDER BY i.idInmueble")
+    List<Integer> listarIdsPorEstado(@Param("estados") Collection<estadoInmueble> estados);
+
+    /**
+     * ID y versión de todos los inmuebles, sin cargar el resto de columnas.
+     * Con esto se comprueba al arrancar que el índice de búsqueda guardado está al día.
+     */
+    @Query("SELECT i.idInmueble, i.version FROM inmueble i")
+    List<Object[]> listarVersiones();
+
+    /**
+     * Ciudad, código postal, estado y versión de todos los inmuebles, sin cargar el resto
+     * de columnas ni el inquilino. Con esto se crea el autocompletado al arrancar.
+     */
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.ubicacionInmueble(
+                i.idInmueble, i.ciudad, i.codigoPostal, i.estado, i.version)
+            FROM inmueble i
+            """)
+    List<ubicacionInmueble> listarUbicaciones();
 }
@@ -0,0 +1,27 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.dto.filtroInmuebles;
+import com.example.sistemaInquilinos.dto.inmuebleDTO;
+import com.example.sistemaInquilinos.dto.ordenInmuebles;
+
+import java.util.List;
+
+/**
+ * Búsqueda de inmuebles con filtros combinables, orden y paginación por cursor.
+ *
+ * Se implementa a mano (inmuebleRepositorioBusquedaImpl) porque la consulta
+ * cambia según los filtros recibidos, e inmuebleRepositorio la hereda.
+ */
+public interface inmuebleRepositorioBusqueda {
+
+    /**
+     * Devuelve como máximo "limite" inmuebles que cumplen los filtros, en el orden
+     * indicado y a continuación de la posición (precioDespuesDe, idDespuesDe).
+     *
+     * @param idDespuesDe     ID del último inmueble de la página anterior (null en la primera).
+     * @param precioDespuesDe Precio del último inmueble de la página anterior
+     *                        (solo en los órdenes por precio; puede ser null).
+     */
+    List<inmuebleDTO> buscar(filtroInmuebles filtro, ordenInmuebles orden,
+                             Integer idDespuesDe, Double precioDespuesDe, int limite);
+}
@@ -0,0 +1,139 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.dto.filtroInmuebles;
+import com.example.sistemaInquilinos.dto.inmuebleDTO;
+import com.example.sistemaInquilinos.dto.ordenInmuebles;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de la búsqueda de inmuebles.
+ *
+ * La consulta JPQL se construye solo con los filtros recibidos, en lugar de usar
+ * condiciones del tipo "(:ciudad IS NULL OR i.ciudad = :ciudad)": así la base de datos
+ * ve cada filtro tal cual y puede elegir el índice compuesto que le corresponde
+ * (ver los índices de la entidad inmueble).
+ *
+ * La paginación es por cursor (keyset) sobre (precio, id) o (id), igual que en los pagos:
+ * cada página cuesta lo mismo esté donde esté, sin OFFSET ni COUNT.
+ *
+ * Equivale a:
+ * SELECT ... FROM inmueble WHERE ciudad = ? AND precio_mensual BETWEEN ? AND ?
+ *   AND (precio_mensual, id_inmueble) > (?, ?) ORDER BY precio_mensual, id_inmueble LIMIT ?
+ */
+public class inmuebleRepositorioBusquedaImpl implements inmuebleRepositorioBusqueda {
+
+    /**
+     * Proyección directa a inmuebleDTO: el ID del inquilino se lee de la FK, sin JOIN.
+     */
+    private static final String SELECT_DTO = """
+            SELECT new com.example.sistemaInquilinos.dto.inmuebleDTO(
+                i.idInmueble, i.direccion, i.ciudad, i.codigoPostal, i.precioMensual, i.estado,
+                i.inquilino.idInquilino)
+            FROM inmueble i
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<inmuebleDTO> buscar(filtroInmuebles filtro, ordenInmuebles orden,
+                                    Integer idDespuesDe, Double precioDespuesDe, int limite) {
+
+        List<String> condiciones = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+
+        // ===== FILTROS =====
+        if (filtro.ciudad() != null) {
+            condiciones.add("i.ciudad = :ciudad");
+            parametros.put("ciudad", filtro.ciudad());
+        }
+        if (filtro.codigoPostal() != null) {
+            // Búsqueda por prefijo: sigue pudiendo usar el índice
+            condiciones.add("i.codigoPostal LIKE :codigoPostal ESCAPE '!'");
+            parametros.put("codigoPostal", escaparLike(filtro.codigoPostal()) + "%");
+        }
+        if (filtro.precioMinimo() != null) {
+            condiciones.add("i.precioMensual >= :precioMinimo");
+            parametros.put("precioMinimo", filtro.precioMinimo());
+        }
+        if (filtro.precioMaximo() != null) {
+            condiciones.add("i.precioMensual <= :precioMaximo");
+            parametros.put("precioMaximo", filtro.precioMaximo());
+        }
+        if (filtro.estados() != null && !filtro.estados().isEmpty()) {
+            condiciones.add("i.estado IN :estados");
+            parametros.put("estados", filtro.estados());
+        }
+
+        // ===== CURSOR =====
+        if (idDespuesDe != null) {
+            condiciones.add(condicionCursor(orden, precioDespuesDe));
+            parametros.put("idDespuesDe", idDespuesDe);
+            if (orden.porPrecio() && precioDespuesDe != null) {
+                parametros.put("precioDespuesDe", precioDespuesDe);
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder(SELECT_DTO);
+        if (!condiciones.isEmpty()) {
+            jpql.append("WHERE ").append(String.join(" AND ", condiciones)).append('\n');
+        }
+        jpql.append(ordenacion(orden));
+
+        TypedQuery<inmuebleDTO> consulta = entityManager.createQuery(jpql.toString(), inmuebleDTO.class);
+        parametros.forEach(consulta::setParameter);
+        consulta.setMaxResults(limite);
+
+        return consulta.getResultList();
+    }
+
+    /**
+     * Condición "después del cursor" según el orden.
+     *
+     * Los inmuebles sin precio van delante en orden ascendente y detrás en
+     * descendente (como ordenan los NULL MySQL y H2), así que se tratan aparte.
+     */
+    private String condicionCursor(ordenInmuebles orden, Double precioDespuesDe) {
+
+        String mayor = orden.descendente() ? "<" : ">";
+
+        if (!orden.porPrecio()) {
+            return "i.idInmueble " + mayor + " :idDespuesDe";
+        }
+
+        String mismoPrecio = "i.precioMensual = :precioDespuesDe AND i.idInmueble " + mayor + " :idDespuesDe";
+
+        if (orden.descendente()) {
+            return precioDespuesDe == null
+                    ? "(i.precioMensual IS NULL AND i.idInmueble < :idDespuesDe)"
+                    : "(i.precioMensual < :precioDespuesDe OR (" + mismoPrecio + ") OR i.precioMensual IS NULL)";
+        }
+
+        return precioDespuesDe == null
+                ? "((i.precioMensual IS NULL AND i.idInmueble > :idDespuesDe) OR i.precioMensual IS NOT NULL)"
+                : "(i.precioMensual > :precioDespuesDe OR (" + mismoPrecio + "))";
+    }
+
+    private String ordenacion(ordenInmuebles orden) {
+
+        String sentido = orden.descendente() ? " DESC" : "";
+
+        return orden.porPrecio()
+                ? "ORDER BY i.precioMensual" + sentido + ", i.idInmueble" + sentido
+                : "ORDER BY i.idInmueble" + sentido;
+    }
+
+    /**
+     * Escapa los comodines de LIKE para que el texto recibido se busque tal cual.
+     */
+    private String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -2,6 +2,9 @@ package com.example.sistemaInquilinos.repositorio;
 
 import com.example.sistemaInquilinos.entidad.inquilino;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 /**
  * Repositorio JPA para la entidad Inquilino.
@@ -17,6 +20,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface inquilinoRespositorio extends JpaRepository<inquilino, Integer> {
 
-    // De momento no se necesitan métodos personalizados,
-    // pero aquí podrían añadirse búsquedas específicas en el futuro.
+    /**
+     * ID y versión de todos los inquilinos, sin cargar el resto de columnas.
+     * Con esto se comprueba al arrancar que el índice de búsqueda guardado está al día.
+     */
+    @Query("SELECT i.idInquilino, i.version FROM inquilino i")
+    List<Object[]> listarVersiones();
 }
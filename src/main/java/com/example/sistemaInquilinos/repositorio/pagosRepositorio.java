@@ -1,40 +1,255 @@
 package com.example.sistemaInquilinos.repositorio;
 
+import com.example.sistemaInquilinos.dto.antiguedadDeudaDTO;
+import com.example.sistemaInquilinos.dto.atributosPago;
+import com.example.sistemaInquilinos.dto.pagoContabilizado;
+import com.example.sistemaInquilinos.dto.pagosDTO;
 import com.example.sistemaInquilinos.entidad.pagos;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio JPA para la entidad Pagos.
  *
  * Permite realizar operaciones CRUD sobre la tabla "pagos"
- * y además incluye consultas personalizadas creadas
- * automáticamente por Spring Data JPA.
+ * y además incluye consultas personalizadas.
+ *
+ * Las consultas de lectura devuelven directamente pagosDTO (proyección):
+ * los IDs de inquilino e inmueble se leen de las columnas FK de la tabla pagos,
+ * sin cargar esas entidades. Así cada listado se resuelve con una sola
+ * sentencia SQL, en lugar de una consulta extra por cada inquilino e inmueble
+ * distinto (las relaciones ManyToOne son EAGER).
  */
 public interface pagosRepositorio extends JpaRepository<pagos, Integer> {
 
+    /**
+     * Parte común de todas las proyecciones a pagosDTO.
+     */
+    String SELECT_DTO = """
+            SELECT new com.example.sistemaInquilinos.dto.pagosDTO(
+                p.idPago, p.anio, p.mes, p.precioAlquiler, p.montoDeuda, p.pagado,
+                p.inquilino.idInquilino, p.inmueble.idInmueble)
+            FROM pagos p
+            """;
+
+    /**
+     * Obtiene todos los pagos en formato DTO, ordenados por ID.
+     *
+     * Equivale a: SELECT id_pago, ..., id_inquilino, id_inmueble FROM pagos
+     */
+    @Query(SELECT_DTO + "ORDER BY p.idPago")
+    List<pagosDTO> listarDTO();
+
+    /**
+     * Obtiene un pago en formato DTO por su ID.
+     */
+    @Query(SELECT_DTO + "WHERE p.idPago = :idPago")
+    Optional<pagosDTO> buscarDTOPorId(@Param("idPago") Integer idPago);
+
     /**
      * Obtiene todos los pagos asociados a un inmueble concreto
      * a partir del ID del inmueble.
      *
-     * Spring interpreta:
-     * findByInmuebleIdInmueble → pagos.getInmueble().getIdInmueble()
+     * Equivale a: SELECT ... FROM pagos WHERE id_inmueble = ?
      */
-    List<pagos> findByInmuebleIdInmueble(Integer idInmueble);
+    @Query(SELECT_DTO + "WHERE p.inmueble.idInmueble = :idInmueble ORDER BY p.idPago")
+    List<pagosDTO> listarDTOPorInmueble(@Param("idInmueble") Integer idInmueble);
 
     /**
      * Obtiene todos los pagos que están marcados como NO pagados.
      *
-     * Equivale a: SELECT * FROM pagos WHERE pagado = false
+     * Equivale a: SELECT ... FROM pagos WHERE pagado = false
      */
-    List<pagos> findByPagadoFalse();
+    @Query(SELECT_DTO + "WHERE p.pagado = false ORDER BY p.idPago")
+    List<pagosDTO> listarDTOImpagos();
 
     /**
      * Obtiene pagos filtrando por año y mes.
      *
      * Equivale a:
-     * SELECT * FROM pagos WHERE anio = ? AND mes = ?
+     * SELECT ... FROM pagos WHERE anio = ? AND mes = ?
+     */
+    @Query(SELECT_DTO + "WHERE p.anio = :anio AND p.mes = :mes ORDER BY p.idPago")
+    List<pagosDTO> listarDTOPorAnioYMes(@Param("anio") Integer anio, @Param("mes") Integer mes);
+
+    /**
+     * Obtiene los datos de un pago que afectan a la deuda, tal y como
+     * están guardados ahora mismo en la base de datos.
+     *
+     * Se usa FlushMode COMMIT para que Hibernate NO vuelque antes los cambios
+     * pendientes del propio pago: así se obtiene el estado anterior y se puede
+     * calcular la diferencia con el nuevo.
+     */
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.pagoContabilizado(
+                p.inmueble.idInmueble, p.anio, p.mes, p.precioAlquiler, p.pagado)
+            FROM pagos p
+            WHERE p.idPago = :idPago
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<pagoContabilizado> buscarContabilizado(@Param("idPago") Integer idPago);
+
+    /**
+     * Igual que buscarContabilizado, pero bloqueando la fila del pago hasta el final
+     * de la transacción (SELECT ... FOR UPDATE).
+     *
+     * Al ser una lectura con bloqueo devuelve siempre la última versión confirmada:
+     * si otra transacción ha borrado el pago mientras se esperaba, no devuelve nada.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.pagoContabilizado(
+                p.inmueble.idInmueble, p.anio, p.mes, p.precioAlquiler, p.pagado)
+            FROM pagos p
+            WHERE p.idPago = :idPago
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    Optional<pagoContabilizado> bloquearContabilizado(@Param("idPago") Integer idPago);
+
+    /**
+     * Obtiene la siguiente página de pagos con paginación por cursor (keyset).
+     *
+     * Devuelve como máximo "limite" pagos con ID mayor que "despuesDe",
+     * ordenados por ID. Cada filtro solo se aplica si no es null.
+     *
+     * Equivale a:
+     * SELECT ... FROM pagos WHERE id_pago > ? [AND filtros] ORDER BY id_pago LIMIT ?
+     */
+    @Query(SELECT_DTO + """
+            WHERE p.idPago > :despuesDe
+              AND (:anio IS NULL OR p.anio = :anio)
+              AND (:mes IS NULL OR p.mes = :mes)
+              AND (:pagado IS NULL OR p.pagado = :pagado)
+              AND (:idInmueble IS NULL OR p.inmueble.idInmueble = :idInmueble)
+            ORDER BY p.idPago
+            """)
+    List<pagosDTO> buscarPagina(@Param("despuesDe") Integer despuesDe,
+                                @Param("anio") Integer anio,
+                                @Param("mes") Integer mes,
+                                @Param("pagado") Boolean pagado,
+                                @Param("idInmueble") Integer idInmueble,
+                                Limit limite);
+
+    /**
+     * Recorre todos los pagos en formato DTO ordenados por ID como un Stream
+     * (cursor de solo avance).
+     *
+     * Con useCursorFetch=true en la URL de MySQL, el fetch size hace que el driver
+     * lea las filas por bloques desde un cursor del servidor en lugar de cargar
+     * todo el resultado en memoria.
+     * Al ser una proyección, no se guarda ninguna entidad en el contexto de persistencia.
+     * Debe usarse dentro de una transacción y cerrarse al terminar.
+     */
+    @Query(SELECT_DTO + "ORDER BY p.idPago")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<pagosDTO> recorrerTodos();
+
+    /**
+     * Agrupa la deuda pendiente por inmueble y por antigüedad en una sola consulta.
+     *
+     * "periodo" es el mes de referencia como anio * 12 + mes: la antigüedad de
+     * cada pago es la diferencia en meses con su propio (anio, mes).
+     * Igual que la deuda acumulada, no se cuentan los inmuebles VACIO.
+     *
+     * Equivale a:
+     * SELECT i.id_inmueble, i.ciudad, SUM(CASE ...), ..., COUNT(*)
+     * FROM pagos p JOIN inmueble i ... WHERE p.pagado = false GROUP BY i.id_inmueble, i.ciudad
+     */
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.antiguedadDeudaDTO(
+                i.idInmueble, i.ciudad,
+                SUM(CASE WHEN :periodo - (p.anio * 12 + p.mes) <= 0 THEN p.precioAlquiler ELSE 0.0 END),
+                SUM(CASE WHEN :periodo - (p.anio * 12 + p.mes) = 1 THEN p.precioAlquiler ELSE 0.0 END),
+                SUM(CASE WHEN :periodo - (p.anio * 12 + p.mes) = 2 THEN p.precioAlquiler ELSE 0.0 END),
+                SUM(CASE WHEN :periodo - (p.anio * 12 + p.mes) >= 3 THEN p.precioAlquiler ELSE 0.0 END),
+                SUM(p.precioAlquiler),
+                COUNT(p))
+            FROM pagos p JOIN p.inmueble i
+            WHERE p.pagado = false
+              AND i.estado <> com.example.sistemaInquilinos.entidad.estadoInmueble.VACIO
+            GROUP BY i.idInmueble, i.ciudad
+            ORDER BY i.ciudad, i.idInmueble
+            """)
+    List<antiguedadDeudaDTO> agruparDeudaPorAntiguedad(@Param("periodo") Integer periodo);
+
+    // =========================
+    // ARCHIVO DE AÑOS CERRADOS
+    // =========================
+
+    /**
+     * Años anteriores a "anio" en los que todos los pagos están cobrados
+     * (candidatos a archivarse).
+     */
+    @Query("""
+            SELECT p.anio FROM pagos p
+            WHERE p.anio < :anio
+            GROUP BY p.anio
+            HAVING SUM(CASE WHEN p.pagado = true THEN 0 ELSE 1 END) = 0
+            ORDER BY p.anio
+            """)
+    List<Integer> listarAniosCobradosAntesDe(@Param("anio") Integer anio);
+
+    /**
+     * Número de pagos de un año que no están cobrados (pagado false o sin indicar).
+     */
+    @Query("SELECT COUNT(p) FROM pagos p WHERE p.anio = :anio AND (p.pagado IS NULL OR p.pagado = false)")
+    long contarPendientesDelAnio(@Param("anio") Integer anio);
+
+    /**
+     * Recorre los pagos de un año agrupados por inmueble, como un Stream.
+     * Igual que recorrerTodos, se lee por bloques y debe usarse dentro de una transacción.
+     */
+    @Query(SELECT_DTO + "WHERE p.anio = :anio ORDER BY p.inmueble.idInmueble, p.idPago")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<pagosDTO> recorrerAnio(@Param("anio") Integer anio);
+
+    /**
+     * Inmueble, año, mes y "pagado" de todos los pagos, leídos por lotes
+     * para crear los índices de los paneles sin cargar las entidades.
+     */
+    @Query("""
+            SELECT new com.example.sistemaInquilinos.dto.atributosPago(
+                p.idPago, p.inmueble.idInmueble, p.anio, p.mes, p.pagado, p.version)
+            FROM pagos p
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<atributosPago> recorrerAtributos();
+
+    /**
+     * Borra un pago por su ID sin cargarlo antes (a diferencia de deleteById).
+     * Si ya no existe no hace nada.
+     */
+    @Modifying
+    @Query("DELETE FROM pagos p WHERE p.idPago = :idPago")
+    int borrar(@Param("idPago") Integer idPago);
+
+    /**
+     * Borra todos los pagos de un año con una sola sentencia (tras archivarlos).
+     *
+     * Equivale a: DELETE FROM pagos WHERE anio = ?
      */
-    List<pagos> findByAnioAndMes(Integer anio, Integer mes);
+    @Modifying
+    @Query("DELETE FROM pagos p WHERE p.anio = :anio")
+    int borrarAnio(@Param("anio") Integer anio);
 }
@@ -0,0 +1,145 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.entidad.resumenMensual;
+import com.example.sistemaInquilinos.entidad.resumenMensualId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repositorio JPA para la entidad resumenMensual.
+ *
+ * Permite leer el resumen de un mes (una fila por ciudad) por su clave
+ * y aplicar diferencias sobre él sin leerlo antes.
+ */
+public interface resumenMensualRepositorio extends JpaRepository<resumenMensual, resumenMensualId> {
+
+    /**
+     * Agregación común de la reconstrucción y la verificación.
+     */
+    String SELECT_DESDE_PAGOS = """
+            SELECT p.anio, p.mes, COALESCE(i.ciudad, ''),
+                   COALESCE(SUM(p.precio_alquiler), 0),
+                   COALESCE(SUM(CASE WHEN p.pagado = true THEN p.precio_alquiler ELSE 0 END), 0),
+                   COUNT(*),
+                   SUM(CASE WHEN p.pagado = true THEN 1 ELSE 0 END)
+            FROM pagos p
+            LEFT JOIN inmueble i ON i.id_inmueble = p.id_inmueble
+            WHERE p.anio IS NOT NULL AND p.mes IS NOT NULL
+            GROUP BY p.anio, p.mes, COALESCE(i.ciudad, '')
+            """;
+
+    /**
+     * Obtiene el resumen de un mes, una fila por ciudad.
+     * Se resuelve con el prefijo (anio, mes) de la clave primaria.
+     */
+    @Query("SELECT r FROM resumenMensual r WHERE r.id.anio = :anio AND r.id.mes = :mes ORDER BY r.id.ciudad")
+    List<resumenMensual> listarPorAnioYMes(@Param("anio") Integer anio, @Param("mes") Integer mes);
+
+    /**
+     * Suma importes y contadores a una fila del resumen.
+     * Si la fila todavía no existe, se crea en la misma sentencia.
+     * Al ser nativa, sin FLUSH_MODE COMMIT Hibernate escribiría antes el pago en curso.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(nativeQuery = true, value = """
+            INSERT INTO resumen_mensual
+                (anio, mes, ciudad, importe_facturado, importe_cobrado, pagos_facturados, pagos_cobrados)
+            VALUES (:anio, :mes, :ciudad, :facturado, :cobrado, :pagos, :cobrados)
+            ON DUPLICATE KEY UPDATE
+                importe_facturado = importe_facturado + VALUES(importe_facturado),
+                importe_cobrado = importe_cobrado + VALUES(importe_cobrado),
+                pagos_facturados = pagos_facturados + VALUES(pagos_facturados),
+                pagos_cobrados = pagos_cobrados + VALUES(pagos_cobrados)
+            """)
+    int sumar(@Param("anio") Integer anio,
+              @Param("mes") Integer mes,
+              @Param("ciudad") String ciudad,
+              @Param("facturado") double facturado,
+              @Param("cobrado") double cobrado,
+              @Param("pagos") long pagos,
+              @Param("cobrados") long cobrados);
+
+    /**
+     * Importes de los pagos de un inmueble agrupados por mes, para moverlos de una
+     * ciudad a otra cuando el inmueble cambia de ciudad.
+     *
+     * Columnas: anio, mes, importe_facturado, importe_cobrado,
+     * pagos_facturados, pagos_cobrados.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(nativeQuery = true, value = """
+            SELECT p.anio, p.mes,
+                   COALESCE(SUM(p.precio_alquiler), 0),
+                   COALESCE(SUM(CASE WHEN p.pagado = true THEN p.precio_alquiler ELSE 0 END), 0),
+                   COUNT(*),
+                   SUM(CASE WHEN p.pagado = true THEN 1 ELSE 0 END)
+            FROM pagos p
+            WHERE p.id_inmueble = :idInmueble AND p.anio IS NOT NULL AND p.mes IS NOT NULL
+            GROUP BY p.anio, p.mes
+            """)
+    List<Object[]> calcularPorInmueble(@Param("idInmueble") Integer idInmueble);
+
+    /**
+     * Escribe el resumen calculado desde la tabla pagos en una sola sentencia.
+     * Las filas que ya existen se sobrescriben y las que faltan se crean, así que no
+     * falla si un pago ha creado la fila de su mes y ciudad mientras tanto.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO resumen_mensual
+                (anio, mes, ciudad, importe_facturado, importe_cobrado, pagos_facturados, pagos_cobrados)
+            """ + SELECT_DESDE_PAGOS + """
+            ON DUPLICATE KEY UPDATE
+                importe_facturado = VALUES(importe_facturado),
+                importe_cobrado = VALUES(importe_cobrado),
+                pagos_facturados = VALUES(pagos_facturados),
+                pagos_cobrados = VALUES(pagos_cobrados)
+            """)
+    void recalcularDesdePagos();
+
+    /**
+     * Calcula el resumen directamente desde la tabla pagos, sin guardarlo.
+     * Lo usa la verificación para comparar con la tabla mantenida.
+     *
+     * Columnas: anio, mes, ciudad, importe_facturado, importe_cobrado,
+     * pagos_facturados, pagos_cobrados.
+     */
+    @Query(nativeQuery = true, value = SELECT_DESDE_PAGOS)
+    List<Object[]> calcularDesdePagos();
+
+    /**
+     * Filas del resumen de los años que siguen en la tabla pagos (no archivados).
+     * Son las únicas que se pueden comparar con calcularDesdePagos.
+     */
+    @Query("SELECT r FROM resumenMensual r WHERE r.id.anio NOT IN (SELECT a.anio FROM archivoPagos a)")
+    List<resumenMensual> listarAniosAbiertos();
+
+    /**
+     * Pone a cero el resumen de los años no archivados antes de reconstruirlo.
+     * El resumen de los años archivados se conserva: sus pagos ya no están en la tabla pagos.
+     *
+     * Al ser un UPDATE bloquea esas filas hasta el final de la transacción: los pagos que
+     * se guardan a la vez (sumar) esperan a que termine la reconstrucción.
+     */
+    @Modifying
+    @Query("""
+            UPDATE resumenMensual r
+            SET r.importeFacturado = 0.0, r.importeCobrado = 0.0, r.pagosFacturados = 0L, r.pagosCobrados = 0L
+            WHERE r.id.anio NOT IN (SELECT a.anio FROM archivoPagos a)
+            """)
+    int ponerACeroAniosAbiertos();
+
+    /**
+     * Número de filas del resumen de los años no archivados.
+     */
+    @Query("SELECT COUNT(r) FROM resumenMensual r WHERE r.id.anio NOT IN (SELECT a.anio FROM archivoPagos a)")
+    long contarAniosAbiertos();
+}
@@ -0,0 +1,61 @@
+package com.example.sistemaInquilinos.repositorio;
+
+import com.example.sistemaInquilinos.entidad.tokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repositorio JPA de los tokens revocados.
+ *
+ * Solo se lee entero al arrancar; después las comprobaciones se hacen en memoria
+ * y se leen periódicamente solo los revocados desde la última lectura.
+ * Las altas usan insertar (no save): con el id asignado, save haría un merge
+ * y no avisaría de que el token ya estaba revocado.
+ */
+public interface tokenRevocadoRepositorio extends JpaRepository<tokenRevocado, String> {
+
+    /**
+     * Tokens revocados que todavía no han caducado (los únicos que hay que seguir rechazando).
+     */
+    List<tokenRevocado> findByExpiracionAfter(Instant ahora);
+
+    /**
+     * Tokens revocados después de "desde" que todavía no han caducado.
+     */
+    List<tokenRevocado> findByRevocadoAfterAndExpiracionAfter(Instant desde, Instant ahora);
+
+    /**
+     * Guarda un token revocado.
+     *
+     * Equivale a: INSERT INTO token_revocado (jti, expiracion, revocado) VALUES (?, ?, ?)
+     *
+     * Si el jti ya existe falla con DataIntegrityViolationException (clave duplicada):
+     * así solo una petición, de cualquier instancia, revoca cada token.
+     */
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO token_revocado (jti, expiracion, revocado) VALUES (:jti, :expiracion, :revocado)
+            """)
+    int insertar(@Param("jti") String jti,
+                 @Param("expiracion") Instant expiracion,
+                 @Param("revocado") Instant revocado);
+
+    /**
+     * Borra los tokens revocados que ya han caducado.
+     *
+     * Equivale a: DELETE FROM token_revocado WHERE expiracion <= ?
+     *
+     * @return Número de filas borradas.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM tokenRevocado t WHERE t.expiracion <= :ahora")
+    int borrarCaducados(@Param("ahora") Instant ahora);
+}
@@ -1,7 +1,11 @@
 package com.example.sistemaInquilinos.seguridad.configuracion;
 
 import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +14,6 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -24,6 +27,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor // Lombok genera automáticamente un constructor con los atributos final
 public class appConfig {
 
+    // Logger para mostrar el coste medido de BCrypt al arrancar
+    private static final Logger logger = LoggerFactory.getLogger(appConfig.class);
+
     // Repositorio para acceder a los usuarios en la base de datos
     private final usuarioRepositorio usuarioRepositorio;
 
@@ -42,14 +48,14 @@ public class appConfig {
      * - Con qué algoritmo se comparan las contraseñas (BCrypt)
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider ourProvider = new DaoAuthenticationProvider();
 
         // Le decimos cómo cargar usuarios desde la base de datos
         ourProvider.setUserDetailsService(userDetailsService());
 
         // Le indicamos que las contraseñas están cifradas con BCrypt
-        ourProvider.setPasswordEncoder(passwordEncoder());
+        ourProvider.setPasswordEncoder(passwordEncoder);
 
         return ourProvider;
     }
@@ -57,10 +63,22 @@ public class appConfig {
     /**
      * Bean que se encarga de cifrar contraseñas.
      * Se usa en el registro y en el login de usuarios.
+     *
+     * El coste de BCrypt (seguridad.bcrypt.coste, 4-31) dobla el tiempo por cada punto.
+     * Al arrancar se mide una comprobación y se escribe en el log para poder ajustarlo;
+     * después cada operación queda en /actuator/metrics/seguridad.bcrypt.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${seguridad.bcrypt.coste:10}") int coste,
+                                           MeterRegistry registro) {
+        PasswordEncoder encoder = new bcryptMedido(coste, registro);
+
+        long inicio = System.nanoTime();
+        encoder.matches("medicion", encoder.encode("medicion"));
+        long ms = (System.nanoTime() - inicio) / 2 / 1_000_000;
+        logger.info("BCrypt con coste {}: unos {} ms por contraseña", coste, ms);
+
+        return encoder;
     }
 
     /**
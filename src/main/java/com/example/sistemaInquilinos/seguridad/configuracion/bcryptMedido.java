@@ -0,0 +1,46 @@
+package com.example.sistemaInquilinos.seguridad.configuracion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt con el coste configurado y el tiempo de cada operación en métricas:
+ * /actuator/metrics/seguridad.bcrypt{operacion=cifrar|comprobar,coste=N}.
+ *
+ * Las contraseñas guardadas llevan su propio coste dentro del hash, así que cambiar
+ * el coste no invalida las existentes: solo se aplica a las que se cifren a partir de ahora.
+ */
+class bcryptMedido implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final Timer cifrar;
+    private final Timer comprobar;
+
+    bcryptMedido(int coste, MeterRegistry registro) {
+        this.bcrypt = new BCryptPasswordEncoder(coste);
+        String etiquetaCoste = String.valueOf(coste);
+        this.cifrar = Timer.builder("seguridad.bcrypt")
+                .tags("operacion", "cifrar", "coste", etiquetaCoste)
+                .register(registro);
+        this.comprobar = Timer.builder("seguridad.bcrypt")
+                .tags("operacion", "comprobar", "coste", etiquetaCoste)
+                .register(registro);
+    }
+
+    @Override
+    public String encode(CharSequence password) {
+        return cifrar.record(() -> bcrypt.encode(password));
+    }
+
+    @Override
+    public boolean matches(CharSequence password, String cifrada) {
+        return Boolean.TRUE.equals(comprobar.record(() -> bcrypt.matches(password, cifrada)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String cifrada) {
+        return bcrypt.upgradeEncoding(cifrada);
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.sistemaInquilinos.seguridad.controlador;
 
 import com.example.sistemaInquilinos.seguridad.dtos.loginRequest;
+import com.example.sistemaInquilinos.seguridad.dtos.refreshRequest;
 import com.example.sistemaInquilinos.seguridad.dtos.registerRequest;
 import com.example.sistemaInquilinos.seguridad.servicio.seguridadServicio;
 import com.example.sistemaInquilinos.seguridad.servicio.tokenDevolver;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -14,9 +17,10 @@ import org.springframework.web.bind.annotation.*;
  * Este controlador gestiona los endpoints relacionados con:
  * - El LOGIN de usuarios
  * - El REGISTRO de nuevos usuarios
+ * - El REFRESH del token de acceso y el LOGOUT
  *
  * ⚠️ IMPORTANTE:
- * - El endpoint de LOGIN es PÚBLICO.
+ * - Los endpoints de LOGIN y REFRESH son PÚBLICOS.
  * - El endpoint de REGISTER está PROTEGIDO y SOLO puede usarlo un usuario con rol ADMIN.
  *   (Esta restricción se aplica desde la configuración de seguridad en SecurityFilterChain).
  */
@@ -85,4 +89,48 @@ public class controladorAcceso {
         return ResponseEntity.ok(seguridadService.register(request));
     }
 
+    /**
+     * ENDPOINT DE REFRESH (PÚBLICO)
+     *
+     * URL: POST /acceso/refresh
+     *
+     * Recibe:
+     * - refreshToken
+     *
+     * Funcionamiento:
+     * 1. Comprueba el token de refresco (firma, tipo y que no esté revocado).
+     * 2. Lo revoca: cada token de refresco solo se puede usar una vez.
+     * 3. Devuelve un token de acceso y un token de refresco nuevos.
+     *
+     * Acceso:
+     * ✅ No necesita token de acceso (suele pedirse justo cuando ha caducado).
+     *    Si el token de refresco no vale responde 401 y hay que volver a hacer login.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<tokenDevolver> refresh(@Valid @RequestBody refreshRequest request) {
+
+        return ResponseEntity.ok(seguridadService.refrescar(request));
+    }
+
+    /**
+     * ENDPOINT DE LOGOUT
+     *
+     * URL: POST /acceso/logout
+     *
+     * Recibe (opcional):
+     * - refreshToken
+     *
+     * Revoca el token de acceso con el que se llama y, si se envía, el token de refresco.
+     *
+     * Acceso:
+     * 🔒 Requiere estar autenticado.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) refreshRequest request,
+                                       Authentication autenticacion) {
+
+        seguridadService.logout(autenticacion.getPrincipal(), request);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -1,56 +1,119 @@
 package com.example.sistemaInquilinos.seguridad.creacionYValidacionToken;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import com.example.sistemaInquilinos.entidad.usuario;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service // Marca esta clase como un servicio de Spring
 public class jwtService {
 
-    // 🔑 Clave secreta cargada desde application.properties
-    @Value("${jwt.secret}")
-    private String secretKey;
+    // Claims propios: con ellos el filtro autentica sin consultar la base de datos
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ROLES = "roles";
+    // Momento de emisión en milisegundos ("iat" solo guarda segundos)
+    public static final String CLAIM_EMITIDO = "emi";
+    // Tipo de token: el de refresco solo sirve en POST /acceso/refresh
+    public static final String CLAIM_TIPO = "tipo";
+    public static final String TIPO_ACCESO = "acceso";
+    public static final String TIPO_REFRESCO = "refresco";
 
-    // ⏱️ Tiempo de expiración cargado desde application.properties
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    // 🔑 Clave de firma, construida una sola vez a partir de jwt.secret
+    private final Key clave;
+
+    // Parser ya configurado con la clave; es inmutable y se comparte entre hilos
+    private final JwtParser parser;
+
+    // ⏱️ Duración del token de acceso (corta) cargada desde application.properties
+    private final long jwtExpiration;
+
+    // ⏱️ Duración del token de refresco (larga)
+    private final long refrescoExpiration;
+
+    /**
+     * Decodifica la clave secreta y prepara el parser al arrancar, en lugar de
+     * hacerlo en cada lectura del token.
+     */
+    public jwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.expiration}") long jwtExpiration,
+                      @Value("${jwt.refresco.expiration}") long refrescoExpiration) {
+        this.clave = conseguirKey(secretKey);
+        this.parser = Jwts.parserBuilder().setSigningKey(clave).build();
+        this.jwtExpiration = jwtExpiration;
+        this.refrescoExpiration = refrescoExpiration;
+    }
 
     /**
-     * Genera un token JWT para un usuario.
+     * Genera el token de ACCESO de un usuario (el de las peticiones), con su id y sus roles como claims.
      */
     public String getTokenFinal(UserDetails usuario){
-        return getToken(new HashMap<>(), usuario);
+        return getToken(infoUsuario(usuario, TIPO_ACCESO), usuario, jwtExpiration);
+    }
+
+    /**
+     * Genera el token de REFRESCO de un usuario: dura más y solo sirve para pedir
+     * un token de acceso nuevo sin volver a hacer login.
+     */
+    public String getTokenRefresco(UserDetails usuario){
+        return getToken(infoUsuario(usuario, TIPO_REFRESCO), usuario, refrescoExpiration);
+    }
+
+    /**
+     * Claims propios del usuario: id, roles y tipo de token.
+     */
+    private static Map<String, Object> infoUsuario(UserDetails usuario, String tipo){
+
+        Map<String, Object> infoExtra = new HashMap<>();
+
+        if (usuario instanceof usuario u && u.getIdUsuario() != null) {
+            infoExtra.put(CLAIM_ID, u.getIdUsuario());
+        }
+        List<String> roles = usuario.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        infoExtra.put(CLAIM_ROLES, roles);
+        infoExtra.put(CLAIM_TIPO, tipo);
+
+        return infoExtra;
     }
 
     /**
      * Genera un token JWT completo.
      */
-    private String getToken(Map<String, Object> infoExtra, UserDetails usuario){
+    private String getToken(Map<String, Object> infoExtra, UserDetails usuario, long duracion){
+
+        long ahora = System.currentTimeMillis();
 
         return Jwts.builder()
                 .setClaims(infoExtra)
+                .claim(CLAIM_EMITIDO, ahora)
+                .setId(UUID.randomUUID().toString()) // jti: permite revocar este token concreto
                 .setSubject(usuario.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(conseguirKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + duracion))
+                .signWith(clave, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
      * Convierte la clave secreta en un objeto Key válido para JWT.
      */
-    private Key conseguirKey(){
+    private static Key conseguirKey(String secretKey){
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
         return Keys.hmacShaKeyFor(keyBytes);
     }
@@ -60,12 +123,18 @@ public class jwtService {
      */
     private Claims getAllClaims(String token)
     {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(conseguirKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifica la firma del token una única vez y devuelve sus datos ya leídos.
+     * Si el token está mal formado, firmado con otra clave o caducado lanza la
+     * misma JwtException que el resto de métodos.
+     */
+    public tokenVerificado verificar(String token)
+    {
+        final Claims claims = getAllClaims(token);
+        return tokenVerificado.de(claims);
     }
 
     /**
@@ -104,16 +173,15 @@ public class jwtService {
      * Valida si un token es correcto.
      */
     public boolean isTokenValid(String token, UserDetails userDetails){
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verificar(token).esValidoPara(userDetails.getUsername());
     }
 }
 
 
 
 // Orden sencillo:
-//Crear token 👉 getTokenFinal / getToken / conseguirKey
+//Crear token 👉 getTokenFinal (acceso) / getTokenRefresco / getToken / conseguirKey
 //
-//Leer token 👉 getAllClaims / getClaim
+//Leer token 👉 getAllClaims / getClaim / verificar
 //
-//Validar token 👉 getUsernameFromToken / getExpiration / isTokenExpired / isTokenValid
\ No newline at end of file
+//Validar token 👉 verificar (una sola vez por petición) / getUsernameFromToken / getExpiration / isTokenExpired / isTokenValid
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.example.sistemaInquilinos.seguridad.creacionYValidacionToken;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Resultado de verificar un token una sola vez: la firma ya está comprobada y
+ * los datos se leen de aquí sin volver a parsear el token.
+ *
+ * También sirve como principal de la petición autenticada (getName() es el usuario).
+ *
+ * @param usuario    nombre de usuario (subject del token)
+ * @param idUsuario  id del usuario, o null en tokens emitidos antes de llevarlo
+ * @param roles      autoridades del usuario ("ROLE_ADMIN"...), o null en tokens antiguos
+ * @param jti        id único del token (para revocarlo), o null en tokens antiguos
+ * @param tipo       "acceso" o "refresco" (null en tokens antiguos, que son de acceso)
+ * @param emitido    momento de emisión (con milisegundos si el token los lleva)
+ * @param expiracion fecha en la que el token deja de valer
+ * @param claims     resto de datos del token
+ */
+public record tokenVerificado(String usuario, Integer idUsuario, List<String> roles, String jti, String tipo,
+                              Date emitido, Date expiracion, Claims claims) implements Principal {
+
+    /**
+     * Lee del token ya verificado los datos que necesita la autenticación.
+     */
+    @SuppressWarnings("unchecked")
+    static tokenVerificado de(Claims claims) {
+
+        Long emitidoMs = claims.get(jwtService.CLAIM_EMITIDO, Long.class);
+        Date emitido = emitidoMs != null ? new Date(emitidoMs) : claims.getIssuedAt();
+
+        return new tokenVerificado(
+                claims.getSubject(),
+                claims.get(jwtService.CLAIM_ID, Integer.class),
+                claims.get(jwtService.CLAIM_ROLES, List.class),
+                claims.getId(),
+                claims.get(jwtService.CLAIM_TIPO, String.class),
+                emitido,
+                claims.getExpiration(),
+                claims);
+    }
+
+    /**
+     * Indica si el token trae id y roles, es decir, si basta por sí solo para autenticar.
+     */
+    public boolean autocontenido() {
+        return idUsuario != null && roles != null;
+    }
+
+    /**
+     * Indica si es un token de refresco (no sirve para autenticar peticiones).
+     */
+    public boolean esRefresco() {
+        return jwtService.TIPO_REFRESCO.equals(tipo);
+    }
+
+    /**
+     * Roles del token como autoridades de Spring Security.
+     */
+    public List<GrantedAuthority> autoridades() {
+        return roles == null ? List.of() : roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    /**
+     * Indica si el token ha caducado en este momento.
+     */
+    public boolean expirado() {
+        return expiracion != null && expiracion.before(new Date());
+    }
+
+    /**
+     * Indica si el token pertenece al usuario indicado y sigue vigente.
+     */
+    public boolean esValidoPara(String nombreUsuario) {
+        return usuario != null && usuario.equals(nombreUsuario) && !expirado();
+    }
+
+    @Override
+    public String getName() {
+        return usuario;
+    }
+
+    @Override
+    public String toString() {
+        return usuario;
+    }
+}
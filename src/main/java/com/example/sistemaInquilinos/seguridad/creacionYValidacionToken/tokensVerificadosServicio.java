@@ -0,0 +1,174 @@
+package com.example.sistemaInquilinos.seguridad.creacionYValidacionToken;
+
+import com.example.sistemaInquilinos.seguridad.dtos.usuarioRevocadoEvento;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Caché de tokens ya verificados, consultada por el filtro JWT antes de comprobar la firma.
+ *
+ * El cliente Angular manda el mismo token en cada petición de la sesión: la primera vez
+ * se verifica la firma (jwtService.verificar) y las siguientes se devuelve el resultado
+ * guardado. La clave es el SHA-256 del token, no el token, para no guardar credenciales.
+ *
+ * - Cada entrada caduca a la vez que su token.
+ * - Al revocar un usuario se eliminan sus entradas (usuarioRevocadoEvento).
+ * - El tamaño se limita por memoria estimada (seguridad.cache-tokens.memoria-maxima).
+ *
+ * Métricas: cache.gets{cache=tokensVerificados} (aciertos y fallos), jwt.cache.tasa.aciertos,
+ * jwt.verificacion (coste de cada verificación real) y jwt.cache.cpu.ahorrado
+ * (tiempo de verificación evitado por los aciertos, descontando la búsqueda en la caché).
+ */
+@Service
+public class tokensVerificadosServicio {
+
+    // Nombre de la caché en las métricas
+    private static final String NOMBRE = "tokensVerificados";
+
+    // Memoria aproximada de una entrada sin contar el texto de sus claims
+    // (huella, nodo de Caffeine, registro tokenVerificado, fechas y mapa de claims)
+    private static final int BYTES_POR_ENTRADA = 480;
+
+    // Un MessageDigest por hilo: crearlo en cada petición cuesta más que el propio hash
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * SHA-256 del token en cuatro long (se compara y guarda sin crear cadenas).
+     */
+    record huella(long a, long b, long c, long d) {
+
+        static huella de(String token) {
+            ByteBuffer hash = ByteBuffer.wrap(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new huella(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    private final jwtService jwtService;
+
+    private final Cache<huella, tokenVerificado> verificados;
+
+    // Métricas
+    private final Timer verificacion;
+    private final DoubleAdder nanosAhorrados = new DoubleAdder();
+
+    public tokensVerificadosServicio(jwtService jwtService,
+                                     MeterRegistry registro,
+                                     @Value("${seguridad.cache-tokens.memoria-maxima:4MB}") DataSize memoriaMaxima) {
+        this.jwtService = jwtService;
+
+        this.verificados = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima.toBytes())
+                .weigher((huella clave, tokenVerificado token) -> pesar(token))
+                .expireAfter(hastaQueCaduque())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registro, verificados, NOMBRE);
+        registro.gauge("jwt.cache.tasa.aciertos", verificados, c -> c.stats().hitRate());
+        this.verificacion = registro.timer("jwt.verificacion");
+        FunctionCounter.builder("jwt.cache.cpu.ahorrado", nanosAhorrados, n -> n.sum() / 1_000_000_000.0)
+                .baseUnit("seconds")
+                .register(registro);
+    }
+
+    /**
+     * Devuelve el token verificado, desde la caché si ya se había visto.
+     * Si no está, verifica la firma y lo guarda; un token inválido lanza la
+     * JwtException de siempre y no se guarda.
+     */
+    public tokenVerificado verificar(String token) {
+
+        long inicio = System.nanoTime();
+        huella clave = huella.de(token);
+        tokenVerificado guardado = verificados.getIfPresent(clave);
+
+        if (guardado != null && !guardado.expirado()) {
+            long busqueda = System.nanoTime() - inicio;
+            nanosAhorrados.add(Math.max(0, verificacion.mean(TimeUnit.NANOSECONDS) - busqueda));
+            return guardado;
+        }
+
+        tokenVerificado verificado = verificacion.record(() -> jwtService.verificar(token));
+        verificados.put(clave, verificado);
+        return verificado;
+    }
+
+    /**
+     * Quita de la caché los tokens del usuario revocado. Las revocaciones son raras
+     * (cambio o baja de un usuario), así que basta con recorrer la caché.
+     */
+    @EventListener
+    public void alRevocarUsuario(usuarioRevocadoEvento evento) {
+        verificados.asMap().values().removeIf(t -> evento.idUsuario().equals(t.idUsuario()));
+    }
+
+    /**
+     * Número aproximado de entradas (para tests y diagnóstico).
+     */
+    public long entradas() {
+        verificados.cleanUp();
+        return verificados.estimatedSize();
+    }
+
+    // =========================
+    // AUXILIARES
+    // =========================
+
+    private static int pesar(tokenVerificado token) {
+        int caracteres = token.usuario() == null ? 0 : token.usuario().length();
+        if (token.roles() != null) {
+            for (String rol : token.roles()) {
+                caracteres += rol.length();
+            }
+        }
+        return BYTES_POR_ENTRADA + 2 * caracteres;
+    }
+
+    /**
+     * Cada entrada vive hasta la expiración de su token; leerla no la alarga.
+     */
+    private static Expiry<huella, tokenVerificado> hastaQueCaduque() {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(huella clave, tokenVerificado token, long ahora) {
+                if (token.expiracion() == null) {
+                    return 0;
+                }
+                long restante = token.expiracion().getTime() - System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restante));
+            }
+
+            @Override
+            public long expireAfterUpdate(huella clave, tokenVerificado token, long ahora, long duracionActual) {
+                return expireAfterCreate(clave, token, ahora);
+            }
+
+            @Override
+            public long expireAfterRead(huella clave, tokenVerificado token, long ahora, long duracionActual) {
+                return duracionActual;
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.sistemaInquilinos.seguridad.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO que representa la petición de REFRESH (y de logout):
+ * contiene el token de refresco recibido en el login.
+ */
+@Data // Genera automáticamente getters, setters, toString, equals y hashCode
+@Builder // Permite crear el objeto con el patrón Builder
+@AllArgsConstructor // Constructor con todos los campos
+@NoArgsConstructor  // Constructor vacío (necesario para Spring y JSON)
+public class refreshRequest {
+
+    /**
+     * Token de refresco devuelto por el login o por el último refresh.
+     */
+    @NotBlank(message = "El token de refresco no puede estar vacío")
+    private String refreshToken;
+}
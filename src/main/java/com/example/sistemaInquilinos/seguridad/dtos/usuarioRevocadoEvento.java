@@ -0,0 +1,10 @@
+package com.example.sistemaInquilinos.seguridad.dtos;
+
+/**
+ * Evento que se publica cuando se invalidan los tokens de un usuario
+ * (se ha modificado o eliminado).
+ *
+ * @param idUsuario usuario cuyos tokens anteriores ya no valen
+ */
+public record usuarioRevocadoEvento(Integer idUsuario) {
+}
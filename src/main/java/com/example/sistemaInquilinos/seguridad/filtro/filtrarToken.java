@@ -1,6 +1,9 @@
 package com.example.sistemaInquilinos.seguridad.filtro;
 
-import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokensVerificadosServicio;
+import com.example.sistemaInquilinos.seguridad.servicio.tokensRevocadosServicio;
+import com.example.sistemaInquilinos.seguridad.servicio.usuariosRevocadosServicio;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,7 +28,8 @@ import java.io.IOException;
  * Su función es:
  * 1. Leer el token JWT de la cabecera Authorization.
  * 2. Validar el token.
- * 3. Si es válido, autenticar al usuario dentro de Spring Security.
+ * 3. Si es válido, autenticar al usuario dentro de Spring Security
+ *    con el id y los roles que lleva el propio token (sin consultar la base de datos).
  *
  * Gracias a este filtro, el backend sabe qué usuario está autenticado
  * en cada petición sin usar sesiones.
@@ -34,12 +38,18 @@ import java.io.IOException;
 @RequiredArgsConstructor // Lombok genera el constructor con los atributos final
 public class filtrarToken extends OncePerRequestFilter {
 
-    // Servicio encargado de validar y leer tokens JWT
-    public final jwtService jwtService;
+    // Verifica los tokens JWT, guardando los ya verificados para no repetir la firma
+    public final tokensVerificadosServicio tokensVerificados;
 
-    // Servicio que carga usuarios desde la base de datos
+    // Servicio que carga usuarios desde la base de datos (solo para tokens sin roles)
     public final UserDetailsService userDetailsService;
 
+    // Usuarios cuyos tokens anteriores se han invalidado
+    public final usuariosRevocadosServicio usuariosRevocados;
+
+    // Tokens concretos revocados (logout, refresh ya usados), consultados en memoria
+    public final tokensRevocadosServicio tokensRevocados;
+
     /**
      * Este método se ejecuta automáticamente en CADA petición.
      */
@@ -52,10 +62,10 @@ public class filtrarToken extends OncePerRequestFilter {
         // 1. Obtenemos la ruta que se está solicitando
         String path = request.getServletPath();
 
-        // 2. Si la petición es al LOGIN, NO aplicamos el filtro
+        // 2. Si la petición es al LOGIN o al REFRESH, NO aplicamos el filtro
         // si en algun momento el registro lo dejamos publico se tendria que añadir:
         // || path.equals("/acceso/register"))
-        if (path.equals("/acceso/login")) {
+        if (path.equals("/acceso/login") || path.equals("/acceso/refresh")) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -63,48 +73,69 @@ public class filtrarToken extends OncePerRequestFilter {
         // 3. Obtenemos el token de la cabecera Authorization
         final String token = getTokenFromRequest(request);
 
-        // 4. Variable donde guardaremos el nombre del usuario del token
-        final String usuario;
-
-        // 5. Objeto donde guardaremos los datos completos del usuario
-        UserDetails usuarioDetails = null;
-
-        // 6. Si no hay token, dejamos pasar la petición sin autenticar
+        // 4. Si no hay token, dejamos pasar la petición sin autenticar
         if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        // 7. Extraemos el nombre de usuario desde el token
-        usuario = jwtService.getUsernameFromToken(token);
+        // 5. Verificamos la firma UNA sola vez (o la tomamos de la caché si el token ya se vio)
+        final tokenVerificado verificado = tokensVerificados.verificar(token);
+
+        // 6. Si hay usuario y aún no está autenticado en el contexto de seguridad
+        if (verificado.usuario() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-        // 8. Si hay usuario y aún no está autenticado en el contexto de seguridad
-        if (usuario != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // 7. Creamos el objeto de autenticación para Spring
+            UsernamePasswordAuthenticationToken logado = autenticar(verificado);
 
-            // 9. Cargamos al usuario desde la base de datos
-            usuarioDetails = userDetailsService.loadUserByUsername(usuario); // en caso de no existir lanza excepcion
+            if (logado != null) {
+
+                // 8. Añadimos información extra de la petición (IP, navegador, etc.)
+                logado.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                // 9. Registramos al usuario como autenticado en el contexto de Spring Security
+                SecurityContextHolder.getContext().setAuthentication(logado);
+            }
         }
 
-        // 10. Validamos el token con los datos del usuario
-        if (jwtService.isTokenValid(token, usuarioDetails)) {
+        // 10. Continuamos con la cadena de filtros
+        filterChain.doFilter(request, response);
+    }
 
-            // 11. Creamos el objeto de autenticación para Spring
-            UsernamePasswordAuthenticationToken logado =
-                    new UsernamePasswordAuthenticationToken(
-                            usuarioDetails,          // Usuario autenticado
-                            null,                   // Credenciales (no se usan aquí)
-                            usuarioDetails.getAuthorities() // Roles del usuario
-                    );
+    /**
+     * Construye la autenticación a partir del token ya verificado, o devuelve null
+     * si el token no vale (caducado o de un usuario modificado/eliminado después).
+     *
+     * Los tokens con id y roles bastan por sí solos: no se consulta la base de datos.
+     * Los emitidos antes de llevar esos claims se siguen validando cargando al usuario.
+     */
+    private UsernamePasswordAuthenticationToken autenticar(tokenVerificado verificado) {
+
+        // Los tokens de refresco solo sirven en /acceso/refresh; los revocados (logout) en ningún sitio
+        if (verificado.esRefresco() || tokensRevocados.estaRevocado(verificado)) {
+            return null;
+        }
 
-            // 12. Añadimos información extra de la petición (IP, navegador, etc.)
-            logado.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        if (verificado.autocontenido()) {
 
-            // 13. Registramos al usuario como autenticado en el contexto de Spring Security
-            SecurityContextHolder.getContext().setAuthentication(logado);
+            if (verificado.expirado() || usuariosRevocados.estaRevocado(verificado)) {
+                return null;
+            }
+            // El principal es el propio token verificado (id, usuario y roles)
+            return new UsernamePasswordAuthenticationToken(verificado, null, verificado.autoridades());
         }
 
-        // 14. Continuamos con la cadena de filtros
-        filterChain.doFilter(request, response);
+        // Token antiguo: cargamos al usuario desde la base de datos
+        UserDetails usuarioDetails = userDetailsService.loadUserByUsername(verificado.usuario()); // en caso de no existir lanza excepcion
+
+        if (!verificado.esValidoPara(usuarioDetails.getUsername())) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                usuarioDetails,          // Usuario autenticado
+                null,                   // Credenciales (no se usan aquí)
+                usuarioDetails.getAuthorities() // Roles del usuario
+        );
     }
 
     /**
@@ -4,6 +4,7 @@ import com.example.sistemaInquilinos.seguridad.filtro.filtrarToken;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -46,15 +47,33 @@ public class securityConfig {
                 // 2. Configuramos las reglas de autorización por endpoint
                 .authorizeHttpRequests(auth -> auth
 
-                        // ✅ SOLO el login es público
-                        .requestMatchers("/acceso/login").permitAll()
+                        // ✅ SOLO el login y el refresh son públicos
+                        .requestMatchers("/acceso/login", "/acceso/refresh").permitAll()
 
                         // 🔒 SOLO el ADMIN puede registrar nuevos usuarios
                         .requestMatchers("/acceso/register").hasRole("ADMIN")
 
+                        // 🔒 SOLO el ADMIN puede ver las métricas (Actuator)
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // 🔒 SOLO el ADMIN puede gestionar usuarios
                         .requestMatchers("/usuarios/**").hasRole("ADMIN")
 
+                        // 🔒 SOLO el ADMIN puede reconstruir la deuda acumulada
+                        .requestMatchers("/pagos/deuda/reconstruir").hasRole("ADMIN")
+
+                        // 🔒 SOLO el ADMIN puede generar la facturación mensual
+                        .requestMatchers("/pagos/facturacion/**").hasRole("ADMIN")
+
+                        // 🔒 SOLO el ADMIN puede verificar (y reconstruir) el resumen mensual
+                        .requestMatchers("/pagos/resumenMensual/verificar").hasRole("ADMIN")
+
+                        // 🔒 SOLO el ADMIN puede archivar años de pagos (los borra de la tabla pagos)
+                        .requestMatchers(HttpMethod.POST, "/pagos/archivo", "/pagos/archivo/**").hasRole("ADMIN")
+
+                        // 🔒 SOLO el ADMIN puede reconstruir el índice de búsqueda
+                        .requestMatchers("/busqueda/reindexar").hasRole("ADMIN")
+
                         // ✅ Todo lo demás requiere estar autenticado (USER o ADMIN)
                         .anyRequest().authenticated()
                 )
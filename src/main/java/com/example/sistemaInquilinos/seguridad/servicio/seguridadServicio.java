@@ -4,28 +4,33 @@ import com.example.sistemaInquilinos.entidad.Role;
 import com.example.sistemaInquilinos.entidad.usuario;
 import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
 import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
 import com.example.sistemaInquilinos.seguridad.dtos.loginRequest;
+import com.example.sistemaInquilinos.seguridad.dtos.refreshRequest;
 import com.example.sistemaInquilinos.seguridad.dtos.registerRequest;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Servicio principal de SEGURIDAD.
  * Aquí se gestiona:
  * - El LOGIN de usuarios
  * - El REGISTRO de nuevos usuarios
- * - La generación del TOKEN JWT
+ * - La generación de los TOKENS JWT (acceso y refresco)
+ * - El REFRESH y el LOGOUT (revocación de tokens)
  */
 @Service // Indica que esta clase es un servicio de Spring
 @RequiredArgsConstructor // Lombok genera automáticamente el constructor con los atributos final
 public class seguridadServicio {
 
-    // Motor principal de autenticación de Spring Security
-    private final AuthenticationManager authenticationManager;
+    // Comprueba las credenciales (BCrypt) en su propio grupo de hilos acotado
+    private final verificacionCredencialesServicio verificacionCredenciales;
 
     // Repositorio para acceder a los usuarios en la base de datos
     private final usuarioRepositorio usuarioRepositorio;
@@ -36,34 +41,33 @@ public class seguridadServicio {
     // Codificador de contraseñas (BCrypt)
     private final PasswordEncoder passwordEncoder;
 
+    // Tokens concretos revocados (refresh ya usados, logout)
+    private final tokensRevocadosServicio tokensRevocados;
+
+    // Usuarios modificados o eliminados: sus tokens de refresco anteriores tampoco valen
+    private final usuariosRevocadosServicio usuariosRevocados;
+
     /**
      * LOGIN DE USUARIO
      * 1. Comprueba si usuario y contraseña son correctos
-     * 2. Si son correctos, genera un token JWT
-     * 3. Devuelve el token al usuario
+     * 2. Si son correctos, genera el token de acceso y el de refresco
+     * 3. Devuelve los tokens al usuario
+     *
+     * Si hay demasiados logins a la vez responde 503 (ver verificacionCredencialesServicio).
      */
     public tokenDevolver login(loginRequest request) {
 
         // 1. Autenticamos las credenciales con Spring Security
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getUsuario(),
-                        request.getPassword()
-                )
+        Authentication autenticado = verificacionCredenciales.autenticar(
+                request.getUsuario(),
+                request.getPassword()
         );
 
-        // 2. Si no ha habido excepción, buscamos el usuario en la base de datos
-        UserDetails user = usuarioRepositorio
-                .findByUsuario(request.getUsuario())
-                .orElseThrow();
+        // 2. Si no ha habido excepción, el principal ya es el usuario cargado de la base de datos
+        UserDetails user = (UserDetails) autenticado.getPrincipal();
 
-        // 3. Generamos el token JWT para ese usuario
-        String tokenUsuario = jwtService.getTokenFinal(user);
-
-        // 4. Devolvemos el token al cliente
-        return tokenDevolver.builder()
-                .token(tokenUsuario)
-                .build();
+        // 3. Generamos los tokens (acceso y refresco) y los devolvemos al cliente
+        return emitirTokens(user);
     }
 
     /**
@@ -88,13 +92,94 @@ public class seguridadServicio {
         // 2. Guardamos el usuario en la base de datos
         usuarioRepositorio.save(user);
 
-        // 3. Generamos el token JWT para el usuario recién registrado
-        String tokenUsuarioRegistrado = jwtService.getTokenFinal(user);
+        // 3. Generamos los tokens para el usuario recién registrado y los devolvemos
+        return emitirTokens(user);
+    }
+
+    /**
+     * REFRESH DE TOKENS
+     * 1. Verifica el token de refresco (firma, tipo y que no esté revocado)
+     * 2. Lo revoca: cada token de refresco se canjea una sola vez
+     * 3. Carga el usuario, para que los tokens nuevos lleven sus roles actuales,
+     *    y comprueba que el token es posterior a su último cambio (guardado en la tabla)
+     * 4. Devuelve un token de acceso y un token de refresco nuevos
+     *
+     * Cualquier fallo responde 401 y el cliente debe volver a hacer login.
+     */
+    public tokenDevolver refrescar(refreshRequest request) {
+
+        // 1. Verificamos el token de refresco
+        tokenVerificado refresco = verificarRefresco(request.getRefreshToken());
+
+        // 2. Lo revocamos; si ya estaba revocado (reutilizado), se rechaza
+        if (!tokensRevocados.revocar(refresco)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco ya utilizado");
+        }
+
+        // 3. Cargamos el usuario (una consulta cada vez que caduca el token de acceso)
+        usuario user = usuarioRepositorio.findById(refresco.idUsuario())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no encontrado"));
+
+        // La revocación en memoria se pierde al reiniciar; la del usuario no
+        if (user.getRevocadoEn() != null && (refresco.emitido() == null
+                || refresco.emitido().getTime() <= user.getRevocadoEn().toEpochMilli())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco no válido");
+        }
+
+        // 4. Tokens nuevos
+        return emitirTokens(user);
+    }
+
+    /**
+     * LOGOUT
+     * Revoca el token de acceso de la petición y, si se envía, el token de refresco
+     * (solo si es del mismo usuario). A partir de aquí ninguno de los dos sirve.
+     */
+    public void logout(Object principal, refreshRequest request) {
+
+        if (principal instanceof tokenVerificado acceso) {
+            tokensRevocados.revocar(acceso);
+        }
+
+        if (request != null && request.getRefreshToken() != null) {
+            tokenVerificado refresco = verificarRefresco(request.getRefreshToken());
+            String usuarioActual = principal instanceof UserDetails u ? u.getUsername()
+                    : principal instanceof tokenVerificado t ? t.getName() : null;
+
+            if (refresco.usuario().equals(usuarioActual)) {
+                tokensRevocados.revocar(refresco);
+            }
+        }
+    }
+
+    /**
+     * Genera el par de tokens (acceso y refresco) de un usuario.
+     */
+    private tokenDevolver emitirTokens(UserDetails user) {
 
-        // 4. Devolvemos el token al cliente
         return tokenDevolver.builder()
-                .token(tokenUsuarioRegistrado)
+                .token(jwtService.getTokenFinal(user))
+                .refreshToken(jwtService.getTokenRefresco(user))
                 .build();
     }
 
+    /**
+     * Verifica que el texto es un token de refresco válido y vigente.
+     */
+    private tokenVerificado verificarRefresco(String token) {
+
+        tokenVerificado refresco;
+        try {
+            refresco = jwtService.verificar(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco no válido");
+        }
+
+        if (!refresco.esRefresco() || refresco.idUsuario() == null
+                || tokensRevocados.estaRevocado(refresco) || usuariosRevocados.estaRevocado(refresco)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token de refresco no válido");
+        }
+        return refresco;
+    }
+
 }
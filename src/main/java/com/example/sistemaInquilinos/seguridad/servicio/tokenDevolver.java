@@ -6,8 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * clase que se utiliza para DEVOLVER el token JWT al usuario
- * después de hacer login o register correctamente.
+ * clase que se utiliza para DEVOLVER los tokens JWT al usuario
+ * después de hacer login, register o refresh correctamente.
  *
  * Este objeto es la respuesta que recibe el frontend.
  */
@@ -18,8 +18,14 @@ import lombok.NoArgsConstructor;
 public class tokenDevolver {
 
     /**
-     * Token JWT generado tras una autenticación correcta.
-     * Este token es el que se usará en las peticiones protegidas.
+     * Token JWT de ACCESO generado tras una autenticación correcta.
+     * Este token es el que se usará en las peticiones protegidas (dura poco).
      */
     String token;
+
+    /**
+     * Token de REFRESCO: con él se pide un token de acceso nuevo en
+     * POST /acceso/refresh sin volver a introducir la contraseña.
+     */
+    String refreshToken;
 }
@@ -0,0 +1,140 @@
+package com.example.sistemaInquilinos.seguridad.servicio;
+
+import com.example.sistemaInquilinos.entidad.tokenRevocado;
+import com.example.sistemaInquilinos.repositorio.tokenRevocadoRepositorio;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens concretos revocados antes de caducar: tokens de refresco ya usados
+ * y tokens de una sesión cerrada (logout).
+ *
+ * El filtro JWT lo consulta en cada petición, así que la comprobación es una búsqueda
+ * en un mapa en memoria (jti -> expiración), sin base de datos. La tabla token_revocado
+ * guarda lo mismo para recuperarlo al reiniciar y para pasarlo a las demás instancias.
+ *
+ * Solo se guardan los revocados que aún no han caducado, así que el conjunto es pequeño
+ * y se usa un hash exacto en lugar de un filtro de Bloom (sin falsos positivos).
+ * La limpieza periódica quita los caducados del mapa y de la tabla.
+ *
+ * Con varias instancias: revocar inserta en la tabla compartida, así que cada token
+ * de refresco se canjea una sola vez en total. estaRevocado solo mira el mapa de esta
+ * instancia, que se sincroniza periódicamente con la tabla: un logout hecho en otra
+ * instancia se rechaza aquí como mucho tras sincronizacion-ms.
+ */
+@Service
+public class tokensRevocadosServicio {
+
+    private static final Logger logger = LoggerFactory.getLogger(tokensRevocadosServicio.class);
+
+    // Margen hacia atrás de cada sincronización, por si los relojes de las instancias no coinciden
+    private static final long MARGEN_SINCRONIZACION_MS = 60_000;
+
+    private final tokenRevocadoRepositorio repositorio;
+
+    // jti -> expiración del token (ms)
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>();
+
+    // Momento de la última lectura de la tabla (ms)
+    private volatile long ultimaSincronizacion;
+
+    /**
+     * Carga los revocados vigentes al crear el servicio (antes de atender peticiones):
+     * si se hiciera al final del arranque, un token revocado podría colarse mientras tanto.
+     */
+    public tokensRevocadosServicio(tokenRevocadoRepositorio repositorio, MeterRegistry registro) {
+        this.repositorio = repositorio;
+        this.ultimaSincronizacion = System.currentTimeMillis();
+
+        for (tokenRevocado t : repositorio.findByExpiracionAfter(Instant.ofEpochMilli(ultimaSincronizacion))) {
+            revocados.put(t.getJti(), t.getExpiracion().toEpochMilli());
+        }
+        logger.info("Tokens revocados cargados: {}", revocados.size());
+
+        registro.gauge("jwt.revocados", revocados, Map::size);
+    }
+
+    /**
+     * Revoca el token. Devuelve false si ya estaba revocado (por ejemplo, un token
+     * de refresco que otra petición acaba de usar): así solo uno de los dos lo canjea.
+     * Los tokens antiguos sin jti no se pueden revocar uno a uno.
+     *
+     * Primero se guarda en la tabla y después en el mapa: si la base de datos falla,
+     * el token no queda revocado a medias (ni gastado sin guardar la revocación).
+     * La clave primaria decide quién lo revoca, también entre instancias.
+     */
+    public boolean revocar(tokenVerificado token) {
+
+        if (token.jti() == null || token.expiracion() == null) {
+            return false;
+        }
+        long expiracion = token.expiracion().getTime();
+
+        // Ya revocado en esta instancia: no hace falta ir a la base de datos
+        if (revocados.containsKey(token.jti())) {
+            return false;
+        }
+
+        try {
+            repositorio.insertar(token.jti(), Instant.ofEpochMilli(expiracion), Instant.now());
+        } catch (DataIntegrityViolationException e) {
+            // Lo ha revocado antes otra petición (de esta u otra instancia)
+            revocados.put(token.jti(), expiracion);
+            return false;
+        }
+
+        revocados.put(token.jti(), expiracion);
+        return true;
+    }
+
+    /**
+     * Indica si el token se ha revocado. Sin base de datos: solo el mapa en memoria.
+     */
+    public boolean estaRevocado(tokenVerificado token) {
+        return token.jti() != null && revocados.containsKey(token.jti());
+    }
+
+    /**
+     * Añade al mapa los tokens revocados en otras instancias desde la última sincronización.
+     *
+     * Se lee con un margen hacia atrás: volver a añadir un token que ya estaba no cambia nada.
+     */
+    @Scheduled(fixedDelayString = "${seguridad.tokens-revocados.sincronizacion-ms:10000}")
+    public void sincronizar() {
+
+        long ahora = System.currentTimeMillis();
+
+        List<tokenRevocado> nuevos = repositorio.findByRevocadoAfterAndExpiracionAfter(
+                Instant.ofEpochMilli(ultimaSincronizacion - MARGEN_SINCRONIZACION_MS), Instant.ofEpochMilli(ahora));
+        for (tokenRevocado t : nuevos) {
+            revocados.put(t.getJti(), t.getExpiracion().toEpochMilli());
+        }
+
+        ultimaSincronizacion = ahora;
+    }
+
+    /**
+     * Quita los tokens revocados que ya han caducado: a partir de ahí los rechaza la propia expiración.
+     */
+    @Scheduled(fixedDelayString = "${seguridad.tokens-revocados.limpieza-ms:3600000}")
+    public void limpiar() {
+
+        long ahora = System.currentTimeMillis();
+        revocados.values().removeIf(expiracion -> expiracion <= ahora);
+
+        int borrados = repositorio.borrarCaducados(Instant.ofEpochMilli(ahora));
+        if (borrados > 0) {
+            logger.info("Tokens revocados caducados borrados: {}", borrados);
+        }
+    }
+}
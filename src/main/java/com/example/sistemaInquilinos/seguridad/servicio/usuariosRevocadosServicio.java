@@ -0,0 +1,99 @@
+package com.example.sistemaInquilinos.seguridad.servicio;
+
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import com.example.sistemaInquilinos.seguridad.dtos.usuarioRevocadoEvento;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Usuarios modificados o eliminados cuyos tokens anteriores ya no valen.
+ *
+ * Como el filtro JWT autentica solo con los claims del token (sin ir a la base de datos),
+ * un token emitido antes de cambiar el rol, la contraseña o de borrar al usuario seguiría
+ * valiendo hasta caducar. Aquí se guarda, por id de usuario, el momento del último cambio:
+ * se rechazan los tokens emitidos hasta ese momento, y los emitidos después (nuevo login) valen.
+ *
+ * Cada entrada dura lo mismo que el token más largo (el de refresco): pasado ese tiempo
+ * cualquier token anterior al cambio ha caducado por sí solo.
+ *
+ * Si se llena (seguridad.revocados.tamanio-maximo) se descartan las entradas más antiguas,
+ * pero sin perder la revocación: se guarda el momento más reciente de las descartadas y se
+ * rechazan todos los tokens emitidos hasta entonces, de cualquier usuario. En el peor caso
+ * algunos usuarios tienen que volver a hacer login; nunca vuelve a valer un token revocado.
+ *
+ * Las revocaciones viven en memoria de esta instancia. El momento del cambio también se
+ * guarda en el usuario (revocadoEn) y el refresh lo comprueba allí: tras reiniciar, o en
+ * otra instancia, un token de refresco anterior al cambio tampoco vale. Un token de acceso
+ * anterior sí, hasta que caduca (jwt.expiration), porque el filtro no va a la base de datos.
+ */
+@Service
+public class usuariosRevocadosServicio {
+
+    // id de usuario -> momento (ms) del último cambio
+    private final Cache<Integer, Long> revocados;
+
+    // Momento (ms) de la revocación más reciente descartada por tamaño
+    private final AtomicLong descartadosHasta = new AtomicLong(Long.MIN_VALUE);
+
+    // Avisa a quien guarde tokens ya verificados (caché del filtro)
+    private final ApplicationEventPublisher eventos;
+
+    public usuariosRevocadosServicio(
+            ApplicationEventPublisher eventos,
+            @Value("${jwt.expiration}") long jwtExpiration,
+            @Value("${jwt.refresco.expiration}") long refrescoExpiration,
+            @Value("${seguridad.revocados.tamanio-maximo:10000}") long tamanioMaximo) {
+
+        this.eventos = eventos;
+        this.revocados = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(Math.max(jwtExpiration, refrescoExpiration)))
+                .maximumSize(tamanioMaximo)
+                .evictionListener((Integer idUsuario, Long revocadoEn, RemovalCause causa) -> {
+                    // Las caducadas ya no hacen falta; las descartadas por tamaño se siguen aplicando
+                    if (causa == RemovalCause.SIZE && revocadoEn != null) {
+                        descartadosHasta.accumulateAndGet(revocadoEn, Math::max);
+                    }
+                })
+                // El descarte se hace en el propio hilo: al volver de revocar la marca ya está al día
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Invalida los tokens emitidos hasta ahora para el usuario.
+     */
+    public void revocar(Integer idUsuario) {
+        if (idUsuario != null) {
+            revocados.put(idUsuario, System.currentTimeMillis());
+            eventos.publishEvent(new usuarioRevocadoEvento(idUsuario));
+        }
+    }
+
+    /**
+     * Indica si el token se emitió antes del último cambio de su usuario.
+     */
+    public boolean estaRevocado(tokenVerificado token) {
+
+        // Emitido antes de una revocación que ya no está en el mapa: se rechaza por si era suya
+        long descartados = descartadosHasta.get();
+        if (descartados != Long.MIN_VALUE
+                && (token.emitido() == null || token.emitido().getTime() <= descartados)) {
+            return true;
+        }
+
+        if (token.idUsuario() == null) {
+            return false;
+        }
+        Long revocadoEn = revocados.getIfPresent(token.idUsuario());
+
+        return revocadoEn != null
+                && (token.emitido() == null || token.emitido().getTime() <= revocadoEn);
+    }
+}
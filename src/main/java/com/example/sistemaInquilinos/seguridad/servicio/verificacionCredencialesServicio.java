@@ -0,0 +1,125 @@
+package com.example.sistemaInquilinos.seguridad.servicio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Comprueba usuario y contraseña (AuthenticationManager + BCrypt) en un grupo de hilos propio.
+ *
+ * BCrypt es lento a propósito: en un pico de logins (el lunes a las 9) ocupaba todos los
+ * hilos de Tomcat y bloqueaba el resto de la API. Aquí solo se comprueban a la vez
+ * tantas contraseñas como hilos haya, con una cola limitada detrás:
+ * - Si la cola está llena, el login responde 503 al momento en lugar de esperar.
+ * - Si la comprobación no termina en espera-maxima, también 503.
+ *
+ * Al agotar la espera se cancela la tarea y se saca de la cola (purge) para que no ocupe
+ * sitio. Si ya había empezado no se puede abandonar: BCrypt no atiende la interrupción
+ * y el hilo termina esa comprobación igualmente (solo se descarta su resultado).
+ *
+ * Métricas: /actuator/metrics/login.credenciales.*
+ */
+@Service
+public class verificacionCredencialesServicio {
+
+    private final AuthenticationManager authenticationManager;
+
+    // Hilos que ejecutan las comprobaciones, con cola acotada
+    private final ThreadPoolExecutor ejecutor;
+
+    // Tiempo máximo que espera el hilo de la petición
+    private final Duration esperaMaxima;
+
+    // Métricas
+    private final Counter rechazados;
+
+    public verificacionCredencialesServicio(
+            AuthenticationManager authenticationManager,
+            MeterRegistry registro,
+            @Value("${seguridad.login.hilos:0}") int hilos,
+            @Value("${seguridad.login.cola:50}") int cola,
+            @Value("${seguridad.login.espera-maxima:5s}") Duration esperaMaxima) {
+        this.authenticationManager = authenticationManager;
+        this.esperaMaxima = esperaMaxima;
+
+        // 0 = tantos hilos como procesadores: BCrypt solo usa CPU
+        int numeroHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.ejecutor = new ThreadPoolExecutor(numeroHilos, numeroHilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cola)), hilosConNombre(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.rechazados = registro.counter("login.credenciales.rechazados");
+        registro.gauge("login.credenciales.cola", ejecutor, e -> e.getQueue().size());
+        registro.gauge("login.credenciales.activos", ejecutor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Autentica las credenciales y devuelve la autenticación, cuyo principal es el usuario cargado.
+     * Las credenciales incorrectas lanzan la AuthenticationException de siempre.
+     */
+    public Authentication autenticar(String usuario, String password) {
+
+        Future<Authentication> resultado;
+        try {
+            resultado = ejecutor.submit(() -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(usuario, password)));
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados inicios de sesión a la vez, inténtalo de nuevo en unos segundos");
+        }
+
+        try {
+            return resultado.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancelar(resultado);
+            rechazados.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "El inicio de sesión ha tardado demasiado, inténtalo de nuevo");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelar(resultado);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Inicio de sesión interrumpido");
+        } catch (ExecutionException e) {
+            // Credenciales incorrectas, usuario inexistente...: se relanza tal cual
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Cancela una comprobación que ya no se espera. Si seguía en la cola, purge la quita
+     * (una tarea cancelada no sale sola de la cola hasta que le toca). Si ya se estaba
+     * ejecutando, sigue hasta terminar: el trabajo empezado no se puede abandonar.
+     */
+    private void cancelar(Future<Authentication> resultado) {
+        resultado.cancel(true);
+        ejecutor.purge();
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    private static ThreadFactory hilosConNombre() {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, "login-credenciales-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
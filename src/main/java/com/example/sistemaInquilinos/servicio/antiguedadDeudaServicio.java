@@ -0,0 +1,81 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.antiguedadDeudaDTO;
+import com.example.sistemaInquilinos.dto.informeAntiguedadDeudaDTO;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio que genera el informe de antigüedad de la deuda
+ * (0-30, 31-60, 61-90 y más de 90 días).
+ *
+ * La base de datos agrupa los pagos pendientes por inmueble en una sola consulta;
+ * los totales por ciudad y de la cartera se suman a partir de esas filas agrupadas,
+ * así que el trabajo en Java depende del número de inmuebles con deuda
+ * y no del número de pagos pendientes.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+@RequiredArgsConstructor // Inyección de dependencias por constructor
+public class antiguedadDeudaServicio {
+
+    private final pagosRepositorio pagosRepositorio;
+
+    private final pagosServicio pagosServicio;
+
+    /**
+     * Genera el informe a fecha del mes indicado.
+     * Si no se indica año o mes se usa el mes actual.
+     */
+    public informeAntiguedadDeudaDTO generarInforme(Integer anio, Integer mes) {
+
+        YearMonth actual = YearMonth.now();
+        int anioReferencia = anio != null ? anio : actual.getYear();
+        int mesReferencia = mes != null ? mes : actual.getMonthValue();
+
+        pagosServicio.validarMes(mesReferencia);
+
+        List<antiguedadDeudaDTO> porInmueble =
+                pagosRepositorio.agruparDeudaPorAntiguedad(anioReferencia * 12 + mesReferencia);
+
+        // Totales por ciudad y de la cartera a partir de las filas por inmueble
+        Map<String, antiguedadDeudaDTO> porCiudad = new LinkedHashMap<>();
+        antiguedadDeudaDTO cartera = vacio(null);
+
+        for (antiguedadDeudaDTO fila : porInmueble) {
+            acumular(porCiudad.computeIfAbsent(fila.getCiudad(), this::vacio), fila);
+            acumular(cartera, fila);
+        }
+
+        return informeAntiguedadDeudaDTO.builder()
+                .anio(anioReferencia)
+                .mes(mesReferencia)
+                .porInmueble(porInmueble)
+                .porCiudad(new ArrayList<>(porCiudad.values()))
+                .cartera(cartera)
+                .build();
+    }
+
+    private antiguedadDeudaDTO vacio(String ciudad) {
+        return new antiguedadDeudaDTO(null, ciudad, 0.0, 0.0, 0.0, 0.0, 0.0, 0L);
+    }
+
+    private void acumular(antiguedadDeudaDTO destino, antiguedadDeudaDTO fila) {
+        destino.setHasta30Dias(destino.getHasta30Dias() + valor(fila.getHasta30Dias()));
+        destino.setDe31a60Dias(destino.getDe31a60Dias() + valor(fila.getDe31a60Dias()));
+        destino.setDe61a90Dias(destino.getDe61a90Dias() + valor(fila.getDe61a90Dias()));
+        destino.setMasDe90Dias(destino.getMasDe90Dias() + valor(fila.getMasDe90Dias()));
+        destino.setTotal(destino.getTotal() + valor(fila.getTotal()));
+        destino.setPagosPendientes(destino.getPagosPendientes() + fila.getPagosPendientes());
+    }
+
+    private double valor(Double importe) {
+        return importe != null ? importe : 0.0;
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.anioArchivadoEvento;
+import com.example.sistemaInquilinos.dto.archivoPagosDTO;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.archivoPagos;
+import com.example.sistemaInquilinos.repositorio.archivoPagosRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servicio que separa los pagos en datos "en caliente" y datos archivados por año.
+ *
+ * La tabla pagos solo guarda los años abiertos. Cuando un año ha terminado y todos
+ * sus pagos están cobrados, se archiva: sus pagos se comprimen en bloques
+ * (uno por inmueble) en archivo_pagos y se borran de pagos. A partir de ahí:
+ * - Las consultas normales (listados, impagos, paginación, exportación) solo leen años abiertos
+ * - El histórico se consulta aparte, descomprimiendo los bloques (más lento)
+ * - Los años archivados no admiten pagos nuevos ni cambios
+ *
+ * La deuda por inmueble no cambia al archivar (los pagos archivados ya están cobrados)
+ * y el resumen mensual de esos años se conserva tal cual.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class archivoPagosServicio {
+
+    // Logger para mostrar los años archivados y su compresión
+    private static final Logger logger = LoggerFactory.getLogger(archivoPagosServicio.class);
+
+    private static final TypeReference<List<pagosDTO>> LISTA_PAGOS = new TypeReference<>() { };
+
+    private final pagosRepositorio pagosRepositorio;
+
+    private final archivoPagosRepositorio archivoRepositorio;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    // Avisa a los índices de los paneles de que los pagos del año ya no están en la tabla
+    private final ApplicationEventPublisher eventos;
+
+    // Años ya archivados: se consultan en memoria en cada alta o cambio de pago
+    private final Set<Integer> aniosArchivados = ConcurrentHashMap.newKeySet();
+
+    // Evita archivar el mismo año dos veces a la vez (la tarea programada y una petición)
+    private final ReentrantLock bloqueo = new ReentrantLock();
+
+    public archivoPagosServicio(pagosRepositorio pagosRepositorio,
+                                archivoPagosRepositorio archivoRepositorio,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventos) {
+        this.pagosRepositorio = pagosRepositorio;
+        this.archivoRepositorio = archivoRepositorio;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventos = eventos;
+    }
+
+    @PostConstruct
+    void cargarAniosArchivados() {
+        aniosArchivados.addAll(archivoRepositorio.listarAnios());
+    }
+
+    // =========================
+    // ARCHIVADO
+    // =========================
+
+    /**
+     * Archiva todos los años cerrados con todos sus pagos cobrados.
+     * Se ejecuta según archivo-pagos.cron ("-" lo desactiva).
+     *
+     * @return Años archivados en esta ejecución.
+     */
+    @Scheduled(cron = "${archivo-pagos.cron:-}")
+    public List<archivoPagosDTO> archivarAniosCerrados() {
+
+        List<archivoPagosDTO> archivados = new ArrayList<>();
+
+        for (Integer anio : pagosRepositorio.listarAniosCobradosAntesDe(Year.now().getValue())) {
+            try {
+                archivados.add(archivarAnio(anio));
+            } catch (RuntimeException e) {
+                // Un año que no se puede archivar no impide archivar los demás
+                logger.error("No se ha podido archivar el año " + anio, e);
+            }
+        }
+
+        return archivados;
+    }
+
+    /**
+     * Mueve los pagos de un año a archivo_pagos en una única transacción.
+     *
+     * Los pagos se leen en streaming ordenados por inmueble y cada inmueble
+     * se guarda como un bloque comprimido; al final se borran de pagos con un solo DELETE.
+     * Si algo falla no se archiva nada.
+     *
+     * Responde con un 400 (BAD_REQUEST) si el año no ha terminado
+     * o si le quedan pagos sin cobrar.
+     */
+    public archivoPagosDTO archivarAnio(Integer anio) {
+
+        if (anio == null || anio >= Year.now().getValue()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Solo se pueden archivar años ya terminados"
+            );
+        }
+
+        long inicio = System.nanoTime();
+
+        bloqueo.lock();
+        archivoPagosDTO resultado;
+        boolean yaArchivado = !aniosArchivados.add(anio);
+        try {
+            // El año se cierra antes de leerlo: los pagos nuevos o cambios de ese año se rechazan
+            resultado = transactionTemplate.execute(estado -> {
+
+                long pendientes = pagosRepositorio.contarPendientesDelAnio(anio);
+
+                if (pendientes > 0) {
+                    throw new ResponseStatusException(
+                            HttpStatus.BAD_REQUEST,
+                            "El año " + anio + " tiene " + pendientes + " pagos sin cobrar: no se puede archivar"
+                    );
+                }
+
+                archivoPagosDTO archivado = guardarBloques(anio);
+
+                // Si se borrasen más pagos de los archivados (uno guardado mientras tanto), se deshace todo
+                int borrados = pagosRepositorio.borrarAnio(anio);
+                if (borrados != archivado.getPagos()) {
+                    throw new IllegalStateException("Se han archivado " + archivado.getPagos()
+                            + " pagos del año " + anio + " pero había " + borrados);
+                }
+
+                eventos.publishEvent(new anioArchivadoEvento(anio));
+
+                return archivado;
+            });
+
+            if (resultado.getPagos() == 0 && !yaArchivado) {
+                // Sin pagos que archivar el año sigue abierto
+                aniosArchivados.remove(anio);
+            }
+        } catch (RuntimeException e) {
+            if (!yaArchivado) {
+                aniosArchivados.remove(anio);
+            }
+            throw e;
+        } finally {
+            bloqueo.unlock();
+        }
+
+        logger.info("Año " + anio + " archivado: " + resultado.getPagos() + " pagos en "
+                + resultado.getBloques() + " bloques, " + resultado.getBytesOriginales() + " -> "
+                + resultado.getBytesComprimidos() + " bytes en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+
+        return resultado;
+    }
+
+    /**
+     * Recorre los pagos del año y guarda un bloque por cada inmueble.
+     * Solo se mantienen en memoria los pagos del inmueble en curso.
+     */
+    private archivoPagosDTO guardarBloques(Integer anio) {
+
+        archivoPagosDTO total = archivoPagosDTO.builder()
+                .anio(anio).bloques(0L).pagos(0L).importeTotal(0.0)
+                .bytesOriginales(0L).bytesComprimidos(0L)
+                .build();
+
+        try (Stream<pagosDTO> stream = pagosRepositorio.recorrerAnio(anio)) {
+
+            List<pagosDTO> bloque = new ArrayList<>();
+            Instant ahora = Instant.now();
+
+            for (pagosDTO pago : (Iterable<pagosDTO>) stream::iterator) {
+
+                if (!bloque.isEmpty() && !Objects.equals(bloque.get(0).getIdInmueble(), pago.getIdInmueble())) {
+                    guardarBloque(anio, bloque, ahora, total);
+                    bloque = new ArrayList<>();
+                }
+
+                bloque.add(pago);
+            }
+
+            if (!bloque.isEmpty()) {
+                guardarBloque(anio, bloque, ahora, total);
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Comprime y guarda los pagos de un inmueble, y los suma al total del año.
+     */
+    private void guardarBloque(Integer anio, List<pagosDTO> pagos, Instant fecha, archivoPagosDTO total) {
+
+        archivoPagos bloque = archivoRepositorio.save(crearBloque(anio, pagos, fecha));
+
+        total.setBloques(total.getBloques() + 1);
+        total.setPagos(total.getPagos() + bloque.getNumeroPagos());
+        total.setImporteTotal(total.getImporteTotal() + bloque.getImporteTotal());
+        total.setBytesOriginales(total.getBytesOriginales() + bloque.getBytesOriginales());
+        total.setBytesComprimidos(total.getBytesComprimidos() + bloque.getBytesComprimidos());
+    }
+
+    private archivoPagos crearBloque(Integer anio, List<pagosDTO> pagos, Instant fecha) {
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(pagos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pueden convertir a JSON los pagos archivados", e);
+        }
+
+        byte[] datos = comprimir(json);
+
+        return archivoPagos.builder()
+                .anio(anio)
+                .idInmueble(pagos.get(0).getIdInmueble())
+                .numeroPagos(pagos.size())
+                .importeTotal(pagos.stream()
+                        .map(pagosDTO::getPrecioAlquiler)
+                        .filter(Objects::nonNull)
+                        .mapToDouble(Double::doubleValue)
+                        .sum())
+                .bytesOriginales(json.length)
+                .bytesComprimidos(datos.length)
+                .datos(datos)
+                .fechaArchivo(fecha)
+                .build();
+    }
+
+    // =========================
+    // CONSULTA DEL HISTÓRICO
+    // =========================
+
+    /**
+     * Devuelve los pagos archivados de un año, opcionalmente de un inmueble y un mes.
+     *
+     * Es la ruta lenta: hay que leer y descomprimir los bloques.
+     * Filtrar por inmueble limita la lectura a su bloque.
+     */
+    @Transactional(readOnly = true)
+    public List<pagosDTO> consultar(Integer anio, Integer idInmueble, Integer mes) {
+
+        List<archivoPagos> bloques = idInmueble == null
+                ? archivoRepositorio.findByAnioOrderByIdInmuebleAsc(anio)
+                : archivoRepositorio.findByAnioAndIdInmueble(anio, idInmueble);
+
+        return bloques.stream()
+                .flatMap(bloque -> descomprimir(bloque).stream())
+                .filter(pago -> mes == null || mes.equals(pago.getMes()))
+                .sorted(Comparator.comparing(pagosDTO::getIdPago))
+                .toList();
+    }
+
+    /**
+     * Totales de los años archivados (o de uno solo), sin descomprimir los bloques.
+     */
+    @Transactional(readOnly = true)
+    public List<archivoPagosDTO> listarAnios(Integer anio) {
+        return archivoRepositorio.resumirAnios(anio);
+    }
+
+    // =========================
+    // AÑOS CERRADOS
+    // =========================
+
+    /**
+     * Indica si el año ya está archivado.
+     */
+    public boolean estaArchivado(Integer anio) {
+        return anio != null && aniosArchivados.contains(anio);
+    }
+
+    /**
+     * Comprueba que el año admite pagos nuevos o cambios.
+     * Si está archivado, responde con un 400 (BAD_REQUEST).
+     */
+    public void comprobarAbierto(Integer anio) {
+        if (estaArchivado(anio)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El año " + anio + " está archivado: sus pagos ya no se pueden crear ni modificar"
+            );
+        }
+    }
+
+    // =========================
+    // COMPRESIÓN
+    // =========================
+
+    private byte[] comprimir(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+        try (OutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se ha podido comprimir el bloque", e);
+        }
+        return salida.toByteArray();
+    }
+
+    private List<pagosDTO> descomprimir(archivoPagos bloque) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bloque.getDatos()))) {
+            return objectMapper.readValue(gzip, LISTA_PAGOS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se ha podido leer el bloque archivado " + bloque.getIdBloque(), e);
+        }
+    }
+}
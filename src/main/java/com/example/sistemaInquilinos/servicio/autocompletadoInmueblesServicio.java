@@ -0,0 +1,265 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.campoAutocompletado;
+import com.example.sistemaInquilinos.dto.sugerenciaUbicacionDTO;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio de autocompletado de ciudad y código postal de los inmuebles.
+ *
+ * Los campos de autocompletado del cliente piden sugerencias en cada pulsación:
+ * en vez de lanzar un LIKE por tecla, se responden desde dos árboles de prefijos
+ * en memoria (uno por campo) que también cuentan los inmuebles bajo cada prefijo
+ * y por estado.
+ *
+ * Los árboles se crean al arrancar con una sola consulta y después se actualizan
+ * con los eventos de inmuebleServicio (altas, cambios y bajas) y de
+ * estadoInmuebleServicio (recálculo de estado), al confirmarse cada transacción.
+ * Cada evento trae la versión del inmueble: uno más antiguo que el ya aplicado
+ * (o de un inmueble eliminado) se descarta.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class autocompletadoInmueblesServicio {
+
+    // Logger para mostrar la creación de los árboles
+    private static final Logger logger = LoggerFactory.getLogger(autocompletadoInmueblesServicio.class);
+
+    private static final estadoInmueble[] ESTADOS = estadoInmueble.values();
+
+    // Número máximo de sugerencias que se puede pedir
+    public static final int LIMITE_MAXIMO = 50;
+
+    private final inmuebleRepositorio inmuebleRepositorio;
+
+    private final triePrefijos ciudades = new triePrefijos(ESTADOS.length);
+    private final triePrefijos codigosPostales = new triePrefijos(ESTADOS.length);
+
+    // Lo que hay en los árboles de cada inmueble, para poder restarlo cuando cambia
+    private final Map<Integer, ubicacionInmueble> ubicaciones = new HashMap<>();
+
+    // Versión aplicada de cada inmueble
+    private final versionesAplicadas<Integer> versiones = new versionesAplicadas<>();
+
+    // Varias consultas a la vez, un cambio cada vez
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    public autocompletadoInmueblesServicio(inmuebleRepositorio inmuebleRepositorio, MeterRegistry registro) {
+        this.inmuebleRepositorio = inmuebleRepositorio;
+
+        // Métricas: /actuator/metrics/inmuebles.autocompletado.*
+        registro.gauge("inmuebles.autocompletado.nodos", this, servicio -> servicio.nodos());
+        registro.gauge("inmuebles.autocompletado.inmuebles", this, servicio -> servicio.inmuebles());
+    }
+
+    // =========================
+    // CREACIÓN
+    // =========================
+
+    /**
+     * Crea los árboles con la ciudad, código postal y estado de todos los inmuebles.
+     * Se ejecuta al arrancar la aplicación (con los datos iniciales ya cargados).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+
+        long inicio = System.nanoTime();
+
+        bloqueo.writeLock().lock();
+        try {
+            ciudades.vaciar();
+            codigosPostales.vaciar();
+            ubicaciones.clear();
+            versiones.vaciar();
+
+            inmuebleRepositorio.listarUbicaciones().forEach(ubicacion -> {
+                versiones.aplicar(ubicacion.idInmueble(), ubicacion.version());
+                anadir(ubicacion);
+            });
+
+            logger.info("Autocompletado creado: " + ubicaciones.size() + " inmuebles, "
+                    + ciudades.valores() + " ciudades y " + codigosPostales.valores() + " códigos postales en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    // =========================
+    // ACTUALIZACIÓN
+    // =========================
+
+    /**
+     * Alta, cambio (también de estado, por el recálculo) o baja (campos a null)
+     * de un inmueble, ya confirmada.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarInmueble(ubicacionInmueble ubicacion) {
+
+        if (ubicacion.idInmueble() == null) {
+            return;
+        }
+
+        bloqueo.writeLock().lock();
+        try {
+            if (ubicacion.esEliminado()) {
+                versiones.eliminar(ubicacion.idInmueble());
+            } else if (!versiones.aplicar(ubicacion.idInmueble(), ubicacion.version())) {
+                return;
+            }
+            quitar(ubicaciones.remove(ubicacion.idInmueble()));
+            anadir(ubicacion);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    // Deben llamarse con el bloqueo de escritura
+    private void anadir(ubicacionInmueble ubicacion) {
+
+        int estado = posicion(ubicacion.estado());
+        boolean guardado = false;
+
+        String ciudad = clave(campoAutocompletado.CIUDAD, ubicacion.ciudad());
+        if (!ciudad.isEmpty()) {
+            ciudades.anadir(ciudad, ubicacion.ciudad().trim(), estado);
+            guardado = true;
+        }
+
+        String codigoPostal = clave(campoAutocompletado.CODIGO_POSTAL, ubicacion.codigoPostal());
+        if (!codigoPostal.isEmpty()) {
+            codigosPostales.anadir(codigoPostal, ubicacion.codigoPostal().trim(), estado);
+            guardado = true;
+        }
+
+        if (guardado) {
+            ubicaciones.put(ubicacion.idInmueble(), ubicacion);
+        }
+    }
+
+    private void quitar(ubicacionInmueble ubicacion) {
+
+        if (ubicacion == null) {
+            return;
+        }
+
+        int estado = posicion(ubicacion.estado());
+
+        String ciudad = clave(campoAutocompletado.CIUDAD, ubicacion.ciudad());
+        if (!ciudad.isEmpty()) {
+            ciudades.quitar(ciudad, estado);
+        }
+
+        String codigoPostal = clave(campoAutocompletado.CODIGO_POSTAL, ubicacion.codigoPostal());
+        if (!codigoPostal.isEmpty()) {
+            codigosPostales.quitar(codigoPostal, estado);
+        }
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    /**
+     * Valores del campo que empiezan por el prefijo (sin importar mayúsculas ni tildes),
+     * de más a menos inmuebles.
+     */
+    public List<sugerenciaUbicacionDTO> sugerir(campoAutocompletado campo, String prefijo, int limite) {
+
+        String clave = clave(campo, prefijo);
+        int maximo = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        bloqueo.readLock().lock();
+        try {
+            return arbol(campo).sugerir(clave, maximo).stream()
+                    .map(autocompletadoInmueblesServicio::sugerencia)
+                    .toList();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de inmuebles (en total y por estado) cuyo campo empieza por el prefijo.
+     * Sin prefijo cuenta todos los que tienen el campo informado.
+     */
+    public sugerenciaUbicacionDTO contar(campoAutocompletado campo, String prefijo) {
+
+        String clave = clave(campo, prefijo);
+
+        bloqueo.readLock().lock();
+        try {
+            sugerenciaUbicacionDTO conteo = sugerencia(arbol(campo).contar(clave));
+            conteo.setValor(prefijo);
+            return conteo;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private triePrefijos arbol(campoAutocompletado campo) {
+        return campo == campoAutocompletado.CIUDAD ? ciudades : codigosPostales;
+    }
+
+    private static sugerenciaUbicacionDTO sugerencia(triePrefijos.conteo conteo) {
+        Map<estadoInmueble, Integer> porEstado = new EnumMap<>(estadoInmueble.class);
+        for (estadoInmueble estado : ESTADOS) {
+            porEstado.put(estado, conteo.porEstado()[estado.ordinal()]);
+        }
+        return sugerenciaUbicacionDTO.builder()
+                .valor(conteo.valor())
+                .inmuebles(conteo.total())
+                .porEstado(porEstado)
+                .build();
+    }
+
+    /**
+     * Clave en el árbol: la ciudad en minúsculas y sin tildes ("Málaga" -> "malaga");
+     * el código postal sin espacios y en mayúsculas.
+     */
+    private static String clave(campoAutocompletado campo, String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return campo == campoAutocompletado.CIUDAD
+                ? indiceInvertido.normalizar(texto)
+                : texto.replace(" ", "").toUpperCase();
+    }
+
+    private static int posicion(estadoInmueble estado) {
+        return estado != null ? estado.ordinal() : -1;
+    }
+
+    private int nodos() {
+        bloqueo.readLock().lock();
+        try {
+            return ciudades.nodos() + codigosPostales.nodos();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private int inmuebles() {
+        bloqueo.readLock().lock();
+        try {
+            return ubicaciones.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+}
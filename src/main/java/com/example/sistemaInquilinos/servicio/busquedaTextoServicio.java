@@ -0,0 +1,474 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.documentoBusquedaEvento;
+import com.example.sistemaInquilinos.dto.estadoInmuebleCambiadoEvento;
+import com.example.sistemaInquilinos.dto.resultadoBusquedaDTO;
+import com.example.sistemaInquilinos.dto.tipoDocumentoBusqueda;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio de búsqueda de texto sobre inquilinos (nombre, DNI, email)
+ * e inmuebles (dirección, ciudad), por fragmentos y sin tener en cuenta tildes.
+ *
+ * Las búsquedas se resuelven en memoria con un indiceInvertido, sin consultar
+ * la base de datos. El índice se mantiene al día con los eventos que publican
+ * inquilinoServicio e inmuebleServicio al confirmar cada cambio.
+ *
+ * En disco, dentro de busqueda.directorio, se guardan:
+ * - documentos.jsonl: copia completa de los documentos indexados
+ * - cambios.jsonl: cambios posteriores, uno por línea, que se añaden al final
+ * Al arrancar se carga la copia y se aplican los cambios; cuando hay muchos
+ * cambios se escribe una copia nueva. Si no hay nada en disco (o se pide
+ * reconstruir) el índice se crea desde la base de datos.
+ *
+ * Cada documento guarda la versión (@Version) del registro: los eventos atrasados
+ * se descartan y, al arrancar, si las versiones de disco no coinciden con las de la
+ * base de datos (un cambio confirmado que no llegó a disco) se reconstruye.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class busquedaTextoServicio {
+
+    // Logger para mostrar la carga, reconstrucción y compactación del índice
+    private static final Logger logger = LoggerFactory.getLogger(busquedaTextoServicio.class);
+
+    private static final String DOCUMENTOS = "documentos.jsonl";
+    private static final String CAMBIOS = "cambios.jsonl";
+
+    // Peso de cada campo: pesan más los que identifican al registro
+    private static final Map<String, Double> PESOS = Map.of(
+            "nombre", 1.5,
+            "dni", 1.5,
+            "email", 1.0,
+            "direccion", 1.5,
+            "ciudad", 0.5);
+
+    // Número máximo de resultados que se puede pedir
+    public static final int LIMITE_MAXIMO = 100;
+
+    private final indiceInvertido indice = new indiceInvertido(PESOS);
+
+    // Versión aplicada de cada documento (por clave), protegida por "escritura"
+    private final versionesAplicadas<String> versiones = new versionesAplicadas<>();
+
+    private final inquilinoRespositorio inquilinoRepositorio;
+    private final inmuebleRepositorio inmuebleRepositorio;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Path directorio;
+
+    // Si es true, al arrancar se ignora lo guardado en disco y se reconstruye
+    private final boolean reconstruirAlArrancar;
+
+    // Cambios acumulados en cambios.jsonl antes de escribir una copia nueva
+    private final int compactarCada;
+
+    private final Timer consultas;
+
+    // Escritura en disco y reconstrucción, de una en una
+    private final Object escritura = new Object();
+    private BufferedWriter cambios;
+    private int cambiosPendientes;
+
+    public busquedaTextoServicio(inquilinoRespositorio inquilinoRepositorio,
+                                 inmuebleRepositorio inmuebleRepositorio,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry registro,
+                                 @Value("${busqueda.directorio:indice-busqueda}") Path directorio,
+                                 @Value("${busqueda.reconstruir-al-arrancar:false}") boolean reconstruirAlArrancar,
+                                 @Value("${busqueda.compactar-cada:10000}") int compactarCada) {
+        this.inquilinoRepositorio = inquilinoRepositorio;
+        this.inmuebleRepositorio = inmuebleRepositorio;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.directorio = directorio;
+        this.reconstruirAlArrancar = reconstruirAlArrancar;
+        this.compactarCada = compactarCada;
+
+        this.consultas = registro.timer("busqueda.consultas");
+        registro.gauge("busqueda.documentos", indice, indiceInvertido::tamanio);
+    }
+
+    // =========================
+    // ARRANQUE
+    // =========================
+
+    /**
+     * Se ejecuta cuando la aplicación ya ha arrancado (y se han cargado los datos iniciales).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void arrancar() {
+        synchronized (escritura) {
+            if (reconstruirAlArrancar || !cargar() || !coincideConLaBase()) {
+                reconstruir();
+            }
+        }
+    }
+
+    /**
+     * Carga la copia de disco y le aplica los cambios guardados después.
+     *
+     * @return false si no hay índice en disco o no se puede leer.
+     */
+    private boolean cargar() {
+
+        Path documentos = directorio.resolve(DOCUMENTOS);
+
+        if (!Files.exists(documentos)) {
+            return false;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            indice.vaciar();
+            versiones.vaciar();
+            leerLineas(documentos);
+
+            Path ficheroCambios = directorio.resolve(CAMBIOS);
+            if (Files.exists(ficheroCambios)) {
+                cambiosPendientes = leerLineas(ficheroCambios);
+            }
+
+            abrirCambios();
+
+            logger.info("Índice de búsqueda cargado de " + directorio + ": " + indice.tamanio()
+                    + " documentos en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se ha podido cargar el índice de búsqueda, se reconstruye: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int leerLineas(Path fichero) throws IOException {
+        int lineas = 0;
+        try (BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (!linea.isBlank()) {
+                    aplicar(objectMapper.readTree(linea));
+                    lineas++;
+                }
+            }
+        }
+        return lineas;
+    }
+
+    /**
+     * Aplica una línea de disco: un documento, una baja ("campos" a null)
+     * o solo una versión nueva (sin "campos", por un cambio de estado).
+     */
+    private void aplicar(JsonNode linea) {
+        String clave = linea.get("clave").asText();
+        JsonNode campos = linea.get("campos");
+        JsonNode version = linea.get("version");
+        Long numero = version == null || version.isNull() ? null : version.asLong();
+
+        if (campos == null) {
+            versiones.aplicar(clave, numero);
+        } else if (campos.isNull()) {
+            indice.eliminar(clave);
+            versiones.eliminar(clave);
+        } else if (versiones.aplicar(clave, numero)) {
+            Map<String, String> texto = new LinkedHashMap<>();
+            campos.fields().forEachRemaining(campo -> texto.put(campo.getKey(), campo.getValue().asText()));
+            indice.guardar(clave, texto);
+        }
+    }
+
+    /**
+     * Comprueba que el índice cargado tiene exactamente los inquilinos e inmuebles
+     * de la base de datos y en su versión actual. Si falta un cambio (la aplicación
+     * se detuvo entre confirmarlo y anotarlo en disco) el índice no vale.
+     */
+    private boolean coincideConLaBase() {
+
+        Map<String, Long> enBase = new HashMap<>();
+        inquilinoRepositorio.listarVersiones().forEach(fila ->
+                enBase.put(clave(tipoDocumentoBusqueda.INQUILINO, (Integer) fila[0]), (Long) fila[1]));
+        inmuebleRepositorio.listarVersiones().forEach(fila ->
+                enBase.put(clave(tipoDocumentoBusqueda.INMUEBLE, (Integer) fila[0]), (Long) fila[1]));
+
+        // Solo los documentos del índice tienen versión: si todas coinciden y hay
+        // tantos documentos como filas, no sobra ni falta ninguno
+        boolean coincide = indice.tamanio() == enBase.size()
+                && enBase.entrySet().stream()
+                .allMatch(fila -> fila.getValue() != null && fila.getValue().equals(versiones.version(fila.getKey())));
+
+        if (!coincide) {
+            logger.warn("El índice de búsqueda guardado no coincide con la base de datos, se reconstruye");
+        }
+        return coincide;
+    }
+
+    // =========================
+    // RECONSTRUCCIÓN
+    // =========================
+
+    /**
+     * Crea el índice desde cero leyendo todos los inquilinos e inmuebles
+     * y lo guarda en disco.
+     *
+     * Los cambios que se confirman mientras tanto esperan a que termine
+     * y se aplican después, así que no se pierden.
+     *
+     * @return Número de documentos indexados.
+     */
+    public int reconstruir() {
+        synchronized (escritura) {
+
+            long inicio = System.nanoTime();
+
+            transactionTemplate.executeWithoutResult(estado -> {
+                indice.vaciar();
+                versiones.vaciar();
+                inquilinoRepositorio.findAll().forEach(inquilino -> indexar(documentoBusquedaEvento.de(inquilino)));
+                inmuebleRepositorio.findAll().forEach(inmueble -> indexar(documentoBusquedaEvento.de(inmueble)));
+            });
+
+            escribirCopia();
+
+            logger.info("Índice de búsqueda reconstruido: " + indice.tamanio() + " documentos en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+
+            return indice.tamanio();
+        }
+    }
+
+    // =========================
+    // ACTUALIZACIÓN INCREMENTAL
+    // =========================
+
+    /**
+     * Aplica un alta, cambio o baja cuando su transacción se ha confirmado
+     * (si se deshace, el índice no cambia). Un cambio más antiguo que el ya
+     * aplicado (o de un registro eliminado) se descarta.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarDocumento(documentoBusquedaEvento evento) {
+
+        if (evento.id() == null) {
+            return;
+        }
+
+        synchronized (escritura) {
+            if (indexar(evento)) {
+                anotarCambio(clave(evento.tipo(), evento.id()), evento.campos(), evento.version(), true);
+            }
+        }
+    }
+
+    /**
+     * El recálculo de estado no cambia el texto indexado del inmueble, pero sí su versión:
+     * se apunta para que la comprobación al arrancar no vea el índice desfasado.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstado(estadoInmuebleCambiadoEvento evento) {
+
+        if (evento.version() == null) {
+            return;
+        }
+
+        String clave = clave(tipoDocumentoBusqueda.INMUEBLE, evento.idInmueble());
+
+        synchronized (escritura) {
+            if (versiones.version(clave) != null && versiones.aplicar(clave, evento.version())) {
+                anotarCambio(clave, null, evento.version(), false);
+            }
+        }
+    }
+
+    /**
+     * @return false si el evento es más antiguo que lo ya indexado y no se ha aplicado.
+     */
+    private boolean indexar(documentoBusquedaEvento evento) {
+        String clave = clave(evento.tipo(), evento.id());
+        if (evento.esEliminado()) {
+            indice.eliminar(clave);
+            versiones.eliminar(clave);
+            return true;
+        }
+        if (!versiones.aplicar(clave, evento.version())) {
+            return false;
+        }
+        indice.guardar(clave, evento.campos());
+        return true;
+    }
+
+    // =========================
+    // BÚSQUEDA
+    // =========================
+
+    /**
+     * Busca inquilinos e inmuebles (o solo los del tipo indicado) que contienen
+     * todas las palabras del texto, de mayor a menor puntuación.
+     */
+    public resultadoBusquedaDTO buscar(String texto, tipoDocumentoBusqueda tipo, int limite) {
+
+        long inicio = System.nanoTime();
+
+        String prefijo = tipo != null ? tipo.name() + ":" : null;
+
+        List<resultadoBusquedaDTO.coincidencia> resultados = indice.buscar(
+                        texto,
+                        prefijo != null ? clave -> clave.startsWith(prefijo) : null,
+                        Math.max(1, Math.min(limite, LIMITE_MAXIMO)))
+                .stream()
+                .map(encontrado -> {
+                    int separador = encontrado.clave().indexOf(':');
+                    return new resultadoBusquedaDTO.coincidencia(
+                            tipoDocumentoBusqueda.valueOf(encontrado.clave().substring(0, separador)),
+                            Integer.valueOf(encontrado.clave().substring(separador + 1)),
+                            encontrado.campos(),
+                            encontrado.puntuacion());
+                })
+                .toList();
+
+        long nanos = System.nanoTime() - inicio;
+        consultas.record(Duration.ofNanos(nanos));
+
+        return resultadoBusquedaDTO.builder()
+                .consulta(texto)
+                .resultados(resultados)
+                .microsegundos(nanos / 1_000)
+                .build();
+    }
+
+    /**
+     * Número de documentos en el índice.
+     */
+    public int documentos() {
+        return indice.tamanio();
+    }
+
+    private static String clave(tipoDocumentoBusqueda tipo, Integer id) {
+        return tipo.name() + ":" + id;
+    }
+
+    // =========================
+    // DISCO
+    // =========================
+
+    /**
+     * Añade el cambio al final de cambios.jsonl y, si ya hay muchos, escribe una copia nueva.
+     * Un fallo de disco no detiene la aplicación: el índice en memoria sigue al día
+     * y se puede reconstruir en cualquier momento.
+     */
+    private void anotarCambio(String clave, Map<String, String> campos, Long version, boolean conCampos) {
+        try {
+            if (cambios == null) {
+                abrirCambios();
+            }
+            cambios.write(linea(clave, campos, version, conCampos));
+            cambios.newLine();
+            cambios.flush();
+
+            if (++cambiosPendientes >= compactarCada) {
+                escribirCopia();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("No se ha podido guardar en disco un cambio del índice de búsqueda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe todos los documentos en un fichero temporal, lo renombra sobre
+     * documentos.jsonl y vacía cambios.jsonl.
+     */
+    private void escribirCopia() {
+        try {
+            Files.createDirectories(directorio);
+            cerrarCambios();
+
+            Path temporal = directorio.resolve(DOCUMENTOS + ".tmp");
+            try (BufferedWriter salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Map<String, String>> documento : indice.documentos().entrySet()) {
+                    salida.write(linea(documento.getKey(), documento.getValue(),
+                            versiones.version(documento.getKey()), true));
+                    salida.newLine();
+                }
+            }
+            Files.move(temporal, directorio.resolve(DOCUMENTOS),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Files.deleteIfExists(directorio.resolve(CAMBIOS));
+            cambiosPendientes = 0;
+            abrirCambios();
+
+        } catch (IOException e) {
+            logger.warn("No se ha podido guardar en disco el índice de búsqueda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param conCampos false para anotar solo la versión (sin "campos").
+     */
+    private String linea(String clave, Map<String, String> campos, Long version, boolean conCampos)
+            throws IOException {
+        ObjectNode linea = objectMapper.createObjectNode();
+        linea.put("clave", clave);
+        if (conCampos) {
+            linea.set("campos", campos == null ? null : objectMapper.valueToTree(campos));
+        }
+        if (version != null) {
+            linea.put("version", version);
+        }
+        return objectMapper.writeValueAsString(linea);
+    }
+
+    private void abrirCambios() throws IOException {
+        Files.createDirectories(directorio);
+        cambios = Files.newBufferedWriter(directorio.resolve(CAMBIOS), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void cerrarCambios() throws IOException {
+        if (cambios != null) {
+            cambios.close();
+            cambios = null;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        synchronized (escritura) {
+            try {
+                cerrarCambios();
+            } catch (IOException e) {
+                logger.warn("No se ha podido cerrar el fichero de cambios del índice: " + e.getMessage());
+            }
+        }
+    }
+}
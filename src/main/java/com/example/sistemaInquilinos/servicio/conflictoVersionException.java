@@ -0,0 +1,22 @@
+package com.example.sistemaInquilinos.servicio;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando una actualización no se puede guardar porque el registro
+ * ha cambiado desde que se leyó (bloqueo optimista).
+ *
+ * Lleva el estado actual del registro para devolverlo al cliente con un 409,
+ * de forma que pueda revisar el cambio de la otra petición y reintentar.
+ */
+@Getter
+public class conflictoVersionException extends RuntimeException {
+
+    // Estado actual del registro en la base de datos (null si ya no existe)
+    private final Object actual;
+
+    public conflictoVersionException(String mensaje, Object actual) {
+        super(mensaje);
+        this.actual = actual;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+
+import java.util.List;
+
+/**
+ * Destino al que publicadorOutbox entrega los eventos del outbox
+ * (un fichero, una cola de mensajes, el sistema de contabilidad...).
+ *
+ * Para añadir un destino basta con crear un bean que implemente esta interfaz.
+ *
+ * La entrega es "al menos una vez": si un lote falla en cualquier destino se
+ * vuelve a enviar entero más tarde, así que un destino puede recibir eventos
+ * repetidos y debe descartarlos por su idEvento.
+ */
+public interface destinoEventos {
+
+    /**
+     * Nombre del destino (para los logs y las métricas).
+     */
+    String nombre();
+
+    /**
+     * Entrega un lote de eventos, ordenados por idEvento.
+     * Si lanza una excepción, el lote se considera no entregado.
+     */
+    void enviar(List<eventoOutbox> eventos) throws Exception;
+}
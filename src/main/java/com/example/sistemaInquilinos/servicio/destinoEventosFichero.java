@@ -0,0 +1,57 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Destino del outbox que añade los eventos a un fichero local, un JSON por línea.
+ *
+ * Cada lote se escribe de una vez y con DSYNC: cuando enviar termina, los eventos
+ * ya están en disco y se pueden borrar del outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.destino.fichero.activo", havingValue = "true")
+public class destinoEventosFichero implements destinoEventos {
+
+    private final ObjectMapper objectMapper;
+
+    // Fichero donde se van añadiendo los eventos
+    private final Path ruta;
+
+    public destinoEventosFichero(ObjectMapper objectMapper,
+                                 @Value("${outbox.destino.fichero.ruta:outbox/eventos.jsonl}") Path ruta)
+            throws IOException {
+        this.objectMapper = objectMapper;
+        this.ruta = ruta.toAbsolutePath();
+        if (this.ruta.getParent() != null) {
+            Files.createDirectories(this.ruta.getParent());
+        }
+    }
+
+    @Override
+    public String nombre() {
+        return "fichero";
+    }
+
+    @Override
+    public void enviar(List<eventoOutbox> eventos) throws IOException {
+
+        StringBuilder lineas = new StringBuilder();
+        for (eventoOutbox evento : eventos) {
+            lineas.append(objectMapper.writeValueAsString(evento)).append('\n');
+        }
+
+        Files.writeString(ruta, lineas, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Destino del outbox que guarda en memoria los últimos eventos entregados.
+ *
+ * Pensado para desarrollo y tests: no sobrevive a un reinicio.
+ * Solo conserva los "capacidad" eventos más recientes.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.destino.memoria.activo", havingValue = "true")
+public class destinoEventosMemoria implements destinoEventos {
+
+    private final int capacidad;
+
+    private final Deque<eventoOutbox> eventos = new ArrayDeque<>();
+
+    public destinoEventosMemoria(@Value("${outbox.destino.memoria.capacidad:10000}") int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public String nombre() {
+        return "memoria";
+    }
+
+    @Override
+    public synchronized void enviar(List<eventoOutbox> lote) {
+        for (eventoOutbox evento : lote) {
+            if (eventos.size() == capacidad) {
+                eventos.removeFirst();
+            }
+            eventos.addLast(evento);
+        }
+    }
+
+    /**
+     * Copia de los eventos recibidos, del más antiguo al más reciente.
+     */
+    public synchronized List<eventoOutbox> eventos() {
+        return new ArrayList<>(eventos);
+    }
+}
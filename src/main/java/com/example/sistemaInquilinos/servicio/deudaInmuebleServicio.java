@@ -0,0 +1,188 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.pagoContabilizado;
+import com.example.sistemaInquilinos.entidad.deudaInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.repositorio.deudaInmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Servicio encargado de mantener la deuda acumulada de cada inmueble.
+ *
+ * En lugar de sumar todos los pagos del inmueble cada vez que se guarda uno,
+ * se aplica solo la diferencia que supone el cambio (alta, modificación,
+ * marcado como pagado o eliminación). Así el coste no depende del histórico.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+@RequiredArgsConstructor // Inyección automática de los repositorios mediante constructor
+public class deudaInmuebleServicio {
+
+    // Logger para mostrar información del proceso de reconstrucción
+    private static final Logger logger = LoggerFactory.getLogger(deudaInmuebleServicio.class);
+
+    /**
+     * Repositorio con la deuda acumulada por inmueble.
+     */
+    private final deudaInmuebleRepositorio deudaRepositorio;
+
+    /**
+     * Repositorio de inmuebles (se necesita su estado para saber si la deuda cuenta).
+     */
+    private final inmuebleRepositorio inmuebleRepositorio;
+
+    // =========================
+    // BLOQUEO POR INMUEBLE
+    // =========================
+
+    /**
+     * Bloquea la fila de deuda de los inmuebles indicados hasta el final de la
+     * transacción (SELECT ... FOR UPDATE).
+     *
+     * Así los cambios de pagos de un mismo inmueble se aplican de uno en uno y
+     * ninguno pisa la deuda calculada por otro, mientras que los pagos de
+     * inmuebles distintos siguen ejecutándose en paralelo.
+     *
+     * Debe llamarse dentro de la transacción del cambio y antes de leer la deuda.
+     * Los inmuebles se bloquean siempre en orden de ID para evitar interbloqueos
+     * cuando un pago cambia de inmueble.
+     */
+    @Transactional
+    public void bloquear(Integer... idsInmueble) {
+        Stream.of(idsInmueble)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(idInmueble -> {
+                    deudaRepositorio.crearSiNoExiste(idInmueble);
+                    deudaRepositorio.bloquear(idInmueble);
+                });
+    }
+
+    // =========================
+    // ACTUALIZACIÓN POR DELTAS
+    // =========================
+
+    /**
+     * Aplica sobre la deuda acumulada la diferencia entre el estado anterior
+     * de un pago y su estado nuevo.
+     *
+     * @param anterior Foto del pago en base de datos (null si es un pago nuevo).
+     * @param nuevo    Foto del pago tras el cambio (null si se elimina).
+     */
+    @Transactional
+    public void aplicarCambio(pagoContabilizado anterior, pagoContabilizado nuevo) {
+
+        // Si el pago sigue en el mismo inmueble se aplica una única diferencia
+        if (anterior != null && nuevo != null
+                && Objects.equals(anterior.idInmueble(), nuevo.idInmueble())) {
+            sumar(nuevo.idInmueble(),
+                    nuevo.importePendiente() - anterior.importePendiente(),
+                    contar(nuevo) - contar(anterior));
+            return;
+        }
+
+        // Si cambia de inmueble (o es alta/baja) se resta del antiguo y se suma al nuevo
+        if (anterior != null && anterior.pendiente()) {
+            sumar(anterior.idInmueble(), -anterior.importePendiente(), -1);
+        }
+        if (nuevo != null && nuevo.pendiente()) {
+            sumar(nuevo.idInmueble(), nuevo.importePendiente(), 1);
+        }
+    }
+
+    /**
+     * Suma un importe y un número de pagos pendientes a la deuda de un inmueble.
+     * Si el inmueble todavía no tiene fila de deuda, se crea.
+     *
+     * Si la fila se ha bloqueado antes (bloquear), ya está en el contexto de
+     * persistencia con su valor actual y findById no vuelve a consultarla.
+     */
+    private void sumar(Integer idInmueble, double importe, long pendientes) {
+
+        // Nada que aplicar: se evita una escritura innecesaria
+        if (idInmueble == null || (importe == 0.0 && pendientes == 0)) {
+            return;
+        }
+
+        deudaInmueble deuda = deudaRepositorio.findById(idInmueble)
+                .orElseGet(() -> new deudaInmueble(idInmueble, 0.0, 0L));
+
+        deuda.setMontoDeuda(deuda.getMontoDeuda() + importe);
+        deuda.setPagosPendientes(deuda.getPagosPendientes() + pendientes);
+
+        deudaRepositorio.save(deuda);
+    }
+
+    private long contar(pagoContabilizado pago) {
+        return pago.pendiente() ? 1 : 0;
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    /**
+     * Devuelve la deuda actual de un inmueble leyendo una sola fila.
+     *
+     * Igual que antes, si el inmueble está VACIO su deuda no cuenta.
+     */
+    @Transactional(readOnly = true)
+    public Double consultarDeuda(Integer idInmueble) {
+
+        if (idInmueble == null) {
+            return 0.0;
+        }
+
+        estadoInmueble estado = inmuebleRepositorio.findById(idInmueble)
+                .map(inmueble::getEstado)
+                .orElse(null);
+
+        if (estado == estadoInmueble.VACIO) {
+            return 0.0;
+        }
+
+        return deudaRepositorio.findById(idInmueble)
+                .map(deudaInmueble::getMontoDeuda)
+                .orElse(0.0);
+    }
+
+    // =========================
+    // RECONSTRUCCIÓN
+    // =========================
+
+    /**
+     * Recalcula desde cero la deuda de todos los inmuebles a partir de la tabla pagos.
+     *
+     * Se usa al arrancar con una base de datos que todavía no tiene la tabla
+     * de deudas rellena, o manualmente si se sospecha de algún descuadre.
+     *
+     * Primero se bloquean todas las filas (poniéndolas a cero) y después se sobrescriben
+     * con lo calculado: un pago que se guarda a la vez espera en bloquear y aplica
+     * su diferencia sobre la deuda ya reconstruida, sin perderse ni contarse dos veces.
+     *
+     * @return Número de inmuebles con deuda tras la reconstrucción.
+     */
+    @Transactional
+    public int reconstruir() {
+
+        deudaRepositorio.ponerACero();
+
+        // Se recalcula con una única sentencia agrupada por inmueble
+        deudaRepositorio.recalcularDesdePagos();
+
+        int inmuebles = (int) deudaRepositorio.countByPagosPendientesGreaterThan(0L);
+
+        logger.info("Deuda por inmueble reconstruida: " + inmuebles + " inmuebles con pagos pendientes");
+
+        return inmuebles;
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.dto.deudaModificadaEvento;
+import com.example.sistemaInquilinos.dto.estadoInmuebleCambiadoEvento;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
+import com.example.sistemaInquilinos.entidad.deudaInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
+import com.example.sistemaInquilinos.repositorio.deudaInmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.servicioDTO.inmuebleDTOServicioLista;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que mantiene al día el estado de los inmuebles alquilados
+ * (OCUPADO o CON_DEUDA) según tengan o no pagos pendientes.
+ *
+ * Cada cambio en los pagos publica un deudaModificadaEvento. Aquí no se recalcula
+ * en la propia petición: tras confirmar la transacción se apunta el inmueble como
+ * pendiente y un grupo pequeño de hilos lo recalcula pasado un breve margen.
+ *
+ * Si llegan varios eventos del mismo inmueble antes de recalcularlo (por ejemplo,
+ * al marcar como pagados varios meses seguidos o durante la facturación mensual)
+ * se agrupan en un único recálculo.
+ *
+ * Los inmuebles VACIO no se tocan: ese estado se sigue cambiando a mano.
+ *
+ * Si hay demasiados inmuebles pendientes, los eventos nuevos se descartan para no
+ * llenar la memoria. No se guardan sus IDs (serían otra lista sin límite): se apunta
+ * que ha habido descartes y una tarea periódica recalcula todos los inmuebles alquilados.
+ *
+ * Cada cambio de estado se registra en el outbox en la misma transacción,
+ * igual que los cambios que llegan por la API.
+ */
+@Service // Servicio gestionado por Spring
+public class estadoInmuebleServicio {
+
+    // Logger para mostrar los recálculos y los eventos descartados
+    private static final Logger logger = LoggerFactory.getLogger(estadoInmuebleServicio.class);
+
+    // Estados que se recalculan automáticamente
+    private static final Set<estadoInmueble> ALQUILADO =
+            EnumSet.of(estadoInmueble.OCUPADO, estadoInmueble.CON_DEUDA);
+
+    private final inmuebleRepositorio inmuebleRepositorio;
+    private final deudaInmuebleRepositorio deudaRepositorio;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cacheInmuebles;
+
+    // Avisa del nuevo estado (al autocompletado, que cuenta inmuebles por estado)
+    private final ApplicationEventPublisher eventos;
+
+    // Registra el cambio de estado en el outbox, con el inmueble ya modificado
+    private final outboxServicio outboxServicio;
+    private final inmuebleDTOServicioLista inmuebleDTOServicio;
+
+    // Si está desactivado los eventos se ignoran
+    private final boolean activo;
+
+    // Margen entre el primer evento de un inmueble y su recálculo (para agrupar)
+    private final Duration ventana;
+
+    // Máximo de inmuebles esperando recálculo; por encima se descartan los eventos
+    private final int maximoPendientes;
+
+    // Inmuebles apuntados y todavía no recalculados
+    private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+
+    // Se ha descartado algún evento desde la última recuperación
+    private final AtomicBoolean hayDescartados = new AtomicBoolean();
+
+    // Hilos que hacen los recálculos (número fijo)
+    private final ScheduledThreadPoolExecutor ejecutor;
+
+    // Métricas: /actuator/metrics/inmuebles.estado.*
+    private final Counter recalculos;
+    private final Counter cambios;
+    private final Counter agrupados;
+    private final Counter descartados;
+
+    public estadoInmuebleServicio(inmuebleRepositorio inmuebleRepositorio,
+                                  deudaInmuebleRepositorio deudaRepositorio,
+                                  TransactionTemplate transactionTemplate,
+                                  CacheManager cacheManager,
+                                  ApplicationEventPublisher eventos,
+                                  outboxServicio outboxServicio,
+                                  inmuebleDTOServicioLista inmuebleDTOServicio,
+                                  MeterRegistry registro,
+                                  @Value("${estado-inmueble.recalculo.activo:true}") boolean activo,
+                                  @Value("${estado-inmueble.recalculo.hilos:2}") int hilos,
+                                  @Value("${estado-inmueble.recalculo.ventana:200ms}") Duration ventana,
+                                  @Value("${estado-inmueble.recalculo.maximo-pendientes:10000}") int maximoPendientes) {
+        this.inmuebleRepositorio = inmuebleRepositorio;
+        this.deudaRepositorio = deudaRepositorio;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheInmuebles = cacheManager.getCache(cacheConfig.INMUEBLES);
+        this.eventos = eventos;
+        this.outboxServicio = outboxServicio;
+        this.inmuebleDTOServicio = inmuebleDTOServicio;
+        this.activo = activo;
+        this.ventana = ventana;
+        this.maximoPendientes = maximoPendientes;
+
+        this.ejecutor = new ScheduledThreadPoolExecutor(hilos, hilosConNombre());
+        this.ejecutor.setRemoveOnCancelPolicy(true);
+
+        this.recalculos = registro.counter("inmuebles.estado.recalculos");
+        this.cambios = registro.counter("inmuebles.estado.cambios");
+        this.agrupados = registro.counter("inmuebles.estado.eventos.agrupados");
+        this.descartados = registro.counter("inmuebles.estado.eventos.descartados");
+        registro.gauge("inmuebles.estado.pendientes", pendientes, Set::size);
+    }
+
+    // =========================
+    // EVENTOS
+    // =========================
+
+    /**
+     * Recibe el evento cuando la transacción del pago se ha confirmado
+     * (si se deshace, no hay nada que recalcular).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarDeuda(deudaModificadaEvento evento) {
+        programar(evento.idInmueble());
+    }
+
+    /**
+     * Apunta el inmueble para recalcular su estado.
+     * Si ya estaba apuntado no se hace nada más: el recálculo pendiente verá también este cambio.
+     */
+    public void programar(Integer idInmueble) {
+
+        if (!activo || idInmueble == null) {
+            return;
+        }
+
+        if (pendientes.size() >= maximoPendientes && !pendientes.contains(idInmueble)) {
+            hayDescartados.set(true);
+            descartados.increment();
+            logger.warn("Demasiados inmuebles pendientes de recalcular, se descarta el " + idInmueble
+                    + " (se recalculará en la próxima recuperación)");
+            return;
+        }
+
+        if (!pendientes.add(idInmueble)) {
+            agrupados.increment();
+            return;
+        }
+
+        ejecutor.schedule(() -> recalcular(idInmueble), ventana.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Si se ha descartado algún evento, recalcula todos los inmuebles alquilados
+     * (uno a uno, en el hilo de la tarea programada y sin pasar por pendientes).
+     *
+     * La marca se quita antes de empezar: un descarte durante la pasada provoca otra.
+     */
+    @Scheduled(fixedDelayString = "${estado-inmueble.recalculo.recuperacion-ms:60000}")
+    public void recuperarDescartados() {
+
+        if (!activo || !hayDescartados.compareAndSet(true, false)) {
+            return;
+        }
+
+        List<Integer> alquilados = inmuebleRepositorio.listarIdsPorEstado(ALQUILADO);
+        logger.warn("Se descartaron eventos de estado: se recalculan " + alquilados.size() + " inmuebles");
+
+        alquilados.forEach(this::recalcular);
+    }
+
+    // =========================
+    // RECÁLCULO
+    // =========================
+
+    /**
+     * Pone el inmueble en CON_DEUDA si tiene pagos pendientes y en OCUPADO si no.
+     *
+     * Se quita de pendientes antes de leer la deuda: un pago que se confirme
+     * mientras tanto vuelve a apuntar el inmueble y no se pierde.
+     */
+    private void recalcular(Integer idInmueble) {
+
+        pendientes.remove(idInmueble);
+        recalculos.increment();
+
+        try {
+            Integer cambiados = transactionTemplate.execute(estado -> {
+
+                boolean conDeuda = deudaRepositorio.findById(idInmueble)
+                        .map(deudaInmueble::getPagosPendientes)
+                        .map(pendientesDePago -> pendientesDePago > 0)
+                        .orElse(false);
+
+                estadoInmueble nuevo = conDeuda ? estadoInmueble.CON_DEUDA : estadoInmueble.OCUPADO;
+
+                int filas = inmuebleRepositorio.cambiarEstado(idInmueble, nuevo, ALQUILADO);
+
+                if (filas > 0) {
+                    // Se elimina de la caché al confirmar la transacción
+                    cacheInmuebles.evict(idInmueble);
+
+                    // El UPDATE no pasa por el contexto de persistencia: se lee el inmueble ya cambiado
+                    inmueble cambiado = inmuebleRepositorio.findById(idInmueble).orElse(null);
+
+                    eventos.publishEvent(new estadoInmuebleCambiadoEvento(idInmueble, nuevo,
+                            cambiado != null ? cambiado.getVersion() : null));
+                    if (cambiado != null) {
+                        // Ubicación completa: un evento atrasado del inmueble no puede dejar el estado antiguo
+                        eventos.publishEvent(ubicacionInmueble.de(cambiado));
+                    }
+                    outboxServicio.registrar(agregadoOutbox.INMUEBLE, idInmueble, tipoEventoOutbox.MODIFICADO,
+                            cambiado != null ? inmuebleDTOServicio.inmuebleDTOServicio(cambiado) : null);
+                    logger.info("Inmueble " + idInmueble + " pasa a " + nuevo);
+                }
+
+                return filas;
+            });
+
+            if (cambiados != null && cambiados > 0) {
+                cambios.increment();
+            }
+        } catch (RuntimeException e) {
+            logger.error("No se ha podido recalcular el estado del inmueble " + idInmueble, e);
+        }
+    }
+
+    /**
+     * Número de inmuebles apuntados que todavía no se han recalculado.
+     */
+    public int pendientes() {
+        return pendientes.size();
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+
+    private static ThreadFactory hilosConNombre() {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, "estado-inmueble-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
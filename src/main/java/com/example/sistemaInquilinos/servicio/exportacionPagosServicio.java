@@ -0,0 +1,112 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.formatoExportacion;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Servicio encargado de exportar TODOS los pagos (NDJSON o CSV).
+ *
+ * Los pagos se leen con un cursor de solo avance y se escriben directamente
+ * en la respuesta HTTP a medida que llegan. Se leen como DTO (proyección),
+ * así que no se acumulan entidades en el contexto de persistencia y la
+ * memoria usada no crece con el número de pagos.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class exportacionPagosServicio {
+
+    // Logger para mostrar información de cada exportación
+    private static final Logger logger = LoggerFactory.getLogger(exportacionPagosServicio.class);
+
+    // Cada cuántas filas se envía al cliente lo escrito
+    private static final int FILAS_POR_BLOQUE = 1000;
+
+    private static final String CABECERA_CSV =
+            "idPago,anio,mes,precioAlquiler,montoDeuda,pagado,idInquilino,idInmueble";
+
+    private final pagosRepositorio pagosRepositorio;
+
+    private final ObjectMapper objectMapper;
+
+    // Transacción de solo lectura: la escritura se hace en otro hilo, fuera de la petición
+    private final TransactionTemplate transaccionLectura;
+
+    public exportacionPagosServicio(pagosRepositorio pagosRepositorio,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.pagosRepositorio = pagosRepositorio;
+        this.objectMapper = objectMapper;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+    }
+
+    /**
+     * Devuelve el cuerpo de la respuesta que escribe los pagos según se van leyendo.
+     */
+    public StreamingResponseBody exportar(formatoExportacion formatoSalida) {
+
+        return salida -> transaccionLectura.executeWithoutResult(estado -> {
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            long filas = 0;
+
+            try (Stream<pagosDTO> pagos = pagosRepositorio.recorrerTodos()) {
+
+                if (formatoSalida == formatoExportacion.CSV) {
+                    writer.write(CABECERA_CSV);
+                    writer.write('\n');
+                }
+
+                for (pagosDTO dto : (Iterable<pagosDTO>) pagos::iterator) {
+
+                    writer.write(formatoSalida == formatoExportacion.CSV ? aCsv(dto) : objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+
+                    if (++filas % FILAS_POR_BLOQUE == 0) {
+                        writer.flush();
+                    }
+                }
+
+                writer.flush();
+
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            logger.info("Exportación " + formatoSalida + " terminada: " + filas + " pagos");
+        });
+    }
+
+    /**
+     * Convierte un pago en una línea CSV (los valores nulos quedan vacíos).
+     */
+    private String aCsv(pagosDTO dto) {
+        return valor(dto.getIdPago()) + ","
+                + valor(dto.getAnio()) + ","
+                + valor(dto.getMes()) + ","
+                + valor(dto.getPrecioAlquiler()) + ","
+                + valor(dto.getMontoDeuda()) + ","
+                + valor(dto.getPagado()) + ","
+                + valor(dto.getIdInquilino()) + ","
+                + valor(dto.getIdInmueble());
+    }
+
+    private String valor(Object valor) {
+        return valor == null ? "" : valor.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.dto.atributosPago;
+import com.example.sistemaInquilinos.dto.cargoMensual;
+import com.example.sistemaInquilinos.dto.deudaModificadaEvento;
+import com.example.sistemaInquilinos.dto.facturacionMensualDTO;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
+import com.example.sistemaInquilinos.repositorio.facturacionMensualRepositorio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio encargado de generar de una vez los cargos mensuales (pagos no pagados)
+ * de todos los inmuebles ocupados.
+ *
+ * Sustituye a crear cada pago del mes con una petición POST por inmueble:
+ * - Una consulta para saber qué inmuebles faltan por facturar
+ * - INSERT por lotes de los pagos
+ * - Actualización por lotes de la deuda acumulada y del resumen mensual
+ *
+ * Es idempotente: generar dos veces el mismo mes no crea pagos duplicados.
+ * La restricción única (inmueble, año, mes) de pagos lo garantiza también frente
+ * a otra instancia o a un pago manual que se crea a la vez: si el lote choca con
+ * uno de ellos se deshace y se repite, y la nueva lectura ya se salta ese inmueble.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class facturacionMensualServicio {
+
+    // Logger para mostrar el resultado y rendimiento del proceso
+    private static final Logger logger = LoggerFactory.getLogger(facturacionMensualServicio.class);
+
+    // Veces que se repite la generación si choca con pagos creados a la vez
+    private static final int INTENTOS = 3;
+
+    private final facturacionMensualRepositorio repositorio;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Cada inmueble facturado pasa a tener deuda: se avisa para recalcular su estado
+    // (y cada pago generado, a los índices de los paneles)
+    private final ApplicationEventPublisher eventos;
+
+    // Crea los eventos del outbox de los pagos generados
+    private final outboxServicio outboxServicio;
+
+    // Los años archivados no se pueden volver a facturar
+    private final archivoPagosServicio archivoPagosServicio;
+
+    // Número de filas que se envían en cada lote JDBC
+    private final int tamanioLote;
+
+    // Evita que dos generaciones de esta instancia se ejecuten a la vez y choquen
+    private final ReentrantLock bloqueo = new ReentrantLock();
+
+    public facturacionMensualServicio(facturacionMensualRepositorio repositorio,
+                                      TransactionTemplate transactionTemplate,
+                                      ApplicationEventPublisher eventos,
+                                      outboxServicio outboxServicio,
+                                      archivoPagosServicio archivoPagosServicio,
+                                      @Value("${facturacion.tamanio-lote:1000}") int tamanioLote) {
+        this.repositorio = repositorio;
+        this.transactionTemplate = transactionTemplate;
+        this.eventos = eventos;
+        this.outboxServicio = outboxServicio;
+        this.archivoPagosServicio = archivoPagosServicio;
+        this.tamanioLote = tamanioLote;
+    }
+
+    /**
+     * Genera el pago del mes indicado para todos los inmuebles OCUPADO o CON_DEUDA
+     * que todavía no lo tengan.
+     *
+     * Todo el mes se genera en una única transacción: o se crean todos o ninguno.
+     * Los pagos generados son impagos, así que se vacía la caché de impagos.
+     */
+    @CacheEvict(cacheNames = cacheConfig.IMPAGOS, allEntries = true)
+    public facturacionMensualDTO generarMes(Integer anio, Integer mes) {
+
+        if (anio == null || mes == null || mes < 1 || mes > 12) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El mes debe estar entre 1 y 12"
+            );
+        }
+
+        // Sus pagos ya no están en la tabla pagos: se volverían a generar todos
+        archivoPagosServicio.comprobarAbierto(anio);
+
+        long inicio = System.nanoTime();
+
+        // El bloqueo envuelve la transacción completa para que una segunda
+        // ejecución vea ya confirmados los pagos de la primera
+        bloqueo.lock();
+        int generados;
+        try {
+            generados = generarConReintentos(anio, mes);
+        } finally {
+            bloqueo.unlock();
+        }
+
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        double porSegundo = milisegundos == 0 ? generados : generados * 1000.0 / milisegundos;
+
+        logger.info("Facturación " + mes + "/" + anio + ": " + generados + " pagos generados en "
+                + milisegundos + " ms (" + Math.round(porSegundo) + " pagos/s)");
+
+        return facturacionMensualDTO.builder()
+                .anio(anio)
+                .mes(mes)
+                .pagosGenerados(generados)
+                .tamanioLote(tamanioLote)
+                .milisegundos(milisegundos)
+                .pagosPorSegundo(porSegundo)
+                .build();
+    }
+
+    /**
+     * Genera el mes en una transacción. Si algún pago choca con la restricción única
+     * (otra instancia o un pago manual lo ha creado después de la lectura) se deshace todo
+     * y se vuelve a empezar: la nueva lectura ya no incluye esos inmuebles.
+     */
+    private int generarConReintentos(int anio, int mes) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return generar(anio, mes);
+            } catch (DataIntegrityViolationException e) {
+                if (intento == INTENTOS) {
+                    throw new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            "Se están creando a la vez otros pagos de " + mes + "/" + anio + ", vuelve a intentarlo"
+                    );
+                }
+                logger.warn("La facturación de " + mes + "/" + anio
+                        + " choca con pagos creados a la vez, se repite (intento " + intento + ")");
+            }
+        }
+    }
+
+    private int generar(int anio, int mes) {
+        return transactionTemplate.execute(estado -> {
+
+            List<cargoMensual> cargos = repositorio.buscarInmueblesSinCargo(anio, mes);
+
+            if (!cargos.isEmpty()) {
+                List<Integer> idsPago = repositorio.insertarPagos(anio, mes, cargos, tamanioLote);
+                repositorio.sumarDeudas(cargos, tamanioLote);
+                repositorio.sumarResumen(anio, mes, cargos, tamanioLote);
+                repositorio.insertarEventos(eventosOutbox(anio, mes, cargos, idsPago), tamanioLote);
+                cargos.forEach(cargo -> eventos.publishEvent(new deudaModificadaEvento(cargo.idInmueble())));
+                for (int i = 0; i < cargos.size(); i++) {
+                    eventos.publishEvent(new atributosPago(
+                            idsPago.get(i), cargos.get(i).idInmueble(), anio, mes, false, 0L));
+                }
+            }
+
+            return cargos.size();
+        });
+    }
+
+    /**
+     * Un evento CREADO por pago generado, con los mismos datos que los
+     * eventos de los pagos creados uno a uno.
+     */
+    private List<eventoOutbox> eventosOutbox(int anio, int mes, List<cargoMensual> cargos, List<Integer> idsPago) {
+
+        List<eventoOutbox> eventosOutbox = new ArrayList<>(cargos.size());
+
+        for (int i = 0; i < cargos.size(); i++) {
+            cargoMensual cargo = cargos.get(i);
+
+            pagosDTO pago = pagosDTO.builder()
+                    .idPago(idsPago.get(i))
+                    .anio(anio)
+                    .mes(mes)
+                    .precioAlquiler(cargo.precioMensual())
+                    .montoDeuda(cargo.deudaPrevia() + cargo.importe())
+                    .pagado(false)
+                    .idInquilino(cargo.idInquilino())
+                    .idInmueble(cargo.idInmueble())
+                    .build();
+
+            eventosOutbox.add(outboxServicio.crear(agregadoOutbox.PAGO, pago.getIdPago(), tipoEventoOutbox.CREADO, pago));
+        }
+
+        return eventosOutbox;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.resultadoIdempotente;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Servicio que hace idempotentes las peticiones que llevan cabecera Idempotency-Key.
+ *
+ * La primera petición con una clave ejecuta la operación y guarda su respuesta
+ * en un almacén en memoria acotado (tamaño máximo y caducidad). Las repeticiones
+ * con la misma clave devuelven esa respuesta sin volver a tocar la base de datos.
+ *
+ * Si llegan duplicados mientras la primera todavía se está ejecutando, esperan
+ * a su resultado en lugar de ejecutar la operación otra vez.
+ * Si la operación falla, la clave se libera para que el cliente pueda reintentar.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class idempotenciaServicio {
+
+    // Logger para mostrar las repeticiones detectadas
+    private static final Logger logger = LoggerFactory.getLogger(idempotenciaServicio.class);
+
+    // Longitud máxima aceptada para la cabecera Idempotency-Key
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    /**
+     * Petición registrada con una clave: huella del cuerpo y respuesta (futura).
+     */
+    private record registro(String huella, CompletableFuture<Object> respuesta) {
+    }
+
+    private final Cache<String, registro> registros;
+
+    private final ObjectMapper objectMapper;
+
+    // Tiempo máximo que espera un duplicado a que termine la petición original
+    private final Duration esperaMaxima;
+
+    public idempotenciaServicio(ObjectMapper objectMapper,
+                                @Value("${idempotencia.ttl:24h}") Duration ttl,
+                                @Value("${idempotencia.tamanio-maximo:10000}") long tamanioMaximo,
+                                @Value("${idempotencia.espera-maxima:30s}") Duration esperaMaxima) {
+        this.objectMapper = objectMapper;
+        this.esperaMaxima = esperaMaxima;
+        this.registros = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(tamanioMaximo)
+                .build();
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave.
+     *
+     * @param usuario   Usuario que envía la petición (cada usuario tiene sus propias claves).
+     * @param clave     Valor de la cabecera Idempotency-Key.
+     * @param peticion  Cuerpo de la petición: una misma clave con otro cuerpo es un error (422).
+     * @param operacion Operación a ejecutar si la clave es nueva.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> resultadoIdempotente<T> ejecutar(String usuario, String clave, Object peticion,
+                                                 Supplier<T> operacion) {
+
+        validarClave(clave);
+
+        String claveUsuario = usuario + ":" + clave;
+
+        String huella = huella(peticion);
+        registro nuevo = new registro(huella, new CompletableFuture<>());
+
+        // Solo una petición consigue registrar la clave; el resto reciben el registro existente
+        registro existente = registros.asMap().putIfAbsent(claveUsuario, nuevo);
+
+        if (existente != null) {
+
+            if (!existente.huella().equals(huella)) {
+                throw new ResponseStatusException(
+                        HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La Idempotency-Key ya se ha usado con una petición distinta"
+                );
+            }
+
+            logger.info("Petición repetida con Idempotency-Key " + clave + ": se devuelve la respuesta original");
+
+            return new resultadoIdempotente<>((T) esperar(existente), true);
+        }
+
+        try {
+            T valor = operacion.get();
+            nuevo.respuesta().complete(valor);
+            return new resultadoIdempotente<>(valor, false);
+        } catch (Throwable e) {
+            // Cualquier fallo (también Error o excepciones comprobadas lanzadas sin declarar)
+            // libera la clave: un reintento posterior vuelve a ejecutar la operación
+            // y los duplicados que esperan reciben el error en lugar de quedarse bloqueados
+            registros.asMap().remove(claveUsuario, nuevo);
+            nuevo.respuesta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Espera la respuesta de la petición original (inmediata si ya terminó).
+     */
+    private Object esperar(registro existente) {
+        try {
+            return existente.respuesta().get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT,
+                    "La petición original con esta Idempotency-Key todavía se está procesando"
+            );
+        } catch (ExecutionException e) {
+            // La original falló: el duplicado recibe el mismo error
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void validarClave(String clave) {
+        if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key no válida"
+            );
+        }
+    }
+
+    /**
+     * Huella SHA-256 del cuerpo de la petición serializado en JSON.
+     */
+    private String huella(Object peticion) {
+        try {
+            byte[] json = objectMapper.writeValueAsString(peticion).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", e);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.sistemaInquilinos.servicio;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para buscar por fragmentos de texto.
+ *
+ * Cada documento (clave + campos de texto) se normaliza (minúsculas, sin tildes
+ * ni signos) y se divide en palabras. Se guardan dos listas de apariciones:
+ * - Trigramas: cada grupo de 3 letras seguidas de cada palabra -> documentos.
+ *   Un fragmento de 3 o más letras solo puede estar en los documentos que tienen
+ *   todos sus trigramas, así que basta con cruzar esas listas.
+ * - Palabras ordenadas: para los fragmentos de 1 o 2 letras (comienzo de palabra).
+ *
+ * Los candidatos se comprueban contra el texto y se puntúan: palabra completa,
+ * comienzo de palabra o fragmento, multiplicado por el peso del campo.
+ *
+ * No sabe nada de Spring ni de la base de datos: lo alimenta busquedaTextoServicio.
+ * Es seguro entre hilos (varias búsquedas a la vez, una escritura cada vez).
+ */
+public class indiceInvertido {
+
+    // Longitud de los fragmentos indexados
+    private static final int N = 3;
+
+    private static final Pattern TILDES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Puntuación según cómo coincide cada palabra buscada
+    private static final double PALABRA_COMPLETA = 3.0;
+    private static final double COMIENZO_DE_PALABRA = 2.0;
+    private static final double FRAGMENTO = 1.0;
+
+    /**
+     * Documento indexado. "palabras" guarda, por campo, las palabras ya normalizadas.
+     */
+    private record documento(String clave, Map<String, String> campos, Map<String, String[]> palabras) {
+    }
+
+    /**
+     * Resultado de una búsqueda.
+     */
+    public record coincidencia(String clave, Map<String, String> campos, double puntuacion) {
+    }
+
+    // Peso de cada campo en la puntuación (1 si no aparece)
+    private final Map<String, Double> pesos;
+
+    // Clave del documento -> número interno
+    private final Map<String, Integer> numeros = new HashMap<>();
+
+    // Número interno -> documento (null si se ha eliminado)
+    private final List<documento> documentos = new ArrayList<>();
+
+    private final Map<String, Set<Integer>> trigramas = new HashMap<>();
+
+    private final TreeMap<String, Set<Integer>> palabras = new TreeMap<>();
+
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    public indiceInvertido(Map<String, Double> pesos) {
+        this.pesos = Map.copyOf(pesos);
+    }
+
+    // =========================
+    // ESCRITURA
+    // =========================
+
+    /**
+     * Añade el documento o sustituye el que tenía la misma clave.
+     */
+    public void guardar(String clave, Map<String, String> campos) {
+
+        Map<String, String[]> palabrasPorCampo = new LinkedHashMap<>();
+        campos.forEach((campo, texto) -> palabrasPorCampo.put(campo, palabras(texto)));
+
+        documento nuevo = new documento(clave, Collections.unmodifiableMap(new LinkedHashMap<>(campos)), palabrasPorCampo);
+
+        bloqueo.writeLock().lock();
+        try {
+            // Al modificar un documento se reutiliza su número
+            Integer anterior = quitar(clave);
+            int numero = anterior != null ? anterior : documentos.size();
+
+            if (anterior != null) {
+                documentos.set(numero, nuevo);
+            } else {
+                documentos.add(nuevo);
+            }
+            numeros.put(clave, numero);
+
+            for (String[] lista : palabrasPorCampo.values()) {
+                for (String palabra : lista) {
+                    palabras.computeIfAbsent(palabra, p -> new HashSet<>()).add(numero);
+                    for (String trigrama : trigramas(palabra)) {
+                        trigramas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(numero);
+                    }
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina el documento (si no existe no hace nada).
+     */
+    public void eliminar(String clave) {
+        bloqueo.writeLock().lock();
+        try {
+            quitar(clave);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice (antes de reconstruirlo).
+     */
+    public void vaciar() {
+        bloqueo.writeLock().lock();
+        try {
+            numeros.clear();
+            documentos.clear();
+            trigramas.clear();
+            palabras.clear();
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita el documento de las listas de apariciones y devuelve su número (null si no existía).
+     * Debe llamarse con el bloqueo de escritura.
+     */
+    private Integer quitar(String clave) {
+
+        Integer numero = numeros.remove(clave);
+        if (numero == null) {
+            return null;
+        }
+
+        documento anterior = documentos.set(numero, null);
+
+        for (String[] lista : anterior.palabras().values()) {
+            for (String palabra : lista) {
+                borrarAparicion(palabras, palabra, numero);
+                for (String trigrama : trigramas(palabra)) {
+                    borrarAparicion(trigramas, trigrama, numero);
+                }
+            }
+        }
+
+        return numero;
+    }
+
+    private static void borrarAparicion(Map<String, Set<Integer>> indice, String termino, Integer numero) {
+        Set<Integer> lista = indice.get(termino);
+        if (lista != null && lista.remove(numero) && lista.isEmpty()) {
+            indice.remove(termino);
+        }
+    }
+
+    // =========================
+    // BÚSQUEDA
+    // =========================
+
+    /**
+     * Busca los documentos que contienen todas las palabras del texto
+     * (cada una como palabra completa, comienzo o fragmento de alguna palabra).
+     *
+     * @param filtroClave Solo se devuelven los documentos cuya clave lo cumple (null = todos).
+     * @param limite      Número máximo de resultados.
+     * @return Resultados de mayor a menor puntuación.
+     */
+    public List<coincidencia> buscar(String texto, Predicate<String> filtroClave, int limite) {
+
+        String[] terminos = new LinkedHashSet<>(Arrays.asList(palabras(texto))).toArray(String[]::new);
+
+        if (terminos.length == 0 || limite <= 0) {
+            return List.of();
+        }
+
+        // Se guardan solo los "limite" mejores: el peor queda en la cabeza de la cola
+        Comparator<coincidencia> mejorPrimero = Comparator.comparingDouble(coincidencia::puntuacion).reversed()
+                .thenComparing(coincidencia::clave);
+        PriorityQueue<coincidencia> mejores = new PriorityQueue<>(mejorPrimero.reversed());
+
+        bloqueo.readLock().lock();
+        try {
+            Set<Integer> candidatos = candidatos(terminos);
+
+            for (Integer numero : candidatos) {
+                documento doc = documentos.get(numero);
+
+                if (doc == null || (filtroClave != null && !filtroClave.test(doc.clave()))) {
+                    continue;
+                }
+
+                double puntuacion = puntuar(doc, terminos);
+
+                if (puntuacion > 0) {
+                    mejores.add(new coincidencia(doc.clave(), doc.campos(), puntuacion));
+                    if (mejores.size() > limite) {
+                        mejores.poll();
+                    }
+                }
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+
+        List<coincidencia> resultado = new ArrayList<>(mejores);
+        resultado.sort(mejorPrimero);
+        return resultado;
+    }
+
+    /**
+     * Documentos que pueden contener todas las palabras buscadas
+     * (cruce de listas, empezando por la más corta).
+     */
+    private Set<Integer> candidatos(String[] terminos) {
+
+        List<Set<Integer>> listas = new ArrayList<>();
+
+        for (String termino : terminos) {
+            if (termino.length() >= N) {
+                for (String trigrama : trigramas(termino)) {
+                    Set<Integer> lista = trigramas.get(trigrama);
+                    if (lista == null) {
+                        return Set.of();
+                    }
+                    listas.add(lista);
+                }
+            } else {
+                // Fragmento corto: palabras que empiezan por él
+                Set<Integer> lista = new HashSet<>();
+                palabras.subMap(termino, termino + Character.MAX_VALUE).values().forEach(lista::addAll);
+                if (lista.isEmpty()) {
+                    return Set.of();
+                }
+                listas.add(lista);
+            }
+        }
+
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Suma, para cada palabra buscada, su mejor coincidencia en el documento.
+     * Si alguna no aparece (falso positivo de los trigramas) devuelve 0.
+     */
+    private double puntuar(documento doc, String[] terminos) {
+
+        double total = 0;
+
+        for (String termino : terminos) {
+            double mejor = 0;
+
+            for (Map.Entry<String, String[]> campo : doc.palabras().entrySet()) {
+                double peso = pesos.getOrDefault(campo.getKey(), 1.0);
+                for (String palabra : campo.getValue()) {
+                    mejor = Math.max(mejor, peso * coincidencia(termino, palabra));
+                }
+            }
+
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+
+        return total;
+    }
+
+    private static double coincidencia(String termino, String palabra) {
+        if (palabra.equals(termino)) {
+            return PALABRA_COMPLETA;
+        }
+        if (palabra.startsWith(termino)) {
+            return COMIENZO_DE_PALABRA;
+        }
+        return palabra.contains(termino) ? FRAGMENTO : 0;
+    }
+
+    // =========================
+    // CONSULTA DEL CONTENIDO
+    // =========================
+
+    /**
+     * Número de documentos indexados.
+     */
+    public int tamanio() {
+        bloqueo.readLock().lock();
+        try {
+            return numeros.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia de todos los documentos (clave -> campos), para guardarlos en disco.
+     */
+    public Map<String, Map<String, String>> documentos() {
+        bloqueo.readLock().lock();
+        try {
+            Map<String, Map<String, String>> copia = new LinkedHashMap<>();
+            for (documento doc : documentos) {
+                if (doc != null) {
+                    copia.put(doc.clave(), doc.campos());
+                }
+            }
+            return copia;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    // =========================
+    // NORMALIZACIÓN
+    // =========================
+
+    /**
+     * Minúsculas, sin tildes (á -> a, ñ -> n) y con los signos convertidos en espacios.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = TILDES.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    private static String[] palabras(String texto) {
+        String normalizado = normalizar(texto);
+        return normalizado.isEmpty() ? new String[0] : normalizado.split(" ");
+    }
+
+    private static List<String> trigramas(String palabra) {
+        if (palabra.length() < N) {
+            return List.of();
+        }
+        List<String> resultado = new ArrayList<>(palabra.length() - N + 1);
+        for (int i = 0; i + N <= palabra.length(); i++) {
+            resultado.add(palabra.substring(i, i + N));
+        }
+        return resultado;
+    }
+}
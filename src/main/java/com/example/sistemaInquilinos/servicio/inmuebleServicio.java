@@ -1,17 +1,39 @@
 package com.example.sistemaInquilinos.servicio;
 
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.dto.documentoBusquedaEvento;
+import com.example.sistemaInquilinos.dto.tipoDocumentoBusqueda;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
 import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
 import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.example.sistemaInquilinos.servicioDTO.inmuebleDTOServicioLista;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Servicio que contiene la lógica de negocio relacionada con los Inmuebles.
  *
  * Actúa como intermediario entre el controlador y el repositorio.
  * Aquí se gestionan las operaciones principales sobre los inmuebles.
+ *
+ * La búsqueda por ID se guarda en la caché "inmuebles" y se elimina
+ * de ella cuando el inmueble se guarda o se elimina.
  */
 @Service // Indica que esta clase es un componente de tipo servicio en Spring
 @RequiredArgsConstructor // Inyección automática del repositorio mediante constructor
@@ -23,6 +45,53 @@ public class inmuebleServicio {
      */
     private final inmuebleRepositorio repositorio;
 
+    /**
+     * Repositorio de inquilinos, para enlazar el inmueble con su inquilino guardado.
+     */
+    private final inquilinoRespositorio inquilinoRepositorio;
+
+    /**
+     * Reintenta las actualizaciones que chocan con otra petición (bloqueo optimista).
+     */
+    private final reintentoOptimista reintentoOptimista;
+
+    /**
+     * Aplica los JSON parciales de PATCH.
+     */
+    private final parcheJson parcheJson;
+
+    /**
+     * Registra en el outbox las altas, cambios y bajas de inmuebles.
+     */
+    private final outboxServicio outboxServicio;
+
+    /**
+     * Publica los cambios para el índice de búsqueda de texto (dirección y ciudad)
+     * y para el autocompletado (ciudad, código postal y estado).
+     */
+    private final ApplicationEventPublisher eventos;
+
+    /**
+     * Conversión a DTO: es lo que se envía en los eventos (sin el inquilino completo).
+     */
+    private final inmuebleDTOServicioLista inmuebleDTOServicio;
+
+    /**
+     * Bloquea la deuda del inmueble mientras se mueven sus importes de ciudad.
+     */
+    private final deudaInmuebleServicio deudaInmuebleServicio;
+
+    /**
+     * Resumen mensual por ciudad: si el inmueble cambia de ciudad, sus importes se mueven.
+     */
+    private final resumenMensualServicio resumenMensualServicio;
+
+    /**
+     * Campos de inmueble que se pueden modificar con PATCH.
+     */
+    private static final Set<String> CAMPOS_PARCHE =
+            Set.of("direccion", "ciudad", "codigoPostal", "precioMensual", "estado", "inquilino");
+
     /**
      * Obtiene el listado completo de inmuebles.
      *
@@ -33,31 +102,196 @@ public class inmuebleServicio {
     }
 
     /**
-     * Busca un inmueble por su ID.
+     * Busca un inmueble por su ID (con su inquilino).
+     *
+     * El resultado se guarda en caché: no debe modificarse directamente,
+     * para cambiarlo se usa actualizarInmueble.
      *
      * @param id ID del inmueble a buscar.
      * @return El inmueble si existe, o null si no se encuentra.
      */
+    @Cacheable(cacheNames = cacheConfig.INMUEBLES, key = "#id", unless = "#result == null")
     public inmueble buscarInmueblePorId(Integer id) {
-        return this.repositorio.findById(id).orElse(null);
+        return this.repositorio.buscarConInquilino(id).orElse(null);
     }
 
     /**
      * Guarda un nuevo inmueble o actualiza uno existente.
+     * El evento del outbox se guarda en la misma transacción.
      *
      * @param inmueble Objeto inmueble a guardar.
      * @return El inmueble persistido en la base de datos.
      */
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.INMUEBLES, key = "#inmueble.idInmueble",
+            condition = "#inmueble.idInmueble != null")
     public inmueble guardarInmueble(inmueble inmueble) {
-        return this.repositorio.save(inmueble);
+
+        tipoEventoOutbox tipo = inmueble.getIdInmueble() == null
+                ? tipoEventoOutbox.CREADO
+                : tipoEventoOutbox.MODIFICADO;
+
+        String ciudadAnterior = inmueble.getIdInmueble() == null ? null
+                : this.repositorio.buscarCiudad(inmueble.getIdInmueble()).orElse(null);
+
+        inmueble.setInquilino(referencia(inmueble.getInquilino()));
+        inmueble guardado = this.repositorio.save(inmueble);
+
+        if (tipo == tipoEventoOutbox.MODIFICADO) {
+            moverResumen(guardado.getIdInmueble(), ciudadAnterior, guardado.getCiudad());
+        }
+
+        outboxServicio.registrar(agregadoOutbox.INMUEBLE, guardado.getIdInmueble(), tipo,
+                inmuebleDTOServicio.inmuebleDTOServicio(guardado));
+        publicarCambios(guardado);
+
+        return guardado;
+    }
+
+    /**
+     * Actualiza los datos de un inmueble existente.
+     *
+     * Se lee el inmueble de la base de datos (no de la caché) para no
+     * modificar la copia que están leyendo otras peticiones.
+     *
+     * Si se envía "version" y no es la actual, o si otra petición guarda el mismo
+     * inmueble en todos los intentos, se lanza conflictoVersionException (409)
+     * con el inmueble tal y como está ahora.
+     *
+     * @param id    ID del inmueble a actualizar.
+     * @param datos Nuevos datos del inmueble.
+     * @return El inmueble actualizado, o null si no existe.
+     */
+    @CacheEvict(cacheNames = cacheConfig.INMUEBLES, key = "#id")
+    public inmueble actualizarInmueble(Integer id, inmueble datos) {
+        return reintentoOptimista.ejecutar(
+                () -> aplicarCambios(id, datos),
+                () -> this.repositorio.buscarConInquilino(id).orElse(null));
+    }
+
+    /**
+     * Un intento de actualizarInmueble (se ejecuta dentro de una transacción).
+     */
+    private inmueble aplicarCambios(Integer id, inmueble datos) {
+
+        inmueble inmueble = this.repositorio.findById(id).orElse(null);
+
+        if (inmueble == null) {
+            return null;
+        }
+
+        reintentoOptimista.comprobarVersion(datos.getVersion(), inmueble.getVersion());
+
+        JsonNode antes = outboxServicio.instantanea(inmuebleDTOServicio.inmuebleDTOServicio(inmueble));
+        String ciudadAnterior = inmueble.getCiudad();
+
+        inmueble.setDireccion(datos.getDireccion());
+        inmueble.setCiudad(datos.getCiudad());
+        inmueble.setCodigoPostal(datos.getCodigoPostal());
+        inmueble.setPrecioMensual(datos.getPrecioMensual());
+        inmueble.setEstado(datos.getEstado());
+        inmueble.setInquilino(referencia(datos.getInquilino()));
+
+        moverResumen(id, ciudadAnterior, inmueble.getCiudad());
+
+        outboxServicio.registrarSiCambia(agregadoOutbox.INMUEBLE, id, antes,
+                inmuebleDTOServicio.inmuebleDTOServicio(inmueble));
+
+        inmueble guardado = this.repositorio.save(inmueble);
+        publicarCambios(guardado);
+
+        return guardado;
+    }
+
+    /**
+     * Modifica solo los campos del inmueble que vienen en el JSON (PATCH).
+     *
+     * A diferencia de actualizarInmueble, no se copian todos los campos ni se llama a save:
+     * se cambian los valores en el inmueble cargado y, al confirmar la transacción,
+     * Hibernate lanza un UPDATE solo con las columnas modificadas (o ninguno si no cambia nada).
+     *
+     * @param id      ID del inmueble a modificar.
+     * @param cambios Campos a modificar (y opcionalmente la "version" leída).
+     * @return El inmueble modificado, o null si no existe.
+     */
+    @CacheEvict(cacheNames = cacheConfig.INMUEBLES, key = "#id")
+    public inmueble parchearInmueble(Integer id, ObjectNode cambios) {
+        return reintentoOptimista.ejecutar(() -> {
+
+            inmueble inmueble = this.repositorio.findById(id).orElse(null);
+
+            if (inmueble == null) {
+                return null;
+            }
+
+            reintentoOptimista.comprobarVersion(parcheJson.version(cambios), inmueble.getVersion());
+
+            JsonNode antes = outboxServicio.instantanea(inmuebleDTOServicio.inmuebleDTOServicio(inmueble));
+            String ciudadAnterior = inmueble.getCiudad();
+
+            parcheJson.aplicar(inmueble, cambios, CAMPOS_PARCHE);
+
+            if (cambios.has("inquilino")) {
+                inmueble.setInquilino(referencia(inmueble.getInquilino()));
+            }
+
+            moverResumen(id, ciudadAnterior, inmueble.getCiudad());
+
+            outboxServicio.registrarSiCambia(agregadoOutbox.INMUEBLE, id, antes,
+                    inmuebleDTOServicio.inmuebleDTOServicio(inmueble));
+            publicarCambios(inmueble);
+
+            return inmueble;
+
+        }, () -> this.repositorio.buscarConInquilino(id).orElse(null));
+    }
+
+    /**
+     * Publica el cambio para el índice de búsqueda y el autocompletado con la versión
+     * ya incrementada: se vuelca antes el UPDATE (que se haría igualmente al confirmar).
+     */
+    private void publicarCambios(inmueble inmueble) {
+        this.repositorio.flush();
+        eventos.publishEvent(documentoBusquedaEvento.de(inmueble));
+        eventos.publishEvent(ubicacionInmueble.de(inmueble));
+    }
+
+    /**
+     * Si el inmueble cambia de ciudad, mueve sus importes del resumen mensual
+     * de la ciudad anterior a la nueva (en la misma transacción que el cambio).
+     */
+    private void moverResumen(Integer id, String ciudadAnterior, String ciudadNueva) {
+        if (!Objects.equals(ciudadAnterior, ciudadNueva)) {
+            deudaInmuebleServicio.bloquear(id);
+            resumenMensualServicio.cambiarCiudad(id, ciudadAnterior, ciudadNueva);
+        }
+    }
+
+    /**
+     * El inquilino que llega en el JSON solo trae su ID (y no tiene versión):
+     * se sustituye por el inquilino guardado. Si no existe, 400 (BAD_REQUEST).
+     */
+    private inquilino referencia(inquilino inquilino) {
+        if (inquilino == null || inquilino.getIdInquilino() == null) {
+            return inquilino;
+        }
+        return inquilinoRepositorio.findById(inquilino.getIdInquilino())
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "No existe el inquilino " + inquilino.getIdInquilino()));
     }
 
     /**
-     * Elimina un inmueble de la base de datos por su ID.
+     * Elimina un inmueble de la base de datos por su ID
+     * y registra la baja en el outbox.
      *
      * @param id ID del inmueble a eliminar.
      */
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.INMUEBLES, key = "#id")
     public void eliminarPorId(Integer id) {
         repositorio.deleteById(id);
+        outboxServicio.registrar(agregadoOutbox.INMUEBLE, id, tipoEventoOutbox.ELIMINADO, null);
+        eventos.publishEvent(documentoBusquedaEvento.eliminado(tipoDocumentoBusqueda.INMUEBLE, id));
+        eventos.publishEvent(ubicacionInmueble.eliminado(id));
     }
 }
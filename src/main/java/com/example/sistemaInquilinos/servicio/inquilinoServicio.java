@@ -1,17 +1,34 @@
 package com.example.sistemaInquilinos.servicio;
 
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.dto.documentoBusquedaEvento;
+import com.example.sistemaInquilinos.dto.tipoDocumentoBusqueda;
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
 import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
 import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Servicio encargado de gestionar toda la lógica relacionada con los inquilinos.
  *
  * Actúa como intermediario entre el controlador y el repositorio.
  * Aquí no se accede directamente a la base de datos, eso lo hace el repositorio.
+ *
+ * La búsqueda por ID se guarda en la caché "inquilinos". Al guardar o eliminar
+ * un inquilino se elimina su entrada y también la caché "inmuebles", porque cada
+ * inmueble en caché incluye los datos de su inquilino.
  */
 @Service // Le indica a Spring que esta clase es un servicio y debe gestionarla automáticamente
 @RequiredArgsConstructor
@@ -25,6 +42,29 @@ public class inquilinoServicio  {
      */
     private final inquilinoRespositorio repositorio;
 
+    /**
+     * Repite la actualización si otra petición ha guardado el mismo inquilino a la vez.
+     */
+    private final reintentoOptimista reintentoOptimista;
+
+    /**
+     * Copia sobre el inquilino los campos recibidos en un PATCH.
+     */
+    private final parcheJson parcheJson;
+
+    /**
+     * Guarda en el outbox, en la misma transacción, los cambios de inquilinos.
+     */
+    private final outboxServicio outboxServicio;
+
+    /**
+     * Avisa al índice de búsqueda (busquedaTextoServicio) de las altas, cambios y bajas.
+     */
+    private final ApplicationEventPublisher eventos;
+
+    // Campos que admite PATCH /inquilinos/listado/{id}
+    private static final Set<String> CAMPOS_PARCHE = Set.of("nombre", "dni", "telefono", "email");
+
     /**
      * Devuelve todos los inquilinos existentes en la base de datos.
      */
@@ -35,7 +75,10 @@ public class inquilinoServicio  {
     /**
      * Busca un inquilino por su ID.
      * Si no existe, devuelve null.
+     *
+     * El resultado se guarda en caché: para cambiarlo se usa actualizarInquilino.
      */
+    @Cacheable(cacheNames = cacheConfig.INQUILINOS, key = "#id", unless = "#result == null")
     public inquilino buscarInquilinoPorId(Integer id){
         return repositorio.findById(id).orElse(null);
     }
@@ -43,14 +86,129 @@ public class inquilinoServicio  {
     /**
      * Guarda un nuevo inquilino o actualiza uno ya existente.
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = cacheConfig.INQUILINOS, key = "#inquilino.idInquilino",
+                    condition = "#inquilino.idInquilino != null"),
+            @CacheEvict(cacheNames = cacheConfig.INMUEBLES, allEntries = true,
+                    condition = "#inquilino.idInquilino != null")
+    })
     public inquilino guardarInquilino(inquilino inquilino){
-        return repositorio.save(inquilino);
+
+        tipoEventoOutbox tipo = inquilino.getIdInquilino() == null
+                ? tipoEventoOutbox.CREADO
+                : tipoEventoOutbox.MODIFICADO;
+
+        inquilino guardado = repositorio.save(inquilino);
+
+        outboxServicio.registrar(agregadoOutbox.INQUILINO, guardado.getIdInquilino(), tipo, datosEvento(guardado));
+        publicarDocumento(guardado);
+
+        return guardado;
+    }
+
+    /**
+     * Actualiza los datos de un inquilino existente.
+     * Se lee de la base de datos (no de la caché) para no modificar la copia en caché.
+     * Si no existe, devuelve null.
+     * Si la "version" recibida no es la actual, responde 409 con el inquilino actual.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = cacheConfig.INQUILINOS, key = "#id"),
+            @CacheEvict(cacheNames = cacheConfig.INMUEBLES, allEntries = true)
+    })
+    public inquilino actualizarInquilino(Integer id, inquilino datos){
+        return reintentoOptimista.ejecutar(
+                () -> aplicarCambios(id, datos),
+                () -> repositorio.findById(id).orElse(null));
+    }
+
+    // Un intento de actualizarInquilino, dentro de su propia transacción
+    private inquilino aplicarCambios(Integer id, inquilino datos){
+
+        inquilino inquilino = repositorio.findById(id).orElse(null);
+
+        if (inquilino == null) {
+            return null;
+        }
+
+        reintentoOptimista.comprobarVersion(datos.getVersion(), inquilino.getVersion());
+
+        JsonNode antes = datosEvento(inquilino);
+
+        inquilino.setNombre(datos.getNombre());
+        inquilino.setDni(datos.getDni());
+        inquilino.setTelefono(datos.getTelefono());
+        inquilino.setEmail(datos.getEmail());
+
+        outboxServicio.registrarSiCambia(agregadoOutbox.INQUILINO, id, antes, datosEvento(inquilino));
+
+        inquilino guardado = repositorio.save(inquilino);
+        publicarDocumento(guardado);
+
+        return guardado;
+    }
+
+    /**
+     * Modifica solo los campos que vienen en el JSON (PATCH).
+     * No se hace save: el UPDATE lo genera Hibernate al confirmar, únicamente
+     * con las columnas que han cambiado. Si no existe, devuelve null.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = cacheConfig.INQUILINOS, key = "#id"),
+            @CacheEvict(cacheNames = cacheConfig.INMUEBLES, allEntries = true)
+    })
+    public inquilino parchearInquilino(Integer id, ObjectNode cambios){
+        return reintentoOptimista.ejecutar(() -> {
+
+            inquilino inquilino = repositorio.findById(id).orElse(null);
+
+            if (inquilino == null) {
+                return null;
+            }
+
+            reintentoOptimista.comprobarVersion(parcheJson.version(cambios), inquilino.getVersion());
+
+            JsonNode antes = datosEvento(inquilino);
+            parcheJson.aplicar(inquilino, cambios, CAMPOS_PARCHE);
+            outboxServicio.registrarSiCambia(agregadoOutbox.INQUILINO, id, antes, datosEvento(inquilino));
+            publicarDocumento(inquilino);
+
+            return inquilino;
+
+        }, () -> repositorio.findById(id).orElse(null));
+    }
+
+    /**
+     * Publica el cambio para el índice de búsqueda con la versión ya incrementada:
+     * se vuelca antes el UPDATE (que se haría igualmente al confirmar).
+     */
+    private void publicarDocumento(inquilino inquilino){
+        repositorio.flush();
+        eventos.publishEvent(documentoBusquedaEvento.de(inquilino));
+    }
+
+    /**
+     * Datos del inquilino que se envían en los eventos del outbox.
+     * Sin la versión: dentro de la transacción todavía no está incrementada.
+     */
+    private ObjectNode datosEvento(inquilino inquilino){
+        ObjectNode datos = outboxServicio.instantanea(inquilino).deepCopy();
+        datos.remove("version");
+        return datos;
     }
 
     /**
      * Elimina un inquilino de la base de datos usando su ID.
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = cacheConfig.INQUILINOS, key = "#id"),
+            @CacheEvict(cacheNames = cacheConfig.INMUEBLES, allEntries = true)
+    })
     public void eliminarPorId(Integer id){
         repositorio.deleteById(id);
+        outboxServicio.registrar(agregadoOutbox.INQUILINO, id, tipoEventoOutbox.ELIMINADO, null);
+        eventos.publishEvent(documentoBusquedaEvento.eliminado(tipoDocumentoBusqueda.INQUILINO, id));
     }
 }
@@ -0,0 +1,516 @@
+package com.example.sistemaInquilinos.servicio;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de enteros comprimido, al estilo de Roaring Bitmap.
+ *
+ * Los números se reparten en bloques de 65536 según sus 16 bits altos y cada
+ * bloque se guarda de la forma que menos ocupa:
+ * - Pocos valores (hasta 4096): array ordenado de sus 16 bits bajos (2 bytes por valor)
+ * - Muchos valores: mapa de 65536 bits (8 KB fijos)
+ * Con IDs consecutivos (los de la base de datos) un bloque lleno ocupa 8 KB
+ * para 65536 registros, y las operaciones AND / OR trabajan palabra a palabra.
+ *
+ * No es seguro entre hilos: quien lo usa se encarga del bloqueo.
+ */
+public final class mapaBits {
+
+    // Por encima de este número de valores un bloque pasa a mapa de bits
+    private static final int MAXIMO_ARRAY = 4096;
+
+    // Bloques ordenados por sus 16 bits altos
+    private char[] claves = new char[0];
+    private contenedor[] contenedores = new contenedor[0];
+    private int bloques;
+
+    // =========================
+    // ESCRITURA
+    // =========================
+
+    public void anadir(int valor) {
+        char alto = (char) (valor >>> 16);
+        int posicion = Arrays.binarySearch(claves, 0, bloques, alto);
+
+        if (posicion >= 0) {
+            contenedores[posicion] = contenedores[posicion].anadir((char) valor);
+            return;
+        }
+
+        int hueco = -posicion - 1;
+        if (bloques == claves.length) {
+            int capacidad = Math.max(4, bloques * 2);
+            claves = Arrays.copyOf(claves, capacidad);
+            contenedores = Arrays.copyOf(contenedores, capacidad);
+        }
+        System.arraycopy(claves, hueco, claves, hueco + 1, bloques - hueco);
+        System.arraycopy(contenedores, hueco, contenedores, hueco + 1, bloques - hueco);
+        claves[hueco] = alto;
+        contenedores[hueco] = new contenedorArray().anadir((char) valor);
+        bloques++;
+    }
+
+    public void quitar(int valor) {
+        int posicion = Arrays.binarySearch(claves, 0, bloques, (char) (valor >>> 16));
+        if (posicion < 0) {
+            return;
+        }
+
+        contenedores[posicion] = contenedores[posicion].quitar((char) valor);
+
+        if (contenedores[posicion].cardinalidad() == 0) {
+            System.arraycopy(claves, posicion + 1, claves, posicion, bloques - posicion - 1);
+            System.arraycopy(contenedores, posicion + 1, contenedores, posicion, bloques - posicion - 1);
+            bloques--;
+            contenedores[bloques] = null;
+        }
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    public boolean contiene(int valor) {
+        int posicion = Arrays.binarySearch(claves, 0, bloques, (char) (valor >>> 16));
+        return posicion >= 0 && contenedores[posicion].contiene((char) valor);
+    }
+
+    public int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < bloques; i++) {
+            total += contenedores[i].cardinalidad();
+        }
+        return total;
+    }
+
+    public boolean vacio() {
+        return bloques == 0;
+    }
+
+    /**
+     * Recorre los valores de menor a mayor.
+     */
+    public void recorrer(IntConsumer accion) {
+        for (int i = 0; i < bloques; i++) {
+            contenedores[i].recorrer(claves[i] << 16, accion);
+        }
+    }
+
+    /**
+     * Memoria aproximada que ocupa, en bytes.
+     */
+    public long bytes() {
+        long total = 16 + 16 + claves.length * 2L + 16 + contenedores.length * 4L;
+        for (int i = 0; i < bloques; i++) {
+            total += contenedores[i].bytes();
+        }
+        return total;
+    }
+
+    public mapaBits copia() {
+        mapaBits copia = new mapaBits();
+        copia.claves = Arrays.copyOf(claves, bloques);
+        copia.contenedores = new contenedor[bloques];
+        for (int i = 0; i < bloques; i++) {
+            copia.contenedores[i] = contenedores[i].copia();
+        }
+        copia.bloques = bloques;
+        return copia;
+    }
+
+    // =========================
+    // OPERACIONES
+    // =========================
+
+    /**
+     * Valores que están en los dos (AND). No modifica ninguno.
+     */
+    public static mapaBits and(mapaBits a, mapaBits b) {
+        mapaBits resultado = new mapaBits();
+        resultado.reservar(Math.min(a.bloques, b.bloques));
+
+        int i = 0;
+        int j = 0;
+        while (i < a.bloques && j < b.bloques) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                contenedor comun = a.contenedores[i].and(b.contenedores[j]);
+                if (comun.cardinalidad() > 0) {
+                    resultado.agregarBloque(a.claves[i], comun);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Número de valores que están en los dos, sin crear el resultado.
+     */
+    public static int andCardinalidad(mapaBits a, mapaBits b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.bloques && j < b.bloques) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                total += a.contenedores[i].andCardinalidad(b.contenedores[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Valores que están en alguno de los dos (OR). No modifica ninguno.
+     */
+    public static mapaBits or(mapaBits a, mapaBits b) {
+        mapaBits resultado = new mapaBits();
+        resultado.reservar(a.bloques + b.bloques);
+
+        int i = 0;
+        int j = 0;
+        while (i < a.bloques || j < b.bloques) {
+            if (j == b.bloques || (i < a.bloques && a.claves[i] < b.claves[j])) {
+                resultado.agregarBloque(a.claves[i], a.contenedores[i].copia());
+                i++;
+            } else if (i == a.bloques || a.claves[i] > b.claves[j]) {
+                resultado.agregarBloque(b.claves[j], b.contenedores[j].copia());
+                j++;
+            } else {
+                resultado.agregarBloque(a.claves[i], a.contenedores[i].or(b.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    private void reservar(int capacidad) {
+        claves = new char[capacidad];
+        contenedores = new contenedor[capacidad];
+    }
+
+    // Solo para construir resultados: los bloques llegan ya en orden
+    private void agregarBloque(char clave, contenedor contenedor) {
+        claves[bloques] = clave;
+        contenedores[bloques] = contenedor;
+        bloques++;
+    }
+
+    // =========================
+    // BLOQUES
+    // =========================
+
+    /**
+     * Los 16 bits bajos de los valores de un bloque.
+     * Las operaciones que cambian de tamaño devuelven el bloque a usar
+     * (el mismo u otro de la otra forma).
+     */
+    private abstract static sealed class contenedor permits contenedorArray, contenedorBits {
+        abstract int cardinalidad();
+        abstract boolean contiene(char valor);
+        abstract contenedor anadir(char valor);
+        abstract contenedor quitar(char valor);
+        abstract contenedor and(contenedor otro);
+        abstract int andCardinalidad(contenedor otro);
+        abstract contenedor or(contenedor otro);
+        abstract void recorrer(int base, IntConsumer accion);
+        abstract long bytes();
+        abstract contenedor copia();
+    }
+
+    /**
+     * Bloque con pocos valores: array ordenado.
+     */
+    private static final class contenedorArray extends contenedor {
+
+        char[] valores;
+        int n;
+
+        contenedorArray() {
+            this(new char[4], 0);
+        }
+
+        contenedorArray(char[] valores, int n) {
+            this.valores = valores;
+            this.n = n;
+        }
+
+        @Override
+        int cardinalidad() {
+            return n;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return Arrays.binarySearch(valores, 0, n, valor) >= 0;
+        }
+
+        @Override
+        contenedor anadir(char valor) {
+            int posicion = Arrays.binarySearch(valores, 0, n, valor);
+            if (posicion >= 0) {
+                return this;
+            }
+            if (n == MAXIMO_ARRAY) {
+                return contenedorBits.de(this).anadir(valor);
+            }
+            if (n == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAXIMO_ARRAY, Math.max(4, n * 2)));
+            }
+            int hueco = -posicion - 1;
+            System.arraycopy(valores, hueco, valores, hueco + 1, n - hueco);
+            valores[hueco] = valor;
+            n++;
+            return this;
+        }
+
+        @Override
+        contenedor quitar(char valor) {
+            int posicion = Arrays.binarySearch(valores, 0, n, valor);
+            if (posicion >= 0) {
+                System.arraycopy(valores, posicion + 1, valores, posicion, n - posicion - 1);
+                n--;
+            }
+            return this;
+        }
+
+        @Override
+        contenedor and(contenedor otro) {
+            char[] comunes = new char[Math.min(n, otro.cardinalidad())];
+            int k = 0;
+            if (otro instanceof contenedorArray array) {
+                int i = 0;
+                int j = 0;
+                while (i < n && j < array.n) {
+                    if (valores[i] < array.valores[j]) {
+                        i++;
+                    } else if (valores[i] > array.valores[j]) {
+                        j++;
+                    } else {
+                        comunes[k++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (otro.contiene(valores[i])) {
+                        comunes[k++] = valores[i];
+                    }
+                }
+            }
+            return new contenedorArray(comunes, k);
+        }
+
+        @Override
+        int andCardinalidad(contenedor otro) {
+            int total = 0;
+            if (otro instanceof contenedorArray array) {
+                int i = 0;
+                int j = 0;
+                while (i < n && j < array.n) {
+                    if (valores[i] < array.valores[j]) {
+                        i++;
+                    } else if (valores[i] > array.valores[j]) {
+                        j++;
+                    } else {
+                        total++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (otro.contiene(valores[i])) {
+                        total++;
+                    }
+                }
+            }
+            return total;
+        }
+
+        @Override
+        contenedor or(contenedor otro) {
+            if (otro instanceof contenedorBits bits) {
+                return bits.or(this);
+            }
+            contenedorArray array = (contenedorArray) otro;
+            if (n + array.n > MAXIMO_ARRAY) {
+                return contenedorBits.de(this).or(array);
+            }
+            char[] union = new char[n + array.n];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < n || j < array.n) {
+                if (j == array.n || (i < n && valores[i] < array.valores[j])) {
+                    union[k++] = valores[i++];
+                } else if (i == n || valores[i] > array.valores[j]) {
+                    union[k++] = array.valores[j++];
+                } else {
+                    union[k++] = valores[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new contenedorArray(union, k);
+        }
+
+        @Override
+        void recorrer(int base, IntConsumer accion) {
+            for (int i = 0; i < n; i++) {
+                accion.accept(base | valores[i]);
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 4 + 4 + 16 + valores.length * 2L;
+        }
+
+        @Override
+        contenedor copia() {
+            return new contenedorArray(Arrays.copyOf(valores, Math.max(n, 1)), n);
+        }
+    }
+
+    /**
+     * Bloque con muchos valores: 65536 bits en 1024 palabras de 64 bits.
+     */
+    private static final class contenedorBits extends contenedor {
+
+        final long[] palabras;
+        int n;
+
+        contenedorBits(long[] palabras, int n) {
+            this.palabras = palabras;
+            this.n = n;
+        }
+
+        static contenedorBits de(contenedorArray array) {
+            long[] palabras = new long[1024];
+            for (int i = 0; i < array.n; i++) {
+                palabras[array.valores[i] >>> 6] |= 1L << array.valores[i];
+            }
+            return new contenedorBits(palabras, array.n);
+        }
+
+        @Override
+        int cardinalidad() {
+            return n;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        contenedor anadir(char valor) {
+            long antes = palabras[valor >>> 6];
+            palabras[valor >>> 6] = antes | (1L << valor);
+            if (antes != palabras[valor >>> 6]) {
+                n++;
+            }
+            return this;
+        }
+
+        @Override
+        contenedor quitar(char valor) {
+            long antes = palabras[valor >>> 6];
+            palabras[valor >>> 6] = antes & ~(1L << valor);
+            if (antes != palabras[valor >>> 6]) {
+                n--;
+            }
+            return n <= MAXIMO_ARRAY ? aArray() : this;
+        }
+
+        @Override
+        contenedor and(contenedor otro) {
+            if (otro instanceof contenedorArray array) {
+                return array.and(this);
+            }
+            long[] otras = ((contenedorBits) otro).palabras;
+            long[] comunes = new long[1024];
+            int total = 0;
+            for (int i = 0; i < 1024; i++) {
+                comunes[i] = palabras[i] & otras[i];
+                total += Long.bitCount(comunes[i]);
+            }
+            contenedorBits resultado = new contenedorBits(comunes, total);
+            return total <= MAXIMO_ARRAY ? resultado.aArray() : resultado;
+        }
+
+        @Override
+        int andCardinalidad(contenedor otro) {
+            if (otro instanceof contenedorArray array) {
+                return array.andCardinalidad(this);
+            }
+            long[] otras = ((contenedorBits) otro).palabras;
+            int total = 0;
+            for (int i = 0; i < 1024; i++) {
+                total += Long.bitCount(palabras[i] & otras[i]);
+            }
+            return total;
+        }
+
+        @Override
+        contenedor or(contenedor otro) {
+            long[] union = palabras.clone();
+            if (otro instanceof contenedorArray array) {
+                for (int i = 0; i < array.n; i++) {
+                    union[array.valores[i] >>> 6] |= 1L << array.valores[i];
+                }
+            } else {
+                long[] otras = ((contenedorBits) otro).palabras;
+                for (int i = 0; i < 1024; i++) {
+                    union[i] |= otras[i];
+                }
+            }
+            int total = 0;
+            for (long palabra : union) {
+                total += Long.bitCount(palabra);
+            }
+            return new contenedorBits(union, total);
+        }
+
+        @Override
+        void recorrer(int base, IntConsumer accion) {
+            for (int i = 0; i < 1024; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    accion.accept(base | (i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 4 + 16 + 1024 * 8L;
+        }
+
+        @Override
+        contenedor copia() {
+            return new contenedorBits(palabras.clone(), n);
+        }
+
+        private contenedorArray aArray() {
+            char[] valores = new char[Math.max(n, 1)];
+            int[] k = {0};
+            recorrer(0, valor -> valores[k[0]++] = (char) valor);
+            return new contenedorArray(valores, n);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
+import com.example.sistemaInquilinos.repositorio.eventoOutboxRepositorio;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Servicio que registra en el outbox los cambios de pagos, inmuebles e inquilinos.
+ *
+ * Solo se puede llamar dentro de la transacción que guarda el cambio (MANDATORY):
+ * así el evento se confirma o se deshace junto con el propio cambio,
+ * y la petición REST no depende de que el sistema destino esté disponible.
+ *
+ * El envío lo hace después publicadorOutbox.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+@RequiredArgsConstructor // Inyección por constructor de los atributos final
+public class outboxServicio {
+
+    private final eventoOutboxRepositorio repositorio;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Guarda un evento con los datos del registro en JSON.
+     *
+     * @param datos DTO (o JsonNode) con el estado tras el cambio; null en las bajas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(agregadoOutbox agregado, Integer idAgregado, tipoEventoOutbox tipo, Object datos) {
+        repositorio.save(crear(agregado, idAgregado, tipo, datos));
+    }
+
+    /**
+     * Registra una modificación solo si los datos han cambiado de verdad.
+     * Evita enviar eventos de PATCH que dejan el registro igual.
+     *
+     * @param antes   Instantánea previa al cambio (ver instantanea).
+     * @param despues Datos tras el cambio.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarSiCambia(agregadoOutbox agregado, Integer idAgregado, JsonNode antes, Object despues) {
+
+        JsonNode nuevo = instantanea(despues);
+
+        if (!nuevo.equals(antes)) {
+            registrar(agregado, idAgregado, tipoEventoOutbox.MODIFICADO, nuevo);
+        }
+    }
+
+    /**
+     * Copia en JSON de los datos, para compararla después con registrarSiCambia.
+     */
+    public JsonNode instantanea(Object datos) {
+        return objectMapper.valueToTree(datos);
+    }
+
+    /**
+     * Crea el evento sin guardarlo (la facturación mensual los inserta por lotes).
+     */
+    public eventoOutbox crear(agregadoOutbox agregado, Integer idAgregado, tipoEventoOutbox tipo, Object datos) {
+        try {
+            return eventoOutbox.builder()
+                    .agregado(agregado)
+                    .idAgregado(idAgregado)
+                    .tipo(tipo)
+                    .carga(datos == null ? null : objectMapper.writeValueAsString(datos))
+                    .fechaCreacion(Instant.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pueden convertir a JSON los datos del evento", e);
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.sistemaInquilinos.servicio;
 
-import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.dto.atributosPago;
+import com.example.sistemaInquilinos.dto.deudaModificadaEvento;
+import com.example.sistemaInquilinos.dto.pagoContabilizado;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
 import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
 import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.servicioDTO.pagosDTOServicioLista;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Servicio encargado de gestionar toda la lógica relacionada con los pagos.
@@ -18,7 +36,11 @@ import java.util.List;
  * - Búsqueda por ID
  * - Eliminación
  * - Cálculo de deudas
+ * - Resumen mensual de facturación y cobro
  * - Filtros por inmueble, impagos y fecha
+ *
+ * Solo trabaja con los años abiertos: los pagos de años archivados
+ * se consultan con archivoPagosServicio.
  */
 @Service // Le indica a Spring que esta clase es un servicio
 @RequiredArgsConstructor
@@ -31,15 +53,68 @@ public class pagosServicio {
      */
     private final pagosRepositorio pagosRepositorio;
 
+    /**
+     * Repositorios de inmuebles e inquilinos, para asociar el pago a sus registros guardados.
+     */
+    private final inmuebleRepositorio inmuebleRepositorio;
+    private final inquilinoRespositorio inquilinoRepositorio;
+
+    /**
+     * Servicio que mantiene la deuda acumulada de cada inmueble.
+     */
+    private final deudaInmuebleServicio deudaInmuebleServicio;
+
+    /**
+     * Servicio que mantiene el resumen mensual de facturación y cobro.
+     */
+    private final resumenMensualServicio resumenMensualServicio;
+
+    /**
+     * Reintenta las actualizaciones de pagos que chocan con otra petición.
+     */
+    private final reintentoOptimista reintentoOptimista;
+
+    /**
+     * Aplica los JSON parciales de PATCH sobre el pago.
+     */
+    private final parcheJson parcheJson;
+
+    /**
+     * Publica los cambios de deuda para recalcular el estado del inmueble (estadoInmuebleServicio)
+     * y los atributos de cada pago para los índices de los paneles (panelFiltrosServicio).
+     */
+    private final ApplicationEventPublisher eventos;
+
+    /**
+     * Registra los cambios de pagos en el outbox para otros sistemas.
+     */
+    private final outboxServicio outboxServicio;
+
+    /**
+     * Convierte el pago en el DTO que se envía en los eventos del outbox.
+     */
+    private final pagosDTOServicioLista pagosDTOServicio;
+
+    /**
+     * Indica qué años están archivados (ya no admiten pagos nuevos ni cambios).
+     */
+    private final archivoPagosServicio archivoPagosServicio;
+
+    /**
+     * Campos del pago que se pueden modificar con PATCH.
+     * El precio y la deuda se calculan, no se reciben.
+     */
+    private static final Set<String> CAMPOS_PARCHE = Set.of("anio", "mes", "pagado", "inquilino", "inmueble");
+
     // =========================
     // LISTADOS Y BÚSQUEDAS
     // =========================
 
     /**
-     * Devuelve el listado completo de todos los pagos.
+     * Devuelve el listado completo de todos los pagos en formato DTO.
      */
-    public List<pagos> listarPagos() {
-        return pagosRepositorio.findAll();
+    public List<pagosDTO> listarPagos() {
+        return pagosRepositorio.listarDTO();
     }
 
     /**
@@ -50,15 +125,52 @@ public class pagosServicio {
         return pagosRepositorio.findById(idPago).orElse(null);
     }
 
+    /**
+     * Busca un pago por su ID y lo devuelve directamente en formato DTO.
+     * Si no existe, devuelve null.
+     */
+    public pagosDTO buscarPagoDTOPorId(Integer idPago) {
+        return pagosRepositorio.buscarDTOPorId(idPago).orElse(null);
+    }
+
     // =========================
     // ELIMINACIÓN
     // =========================
 
     /**
-     * Elimina un pago de la base de datos usando su ID.
+     * Elimina un pago de la base de datos usando su ID
+     * y descuenta su importe de la deuda del inmueble (si estaba pendiente)
+     * y del resumen mensual.
+     *
+     * Primero se bloquea la deuda del inmueble (el mismo orden que guardarPago) y después
+     * se vuelve a leer el pago bloqueando su fila. Si dos peticiones borran el mismo pago
+     * a la vez, la segunda espera y ya no lo encuentra: no se descuenta dos veces.
+     * El borrado es un DELETE directo, así que tampoco falla si el pago ya no está.
      */
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.IMPAGOS, allEntries = true)
     public void eliminarPagoPorId(Integer idPago) {
-        pagosRepositorio.deleteById(idPago);
+
+        Integer idBloqueado = pagosRepositorio.buscarContabilizado(idPago)
+                .map(pagoContabilizado::idInmueble)
+                .orElse(null);
+        deudaInmuebleServicio.bloquear(idBloqueado);
+
+        pagosRepositorio.bloquearContabilizado(idPago)
+                .ifPresent(anterior -> {
+                    // Si el pago ha cambiado de inmueble mientras se esperaba, se bloquea también el nuevo,
+                    // pidiendo los dos a la vez para que bloquear los tome en orden de ID
+                    if (!Objects.equals(anterior.idInmueble(), idBloqueado)) {
+                        deudaInmuebleServicio.bloquear(idBloqueado, anterior.idInmueble());
+                    }
+                    deudaInmuebleServicio.aplicarCambio(anterior, null);
+                    resumenMensualServicio.aplicarCambio(anterior, null);
+                    eventos.publishEvent(new deudaModificadaEvento(anterior.idInmueble()));
+                    outboxServicio.registrar(agregadoOutbox.PAGO, idPago, tipoEventoOutbox.ELIMINADO, null);
+                });
+
+        pagosRepositorio.borrar(idPago);
+        eventos.publishEvent(atributosPago.eliminado(idPago));
     }
 
     // =========================
@@ -66,27 +178,22 @@ public class pagosServicio {
     // =========================
 
     /**
-     * Calcula la deuda total de un inmueble sumando todos los pagos no pagados.
+     * Devuelve la deuda total de un inmueble (suma de los pagos no pagados).
+     *
+     * Ya no se recorren todos los pagos del inmueble: se lee la deuda
+     * acumulada, que se mantiene al día con cada alta, cambio o baja de pago.
      */
     public Double calcularDeudaTotalPorInmueble(Integer idInmueble) {
+        return deudaInmuebleServicio.consultarDeuda(idInmueble);
+    }
 
-        // Obtiene todos los pagos de ese inmueble
-        List<pagos> lista = pagosRepositorio.findByInmuebleIdInmueble(idInmueble);
-
-        // Suma solo los pagos marcados como no pagados
-        double deuda = 0.0;
-
-        for (pagos p : lista) {
-            // Solo sumamos deuda si:
-            // - El pago NO está pagado
-            // - El inmueble NO está vacío
-            if (!p.getPagado() && p.getInmueble().getEstado() != estadoInmueble.VACIO) {
-                deuda += p.getPrecioAlquiler();
-            }
-        }
-
-
-        return deuda;
+    /**
+     * Recalcula desde cero la deuda acumulada de todos los inmuebles.
+     *
+     * @return Número de inmuebles con deuda.
+     */
+    public int reconstruirDeudas() {
+        return deudaInmuebleServicio.reconstruir();
     }
 
     // =========================
@@ -95,60 +202,246 @@ public class pagosServicio {
 
     /**
      * Guarda un pago y actualiza automáticamente el monto de deuda del inmueble.
+     *
+     * Solo se aplica la diferencia entre el pago anterior (si existía) y el nuevo,
+     * y el pago se guarda una única vez.
+     *
+     * Si el inmueble ya tiene otro pago de ese mes responde 409.
      */
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.IMPAGOS, allEntries = true)
     public pagos guardarPago(pagos pago) {
 
+        // Los años archivados están cerrados
+        archivoPagosServicio.comprobarAbierto(pago.getAnio());
+
+        // El JSON solo trae el ID del inmueble y del inquilino: se enlaza con los registros guardados
+        asociarRegistros(pago);
+
         // Aseguramos que el precio del alquiler del mes es el del inmueble actual
         pago.setPrecioAlquiler(pago.getInmueble().getPrecioMensual());
 
-        pagos guardado = pagosRepositorio.save(pago);
+        // Estado del pago antes del cambio (no existe si es un pago nuevo)
+        pagoContabilizado anterior = pago.getIdPago() == null
+                ? null
+                : pagosRepositorio.buscarContabilizado(pago.getIdPago()).orElse(null);
+
+        contabilizar(anterior, pago);
 
-        Integer idInmueble = guardado.getInmueble().getIdInmueble();
-        Double deudaActual = calcularDeudaTotalPorInmueble(idInmueble);
+        pagos guardado;
+        try {
+            // Se vuelca ya para que un mes repetido se detecte aquí y no al confirmar
+            guardado = pagosRepositorio.saveAndFlush(pago);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT,
+                    "El inmueble ya tiene un pago de " + pago.getMes() + "/" + pago.getAnio()
+            );
+        }
 
-        guardado.setMontoDeuda(deudaActual);
+        // Aviso a otros sistemas en la misma transacción
+        outboxServicio.registrar(agregadoOutbox.PAGO, guardado.getIdPago(),
+                anterior == null ? tipoEventoOutbox.CREADO : tipoEventoOutbox.MODIFICADO,
+                pagosDTOServicio.convertirAPagosDTO(guardado));
+        eventos.publishEvent(atributosPago.de(guardado));
 
-        return pagosRepositorio.save(guardado);
+        return guardado;
     }
 
+    /**
+     * Aplica a la deuda del inmueble y al resumen mensual la diferencia
+     * entre el estado anterior del pago y el nuevo, y guarda en el pago
+     * la deuda resultante del inmueble.
+     */
+    private void contabilizar(pagoContabilizado anterior, pagos pago) {
+
+        pagoContabilizado nuevo = pagoContabilizado.de(pago);
+
+        // Los pagos del mismo inmueble (o inmuebles) se aplican de uno en uno
+        deudaInmuebleServicio.bloquear(anterior != null ? anterior.idInmueble() : null, nuevo.idInmueble());
+
+        // Se actualiza la deuda del inmueble con la diferencia
+        deudaInmuebleServicio.aplicarCambio(anterior, nuevo);
+
+        // Y el resumen del mes y ciudad del pago
+        resumenMensualServicio.aplicarCambio(anterior, nuevo);
+
+        pago.setMontoDeuda(deudaInmuebleServicio.consultarDeuda(nuevo.idInmueble()));
+
+        // El estado del inmueble (o de los dos, si el pago cambia de inmueble) se recalcula aparte
+        if (anterior != null && !Objects.equals(anterior.idInmueble(), nuevo.idInmueble())) {
+            eventos.publishEvent(new deudaModificadaEvento(anterior.idInmueble()));
+        }
+        eventos.publishEvent(new deudaModificadaEvento(nuevo.idInmueble()));
+    }
+
+    /**
+     * Actualiza un pago existente con los datos recibidos.
+     *
+     * Cada intento lee el pago, comprueba la versión enviada por el cliente (si la hay)
+     * y lo guarda con guardarPago en una transacción nueva. Si otra petición modifica
+     * el mismo pago entre la lectura y el guardado, se repite con los datos nuevos.
+     *
+     * @return El pago actualizado, o null si no existe.
+     * @throws conflictoVersionException Con el pago actual si la versión no coincide
+     *                                   o se agotan los intentos.
+     */
+    @CacheEvict(cacheNames = cacheConfig.IMPAGOS, allEntries = true)
+    public pagos actualizarPago(Integer idPago, pagos datos) {
+        return reintentoOptimista.ejecutar(() -> {
+
+            pagos pago = pagosRepositorio.findById(idPago).orElse(null);
+
+            if (pago == null) {
+                return null;
+            }
+
+            reintentoOptimista.comprobarVersion(datos.getVersion(), pago.getVersion());
+
+            pago.setAnio(datos.getAnio());
+            pago.setMes(datos.getMes());
+            pago.setMontoDeuda(datos.getMontoDeuda());
+            pago.setPagado(datos.getPagado());
+            pago.setInquilino(datos.getInquilino());
+            pago.setInmueble(datos.getInmueble());
+
+            return guardarPago(pago);
+
+        }, () -> pagosRepositorio.findById(idPago).orElse(null));
+    }
+    /**
+     * Modifica solo los campos del pago que vienen en el JSON (PATCH).
+     *
+     * El estado anterior se toma del pago ya cargado (sin volver a consultarlo)
+     * y la deuda y el resumen mensual solo se tocan si cambia algo que les afecta:
+     * inmueble, año, mes o pagado. Cambiar solo el inquilino es un UPDATE de una columna.
+     *
+     * Si cambia el inmueble, el precio del alquiler pasa a ser el del nuevo inmueble;
+     * si no, se conserva el precio con el que se facturó el pago.
+     *
+     * @return El pago modificado, o null si no existe.
+     */
+    @CacheEvict(cacheNames = cacheConfig.IMPAGOS, allEntries = true)
+    public pagos parchearPago(Integer idPago, ObjectNode cambios) {
+        return reintentoOptimista.ejecutar(() -> {
+
+            pagos pago = pagosRepositorio.findById(idPago).orElse(null);
+
+            if (pago == null) {
+                return null;
+            }
+
+            reintentoOptimista.comprobarVersion(parcheJson.version(cambios), pago.getVersion());
+
+            pagoContabilizado anterior = pagoContabilizado.de(pago);
+            JsonNode antes = outboxServicio.instantanea(pagosDTOServicio.convertirAPagosDTO(pago));
+
+            parcheJson.aplicar(pago, cambios, CAMPOS_PARCHE);
+
+            if (pago.getMes() != null) {
+                validarMes(pago.getMes());
+            }
+
+            archivoPagosServicio.comprobarAbierto(pago.getAnio());
+
+            if (cambios.has("inmueble") || cambios.has("inquilino")) {
+                asociarRegistros(pago);
+            }
+
+            if (cambios.has("inmueble") && pago.getInmueble() != null) {
+                pago.setPrecioAlquiler(pago.getInmueble().getPrecioMensual());
+            }
+
+            // Solo si cambia algo que afecta a la deuda o al resumen mensual
+            if (!anterior.equals(pagoContabilizado.de(pago))) {
+                contabilizar(anterior, pago);
+            }
+
+            outboxServicio.registrarSiCambia(agregadoOutbox.PAGO, idPago, antes,
+                    pagosDTOServicio.convertirAPagosDTO(pago));
+
+            // El evento lleva la versión ya incrementada: se vuelca antes el UPDATE
+            pagosRepositorio.flush();
+            eventos.publishEvent(atributosPago.de(pago));
+
+            return pago;
+
+        }, () -> pagosRepositorio.findById(idPago).orElse(null));
+    }
+
+    /**
+     * Sustituye el inmueble y el inquilino recibidos por los guardados en la base de datos.
+     * Los objetos que llegan en el JSON solo traen el ID (sin versión) y Hibernate no los acepta tal cual.
+     * Si alguno no existe se responde con un 400 (BAD_REQUEST).
+     */
+    private void asociarRegistros(pagos pago) {
+
+        if (pago.getInmueble() != null && pago.getInmueble().getIdInmueble() != null) {
+            Integer id = pago.getInmueble().getIdInmueble();
+            pago.setInmueble(inmuebleRepositorio.findById(id)
+                    .orElseThrow(() -> noExiste("inmueble", id)));
+        }
+
+        if (pago.getInquilino() != null && pago.getInquilino().getIdInquilino() != null) {
+            Integer id = pago.getInquilino().getIdInquilino();
+            pago.setInquilino(inquilinoRepositorio.findById(id)
+                    .orElseThrow(() -> noExiste("inquilino", id)));
+        }
+    }
+
+    private ResponseStatusException noExiste(String registro, Integer id) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "No existe el " + registro + " " + id);
+    }
 
     // =========================
     // FILTROS AVANZADOS
     // =========================
 
     /**
-     * Devuelve todos los pagos asociados a un inmueble.
+     * Devuelve todos los pagos asociados a un inmueble en formato DTO.
      */
-    public List<pagos> listarPagosPorInmueble(Integer idInmueble) {
-        return pagosRepositorio.findByInmuebleIdInmueble(idInmueble);
+    public List<pagosDTO> listarPagosPorInmueble(Integer idInmueble) {
+        return pagosRepositorio.listarDTOPorInmueble(idInmueble);
     }
 
     /**
-     * Devuelve todos los pagos que están marcados como impagos.
+     * Devuelve todos los pagos que están marcados como impagos en formato DTO.
+     *
+     * Se guarda en la caché "impagos", que se vacía al guardar o eliminar
+     * un pago y al generar la facturación mensual.
      */
-    public List<pagos> listarImpagos() {
-        return pagosRepositorio.findByPagadoFalse();
+    @Cacheable(cacheNames = cacheConfig.IMPAGOS, key = "'todos'")
+    public List<pagosDTO> listarImpagos() {
+        return pagosRepositorio.listarDTOImpagos();
     }
 
     /**
      * Busca pagos filtrando por año y mes.
      * Incluye validación para evitar valores incorrectos.
      */
-    public List<pagos> buscarPagosPorAnioYMes(Integer anio, Integer mes) {
+    public List<pagosDTO> buscarPagosPorAnioYMes(Integer anio, Integer mes) {
 
         // Validación básica para evitar errores
         if (anio == null || mes == null) {
             return null;
         }
 
+        validarMes(mes);
+
+        return pagosRepositorio.listarDTOPorAnioYMes(anio, mes);
+    }
+
+    /**
+     * Comprueba que el mes está entre 1 y 12.
+     * Si no lo está, responde con un 400 (BAD_REQUEST).
+     */
+    public void validarMes(Integer mes) {
         if (mes < 1 || mes > 12) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "El mes debe estar entre 1 y 12"
             );
         }
-
-        return pagosRepositorio.findByAnioAndMes(anio, mes);
     }
 }
 
@@ -0,0 +1,532 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.anioArchivadoEvento;
+import com.example.sistemaInquilinos.dto.atributosPago;
+import com.example.sistemaInquilinos.dto.conteoPanelDTO;
+import com.example.sistemaInquilinos.dto.memoriaPanelDTO;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de conteos para los paneles: cuántos inmuebles o pagos cumplen una
+ * combinación de filtros (estado, ciudad, año, mes, pagado) y cómo se reparten.
+ *
+ * En vez de una consulta SQL por combinación, se guarda en memoria un mapa de bits
+ * comprimido (mapaBits) por cada atributo y valor, con los IDs de los registros que
+ * lo tienen. Un filtro es un OR entre los valores pedidos de cada atributo y un AND
+ * entre atributos, operaciones que trabajan con 64 registros por instrucción.
+ *
+ * Los pagos también se indexan por el estado y la ciudad de su inmueble, para
+ * poder filtrarlos directamente ("impagos de 2024 en Madrid").
+ *
+ * Los índices se crean al arrancar y se mantienen con los eventos que publican
+ * inmuebleServicio, estadoInmuebleServicio, pagosServicio, facturacionMensualServicio
+ * y archivoPagosServicio al confirmar cada cambio. Los eventos de inmuebles y pagos traen
+ * su versión: uno más antiguo que el ya aplicado (o de un registro eliminado) se descarta.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+public class panelFiltrosServicio {
+
+    // Logger para mostrar la creación de los índices
+    private static final Logger logger = LoggerFactory.getLogger(panelFiltrosServicio.class);
+
+    // Bytes aproximados de cada inmueble en el mapa de atributos actuales (entrada + record)
+    private static final long BYTES_POR_INMUEBLE = 96;
+
+    // Bytes aproximados de cada versión apuntada (entrada del mapa + Integer + Long)
+    private static final long BYTES_POR_VERSION = 80;
+
+    /**
+     * Mapas de bits de un atributo: uno por valor, ordenados por valor.
+     */
+    private static final class atributo<V extends Comparable<V>> {
+
+        final Map<V, mapaBits> porValor = new TreeMap<>();
+
+        void anadir(V valor, int id) {
+            if (valor != null) {
+                porValor.computeIfAbsent(valor, v -> new mapaBits()).anadir(id);
+            }
+        }
+
+        void quitar(V valor, int id) {
+            mapaBits mapa = valor != null ? porValor.get(valor) : null;
+            if (mapa != null) {
+                mapa.quitar(id);
+                if (mapa.vacio()) {
+                    porValor.remove(valor);
+                }
+            }
+        }
+
+        /**
+         * Aplica el filtro (OR de los valores pedidos) sobre los registros actuales.
+         * Sin valores no filtra.
+         */
+        mapaBits filtrar(mapaBits actuales, Collection<V> valores) {
+            if (valores == null || valores.isEmpty()) {
+                return actuales;
+            }
+            mapaBits union = new mapaBits();
+            for (V valor : valores) {
+                mapaBits mapa = porValor.get(valor);
+                if (mapa != null) {
+                    union = mapaBits.or(union, mapa);
+                }
+            }
+            return mapaBits.and(actuales, union);
+        }
+
+        /**
+         * Cuántos de los registros filtrados hay con cada valor (solo los que tienen alguno).
+         */
+        Map<String, Integer> agrupar(mapaBits filtrados) {
+            Map<String, Integer> grupos = new LinkedHashMap<>();
+            porValor.forEach((valor, mapa) -> {
+                int cuantos = mapaBits.andCardinalidad(filtrados, mapa);
+                if (cuantos > 0) {
+                    grupos.put(String.valueOf(valor), cuantos);
+                }
+            });
+            return grupos;
+        }
+
+        long bytes() {
+            return porValor.values().stream().mapToLong(mapaBits::bytes).sum();
+        }
+
+        void vaciar() {
+            porValor.clear();
+        }
+    }
+
+    private final inmuebleRepositorio inmuebleRepositorio;
+    private final pagosRepositorio pagosRepositorio;
+    private final TransactionTemplate transactionTemplate;
+
+    // =========================
+    // ÍNDICES DE INMUEBLES
+    // =========================
+
+    private mapaBits todosInmuebles = new mapaBits();
+    private final atributo<estadoInmueble> estadoInmuebles = new atributo<>();
+    private final atributo<String> ciudadInmuebles = new atributo<>();
+
+    // Atributos actuales de cada inmueble, para quitarlos cuando cambian
+    private final Map<Integer, ubicacionInmueble> inmuebles = new HashMap<>();
+
+    // Versión aplicada de cada inmueble
+    private final versionesAplicadas<Integer> versionesInmuebles = new versionesAplicadas<>();
+
+    // =========================
+    // ÍNDICES DE PAGOS
+    // =========================
+
+    private mapaBits todosPagos = new mapaBits();
+    private final atributo<Integer> anioPagos = new atributo<>();
+    private final atributo<Integer> mesPagos = new atributo<>();
+    private final atributo<Boolean> pagadoPagos = new atributo<>();
+    private final atributo<estadoInmueble> estadoPagos = new atributo<>();
+    private final atributo<String> ciudadPagos = new atributo<>();
+
+    // Pagos de cada inmueble: al cambiar su estado o ciudad se mueven todos
+    private final Map<Integer, mapaBits> pagosPorInmueble = new HashMap<>();
+
+    // Atributos actuales de cada pago empaquetados en 8 bytes, indexados por ID (ver empaquetar)
+    private long[] pagos = new long[0];
+
+    // Versión aplicada de cada pago
+    private final versionesAplicadas<Integer> versionesPagos = new versionesAplicadas<>();
+
+    // Varias consultas a la vez, un cambio cada vez
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    private final Timer consultas;
+
+    public panelFiltrosServicio(inmuebleRepositorio inmuebleRepositorio,
+                                pagosRepositorio pagosRepositorio,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry registro) {
+        this.inmuebleRepositorio = inmuebleRepositorio;
+        this.pagosRepositorio = pagosRepositorio;
+        this.transactionTemplate = transactionTemplate;
+
+        // Métricas: /actuator/metrics/panel.*
+        this.consultas = registro.timer("panel.consultas");
+        registro.gauge("panel.memoria.bytes", this, servicio -> servicio.memoria().getBytesTotales());
+    }
+
+    // =========================
+    // CREACIÓN
+    // =========================
+
+    /**
+     * Crea los índices con todos los inmuebles y pagos (dos consultas).
+     * Se ejecuta al arrancar, con los datos iniciales ya cargados.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+
+        long inicio = System.nanoTime();
+
+        bloqueo.writeLock().lock();
+        try {
+            todosInmuebles = new mapaBits();
+            List.of(estadoInmuebles, ciudadInmuebles).forEach(atributo::vaciar);
+            inmuebles.clear();
+            versionesInmuebles.vaciar();
+
+            todosPagos = new mapaBits();
+            List.of(anioPagos, mesPagos, pagadoPagos, estadoPagos, ciudadPagos).forEach(atributo::vaciar);
+            pagosPorInmueble.clear();
+            pagos = new long[0];
+            versionesPagos.vaciar();
+
+            transactionTemplate.executeWithoutResult(estado -> {
+                inmuebleRepositorio.listarUbicaciones().forEach(ubicacion -> {
+                    versionesInmuebles.aplicar(ubicacion.idInmueble(), ubicacion.version());
+                    ponerInmueble(ubicacion);
+                });
+                try (Stream<atributosPago> stream = pagosRepositorio.recorrerAtributos()) {
+                    stream.forEach(pago -> {
+                        versionesPagos.aplicar(pago.idPago(), pago.version());
+                        ponerPago(pago);
+                    });
+                }
+            });
+
+            memoriaPanelDTO memoria = memoria();
+            logger.info("Índices de los paneles creados: " + memoria.getInmuebles() + " inmuebles, "
+                    + memoria.getPagos() + " pagos, " + memoria.getMapas() + " mapas de bits, "
+                    + memoria.getBytesTotales() / 1024 + " KB en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    // =========================
+    // ACTUALIZACIÓN
+    // =========================
+
+    /**
+     * Alta, cambio (también de estado, por el recálculo) o baja de un inmueble.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarInmueble(ubicacionInmueble ubicacion) {
+        if (ubicacion.idInmueble() == null) {
+            return;
+        }
+        bloqueo.writeLock().lock();
+        try {
+            if (ubicacion.esEliminado()) {
+                versionesInmuebles.eliminar(ubicacion.idInmueble());
+            } else if (!versionesInmuebles.aplicar(ubicacion.idInmueble(), ubicacion.version())) {
+                return;
+            }
+            ponerInmueble(ubicacion);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Alta, cambio o baja de un pago.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarPago(atributosPago pago) {
+        if (pago.idPago() == null) {
+            return;
+        }
+        bloqueo.writeLock().lock();
+        try {
+            if (pago.esEliminado()) {
+                versionesPagos.eliminar(pago.idPago());
+            } else if (!versionesPagos.aplicar(pago.idPago(), pago.version())) {
+                return;
+            }
+            ponerPago(pago);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Los pagos del año archivado salen de todos los índices (como si se hubieran borrado).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alArchivarAnio(anioArchivadoEvento evento) {
+        bloqueo.writeLock().lock();
+        try {
+            mapaBits delAnio = anioPagos.porValor.get(evento.anio());
+            if (delAnio != null) {
+                delAnio.copia().recorrer(id -> {
+                    versionesPagos.eliminar(id);
+                    quitarPago(id);
+                });
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    // Los métodos siguientes deben llamarse con el bloqueo de escritura
+
+    private void ponerInmueble(ubicacionInmueble nuevo) {
+
+        int id = nuevo.idInmueble();
+        ubicacionInmueble anterior = inmuebles.remove(id);
+        mapaBits suyos = pagosPorInmueble.get(id);
+
+        if (anterior != null) {
+            todosInmuebles.quitar(id);
+            estadoInmuebles.quitar(anterior.estado(), id);
+            ciudadInmuebles.quitar(anterior.ciudad(), id);
+            if (suyos != null) {
+                suyos.recorrer(idPago -> {
+                    estadoPagos.quitar(anterior.estado(), idPago);
+                    ciudadPagos.quitar(anterior.ciudad(), idPago);
+                });
+            }
+        }
+
+        // Eliminado: llega con todos los campos a null
+        if (nuevo.esEliminado()) {
+            return;
+        }
+
+        inmuebles.put(id, nuevo);
+        todosInmuebles.anadir(id);
+        estadoInmuebles.anadir(nuevo.estado(), id);
+        ciudadInmuebles.anadir(nuevo.ciudad(), id);
+        if (suyos != null) {
+            suyos.recorrer(idPago -> {
+                estadoPagos.anadir(nuevo.estado(), idPago);
+                ciudadPagos.anadir(nuevo.ciudad(), idPago);
+            });
+        }
+    }
+
+    private void ponerPago(atributosPago pago) {
+
+        int id = pago.idPago();
+        quitarPago(id);
+
+        if (pago.esEliminado()) {
+            return;
+        }
+
+        if (id >= pagos.length) {
+            pagos = Arrays.copyOf(pagos, Math.max(id + 1, pagos.length * 3 / 2));
+        }
+        pagos[id] = empaquetar(pago);
+
+        todosPagos.anadir(id);
+        anioPagos.anadir(pago.anio(), id);
+        mesPagos.anadir(pago.mes(), id);
+        pagadoPagos.anadir(pago.pagado(), id);
+
+        if (pago.idInmueble() != null) {
+            pagosPorInmueble.computeIfAbsent(pago.idInmueble(), i -> new mapaBits()).anadir(id);
+            ubicacionInmueble inmueble = inmuebles.get(pago.idInmueble());
+            if (inmueble != null) {
+                estadoPagos.anadir(inmueble.estado(), id);
+                ciudadPagos.anadir(inmueble.ciudad(), id);
+            }
+        }
+    }
+
+    private void quitarPago(int id) {
+
+        if (id >= pagos.length || pagos[id] == 0) {
+            return;
+        }
+
+        atributosPago anterior = desempaquetar(id, pagos[id]);
+        pagos[id] = 0;
+
+        todosPagos.quitar(id);
+        anioPagos.quitar(anterior.anio(), id);
+        mesPagos.quitar(anterior.mes(), id);
+        pagadoPagos.quitar(anterior.pagado(), id);
+
+        if (anterior.idInmueble() != null) {
+            mapaBits suyos = pagosPorInmueble.get(anterior.idInmueble());
+            if (suyos != null) {
+                suyos.quitar(id);
+                if (suyos.vacio()) {
+                    pagosPorInmueble.remove(anterior.idInmueble());
+                }
+            }
+            ubicacionInmueble inmueble = inmuebles.get(anterior.idInmueble());
+            if (inmueble != null) {
+                estadoPagos.quitar(inmueble.estado(), id);
+                ciudadPagos.quitar(inmueble.ciudad(), id);
+            }
+        }
+    }
+
+    /**
+     * Un pago en un long: bit 63 = existe, bits 52-53 = pagado (0 null, 1 sí, 2 no),
+     * bits 48-51 = mes, bits 32-47 = año y bits 0-31 = ID del inmueble (0 si no tiene).
+     */
+    private static long empaquetar(atributosPago pago) {
+        long pagado = pago.pagado() == null ? 0 : pago.pagado() ? 1 : 2;
+        return (1L << 63)
+                | (pagado << 52)
+                | ((long) (pago.mes() != null ? pago.mes() & 0xF : 0) << 48)
+                | ((long) (pago.anio() != null ? pago.anio() & 0xFFFF : 0) << 32)
+                | (pago.idInmueble() != null ? pago.idInmueble() & 0xFFFFFFFFL : 0);
+    }
+
+    private static atributosPago desempaquetar(int id, long valor) {
+        int pagado = (int) (valor >>> 52) & 0x3;
+        int mes = (int) (valor >>> 48) & 0xF;
+        int anio = (int) (valor >>> 32) & 0xFFFF;
+        int idInmueble = (int) valor;
+        return new atributosPago(id,
+                idInmueble != 0 ? idInmueble : null,
+                anio != 0 ? anio : null,
+                mes != 0 ? mes : null,
+                pagado == 0 ? null : pagado == 1,
+                null);
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    /**
+     * Inmuebles en alguno de los estados y alguna de las ciudades indicadas
+     * (una lista vacía no filtra).
+     *
+     * @param agruparPor "estado", "ciudad" o null.
+     */
+    public conteoPanelDTO contarInmuebles(List<estadoInmueble> estados, List<String> ciudades, String agruparPor) {
+
+        long inicio = System.nanoTime();
+
+        bloqueo.readLock().lock();
+        try {
+            mapaBits filtrados = todosInmuebles;
+            filtrados = estadoInmuebles.filtrar(filtrados, estados);
+            filtrados = ciudadInmuebles.filtrar(filtrados, ciudades);
+
+            Map<String, Integer> grupos = agruparPor == null ? null : switch (agruparPor.trim().toLowerCase()) {
+                case "estado" -> estadoInmuebles.agrupar(filtrados);
+                case "ciudad" -> ciudadInmuebles.agrupar(filtrados);
+                default -> throw agrupacionNoValida("estado o ciudad");
+            };
+
+            return conteo(filtrados, grupos, inicio);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pagos que cumplen todos los filtros indicados (null o vacío no filtra).
+     * "estados" y "ciudades" se refieren al inmueble del pago.
+     *
+     * @param agruparPor "anio", "mes", "pagado", "estado", "ciudad" o null.
+     */
+    public conteoPanelDTO contarPagos(List<Integer> anios, List<Integer> meses, Boolean pagado,
+                                      List<estadoInmueble> estados, List<String> ciudades, String agruparPor) {
+
+        long inicio = System.nanoTime();
+
+        bloqueo.readLock().lock();
+        try {
+            mapaBits filtrados = todosPagos;
+            filtrados = anioPagos.filtrar(filtrados, anios);
+            filtrados = mesPagos.filtrar(filtrados, meses);
+            filtrados = pagadoPagos.filtrar(filtrados, pagado != null ? List.of(pagado) : null);
+            filtrados = estadoPagos.filtrar(filtrados, estados);
+            filtrados = ciudadPagos.filtrar(filtrados, ciudades);
+
+            Map<String, Integer> grupos = agruparPor == null ? null : switch (agruparPor.trim().toLowerCase()) {
+                case "anio" -> anioPagos.agrupar(filtrados);
+                case "mes" -> mesPagos.agrupar(filtrados);
+                case "pagado" -> pagadoPagos.agrupar(filtrados);
+                case "estado" -> estadoPagos.agrupar(filtrados);
+                case "ciudad" -> ciudadPagos.agrupar(filtrados);
+                default -> throw agrupacionNoValida("anio, mes, pagado, estado o ciudad");
+            };
+
+            return conteo(filtrados, grupos, inicio);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private conteoPanelDTO conteo(mapaBits filtrados, Map<String, Integer> grupos, long inicio) {
+        long nanos = System.nanoTime() - inicio;
+        consultas.record(Duration.ofNanos(nanos));
+        return conteoPanelDTO.builder()
+                .total(filtrados.cardinalidad())
+                .grupos(grupos)
+                .microsegundos(nanos / 1_000)
+                .build();
+    }
+
+    private static ResponseStatusException agrupacionNoValida(String admitidos) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "agruparPor no válido (" + admitidos + ")");
+    }
+
+    /**
+     * Memoria que ocupan los índices.
+     */
+    public memoriaPanelDTO memoria() {
+        bloqueo.readLock().lock();
+        try {
+            List<atributo<?>> atributos = List.of(estadoInmuebles, ciudadInmuebles,
+                    anioPagos, mesPagos, pagadoPagos, estadoPagos, ciudadPagos);
+
+            long bytesMapas = todosInmuebles.bytes() + todosPagos.bytes()
+                    + atributos.stream().mapToLong(atributo::bytes).sum()
+                    + pagosPorInmueble.values().stream().mapToLong(mapaBits::bytes).sum();
+
+            long bytesAuxiliares = inmuebles.size() * BYTES_POR_INMUEBLE + pagos.length * 8L
+                    + (versionesInmuebles.tamanio() + versionesPagos.tamanio()) * BYTES_POR_VERSION;
+
+            int mapas = 2 + pagosPorInmueble.size()
+                    + atributos.stream().mapToInt(atributo -> atributo.porValor.size()).sum();
+
+            return memoriaPanelDTO.builder()
+                    .inmuebles(todosInmuebles.cardinalidad())
+                    .pagos(todosPagos.cardinalidad())
+                    .mapas(mapas)
+                    .bytesMapas(bytesMapas)
+                    .bytesAuxiliares(bytesAuxiliares)
+                    .bytesTotales(bytesMapas + bytesAuxiliares)
+                    .build();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Aplica un JSON parcial (PATCH) sobre una entidad ya cargada.
+ *
+ * Solo se escriben los campos que vienen en el JSON; el resto se queda como estaba.
+ * Junto con @DynamicUpdate en la entidad, el UPDATE que genera Hibernate
+ * incluye únicamente las columnas que han cambiado de valor (y ninguno si no cambia nada).
+ *
+ * El campo "version" no se copia: es la versión que el cliente leyó
+ * y se usa para detectar conflictos (ver reintentoOptimista.comprobarVersion).
+ */
+@Component
+@RequiredArgsConstructor
+public class parcheJson {
+
+    private static final String VERSION = "version";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Versión enviada por el cliente en el PATCH, o null si no la envía.
+     */
+    public Long version(ObjectNode cambios) {
+        JsonNode version = cambios.get(VERSION);
+        return version == null || version.isNull() ? null : version.asLong();
+    }
+
+    /**
+     * Copia sobre la entidad los campos presentes en el JSON.
+     *
+     * @param destino    Entidad cargada de la base de datos.
+     * @param cambios    JSON parcial recibido.
+     * @param permitidos Campos que se pueden modificar con PATCH.
+     * @throws ResponseStatusException 400 si hay campos no permitidos o con un valor incorrecto.
+     */
+    public void aplicar(Object destino, ObjectNode cambios, Set<String> permitidos) {
+
+        ObjectNode campos = cambios.deepCopy();
+        campos.remove(VERSION);
+
+        for (Iterator<String> nombres = campos.fieldNames(); nombres.hasNext(); ) {
+            String nombre = nombres.next();
+            if (!permitidos.contains(nombre)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "El campo '" + nombre + "' no se puede modificar. Campos permitidos: " + permitidos);
+            }
+        }
+
+        try {
+            // Solo se fusiona el objeto raíz: los objetos anidados (inquilino, inmueble) se sustituyen
+            objectMapper.readerForUpdating(destino).readValue(campos);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "JSON no válido: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "JSON no válido: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import com.example.sistemaInquilinos.repositorio.eventoOutboxRepositorio;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vacía periódicamente el outbox: lee los eventos por lotes, en orden,
+ * los entrega a todos los destinos activos y borra los ya entregados.
+ *
+ * Si un destino falla, el lote no se borra y se vuelve a intentar en la
+ * siguiente ejecución (entrega "al menos una vez").
+ *
+ * Métricas (/actuator/metrics):
+ * - outbox.eventos.enviados: eventos entregados (su ritmo es el rendimiento)
+ * - outbox.errores: lotes fallidos, por destino
+ * - outbox.retraso: segundos que lleva esperando el evento pendiente más antiguo
+ * - outbox.entrega: tiempo entre el cambio y su entrega, por evento
+ */
+@Component // Componente gestionado por Spring
+public class publicadorOutbox {
+
+    // Logger para mostrar los lotes entregados y los fallos
+    private static final Logger logger = LoggerFactory.getLogger(publicadorOutbox.class);
+
+    private final eventoOutboxRepositorio repositorio;
+
+    private final List<destinoEventos> destinos;
+
+    // Si está desactivado, la tarea programada no hace nada
+    private final boolean activo;
+
+    // Eventos que se leen y entregan de una vez
+    private final int tamanioLote;
+
+    // Máximo de lotes por ejecución, para no acaparar el hilo de tareas programadas
+    private final int lotesPorEjecucion;
+
+    // Evita dos vaciados a la vez (la tarea programada y una llamada manual)
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    // Antigüedad (ms) del evento pendiente más antiguo en la última ejecución
+    private final AtomicLong retrasoMilisegundos = new AtomicLong();
+
+    private final MeterRegistry registro;
+    private final Counter enviados;
+    private final Timer entrega;
+
+    public publicadorOutbox(eventoOutboxRepositorio repositorio,
+                            List<destinoEventos> destinos,
+                            MeterRegistry registro,
+                            @Value("${outbox.publicador.activo:true}") boolean activo,
+                            @Value("${outbox.publicador.tamanio-lote:500}") int tamanioLote,
+                            @Value("${outbox.publicador.lotes-por-ejecucion:20}") int lotesPorEjecucion) {
+        this.repositorio = repositorio;
+        this.destinos = destinos;
+        this.activo = activo;
+        this.tamanioLote = tamanioLote;
+        this.lotesPorEjecucion = lotesPorEjecucion;
+
+        this.registro = registro;
+        this.enviados = registro.counter("outbox.eventos.enviados");
+        this.entrega = registro.timer("outbox.entrega");
+        registro.gauge("outbox.retraso", retrasoMilisegundos, valor -> valor.get() / 1000.0);
+
+        if (destinos.isEmpty()) {
+            logger.warn("No hay ningún destino de eventos activo: el outbox no se vaciará");
+        } else {
+            logger.info("Destinos del outbox: " + destinos.stream().map(destinoEventos::nombre).toList());
+        }
+    }
+
+    /**
+     * Tarea programada: intervalo entre el final de una ejecución y el inicio de la siguiente.
+     */
+    @Scheduled(fixedDelayString = "${outbox.publicador.intervalo-ms:1000}")
+    public void programado() {
+        if (activo) {
+            publicarPendientes();
+        }
+    }
+
+    /**
+     * Entrega los eventos pendientes, lote a lote, hasta vaciar el outbox,
+     * llegar al máximo de lotes o encontrar un fallo.
+     *
+     * @return Número de eventos entregados y borrados.
+     */
+    public int publicarPendientes() {
+
+        if (destinos.isEmpty() || !enCurso.tryLock()) {
+            return 0;
+        }
+
+        int total = 0;
+        try {
+            for (int lotes = 0; lotes < lotesPorEjecucion; lotes++) {
+
+                List<eventoOutbox> lote = repositorio.findAllByOrderByIdEventoAsc(Limit.of(tamanioLote));
+
+                if (lote.isEmpty()) {
+                    retrasoMilisegundos.set(0);
+                    break;
+                }
+
+                retrasoMilisegundos.set(Duration.between(lote.get(0).getFechaCreacion(), Instant.now()).toMillis());
+
+                if (!entregar(lote)) {
+                    break;
+                }
+
+                repositorio.deleteAllByIdInBatch(lote.stream().map(eventoOutbox::getIdEvento).toList());
+
+                Instant ahora = Instant.now();
+                lote.forEach(evento -> entrega.record(Duration.between(evento.getFechaCreacion(), ahora)));
+                enviados.increment(lote.size());
+                total += lote.size();
+
+                if (lote.size() < tamanioLote) {
+                    retrasoMilisegundos.set(0);
+                    break;
+                }
+            }
+        } finally {
+            enCurso.unlock();
+        }
+
+        if (total > 0) {
+            logger.info("Outbox: " + total + " eventos entregados");
+        }
+
+        return total;
+    }
+
+    /**
+     * Envía el lote a todos los destinos. Si alguno falla, se deja para la siguiente
+     * ejecución (los destinos que ya lo recibieron lo recibirán otra vez).
+     */
+    private boolean entregar(List<eventoOutbox> lote) {
+        for (destinoEventos destino : destinos) {
+            try {
+                destino.enviar(lote);
+            } catch (Exception e) {
+                registro.counter("outbox.errores", "destino", destino.nombre()).increment();
+                logger.warn("No se ha podido entregar un lote de " + lote.size()
+                        + " eventos a " + destino.nombre() + ": " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.sistemaInquilinos.servicio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta actualizaciones con bloqueo optimista reintentándolas un número limitado de veces.
+ *
+ * Cada intento es una transacción nueva: se vuelve a leer el registro, se aplican
+ * los cambios y, si otra petición ha guardado antes (la versión ya no coincide),
+ * se deshace y se repite tras una pequeña espera aleatoria.
+ * Si se agotan los intentos se lanza conflictoVersionException con el estado actual.
+ *
+ * No bloquea filas en la base de datos: mientras se espera no se ocupa ninguna conexión.
+ * Debe llamarse fuera de cualquier transacción (si no, los intentos no serían independientes).
+ */
+@Component // Componente gestionado por Spring
+public class reintentoOptimista {
+
+    // Logger para mostrar los conflictos detectados
+    private static final Logger logger = LoggerFactory.getLogger(reintentoOptimista.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Número máximo de intentos (incluido el primero)
+    private final int intentosMaximos;
+
+    // Espera base entre intentos (se multiplica por el número de intento y se añade azar)
+    private final Duration espera;
+
+    public reintentoOptimista(TransactionTemplate transactionTemplate,
+                              @Value("${reintentos.intentos-maximos:3}") int intentosMaximos,
+                              @Value("${reintentos.espera:20ms}") Duration espera) {
+        this.transactionTemplate = transactionTemplate;
+        this.intentosMaximos = intentosMaximos;
+        this.espera = espera;
+    }
+
+    /**
+     * @param operacion    Lectura, modificación y guardado del registro (se ejecuta en una transacción).
+     * @param estadoActual Lectura del estado actual, para el 409 si se agotan los intentos.
+     */
+    public <T> T ejecutar(Supplier<T> operacion, Supplier<?> estadoActual) {
+
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(estado -> operacion.get());
+            } catch (conflictoVersionException e) {
+                // El cliente partía de una versión antigua: reintentar no serviría de nada
+                throw new conflictoVersionException(e.getMessage(), estadoActual.get());
+            } catch (ObjectOptimisticLockingFailureException e) {
+
+                if (intento >= intentosMaximos) {
+                    logger.warn("Conflicto de versión tras " + intento + " intentos: " + e.getMessage());
+                    throw new conflictoVersionException(
+                            "El registro ha sido modificado por otra petición", estadoActual.get());
+                }
+
+                logger.info("Conflicto de versión en el intento " + intento + ", se reintenta");
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Comprueba la versión enviada por el cliente (si la envía) contra la guardada.
+     * Si no coinciden, el cliente está modificando datos que ya no son los actuales.
+     */
+    public void comprobarVersion(Long recibida, Long actual) {
+        if (recibida != null && !recibida.equals(actual)) {
+            throw new conflictoVersionException(
+                    "Versión " + recibida + " obsoleta, la actual es " + actual, null);
+        }
+    }
+
+    private void esperar(int intento) {
+        long base = espera.toMillis() * intento;
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
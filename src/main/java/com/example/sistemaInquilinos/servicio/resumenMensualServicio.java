@@ -0,0 +1,279 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.pagoContabilizado;
+import com.example.sistemaInquilinos.dto.resumenMensualDTO;
+import com.example.sistemaInquilinos.dto.verificacionResumenDTO;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.resumenMensual;
+import com.example.sistemaInquilinos.entidad.resumenMensualId;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.resumenMensualRepositorio;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Servicio encargado de mantener el resumen mensual de facturación y cobro
+ * por (anio, mes, ciudad).
+ *
+ * Igual que la deuda por inmueble, cada cambio de un pago aplica solo
+ * la diferencia sobre la fila de su mes y ciudad. Un proceso periódico
+ * compara la tabla con la agregación real de pagos y la reconstruye si no cuadra.
+ *
+ * Los meses de años archivados ya no tienen pagos en la tabla pagos:
+ * su resumen es definitivo y la verificación no lo toca.
+ */
+@Service // Le indica a Spring que esta clase es un servicio
+@RequiredArgsConstructor // Inyección automática de los repositorios mediante constructor
+public class resumenMensualServicio {
+
+    // Logger para mostrar el resultado de la verificación y la reconstrucción
+    private static final Logger logger = LoggerFactory.getLogger(resumenMensualServicio.class);
+
+    // Margen para comparar importes (las sumas de decimales acumulan redondeos)
+    private static final double TOLERANCIA = 0.005;
+
+    private final resumenMensualRepositorio resumenRepositorio;
+
+    /**
+     * Repositorio de inmuebles (se necesita la ciudad de cada pago).
+     */
+    private final inmuebleRepositorio inmuebleRepositorio;
+
+    // =========================
+    // ACTUALIZACIÓN POR DELTAS
+    // =========================
+
+    /**
+     * Aplica sobre el resumen la diferencia entre el estado anterior
+     * de un pago y su estado nuevo.
+     *
+     * @param anterior Foto del pago en base de datos (null si es un pago nuevo).
+     * @param nuevo    Foto del pago tras el cambio (null si se elimina).
+     */
+    @Transactional
+    public void aplicarCambio(pagoContabilizado anterior, pagoContabilizado nuevo) {
+
+        resumenMensualId claveAnterior = clave(anterior);
+        resumenMensualId claveNueva = clave(nuevo);
+
+        // Si el pago sigue en la misma fila se aplica una única diferencia
+        if (claveAnterior != null && Objects.equals(claveAnterior, claveNueva)) {
+            sumar(claveNueva,
+                    facturado(nuevo) - facturado(anterior),
+                    cobrado(nuevo) - cobrado(anterior),
+                    0,
+                    contarCobrado(nuevo) - contarCobrado(anterior));
+            return;
+        }
+
+        // Si cambia de mes o ciudad (o es alta/baja) se resta de una fila y se suma a la otra
+        if (claveAnterior != null) {
+            sumar(claveAnterior, -facturado(anterior), -cobrado(anterior), -1, -contarCobrado(anterior));
+        }
+        if (claveNueva != null) {
+            sumar(claveNueva, facturado(nuevo), cobrado(nuevo), 1, contarCobrado(nuevo));
+        }
+    }
+
+    /**
+     * Mueve los importes de un inmueble de la fila de su ciudad anterior a la de la nueva.
+     *
+     * Cada pago cuenta en la ciudad que tiene su inmueble al aplicarlo: si el inmueble
+     * cambia de ciudad y no se mueven sus importes, los cambios posteriores de sus pagos
+     * restarían de la ciudad nueva y la anterior se quedaría con importes que ya no tiene.
+     *
+     * Se llama en la misma transacción que cambia la ciudad, con la deuda del inmueble
+     * bloqueada para que ningún pago suyo se modifique mientras tanto.
+     */
+    @Transactional
+    public void cambiarCiudad(Integer idInmueble, String ciudadAnterior, String ciudadNueva) {
+
+        String anterior = ciudadAnterior != null ? ciudadAnterior : "";
+        String nueva = ciudadNueva != null ? ciudadNueva : "";
+
+        if (idInmueble == null || anterior.equals(nueva)) {
+            return;
+        }
+
+        for (Object[] columnas : resumenRepositorio.calcularPorInmueble(idInmueble)) {
+
+            int anio = numero(columnas[0]).intValue();
+            int mes = numero(columnas[1]).intValue();
+            double facturado = numero(columnas[2]).doubleValue();
+            double cobrado = numero(columnas[3]).doubleValue();
+            long pagos = numero(columnas[4]).longValue();
+            long cobrados = numero(columnas[5]).longValue();
+
+            sumar(new resumenMensualId(anio, mes, anterior), -facturado, -cobrado, -pagos, -cobrados);
+            sumar(new resumenMensualId(anio, mes, nueva), facturado, cobrado, pagos, cobrados);
+        }
+    }
+
+    private void sumar(resumenMensualId clave, double facturado, double cobrado, long pagos, long cobrados) {
+
+        // Nada que aplicar: se evita una escritura innecesaria
+        if (facturado == 0.0 && cobrado == 0.0 && pagos == 0 && cobrados == 0) {
+            return;
+        }
+
+        resumenRepositorio.sumar(clave.getAnio(), clave.getMes(), clave.getCiudad(),
+                facturado, cobrado, pagos, cobrados);
+    }
+
+    /**
+     * Fila del resumen a la que pertenece un pago (null si no cuenta en ninguna).
+     * La ciudad se lee del inmueble, que normalmente ya está en el contexto de persistencia.
+     */
+    private resumenMensualId clave(pagoContabilizado pago) {
+
+        if (pago == null || pago.anio() == null || pago.mes() == null) {
+            return null;
+        }
+
+        String ciudad = pago.idInmueble() == null ? null
+                : inmuebleRepositorio.findById(pago.idInmueble()).map(inmueble::getCiudad).orElse(null);
+
+        return new resumenMensualId(pago.anio(), pago.mes(), ciudad != null ? ciudad : "");
+    }
+
+    private double facturado(pagoContabilizado pago) {
+        return pago.precioAlquiler() != null ? pago.precioAlquiler() : 0.0;
+    }
+
+    private double cobrado(pagoContabilizado pago) {
+        return Boolean.TRUE.equals(pago.pagado()) ? facturado(pago) : 0.0;
+    }
+
+    private long contarCobrado(pagoContabilizado pago) {
+        return Boolean.TRUE.equals(pago.pagado()) ? 1 : 0;
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    /**
+     * Devuelve el resumen de un mes, una fila por ciudad.
+     *
+     * Lee solo las filas ya agregadas de ese mes: el coste no depende
+     * de cuántos pagos haya en la tabla pagos.
+     */
+    @Transactional(readOnly = true)
+    public List<resumenMensualDTO> consultarMes(Integer anio, Integer mes) {
+        return resumenRepositorio.listarPorAnioYMes(anio, mes).stream()
+                .map(fila -> resumenMensualDTO.builder()
+                        .anio(fila.getId().getAnio())
+                        .mes(fila.getId().getMes())
+                        .ciudad(fila.getId().getCiudad())
+                        .importeFacturado(fila.getImporteFacturado())
+                        .importeCobrado(fila.getImporteCobrado())
+                        .importePendiente(fila.getImporteFacturado() - fila.getImporteCobrado())
+                        .pagosFacturados(fila.getPagosFacturados())
+                        .pagosCobrados(fila.getPagosCobrados())
+                        .build())
+                .toList();
+    }
+
+    // =========================
+    // VERIFICACIÓN Y RECONSTRUCCIÓN
+    // =========================
+
+    /**
+     * Compara el resumen guardado con el calculado desde la tabla pagos
+     * y, si hay diferencias, lo reconstruye.
+     *
+     * Se ejecuta periódicamente según resumen-mensual.verificacion.cron
+     * ("-" lo desactiva) y también puede lanzarse manualmente.
+     */
+    @Scheduled(cron = "${resumen-mensual.verificacion.cron:-}")
+    @Transactional
+    public verificacionResumenDTO verificar() {
+
+        Map<resumenMensualId, resumenMensual> guardado = new HashMap<>();
+        resumenRepositorio.listarAniosAbiertos().forEach(fila -> guardado.put(fila.getId(), fila));
+
+        List<Object[]> calculado = resumenRepositorio.calcularDesdePagos();
+
+        int diferencias = 0;
+        for (Object[] columnas : calculado) {
+
+            resumenMensual esperado = new resumenMensual(
+                    new resumenMensualId(numero(columnas[0]).intValue(), numero(columnas[1]).intValue(),
+                            (String) columnas[2]),
+                    numero(columnas[3]).doubleValue(),
+                    numero(columnas[4]).doubleValue(),
+                    numero(columnas[5]).longValue(),
+                    numero(columnas[6]).longValue());
+
+            if (!coincide(esperado, guardado.remove(esperado.getId()))) {
+                diferencias++;
+            }
+        }
+
+        // Filas guardadas que no corresponden a ningún pago: solo sobran si no están a cero
+        diferencias += (int) guardado.values().stream()
+                .filter(fila -> !coincide(new resumenMensual(fila.getId(), 0.0, 0.0, 0L, 0L), fila))
+                .count();
+
+        boolean reconstruido = diferencias > 0;
+        if (reconstruido) {
+            logger.warn("Resumen mensual descuadrado en " + diferencias + " filas: se reconstruye");
+            reconstruir();
+        } else {
+            logger.info("Resumen mensual verificado: " + calculado.size() + " filas correctas");
+        }
+
+        return verificacionResumenDTO.builder()
+                .filasComprobadas(calculado.size())
+                .filasConDiferencias(diferencias)
+                .reconstruido(reconstruido)
+                .build();
+    }
+
+    /**
+     * Recalcula desde cero el resumen de los años abiertos a partir de la tabla pagos.
+     *
+     * No borra las filas: las pone a cero (lo que las bloquea frente a los pagos que se
+     * guardan a la vez) y luego las sobrescribe con lo calculado. Un pago que se guarda
+     * durante la reconstrucción suma su diferencia después, sobre el valor ya recalculado.
+     * Las filas que se quedan a cero las da por buenas la verificación.
+     *
+     * @return Número de filas (anio, mes, ciudad) tras la reconstrucción.
+     */
+    @Transactional
+    public int reconstruir() {
+
+        // Se bloquean con una sola sentencia (salvo los años archivados)
+        resumenRepositorio.ponerACeroAniosAbiertos();
+
+        // Se recalcula con una única sentencia agrupada por mes y ciudad
+        resumenRepositorio.recalcularDesdePagos();
+
+        int filas = (int) resumenRepositorio.contarAniosAbiertos();
+
+        logger.info("Resumen mensual reconstruido: " + filas + " filas");
+
+        return filas;
+    }
+
+    private boolean coincide(resumenMensual esperado, resumenMensual guardado) {
+        return guardado != null
+                && Math.abs(esperado.getImporteFacturado() - guardado.getImporteFacturado()) < TOLERANCIA
+                && Math.abs(esperado.getImporteCobrado() - guardado.getImporteCobrado()) < TOLERANCIA
+                && esperado.getPagosFacturados().equals(guardado.getPagosFacturados())
+                && esperado.getPagosCobrados().equals(guardado.getPagosCobrados());
+    }
+
+    private Number numero(Object valor) {
+        return valor != null ? (Number) valor : 0;
+    }
+}
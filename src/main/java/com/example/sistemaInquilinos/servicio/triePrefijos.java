@@ -0,0 +1,286 @@
+package com.example.sistemaInquilinos.servicio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Árbol de prefijos (trie) que cuenta, en cada nodo, cuántos registros hay
+ * por debajo de ese prefijo y cuántos en cada estado.
+ *
+ * Cada valor (una ciudad, un código postal) se guarda una vez aunque lo tengan
+ * muchos inmuebles: el nodo final lleva la cuenta de cuántos lo tienen.
+ * Los hijos de cada nodo se guardan en dos arrays ordenados por letra
+ * (búsqueda binaria), que ocupan mucho menos que un mapa por nodo.
+ *
+ * Las claves llegan ya normalizadas (ver autocompletadoInmueblesServicio).
+ * No es seguro entre hilos: quien lo usa se encarga del bloqueo.
+ */
+public class triePrefijos {
+
+    private static final char[] SIN_LETRAS = new char[0];
+    private static final nodo[] SIN_HIJOS = new nodo[0];
+
+    /**
+     * Valor encontrado bajo un prefijo, con sus cuentas.
+     *
+     * @param porEstado Número de registros en cada estado (por su posición, ver constructor).
+     */
+    public record conteo(String valor, int total, int[] porEstado) {
+    }
+
+    private static final class nodo {
+        char[] letras = SIN_LETRAS;
+        nodo[] hijos = SIN_HIJOS;
+
+        // Registros cuyo valor empieza por el prefijo de este nodo
+        int total;
+        final int[] porEstado;
+
+        // Registros cuyo valor termina exactamente aquí, y cómo se muestra ese valor
+        int finales;
+        int[] finalesPorEstado;
+        String valor;
+
+        nodo(int estados) {
+            porEstado = new int[estados];
+        }
+
+        nodo hijo(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            return posicion >= 0 ? hijos[posicion] : null;
+        }
+
+        nodo hijoOCrear(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion >= 0) {
+                return hijos[posicion];
+            }
+            int hueco = -posicion - 1;
+            nodo nuevo = new nodo(porEstado.length);
+
+            char[] nuevasLetras = new char[letras.length + 1];
+            nodo[] nuevosHijos = new nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, hueco);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, hueco);
+            nuevasLetras[hueco] = letra;
+            nuevosHijos[hueco] = nuevo;
+            System.arraycopy(letras, hueco, nuevasLetras, hueco + 1, letras.length - hueco);
+            System.arraycopy(hijos, hueco, nuevosHijos, hueco + 1, hijos.length - hueco);
+
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return nuevo;
+        }
+
+        void quitarHijo(char letra) {
+            int posicion = Arrays.binarySearch(letras, letra);
+            if (posicion < 0) {
+                return;
+            }
+            char[] nuevasLetras = new char[letras.length - 1];
+            nodo[] nuevosHijos = new nodo[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, posicion);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, posicion);
+            System.arraycopy(letras, posicion + 1, nuevasLetras, posicion, letras.length - posicion - 1);
+            System.arraycopy(hijos, posicion + 1, nuevosHijos, posicion, hijos.length - posicion - 1);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+    }
+
+    // Número de estados distintos que se cuentan
+    private final int estados;
+
+    private nodo raiz;
+
+    private int nodos;
+    private int valores;
+
+    /**
+     * @param estados Número de estados; en añadir y quitar el estado es su posición
+     *                (0..estados-1) o -1 si no tiene (solo cuenta en el total).
+     */
+    public triePrefijos(int estados) {
+        this.estados = estados;
+        vaciar();
+    }
+
+    // =========================
+    // ESCRITURA
+    // =========================
+
+    /**
+     * Suma un registro con esa clave y estado.
+     *
+     * @param valor Texto que se devuelve en el autocompletado (el primero que llega para la clave).
+     */
+    public void anadir(String clave, String valor, int estado) {
+
+        nodo actual = raiz;
+        sumar(actual, estado, 1);
+
+        for (int i = 0; i < clave.length(); i++) {
+            nodo siguiente = actual.hijo(clave.charAt(i));
+            if (siguiente == null) {
+                siguiente = actual.hijoOCrear(clave.charAt(i));
+                nodos++;
+            }
+            actual = siguiente;
+            sumar(actual, estado, 1);
+        }
+
+        if (actual.finales == 0) {
+            actual.valor = valor;
+            actual.finalesPorEstado = new int[estados];
+            valores++;
+        }
+        actual.finales++;
+        if (estado >= 0) {
+            actual.finalesPorEstado[estado]++;
+        }
+    }
+
+    /**
+     * Resta un registro añadido antes con la misma clave y estado.
+     * Los nodos que se quedan sin registros se eliminan.
+     */
+    public void quitar(String clave, int estado) {
+
+        // Se comprueba primero que existe para no dejar las cuentas a medias
+        nodo[] camino = new nodo[clave.length() + 1];
+        camino[0] = raiz;
+        for (int i = 0; i < clave.length(); i++) {
+            camino[i + 1] = camino[i].hijo(clave.charAt(i));
+            if (camino[i + 1] == null) {
+                return;
+            }
+        }
+
+        nodo ultimo = camino[clave.length()];
+        if (ultimo.finales == 0) {
+            return;
+        }
+
+        ultimo.finales--;
+        if (estado >= 0) {
+            ultimo.finalesPorEstado[estado]--;
+        }
+        if (ultimo.finales == 0) {
+            ultimo.valor = null;
+            ultimo.finalesPorEstado = null;
+            valores--;
+        }
+
+        for (nodo paso : camino) {
+            sumar(paso, estado, -1);
+        }
+
+        // Se podan los nodos vacíos desde el final
+        for (int i = clave.length(); i > 0 && camino[i].total == 0; i--) {
+            camino[i - 1].quitarHijo(clave.charAt(i - 1));
+            nodos--;
+        }
+    }
+
+    public void vaciar() {
+        raiz = new nodo(estados);
+        nodos = 0;
+        valores = 0;
+    }
+
+    private static void sumar(nodo nodo, int estado, int cantidad) {
+        nodo.total += cantidad;
+        if (estado >= 0) {
+            nodo.porEstado[estado] += cantidad;
+        }
+    }
+
+    // =========================
+    // CONSULTA
+    // =========================
+
+    /**
+     * Cuentas de todos los registros cuya clave empieza por el prefijo
+     * (total 0 si no hay ninguno).
+     */
+    public conteo contar(String prefijo) {
+        nodo nodo = buscar(prefijo);
+        if (nodo == null) {
+            return new conteo(prefijo, 0, new int[estados]);
+        }
+        return new conteo(prefijo, nodo.total, nodo.porEstado.clone());
+    }
+
+    /**
+     * Valores que empiezan por el prefijo, de más a menos registros
+     * (y por orden alfabético si empatan).
+     */
+    public List<conteo> sugerir(String prefijo, int limite) {
+
+        nodo inicio = buscar(prefijo);
+        if (inicio == null || limite <= 0) {
+            return List.of();
+        }
+
+        Comparator<nodo> mejorPrimero = Comparator.<nodo>comparingInt(n -> n.finales).reversed()
+                .thenComparing(n -> n.valor);
+
+        // Se guardan solo los "limite" mejores (el peor en la cabeza)
+        PriorityQueue<nodo> mejores = new PriorityQueue<>(mejorPrimero.reversed());
+
+        // Recorrido en profundidad sin recursión. Se salta una rama si ni siquiera
+        // su total llega al peor de los guardados.
+        List<nodo> pendientes = new ArrayList<>();
+        pendientes.add(inicio);
+
+        while (!pendientes.isEmpty()) {
+            nodo actual = pendientes.remove(pendientes.size() - 1);
+
+            if (mejores.size() == limite && actual.total < mejores.peek().finales) {
+                continue;
+            }
+
+            if (actual.finales > 0) {
+                mejores.add(actual);
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+
+            for (int i = actual.hijos.length - 1; i >= 0; i--) {
+                pendientes.add(actual.hijos[i]);
+            }
+        }
+
+        List<nodo> ordenados = new ArrayList<>(mejores);
+        ordenados.sort(mejorPrimero);
+
+        List<conteo> resultado = new ArrayList<>(ordenados.size());
+        for (nodo nodo : ordenados) {
+            resultado.add(new conteo(nodo.valor, nodo.finales, nodo.finalesPorEstado.clone()));
+        }
+        return resultado;
+    }
+
+    private nodo buscar(String prefijo) {
+        nodo actual = raiz;
+        for (int i = 0; i < prefijo.length() && actual != null; i++) {
+            actual = actual.hijo(prefijo.charAt(i));
+        }
+        return actual;
+    }
+
+    /**
+     * Número de nodos (sin contar la raíz) y de valores distintos guardados.
+     */
+    public int nodos() {
+        return nodos;
+    }
+
+    public int valores() {
+        return valores;
+    }
+}
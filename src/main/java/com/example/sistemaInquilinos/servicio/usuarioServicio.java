@@ -3,9 +3,11 @@ package com.example.sistemaInquilinos.servicio;
 
 import com.example.sistemaInquilinos.entidad.usuario;
 import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import com.example.sistemaInquilinos.seguridad.servicio.usuariosRevocadosServicio;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -14,6 +16,9 @@ public class usuarioServicio {
 
     private final usuarioRepositorio usuarioRepositorio;
 
+    // Los tokens ya emitidos llevan el rol: al cambiar o borrar un usuario se invalidan
+    private final usuariosRevocadosServicio usuariosRevocados;
+
     // LISTAR TODOS LOS USUARIOS
     public List<usuario> listarUsuarios() {
         return usuarioRepositorio.findAll();
@@ -26,11 +31,22 @@ public class usuarioServicio {
 
     // GUARDAR / ACTUALIZAR
     public usuario guardarUsuario(usuario usuario) {
-        return usuarioRepositorio.save(usuario);
+        // Solo en actualizaciones: un usuario nuevo no tiene tokens anteriores
+        boolean existente = usuario.getIdUsuario() != null;
+        if (existente) {
+            // Se guarda con el usuario: refrescar lo comprueba aunque se reinicie la aplicación
+            usuario.setRevocadoEn(Instant.now());
+        }
+        usuario guardado = usuarioRepositorio.save(usuario);
+        if (existente) {
+            usuariosRevocados.revocar(guardado.getIdUsuario());
+        }
+        return guardado;
     }
 
     // ELIMINAR
     public void eliminarUsuarioPorId(Integer idUsuario) {
         usuarioRepositorio.deleteById(idUsuario);
+        usuariosRevocados.revocar(idUsuario);
     }
 }
@@ -0,0 +1,72 @@
+package com.example.sistemaInquilinos.servicio;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Última versión (@Version) aplicada de cada registro en un índice en memoria
+ * (búsqueda de texto, autocompletado, paneles).
+ *
+ * Los eventos se aplican al confirmar cada transacción, y dos cambios seguidos del
+ * mismo registro se confirman en hilos distintos: el más antiguo puede llegar el último.
+ * Comparando la versión de cada evento con la ya aplicada se descartan los atrasados.
+ *
+ * Un borrado deja una marca que ninguna versión supera (los IDs no se reutilizan):
+ * un cambio anterior que llegue después no vuelve a añadir el registro.
+ *
+ * No es seguro entre hilos: se usa siempre con el bloqueo de escritura de su índice.
+ */
+public class versionesAplicadas<K> {
+
+    // Marca de los registros eliminados
+    private static final long ELIMINADO = Long.MAX_VALUE;
+
+    private final Map<K, Long> versiones = new HashMap<>();
+
+    /**
+     * Indica si un cambio con esta versión se debe aplicar (es igual o más nuevo
+     * que lo aplicado) y, si es así, la apunta. Un cambio sin versión se aplica
+     * siempre, salvo que el registro se haya eliminado.
+     */
+    public boolean aplicar(K clave, Long version) {
+
+        Long actual = versiones.get(clave);
+
+        if (actual != null && (actual == ELIMINADO || (version != null && version < actual))) {
+            return false;
+        }
+        if (version != null) {
+            versiones.put(clave, version);
+        }
+        return true;
+    }
+
+    /**
+     * Apunta que el registro se ha eliminado.
+     */
+    public void eliminar(K clave) {
+        versiones.put(clave, ELIMINADO);
+    }
+
+    /**
+     * Versión aplicada del registro (null si no se conoce o se ha eliminado).
+     */
+    public Long version(K clave) {
+        Long version = versiones.get(clave);
+        return version == null || version == ELIMINADO ? null : version;
+    }
+
+    /**
+     * Número de registros apuntados (también los eliminados).
+     */
+    public int tamanio() {
+        return versiones.size();
+    }
+
+    /**
+     * Olvida todas las versiones (antes de reconstruir el índice).
+     */
+    public void vaciar() {
+        versiones.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.sistemaInquilinos.servicioDTO;
+
+import com.example.sistemaInquilinos.dto.filtroInmuebles;
+import com.example.sistemaInquilinos.dto.inmuebleDTO;
+import com.example.sistemaInquilinos.dto.ordenInmuebles;
+import com.example.sistemaInquilinos.dto.paginaInmueblesDTO;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Servicio de búsqueda de inmuebles con filtros (ciudad, código postal, precio, estado) y orden,
+ * que devuelve páginas de inmuebleDTO.
+ *
+ * Igual que pagosDTOServicioPagina, pagina por cursor: el cursor guarda el último
+ * inmueble devuelto, no un número de página.
+ */
+@Service // Marca esta clase como un servicio gestionado por Spring
+@RequiredArgsConstructor // Inyección automática de dependencias mediante constructor
+public class inmuebleDTOServicioBusqueda {
+
+    // Tamaño de página si el cliente no indica ninguno
+    public static final int TAMANIO_POR_DEFECTO = 50;
+
+    // Tamaño máximo de página
+    public static final int TAMANIO_MAXIMO = 500;
+
+    // Prefijo de versión del cursor ("i" de inmuebles)
+    private static final String PREFIJO_CURSOR = "i1:";
+
+    private final inmuebleRepositorio inmuebleRepositorio;
+
+    /**
+     * Devuelve una página de inmuebles que cumplen los filtros, en el orden pedido.
+     *
+     * Se pide un inmueble de más para saber si hay otra página (sin COUNT).
+     * El cursor guarda el ID y el precio del último inmueble devuelto,
+     * así que solo es válido con los mismos filtros y orden.
+     */
+    @Transactional(readOnly = true)
+    public paginaInmueblesDTO buscar(filtroInmuebles filtro, String orden, String cursor, Integer tamanio) {
+
+        if (filtro.precioMinimo() != null && filtro.precioMaximo() != null
+                && filtro.precioMinimo() > filtro.precioMaximo()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "El precio mínimo no puede ser mayor que el máximo"
+            );
+        }
+
+        ordenInmuebles ordenBusqueda = ordenInmuebles.desde(orden);
+        int tamanioPagina = normalizarTamanio(tamanio);
+        posicion despuesDe = decodificarCursor(cursor);
+
+        List<inmuebleDTO> contenido = inmuebleRepositorio.buscar(
+                filtro, ordenBusqueda,
+                despuesDe != null ? despuesDe.idInmueble() : null,
+                despuesDe != null ? despuesDe.precio() : null,
+                tamanioPagina + 1);
+
+        boolean haySiguiente = contenido.size() > tamanioPagina;
+        if (haySiguiente) {
+            contenido = contenido.subList(0, tamanioPagina);
+        }
+
+        return paginaInmueblesDTO.builder()
+                .contenido(contenido)
+                .siguienteCursor(haySiguiente ? codificarCursor(contenido.get(contenido.size() - 1)) : null)
+                .tamanio(tamanioPagina)
+                .build();
+    }
+
+    /**
+     * Último inmueble devuelto: desde dónde continuar.
+     */
+    private record posicion(Integer idInmueble, Double precio) {
+    }
+
+    private int normalizarTamanio(Integer tamanio) {
+        if (tamanio == null) {
+            return TAMANIO_POR_DEFECTO;
+        }
+        return Math.max(1, Math.min(tamanio, TAMANIO_MAXIMO));
+    }
+
+    /**
+     * Cursor opaco con el ID y el precio del último inmueble ("i1:id:precio").
+     */
+    private String codificarCursor(inmuebleDTO ultimo) {
+        String precio = ultimo.getPrecioMensual() != null ? ultimo.getPrecioMensual().toString() : "";
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + ultimo.getIdInmueble() + ":" + precio)
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private posicion decodificarCursor(String cursor) {
+
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!texto.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException(texto);
+            }
+
+            String[] partes = texto.substring(PREFIJO_CURSOR.length()).split(":", -1);
+
+            if (partes.length != 2) {
+                throw new IllegalArgumentException(texto);
+            }
+
+            return new posicion(
+                    Integer.parseInt(partes[0]),
+                    partes[1].isEmpty() ? null : Double.parseDouble(partes[1]));
+
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación no válido");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.sistemaInquilinos.servicioDTO;
+
+import com.example.sistemaInquilinos.dto.paginaPagosDTO;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Servicio que devuelve los pagos por páginas ya convertidos a DTO.
+ *
+ * Pagina por cursor (el ID del último pago devuelto) en lugar de por número de página,
+ * para que las páginas del final de la tabla cuesten lo mismo que las primeras.
+ */
+@Service // Marca esta clase como un servicio gestionado por Spring
+@RequiredArgsConstructor // Inyección automática de dependencias mediante constructor
+public class pagosDTOServicioPagina {
+
+    // Tamaño de página si el cliente no indica ninguno
+    public static final int TAMANIO_POR_DEFECTO = 50;
+
+    // Tamaño máximo de página para que ninguna petición cargue demasiados pagos
+    public static final int TAMANIO_MAXIMO = 500;
+
+    // Prefijo de versión del cursor, por si en el futuro cambia su formato
+    private static final String PREFIJO_CURSOR = "p1:";
+
+    private final pagosRepositorio pagosRepositorio;
+
+    /**
+     * Devuelve una página de pagos en formato DTO usando paginación por cursor (keyset).
+     *
+     * En lugar de OFFSET se pide "los siguientes N pagos con ID mayor que el último
+     * devuelto", por lo que cada página cuesta lo mismo aunque la tabla tenga millones
+     * de filas. Tampoco se hace COUNT: se pide un pago de más para saber si hay otra página.
+     *
+     * Los filtros a null no se aplican.
+     */
+    public paginaPagosDTO obtenerPagina(String cursor, Integer tamanio,
+                                        Integer anio, Integer mes, Boolean pagado, Integer idInmueble) {
+
+        int tamanioPagina = normalizarTamanio(tamanio);
+        int despuesDe = decodificarCursor(cursor);
+
+        // Los pagos llegan ya como DTO (una sola consulta, sin cargar inquilinos ni inmuebles)
+        List<pagosDTO> contenido = pagosRepositorio.buscarPagina(
+                despuesDe, anio, mes, pagado, idInmueble, Limit.of(tamanioPagina + 1));
+
+        // Si ha llegado un pago de más, hay siguiente página
+        boolean haySiguiente = contenido.size() > tamanioPagina;
+        if (haySiguiente) {
+            contenido = contenido.subList(0, tamanioPagina);
+        }
+
+        String siguienteCursor = haySiguiente
+                ? codificarCursor(contenido.get(contenido.size() - 1).getIdPago())
+                : null;
+
+        return paginaPagosDTO.builder()
+                .contenido(contenido)
+                .siguienteCursor(siguienteCursor)
+                .tamanio(tamanioPagina)
+                .build();
+    }
+
+    /**
+     * Limita el tamaño de página entre 1 y el máximo permitido.
+     */
+    private int normalizarTamanio(Integer tamanio) {
+        if (tamanio == null) {
+            return TAMANIO_POR_DEFECTO;
+        }
+        return Math.max(1, Math.min(tamanio, TAMANIO_MAXIMO));
+    }
+
+    /**
+     * Convierte el ID del último pago devuelto en un cursor opaco para el cliente.
+     */
+    private String codificarCursor(Integer ultimoIdPago) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + ultimoIdPago).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtiene el ID a partir del cual continuar. Sin cursor se empieza desde el principio.
+     */
+    private int decodificarCursor(String cursor) {
+
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!texto.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException(texto);
+            }
+
+            return Integer.parseInt(texto.substring(PREFIJO_CURSOR.length()));
+
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación no válido");
+        }
+    }
+}
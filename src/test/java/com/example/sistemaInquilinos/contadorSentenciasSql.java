@@ -0,0 +1,81 @@
+package com.example.sistemaInquilinos;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cuenta las sentencias SQL preparadas sobre el DataSource de la aplicación.
+ *
+ * Las estadísticas de Hibernate no ven lo que se ejecuta con JdbcTemplate
+ * (por ejemplo la facturación mensual), así que se cuenta a nivel JDBC:
+ * cada prepareStatement / prepareCall / createStatement suma una sentencia.
+ */
+@TestConfiguration
+public class contadorSentenciasSql {
+
+    private static final Set<String> METODOS_SENTENCIA =
+            Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    private static final AtomicLong sentencias = new AtomicLong();
+
+    public static void reiniciar() {
+        sentencias.set(0);
+    }
+
+    public static long sentencias() {
+        return sentencias.get();
+    }
+
+    @Bean
+    static BeanPostProcessor envolverDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                return bean instanceof DataSource dataSource ? new dataSourceContador(dataSource) : bean;
+            }
+        };
+    }
+
+    private static class dataSourceContador extends DelegatingDataSource {
+
+        dataSourceContador(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return contar(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String password) throws SQLException {
+            return contar(super.getConnection(usuario, password));
+        }
+
+        private Connection contar(Connection conexion) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (METODOS_SENTENCIA.contains(metodo.getName())) {
+                            sentencias.incrementAndGet();
+                        }
+                        try {
+                            return metodo.invoke(conexion, argumentos);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
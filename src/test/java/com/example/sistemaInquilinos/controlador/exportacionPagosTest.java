@@ -0,0 +1,153 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.servicio.pagosServicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el contenido de la exportación de pagos: en CSV, la cabecera y una línea
+ * por pago con sus columnas (vacías si son null); en NDJSON, un pagosDTO por línea.
+ * En los dos formatos salen todos los pagos, una vez y ordenados por ID.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+class exportacionPagosTest {
+
+    private static final int ANIO = 2096;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private inquilinoRespositorio inquilinoRespositorio;
+
+    @Test
+    void elCsvTraeLaCabeceraYUnaLineaPorPago() throws Exception {
+
+        List<pagos> creados = crearPagos("00000096C");
+
+        List<String> lineas = exportar("csv", "text/csv", "pagos.csv");
+
+        assertThat(lineas.get(0))
+                .isEqualTo("idPago,anio,mes,precioAlquiler,montoDeuda,pagado,idInquilino,idInmueble");
+
+        List<String> filas = lineas.subList(1, lineas.size());
+        assertThat(filas).hasSize((int) pagosRepositorio.count());
+        assertThat(filas).extracting(fila -> Integer.valueOf(fila.split(",")[0]))
+                .isSorted()
+                .doesNotHaveDuplicates();
+
+        pagos conInquilino = creados.get(0);
+        pagos sinInquilino = creados.get(1);
+        assertThat(filas).contains(
+                conInquilino.getIdPago() + "," + ANIO + ",1,350.0," + conInquilino.getMontoDeuda() + ",true,"
+                        + conInquilino.getInquilino().getIdInquilino() + ","
+                        + conInquilino.getInmueble().getIdInmueble(),
+                sinInquilino.getIdPago() + "," + ANIO + ",2,350.0," + sinInquilino.getMontoDeuda() + ",false,,"
+                        + sinInquilino.getInmueble().getIdInmueble());
+    }
+
+    @Test
+    void elNdjsonTraeUnPagoPorLinea() throws Exception {
+
+        List<pagos> creados = crearPagos("00000096N");
+
+        List<String> lineas = exportar("ndjson", "application/x-ndjson", "pagos.ndjson");
+
+        List<pagosDTO> exportados = new ArrayList<>();
+        for (String linea : lineas) {
+            exportados.add(objectMapper.readValue(linea, pagosDTO.class));
+        }
+
+        assertThat(exportados).hasSize((int) pagosRepositorio.count());
+        assertThat(exportados).extracting(pagosDTO::getIdPago).isSorted().doesNotHaveDuplicates();
+
+        Map<Integer, pagosDTO> porId = exportados.stream()
+                .collect(Collectors.toMap(pagosDTO::getIdPago, Function.identity()));
+
+        for (pagos pago : creados) {
+            pagosDTO dto = porId.get(pago.getIdPago());
+            assertThat(dto).isNotNull();
+            assertThat(dto.getAnio()).isEqualTo(ANIO);
+            assertThat(dto.getMes()).isEqualTo(pago.getMes());
+            assertThat(dto.getPrecioAlquiler()).isEqualTo(350.0);
+            assertThat(dto.getMontoDeuda()).isEqualTo(pago.getMontoDeuda());
+            assertThat(dto.getPagado()).isEqualTo(pago.getPagado());
+            assertThat(dto.getIdInquilino())
+                    .isEqualTo(pago.getInquilino() != null ? pago.getInquilino().getIdInquilino() : null);
+            assertThat(dto.getIdInmueble()).isEqualTo(pago.getInmueble().getIdInmueble());
+        }
+    }
+
+    /**
+     * Un pago cobrado con inquilino y otro pendiente sin él, en un inmueble nuevo.
+     */
+    private List<pagos> crearPagos(String dni) {
+
+        inquilino inquilino = inquilinoRespositorio.save(
+                new inquilino(null, "Exportado", dni, "600000096", dni + "@correo.es", null));
+        inmueble inmueble = inmuebleRepositorio.save(new inmueble(null, "Calle Exportacion", "Lugo", "27002",
+                350.0, estadoInmueble.OCUPADO, null, null, null));
+
+        return List.of(
+                pagosServicio.guardarPago(new pagos(null, ANIO, 1, null, null, true, inquilino, inmueble, null)),
+                pagosServicio.guardarPago(new pagos(null, ANIO, 2, null, null, false, null, inmueble, null)));
+    }
+
+    private List<String> exportar(String formato, String tipo, String fichero) throws Exception {
+
+        MvcResult inicio = mockMvc.perform(get("/pagos/exportar").param("formato", formato))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith(tipo)))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"" + fichero + "\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        return cuerpo.lines().toList();
+    }
+}
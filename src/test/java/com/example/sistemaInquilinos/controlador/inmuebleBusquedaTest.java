@@ -0,0 +1,113 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.filtroInmuebles;
+import com.example.sistemaInquilinos.dto.ordenInmuebles;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba GET /inmuebles/buscar: los filtros se combinan, el orden se respeta
+ * y recorrer todas las páginas con el cursor devuelve cada inmueble una sola vez.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+class inmuebleBusquedaTest {
+
+    // Ciudad que solo usan los inmuebles de este test
+    private static final String CIUDAD = "Teruel";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @BeforeEach
+    void crearInmuebles() {
+        // Se crean una sola vez para todos los tests de la clase
+        filtroInmuebles deEsteTest = new filtroInmuebles(CIUDAD, null, null, null, null);
+        if (!inmuebleRepositorio.buscar(deEsteTest, ordenInmuebles.ID, null, null, 1).isEmpty()) {
+            return;
+        }
+
+        double[] precios = {500, 650, 650, 650, 800, 950, 1200};
+        List<inmueble> inmuebles = new ArrayList<>();
+        for (int i = 0; i < precios.length; i++) {
+            inmuebles.add(new inmueble(null, "Calle Búsqueda " + i, CIUDAD, i % 2 == 0 ? "44001" : "44002",
+                    precios[i], i < 5 ? estadoInmueble.OCUPADO : estadoInmueble.VACIO, null, null, null));
+        }
+        inmuebleRepositorio.saveAll(inmuebles);
+    }
+
+    @Test
+    void recorreTodasLasPaginasEnOrdenDePrecio() throws Exception {
+
+        List<Double> precios = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            JsonNode pagina = buscar("ciudad=" + CIUDAD + "&orden=precio_desc&tamanio=2"
+                    + (cursor != null ? "&cursor=" + cursor : ""));
+
+            pagina.get("contenido").forEach(inmueble -> {
+                precios.add(inmueble.get("precioMensual").asDouble());
+                ids.add(inmueble.get("idInmueble").asInt());
+            });
+
+            cursor = pagina.get("siguienteCursor").isNull() ? null : pagina.get("siguienteCursor").asText();
+        } while (cursor != null);
+
+        assertThat(precios).containsExactly(1200.0, 950.0, 800.0, 650.0, 650.0, 650.0, 500.0);
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void losFiltrosSeCombinan() throws Exception {
+
+        JsonNode pagina = buscar("ciudad=" + CIUDAD + "&codigoPostal=44001&precioMinimo=600&precioMaximo=1000"
+                + "&estado=OCUPADO&orden=precio");
+
+        assertThat(pagina.get("contenido").findValuesAsText("codigoPostal")).containsOnly("44001");
+        assertThat(pagina.get("contenido").findValues("precioMensual"))
+                .extracting(JsonNode::asDouble)
+                .containsExactly(650.0, 800.0);
+        assertThat(pagina.get("siguienteCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void parametrosNoValidos() throws Exception {
+
+        mockMvc.perform(get("/inmuebles/buscar?orden=direccion")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/inmuebles/buscar?precioMinimo=900&precioMaximo=100")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/inmuebles/buscar?cursor=no-valido")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode buscar(String parametros) throws Exception {
+        String respuesta = mockMvc.perform(get("/inmuebles/buscar?" + parametros))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta);
+    }
+}
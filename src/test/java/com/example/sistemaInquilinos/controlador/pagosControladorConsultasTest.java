@@ -0,0 +1,52 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.contadorSentenciasSql;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que los listados de pagos se resuelven con UNA sola sentencia SQL
+ * (proyección a pagosDTO, sin cargar inquilinos ni inmuebles uno a uno).
+ * Se cuentan a nivel JDBC, con {@link contadorSentenciasSql}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(contadorSentenciasSql.class)
+@WithMockUser
+class pagosControladorConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/pagos/listado",
+            "/pagos/listado/1",
+            "/pagos/listado/porInmueble/2",
+            "/pagos/listado/impagos",
+            "/pagos/listado/porFecha/2025/1",
+            "/pagos/listado/pagina?tamanio=2",
+            "/pagos/listado/impagos/pagina",
+            "/pagos/listado/porFecha/2025/1/pagina"
+    })
+    void listadoDePagosEjecutaUnaSolaSentencia(String url) throws Exception {
+
+        contadorSentenciasSql.reiniciar();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        assertThat(contadorSentenciasSql.sentencias())
+                .as("Sentencias SQL ejecutadas por GET " + url)
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.resultadoIdempotente;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.servicio.idempotenciaServicio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que POST /pagos/listado/nuevo con Idempotency-Key crea un único pago
+ * aunque el cliente lo reintente muchas veces, también a la vez, y que una ejecución
+ * fallida libera la clave para el siguiente reintento.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class pagosIdempotenciaTest {
+
+    private static final String PAGO = """
+            {"anio": 2032, "mes": %d, "pagado": false,
+             "inquilino": {"idInquilino": 1}, "inmueble": {"idInmueble": 1}}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private idempotenciaServicio idempotenciaServicio;
+
+    @Test
+    void reintentosConcurrentesCreanUnSoloPago() throws Exception {
+
+        long antes = pagosRepositorio.count();
+        int reintentos = 20;
+
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(reintentos);
+        List<Future<MvcResult>> respuestas = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < reintentos; i++) {
+                Callable<MvcResult> peticion = () -> {
+                    salida.await();
+                    return mockMvc.perform(crear("clave-concurrente", 1)).andReturn();
+                };
+                respuestas.add(hilos.submit(peticion));
+            }
+            salida.countDown();
+
+            Set<String> cuerpos = new HashSet<>();
+            int repetidas = 0;
+            for (Future<MvcResult> respuesta : respuestas) {
+                MvcResult resultado = respuesta.get();
+                assertThat(resultado.getResponse().getStatus()).isEqualTo(200);
+                cuerpos.add(resultado.getResponse().getContentAsString());
+                if ("true".equals(resultado.getResponse().getHeader("Idempotent-Replayed"))) {
+                    repetidas++;
+                }
+            }
+
+            // Todas reciben la misma respuesta y solo una ha escrito en la base de datos
+            assertThat(cuerpos).hasSize(1);
+            assertThat(repetidas).isEqualTo(reintentos - 1);
+            assertThat(pagosRepositorio.count()).isEqualTo(antes + 1);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void unErrorEnLaOperacionLiberaLaClave() {
+
+        // Un Error (no RuntimeException) en la primera ejecución
+        assertThatThrownBy(() -> idempotenciaServicio.ejecutar("errores", "clave-error", "cuerpo", () -> {
+            throw new StackOverflowError("simulado");
+        })).isInstanceOf(StackOverflowError.class);
+
+        // El reintento con la misma clave vuelve a ejecutar la operación (no un 409)
+        resultadoIdempotente<String> reintento =
+                idempotenciaServicio.ejecutar("errores", "clave-error", "cuerpo", () -> "ok");
+
+        assertThat(reintento.valor()).isEqualTo("ok");
+        assertThat(reintento.repetido()).isFalse();
+    }
+
+    @Test
+    void mismaClaveConOtroCuerpoDevuelve422() throws Exception {
+
+        mockMvc.perform(crear("clave-reutilizada", 2)).andExpect(status().isOk());
+
+        mockMvc.perform(crear("clave-reutilizada", 3)).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void cadaUsuarioTieneSusPropiasClaves() throws Exception {
+
+        long antes = pagosRepositorio.count();
+
+        mockMvc.perform(crear("clave-compartida", 4).with(user("otro")))
+                .andExpect(status().isOk());
+        // Otro mes: el mismo inmueble no puede tener dos pagos del mes 4
+        mockMvc.perform(crear("clave-compartida", 5))
+                .andExpect(status().isOk());
+
+        assertThat(pagosRepositorio.count()).isEqualTo(antes + 2);
+    }
+
+    private MockHttpServletRequestBuilder crear(String clave, int mes) {
+        return post("/pagos/listado/nuevo")
+                .with(user("cliente"))
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(PAGO.formatted(mes));
+    }
+}
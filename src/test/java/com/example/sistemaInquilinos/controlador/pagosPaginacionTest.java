@@ -0,0 +1,105 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.dto.paginaPagosDTO;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.servicio.pagosServicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba la paginación por cursor de los pagos: recorriendo las páginas se obtiene
+ * cada pago una sola vez y en orden, la última página no trae cursor y un cursor
+ * manipulado o de otro formato se rechaza con 400.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+class pagosPaginacionTest {
+
+    private static final int ANIO = 2095;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Test
+    void recorrerLasPaginasDevuelveCadaPagoUnaVez() throws Exception {
+
+        inmueble inmueble = inmuebleRepositorio.save(new inmueble(null, "Calle Pagina 1", "Lugo", "27001",
+                300.0, estadoInmueble.OCUPADO, null, null, null));
+
+        List<Integer> esperados = new ArrayList<>();
+        for (int mes = 1; mes <= 7; mes++) {
+            esperados.add(pagosServicio.guardarPago(
+                    new pagos(null, ANIO, mes, null, null, mes % 2 == 0, null, inmueble, null)).getIdPago());
+        }
+
+        // 7 pagos de 3 en 3: dos páginas llenas y una de 1
+        List<Integer> recorridos = new ArrayList<>();
+        List<Integer> tamanios = new ArrayList<>();
+        String cursor = null;
+        do {
+            paginaPagosDTO pagina = pedir("/pagos/listado/pagina?tamanio=3&anio=" + ANIO
+                    + (cursor != null ? "&cursor=" + cursor : ""));
+            pagina.getContenido().forEach(pago -> recorridos.add(pago.getIdPago()));
+            tamanios.add(pagina.getContenido().size());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null && tamanios.size() < 10);
+
+        assertThat(tamanios).containsExactly(3, 3, 1);
+        assertThat(recorridos).isEqualTo(esperados).isSorted().doesNotHaveDuplicates();
+
+        // Si la última página se llena justo, tampoco trae cursor
+        paginaPagosDTO justa = pedir("/pagos/listado/pagina?tamanio=7&anio=" + ANIO);
+        assertThat(justa.getContenido()).extracting(pagosDTO::getIdPago).isEqualTo(esperados);
+        assertThat(justa.getSiguienteCursor()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"no-es-base64!", "x1:5", "p1:cinco", "p1:"})
+    void unCursorNoValidoDevuelve400(String cursor) throws Exception {
+
+        // Salvo el primero, van bien codificados: falla el contenido
+        String enviado = cursor.contains("!")
+                ? cursor
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/pagos/listado/pagina").param("cursor", enviado))
+                .andExpect(status().isBadRequest());
+    }
+
+    private paginaPagosDTO pedir(String url) throws Exception {
+        String json = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, paginaPagosDTO.class);
+    }
+}
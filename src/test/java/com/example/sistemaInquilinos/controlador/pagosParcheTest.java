@@ -0,0 +1,94 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.servicio.deudaInmuebleServicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba PATCH /pagos/listado/{id}: solo cambian los campos enviados,
+ * la versión sube una vez por petición y la deuda del inmueble
+ * solo se recalcula cuando cambia algo que le afecta.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class pagosParcheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private deudaInmuebleServicio deudaInmuebleServicio;
+
+    @Test
+    void soloSeModificanLosCamposEnviados() throws Exception {
+
+        String creado = mockMvc.perform(post("/pagos/listado/nuevo")
+                        .with(user("cliente"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"anio": 2033, "mes": 5, "pagado": false,
+                                 "inquilino": {"idInquilino": 1}, "inmueble": {"idInmueble": 1}}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Integer idPago = objectMapper.readTree(creado).get("idPago").asInt();
+        pagos inicial = pagosRepositorio.findById(idPago).orElseThrow();
+        double deudaInicial = deudaInmuebleServicio.consultarDeuda(1);
+
+        // Cambiar el inquilino no afecta a la deuda
+        parchear(idPago, "{\"inquilino\": {\"idInquilino\": 2}}").andExpect(status().isOk());
+
+        pagos conOtroInquilino = pagosRepositorio.findById(idPago).orElseThrow();
+        assertThat(conOtroInquilino.getInquilino().getIdInquilino()).isEqualTo(2);
+        assertThat(conOtroInquilino.getMes()).isEqualTo(5);
+        assertThat(conOtroInquilino.getMontoDeuda()).isEqualTo(inicial.getMontoDeuda());
+        assertThat(conOtroInquilino.getVersion()).isEqualTo(inicial.getVersion() + 1);
+        assertThat(deudaInmuebleServicio.consultarDeuda(1)).isEqualTo(deudaInicial);
+
+        // Marcarlo como pagado descuenta su importe de la deuda del inmueble
+        parchear(idPago, "{\"pagado\": true}").andExpect(status().isOk());
+
+        pagos pagado = pagosRepositorio.findById(idPago).orElseThrow();
+        assertThat(pagado.getPagado()).isTrue();
+        assertThat(pagado.getPrecioAlquiler()).isEqualTo(inicial.getPrecioAlquiler());
+        assertThat(pagado.getVersion()).isEqualTo(inicial.getVersion() + 2);
+        assertThat(deudaInmuebleServicio.consultarDeuda(1))
+                .isEqualTo(deudaInicial - inicial.getPrecioAlquiler());
+    }
+
+    @Test
+    void camposCalculadosNoSePuedenModificar() throws Exception {
+
+        Integer idPago = pagosRepositorio.findAll().get(0).getIdPago();
+
+        parchear(idPago, "{\"montoDeuda\": 0}").andExpect(status().isBadRequest());
+    }
+
+    private ResultActions parchear(Integer idPago, String cuerpo) throws Exception {
+        return mockMvc.perform(patch("/pagos/listado/" + idPago)
+                .with(user("cliente"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cuerpo));
+    }
+}
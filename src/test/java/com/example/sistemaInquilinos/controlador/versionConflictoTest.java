@@ -0,0 +1,115 @@
+package com.example.sistemaInquilinos.controlador;
+
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el bloqueo optimista de PUT /inquilinos/listado/{id}:
+ * una versión obsoleta recibe 409 con el estado actual y las
+ * actualizaciones simultáneas no se pisan entre sí.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class versionConflictoTest {
+
+    private static final String INQUILINO = """
+            {"nombre": "%s", "dni": "55555555V", "telefono": "600999000",
+             "email": "version@email.com", "version": %s}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private inquilinoRespositorio inquilinoRepositorio;
+
+    @Test
+    void versionObsoletaDevuelve409ConElEstadoActual() throws Exception {
+
+        Integer id = nuevoInquilino();
+
+        mockMvc.perform(actualizar(id, "Primero", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        // El segundo cliente sigue con la versión 0: no sobrescribe y recibe lo guardado
+        mockMvc.perform(actualizar(id, "Segundo", "0"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.nombre").value("Primero"))
+                .andExpect(jsonPath("$.version").value(1));
+
+        assertThat(inquilinoRepositorio.findById(id).orElseThrow().getNombre()).isEqualTo("Primero");
+    }
+
+    @Test
+    void actualizacionesSimultaneasNoSePierden() throws Exception {
+
+        Integer id = nuevoInquilino();
+        int peticiones = 6;
+
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(peticiones);
+        List<Future<Integer>> respuestas = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < peticiones; i++) {
+                String nombre = "Hilo " + i;
+                respuestas.add(hilos.submit(() -> {
+                    salida.await();
+                    return mockMvc.perform(actualizar(id, nombre, "null"))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            salida.countDown();
+
+            int correctas = 0;
+            for (Future<Integer> respuesta : respuestas) {
+                int estado = respuesta.get();
+                assertThat(estado).isIn(200, 409);
+                if (estado == 200) {
+                    correctas++;
+                }
+            }
+
+            // Cada actualización aceptada ha subido la versión exactamente una vez
+            assertThat(correctas).isPositive();
+            assertThat(inquilinoRepositorio.findById(id).orElseThrow().getVersion())
+                    .isEqualTo((long) correctas);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private Integer nuevoInquilino() {
+        return inquilinoRepositorio.save(
+                new inquilino(null, "Inicial", "55555555V", "600999000", "version@email.com", null))
+                .getIdInquilino();
+    }
+
+    private MockHttpServletRequestBuilder actualizar(Integer id, String nombre, String version) {
+        return put("/inquilinos/listado/" + id)
+                .with(user("admin").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(INQUILINO.formatted(nombre, version));
+    }
+}
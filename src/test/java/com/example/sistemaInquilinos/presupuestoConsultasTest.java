@@ -0,0 +1,292 @@
+package com.example.sistemaInquilinos;
+
+import com.example.sistemaInquilinos.entidad.*;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import com.example.sistemaInquilinos.servicio.deudaInmuebleServicio;
+import com.example.sistemaInquilinos.servicio.resumenMensualServicio;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint.
+ *
+ * Arranca la aplicación contra H2 en modo MySQL, carga un conjunto de datos
+ * realista (decenas de inquilinos e inmuebles y dos años de pagos) y llama
+ * a todos los endpoints de pagos, inmuebles, inquilinos y usuarios.
+ * Cada endpoint declara el máximo de sentencias SQL que puede ejecutar:
+ * si un cambio en el acceso a datos (por ejemplo un N+1) lo supera, el build falla.
+ */
+// Sin tareas en segundo plano (estado de inmuebles, outbox): sus sentencias se sumarían a las del endpoint
+@SpringBootTest(properties = {"estado-inmueble.recalculo.activo=false", "outbox.publicador.activo=false"})
+@AutoConfigureMockMvc
+@Import(contadorSentenciasSql.class)
+class presupuestoConsultasTest {
+
+    // Tamaño del conjunto de datos de prueba
+    private static final int INMUEBLES = 40;
+    private static final int MESES_DE_HISTORICO = 24;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private inquilinoRespositorio inquilinoRepositorio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private usuarioRepositorio usuarioRepositorio;
+
+    @Autowired
+    private deudaInmuebleServicio deudaInmuebleServicio;
+
+    @Autowired
+    private resumenMensualServicio resumenMensualServicio;
+
+    /**
+     * Endpoint a comprobar con su presupuesto máximo de sentencias SQL.
+     */
+    private record caso(HttpMethod metodo, String url, String cuerpo, long presupuesto) {
+
+        static caso get(String url, long presupuesto) {
+            return new caso(HttpMethod.GET, url, null, presupuesto);
+        }
+
+        @Override
+        public String toString() {
+            return metodo + " " + url + " <= " + presupuesto;
+        }
+    }
+
+    /**
+     * IDs de los datos sembrados que usan los casos de prueba.
+     */
+    private record datos(int idInquilino, int idInmueble, int idPago,
+                         int idInquilinoLibre, int idInmuebleLibre, int idPagoBorrable, int idUsuario) {
+    }
+
+    @TestFactory
+    Stream<DynamicTest> cadaEndpointRespetaSuPresupuestoDeSentencias() {
+
+        datos d = sembrarDatos();
+
+        return casos(d).stream()
+                .map(c -> dynamicTest(c.toString(), () -> comprobar(c)));
+    }
+
+    private List<caso> casos(datos d) {
+
+        String pago = """
+                {"anio": 2030, "mes": 1, "pagado": false,
+                 "inquilino": {"idInquilino": %d}, "inmueble": {"idInmueble": %d}}
+                """.formatted(d.idInquilino(), d.idInmueble());
+
+        // Otro mes: el POST anterior ya ha creado el pago de 1/2030 del inmueble
+        String pagoModificado = pago.replace("\"mes\": 1", "\"mes\": 3");
+
+        String inmueble = """
+                {"direccion": "Calle Nueva 1", "ciudad": "Bilbao", "codigoPostal": "48001",
+                 "precioMensual": 800.0, "estado": "VACIO"}
+                """;
+
+        String inquilino = """
+                {"nombre": "Ana Ruiz", "dni": "99999999Z", "telefono": "600000000", "email": "ana@email.com"}
+                """;
+
+        String usuario = """
+                {"usuario": "operador", "password": "x", "role": "USER"}
+                """;
+
+        List<caso> casos = new ArrayList<>();
+
+        // ===== PAGOS =====
+        casos.add(caso.get("/pagos/listado", 1));
+        casos.add(caso.get("/pagos/listado/" + d.idPago(), 1));
+        casos.add(caso.get("/pagos/listado/porInmueble/" + d.idInmueble(), 1));
+        casos.add(caso.get("/pagos/listado/impagos", 1));
+        casos.add(caso.get("/pagos/listado/impagos", 0)); // desde la caché
+        casos.add(caso.get("/pagos/listado/porFecha/2024/6", 1));
+        casos.add(caso.get("/pagos/listado/pagina?tamanio=20", 1));
+        casos.add(caso.get("/pagos/listado/impagos/pagina?tamanio=20", 1));
+        casos.add(caso.get("/pagos/listado/porFecha/2024/6/pagina", 1));
+        casos.add(caso.get("/pagos/deuda/" + d.idInmueble(), 2));
+        casos.add(caso.get("/pagos/informes/antiguedadDeuda?anio=2025&mes=2", 1));
+        casos.add(caso.get("/pagos/resumenMensual/2024/6", 1));
+        casos.add(caso.get("/pagos/exportar?formato=csv", 1));
+        casos.add(new caso(HttpMethod.POST, "/pagos/listado/nuevo", pago, 8)); // +1: inquilino guardado, +1: outbox
+        casos.add(new caso(HttpMethod.PUT, "/pagos/listado/" + d.idPago(), pagoModificado, 9));
+        casos.add(new caso(HttpMethod.PATCH, "/pagos/listado/" + d.idPago(), "{\"pagado\": true}", 7));
+        casos.add(new caso(HttpMethod.PATCH, "/pagos/listado/" + d.idPago(), "{\"pagado\": true}", 1)); // sin cambios: ni UPDATE ni deuda
+        casos.add(new caso(HttpMethod.DELETE, "/pagos/listado/" + d.idPagoBorrable(), null, 8)); // +1: relectura con FOR UPDATE
+        casos.add(new caso(HttpMethod.POST, "/pagos/facturacion/2030/2", null, 5)); // +1: eventos del outbox en un lote
+        casos.add(new caso(HttpMethod.POST, "/pagos/deuda/reconstruir", null, 3)); // +1: bloqueo (UPDATE) antes de recalcular
+        casos.add(new caso(HttpMethod.POST, "/pagos/resumenMensual/verificar", null, 2));
+        casos.add(caso.get("/pagos/archivo", 1));
+        casos.add(caso.get("/panel/pagos?anio=2024&pagado=false&estado=OCUPADO&estado=CON_DEUDA&agruparPor=mes", 0));
+        casos.add(caso.get("/panel/inmuebles?ciudad=Madrid&agruparPor=estado", 0)); // índices en memoria
+
+        // ===== INMUEBLES =====
+        casos.add(caso.get("/inmuebles/listado", 1));
+        casos.add(caso.get("/inmuebles/buscar?ciudad=Madrid&precioMinimo=500&orden=precio_desc&tamanio=20", 1));
+        casos.add(caso.get("/inmuebles/buscar?estado=OCUPADO&estado=CON_DEUDA&codigoPostal=28", 1));
+        casos.add(caso.get("/inmuebles/autocompletar/ciudad?prefijo=ma", 0)); // árbol en memoria
+        casos.add(caso.get("/inmuebles/autocompletar/codigoPostal/conteo?prefijo=28", 0));
+        casos.add(caso.get("/inmuebles/listado/" + d.idInmueble(), 1));
+        casos.add(caso.get("/inmuebles/listado/" + d.idInmueble(), 0)); // desde la caché
+        casos.add(new caso(HttpMethod.POST, "/inmuebles/listado", inmueble, 2));
+        casos.add(new caso(HttpMethod.PUT, "/inmuebles/listado/" + d.idInmueble(), """
+                {"direccion": "Calle Mayor 11", "ciudad": "Madrid", "codigoPostal": "28001",
+                 "precioMensual": 950.0, "estado": "OCUPADO", "inquilino": {"idInquilino": %d}}
+                """.formatted(d.idInquilino()), 4)); // +1: inquilino guardado, +1: outbox
+        casos.add(new caso(HttpMethod.PATCH, "/inmuebles/listado/" + d.idInmueble(),
+                "{\"precioMensual\": 990.0}", 4)); // la respuesta incluye el inquilino
+        casos.add(new caso(HttpMethod.DELETE, "/inmuebles/listado/" + d.idInmuebleLibre(), null, 3));
+
+        // ===== INQUILINOS =====
+        casos.add(caso.get("/inquilinos/listado", 1));
+        casos.add(caso.get("/inquilinos/listado/" + d.idInquilino(), 1));
+        casos.add(caso.get("/inquilinos/listado/" + d.idInquilino(), 0)); // desde la caché
+        casos.add(new caso(HttpMethod.POST, "/inquilinos/listado", inquilino, 2));
+        casos.add(new caso(HttpMethod.PUT, "/inquilinos/listado/" + d.idInquilino(), inquilino, 3));
+        casos.add(new caso(HttpMethod.PATCH, "/inquilinos/listado/" + d.idInquilino(),
+                "{\"telefono\": \"611000000\"}", 3));
+        casos.add(new caso(HttpMethod.DELETE, "/inquilinos/listado/" + d.idInquilinoLibre(), null, 3));
+
+        // ===== USUARIOS =====
+        casos.add(caso.get("/usuarios/listado", 1));
+        casos.add(caso.get("/usuarios/listado/" + d.idUsuario(), 1));
+        casos.add(new caso(HttpMethod.POST, "/usuarios/listado/nuevo", usuario, 1));
+        casos.add(new caso(HttpMethod.PUT, "/usuarios/listado/" + d.idUsuario(), usuario, 2));
+        casos.add(new caso(HttpMethod.DELETE, "/usuarios/listado/" + d.idUsuario(), null, 2));
+
+        return casos;
+    }
+
+    /**
+     * Ejecuta la petición (como ADMIN, para poder llamar a todos los endpoints)
+     * y compara las sentencias SQL preparadas con el presupuesto.
+     * Se cuentan a nivel JDBC ({@link contadorSentenciasSql}) para incluir
+     * también las que se lanzan con JdbcTemplate.
+     */
+    private void comprobar(caso c) throws Exception {
+
+        contadorSentenciasSql.reiniciar();
+
+        MockHttpServletRequestBuilder peticion = request(c.metodo(), c.url())
+                .with(user("admin").roles("ADMIN"));
+
+        if (c.cuerpo() != null) {
+            peticion.contentType(MediaType.APPLICATION_JSON).content(c.cuerpo());
+        }
+
+        MvcResult resultado = mockMvc.perform(peticion).andReturn();
+
+        // Las respuestas en streaming terminan en otro hilo
+        if (resultado.getRequest().isAsyncStarted()) {
+            resultado = mockMvc.perform(asyncDispatch(resultado)).andReturn();
+        }
+
+        assertThat(resultado.getResponse().getStatus())
+                .as("Código HTTP de " + c)
+                .isBetween(200, 299);
+
+        assertThat(contadorSentenciasSql.sentencias())
+                .as("Sentencias SQL de " + c)
+                .isLessThanOrEqualTo(c.presupuesto());
+    }
+
+    /**
+     * Carga el conjunto de datos de prueba y devuelve los IDs que usan los casos.
+     */
+    private datos sembrarDatos() {
+
+        return transactionTemplate.execute(estado -> {
+
+            List<inquilino> inquilinos = new ArrayList<>();
+            for (int i = 0; i < INMUEBLES; i++) {
+                inquilinos.add(new inquilino(null, "Inquilino " + i, String.format("%08dX", i),
+                        "600" + i, "inquilino" + i + "@email.com", null));
+            }
+            inquilinoRepositorio.saveAll(inquilinos);
+
+            // Inquilino sin inmueble ni pagos (se puede borrar)
+            inquilino inquilinoLibre = inquilinoRepositorio.save(
+                    new inquilino(null, "Inquilino libre", "00000000L", "600000001", "libre@email.com", null));
+
+            String[] ciudades = {"Madrid", "Valencia", "Sevilla", "Bilbao"};
+            List<inmueble> inmuebles = new ArrayList<>();
+            for (int i = 0; i < INMUEBLES; i++) {
+                estadoInmueble estadoInicial = i % 4 == 3 ? estadoInmueble.VACIO
+                        : i % 4 == 2 ? estadoInmueble.CON_DEUDA : estadoInmueble.OCUPADO;
+                inmuebles.add(new inmueble(null, "Calle " + i, ciudades[i % ciudades.length],
+                        String.format("%05d", 28000 + i), 500.0 + i * 10, estadoInicial,
+                        estadoInicial == estadoInmueble.VACIO ? null : inquilinos.get(i), null, null));
+            }
+            inmuebleRepositorio.saveAll(inmuebles);
+
+            // Inmueble vacío y sin pagos (se puede borrar; la facturación no lo toca)
+            inmueble inmuebleLibre = inmuebleRepositorio.save(new inmueble(null, "Calle Libre 1", "Madrid",
+                    "28999", 700.0, estadoInmueble.VACIO, null, null, null));
+
+            List<pagos> historico = new ArrayList<>();
+            for (int i = 0; i < INMUEBLES; i++) {
+                inmueble inm = inmuebles.get(i);
+                for (int m = 0; m < MESES_DE_HISTORICO; m++) {
+                    boolean pagado = inm.getEstado() != estadoInmueble.CON_DEUDA || m < MESES_DE_HISTORICO - 3;
+                    historico.add(new pagos(null, 2023 + m / 12, m % 12 + 1, inm.getPrecioMensual(),
+                            0.0, pagado, inm.getInquilino(), inm, null));
+                }
+            }
+            pagosRepositorio.saveAll(historico);
+
+            usuario usuario = usuarioRepositorio.save(nuevoUsuario("consultor"));
+
+            // Los pagos sembrados no pasan por el servicio: se calculan deuda y resumen desde cero
+            deudaInmuebleServicio.reconstruir();
+            resumenMensualServicio.reconstruir();
+
+            return new datos(
+                    inquilinos.get(0).getIdInquilino(),
+                    inmuebles.get(0).getIdInmueble(),
+                    historico.get(0).getIdPago(),
+                    inquilinoLibre.getIdInquilino(),
+                    inmuebleLibre.getIdInmueble(),
+                    historico.get(historico.size() - 1).getIdPago(),
+                    usuario.getIdUsuario());
+        });
+    }
+
+    private usuario nuevoUsuario(String nombre) {
+        return usuario.builder().usuario(nombre).password("x").role(Role.USER).build();
+    }
+}
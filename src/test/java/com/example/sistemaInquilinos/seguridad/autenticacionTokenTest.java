@@ -0,0 +1,94 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.contadorSentenciasSql;
+import com.example.sistemaInquilinos.entidad.Role;
+import com.example.sistemaInquilinos.entidad.usuario;
+import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.servicio.usuarioServicio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba la autenticación solo con los claims del token: no consulta la base de datos,
+ * respeta el rol que lleva el token y rechaza los tokens de usuarios modificados o eliminados.
+ */
+// Sin tareas en segundo plano: sus sentencias se sumarían a las de la petición
+@SpringBootTest(properties = {"estado-inmueble.recalculo.activo=false", "outbox.publicador.activo=false"})
+@AutoConfigureMockMvc
+@Import(contadorSentenciasSql.class)
+class autenticacionTokenTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private jwtService jwtService;
+
+    @Autowired
+    private usuarioRepositorio usuarioRepositorio;
+
+    @Autowired
+    private usuarioServicio usuarioServicio;
+
+    @Test
+    void autenticaConLosClaimsSinConsultarLaBaseDeDatos() throws Exception {
+
+        String admin = jwtService.getTokenFinal(crear("admin-claims", Role.ADMIN));
+        String user = jwtService.getTokenFinal(crear("user-claims", Role.USER));
+
+        // /panel/memoria no hace consultas: cualquier sentencia sería de la autenticación
+        contadorSentenciasSql.reiniciar();
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isOk());
+        assertThat(contadorSentenciasSql.sentencias()).isZero();
+
+        // El rol sale del token
+        mockMvc.perform(get("/actuator/health").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health").header(HttpHeaders.AUTHORIZATION, "Bearer " + user))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void rechazaLosTokensDeUsuariosModificadosOEliminados() throws Exception {
+
+        usuario cambiado = crear("cambia-rol", Role.ADMIN);
+        usuario borrado = crear("borrado", Role.USER);
+        String tokenCambiado = jwtService.getTokenFinal(cambiado);
+        String tokenBorrado = jwtService.getTokenFinal(borrado);
+
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenCambiado))
+                .andExpect(status().isOk());
+
+        cambiado.setRole(Role.USER);
+        usuarioServicio.guardarUsuario(cambiado);
+        usuarioServicio.eliminarUsuarioPorId(borrado.getIdUsuario());
+
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenCambiado))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenBorrado))
+                .andExpect(status().isForbidden());
+
+        // Un token nuevo (nuevo login, en un milisegundo posterior al cambio) lleva el rol actualizado
+        Thread.sleep(5);
+        String nuevo = jwtService.getTokenFinal(usuarioServicio.buscarUsuarioPorId(cambiado.getIdUsuario()));
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + nuevo))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health").header(HttpHeaders.AUTHORIZATION, "Bearer " + nuevo))
+                .andExpect(status().isForbidden());
+    }
+
+    private usuario crear(String nombre, Role role) {
+        return usuarioRepositorio.save(usuario.builder().usuario(nombre).password("x").role(role).build());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que las operaciones de mantenimiento (borran filas o bloquean a las demás
+ * peticiones mientras duran) solo las puede lanzar un ADMIN, y que las consultas
+ * equivalentes siguen abiertas a cualquier usuario autenticado.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class endpointsAdminTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void unUsuarioNoPuedeArchivarPagos() throws Exception {
+
+        mockMvc.perform(post("/pagos/archivo")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/pagos/archivo/1900")).andExpect(status().isForbidden());
+
+        // Consultar el archivo sí
+        mockMvc.perform(get("/pagos/archivo")).andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void unUsuarioNoPuedeReindexarLaBusqueda() throws Exception {
+
+        mockMvc.perform(post("/busqueda/reindexar")).andExpect(status().isForbidden());
+
+        // Buscar sí
+        mockMvc.perform(get("/busqueda").param("q", "calle")).andExpect(status().isOk());
+    }
+}
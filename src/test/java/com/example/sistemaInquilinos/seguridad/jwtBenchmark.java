@@ -0,0 +1,77 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de autenticar una petición en el filtro JWT, sin contar la carga del usuario.
+ *
+ * - tresParseos: lo que hacía el filtro antes (getUsernameFromToken + isTokenValid),
+ *   tres parseos con su clave y su parser nuevos cada vez.
+ * - unaVerificacion: jwtService.verificar con la clave y el parser creados al arrancar.
+ *
+ * No forma parte de "mvn test". Se lanza con:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.example.sistemaInquilinos.seguridad.jwtBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class jwtBenchmark {
+
+    // Misma clave que usan los tests
+    private static final String SECRETO = "Y2xhdmUtZGUtcHJ1ZWJhcy1zb2xvLXBhcmEtdGVzdHMtand0LTAxMjM0NTY3ODk=";
+
+    private jwtService servicio;
+    private UserDetails usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        servicio = new jwtService(SECRETO, 86_400_000L, 604_800_000L);
+        usuario = User.withUsername("benchmark").password("x").roles("USER").build();
+        token = servicio.getTokenFinal(usuario);
+    }
+
+    @Benchmark
+    public boolean tresParseos() {
+        String nombre = leerClaims(token).getSubject();
+        boolean mismoUsuario = leerClaims(token).getSubject().equals(usuario.getUsername());
+        boolean vigente = !leerClaims(token).getExpiration().before(new Date());
+        return nombre != null && mismoUsuario && vigente;
+    }
+
+    @Benchmark
+    public boolean unaVerificacion() {
+        tokenVerificado verificado = servicio.verificar(token);
+        return verificado.esValidoPara(usuario.getUsername());
+    }
+
+    // Réplica de la lectura anterior: decodifica la clave y crea el parser en cada llamada
+    private static Claims leerClaims(String token) {
+        Key clave = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRETO));
+        return Jwts.parserBuilder().setSigningKey(clave).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(jwtBenchmark.class.getSimpleName()).build()).run();
+    }
+}
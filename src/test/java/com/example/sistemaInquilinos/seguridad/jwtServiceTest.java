@@ -0,0 +1,50 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba la verificación única del token: devuelve usuario y expiración ya leídos
+ * y rechaza tokens firmados con otra clave o caducados.
+ */
+class jwtServiceTest {
+
+    private static final String SECRETO = "Y2xhdmUtZGUtcHJ1ZWJhcy1zb2xvLXBhcmEtdGVzdHMtand0LTAxMjM0NTY3ODk=";
+    private static final String OTRO_SECRETO = "b3RyYS1jbGF2ZS1kaXN0aW50YS1wYXJhLWZpcm1hci10b2tlbnMtZGUtcHJ1ZWJh";
+
+    private final UserDetails ana = User.withUsername("ana").password("x").roles("USER").build();
+
+    @Test
+    void verificaUnaVezYDevuelveElUsuario() {
+
+        jwtService servicio = new jwtService(SECRETO, 60_000L, 604_800_000L);
+        String token = servicio.getTokenFinal(ana);
+
+        tokenVerificado verificado = servicio.verificar(token);
+
+        assertThat(verificado.usuario()).isEqualTo("ana");
+        assertThat(verificado.expirado()).isFalse();
+        assertThat(verificado.esValidoPara("ana")).isTrue();
+        assertThat(verificado.esValidoPara("otro")).isFalse();
+        assertThat(servicio.isTokenValid(token, ana)).isTrue();
+    }
+
+    @Test
+    void rechazaOtraClaveYTokensCaducados() {
+
+        String ajeno = new jwtService(OTRO_SECRETO, 60_000L, 604_800_000L).getTokenFinal(ana);
+        String caducado = new jwtService(SECRETO, -1_000L, 604_800_000L).getTokenFinal(ana);
+        jwtService servicio = new jwtService(SECRETO, 60_000L, 604_800_000L);
+
+        assertThatThrownBy(() -> servicio.verificar(ajeno)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> servicio.verificar(caducado)).isInstanceOf(ExpiredJwtException.class);
+    }
+}
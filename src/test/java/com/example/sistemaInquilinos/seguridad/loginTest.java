@@ -0,0 +1,106 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.contadorSentenciasSql;
+import com.example.sistemaInquilinos.entidad.Role;
+import com.example.sistemaInquilinos.entidad.usuario;
+import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import com.example.sistemaInquilinos.seguridad.servicio.verificacionCredencialesServicio;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el login: una sola consulta del usuario, BCrypt medido en métricas
+ * y respuesta 503 cuando la cola de comprobaciones está llena.
+ */
+// Sin tareas en segundo plano: sus sentencias se sumarían a las del login
+@SpringBootTest(properties = {"estado-inmueble.recalculo.activo=false", "outbox.publicador.activo=false"})
+@AutoConfigureMockMvc
+@Import(contadorSentenciasSql.class)
+class loginTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private usuarioRepositorio usuarioRepositorio;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Test
+    void haceUnaSolaConsultaYMideBcrypt() throws Exception {
+
+        usuarioRepositorio.save(usuario.builder()
+                .usuario("login-unico").password(passwordEncoder.encode("secreto")).role(Role.USER).build());
+
+        contadorSentenciasSql.reiniciar();
+        mockMvc.perform(post("/acceso/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\": \"login-unico\", \"password\": \"secreto\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+
+        assertThat(contadorSentenciasSql.sentencias()).isEqualTo(1);
+        assertThat(registro.get("seguridad.bcrypt").tag("operacion", "comprobar").timer().count()).isPositive();
+
+        mockMvc.perform(post("/acceso/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\": \"login-unico\", \"password\": \"otra\"}"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void respondeServicioNoDisponibleConLaColaLlena() throws Exception {
+
+        CountDownLatch liberar = new CountDownLatch(1);
+        AuthenticationManager lento = autenticacion -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return autenticacion;
+        };
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+        verificacionCredencialesServicio servicio =
+                new verificacionCredencialesServicio(lento, metricas, 1, 1, Duration.ofSeconds(5));
+
+        // Uno ocupa el único hilo y otro la única plaza de la cola
+        CompletableFuture<?> primero = CompletableFuture.runAsync(() -> servicio.autenticar("a", "x"));
+        CompletableFuture<?> segundo = CompletableFuture.runAsync(() -> servicio.autenticar("b", "x"));
+        while (metricas.get("login.credenciales.cola").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> servicio.autenticar("c", "x"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(metricas.get("login.credenciales.rechazados").counter().count()).isEqualTo(1);
+
+        liberar.countDown();
+        CompletableFuture.allOf(primero, segundo).join();
+        servicio.detener();
+    }
+}
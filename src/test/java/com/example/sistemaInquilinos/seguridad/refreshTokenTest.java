@@ -0,0 +1,175 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.entidad.Role;
+import com.example.sistemaInquilinos.entidad.usuario;
+import com.example.sistemaInquilinos.repositorio.tokenRevocadoRepositorio;
+import com.example.sistemaInquilinos.repositorio.usuarioRepositorio;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.servicio.tokensRevocadosServicio;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el flujo de tokens de refresco: el refresh canjea cada token una sola vez,
+ * el token de refresco no sirve como token de acceso y el logout revoca ambos,
+ * también tras reiniciar (la revocación se guarda en token_revocado). Un token canjeado
+ * en una instancia tampoco se puede canjear en otra, y un logout en una instancia
+ * llega a las demás en la siguiente sincronización. Tras cambiar un usuario, sus tokens
+ * de refresco anteriores no valen aunque la revocación en memoria se haya perdido.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class refreshTokenTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private usuarioRepositorio usuarioRepositorio;
+
+    @Autowired
+    private tokenRevocadoRepositorio tokenRevocadoRepositorio;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private jwtService jwtService;
+
+    @Test
+    void refrescaUnaSolaVezYElLogoutRevocaLosTokens() throws Exception {
+
+        usuarioRepositorio.save(usuario.builder()
+                .usuario("refresco").password(passwordEncoder.encode("secreto")).role(Role.USER).build());
+
+        JsonNode login = leer(mockMvc.perform(post("/acceso/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\": \"refresco\", \"password\": \"secreto\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String refresco = login.get("refreshToken").asText();
+
+        // El token de refresco no autentica peticiones normales
+        pedir(refresco, status().isForbidden());
+        pedir(login.get("token").asText(), status().isOk());
+
+        // Otra instancia que arrancó antes del canje (no lo tiene en su mapa)
+        tokensRevocadosServicio otraInstancia = new tokensRevocadosServicio(tokenRevocadoRepositorio, new SimpleMeterRegistry());
+
+        JsonNode nuevos = leer(refrescar(refresco, status().isOk()));
+
+        // La clave primaria de token_revocado impide canjearlo también en la otra instancia
+        assertThat(otraInstancia.revocar(jwtService.verificar(refresco))).isFalse();
+        assertThat(otraInstancia.estaRevocado(jwtService.verificar(refresco))).isTrue();
+
+        // Reutilizar el token de refresco ya canjeado se rechaza
+        refrescar(refresco, status().isUnauthorized());
+        refrescar(login.get("token").asText(), status().isUnauthorized()); // un token de acceso tampoco vale
+
+        String acceso = nuevos.get("token").asText();
+        String nuevoRefresco = nuevos.get("refreshToken").asText();
+        pedir(acceso, status().isOk());
+
+        mockMvc.perform(post("/acceso/logout")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + acceso)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + nuevoRefresco + "\"}"))
+                .andExpect(status().isNoContent());
+
+        pedir(acceso, status().isForbidden());
+        refrescar(nuevoRefresco, status().isUnauthorized());
+
+        // Tras un reinicio las revocaciones se recuperan de la tabla
+        tokensRevocadosServicio recargado = new tokensRevocadosServicio(tokenRevocadoRepositorio, new SimpleMeterRegistry());
+        assertThat(recargado.estaRevocado(jwtService.verificar(acceso))).isTrue();
+        assertThat(recargado.estaRevocado(jwtService.verificar(refresco))).isTrue();
+        assertThat(recargado.estaRevocado(jwtService.verificar(nuevoRefresco))).isTrue();
+    }
+
+    @Test
+    void unLogoutEnOtraInstanciaSeVeTrasSincronizar() throws Exception {
+
+        usuarioRepositorio.save(usuario.builder()
+                .usuario("sincronizado").password(passwordEncoder.encode("secreto")).role(Role.USER).build());
+
+        JsonNode login = leer(mockMvc.perform(post("/acceso/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\": \"sincronizado\", \"password\": \"secreto\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String acceso = login.get("token").asText();
+
+        // Otra instancia, arrancada antes del logout
+        tokensRevocadosServicio otraInstancia = new tokensRevocadosServicio(tokenRevocadoRepositorio, new SimpleMeterRegistry());
+
+        mockMvc.perform(post("/acceso/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + acceso))
+                .andExpect(status().isNoContent());
+
+        assertThat(otraInstancia.estaRevocado(jwtService.verificar(acceso))).isFalse();
+
+        otraInstancia.sincronizar();
+
+        assertThat(otraInstancia.estaRevocado(jwtService.verificar(acceso))).isTrue();
+    }
+
+    @Test
+    void unRefrescoAnteriorAlCambioDelUsuarioNoValeTrasReiniciar() throws Exception {
+
+        usuario guardado = usuarioRepositorio.save(usuario.builder()
+                .usuario("cambiado").password(passwordEncoder.encode("secreto")).role(Role.USER).build());
+
+        String anterior = leer(login("cambiado")).get("refreshToken").asText();
+        Thread.sleep(5);
+
+        // Cambio guardado sin pasar por la revocación en memoria (como si la aplicación se hubiera reiniciado)
+        guardado.setRevocadoEn(Instant.now());
+        usuarioRepositorio.save(guardado);
+        Thread.sleep(5);
+
+        refrescar(anterior, status().isUnauthorized());
+
+        // Con un login posterior al cambio se puede refrescar
+        refrescar(leer(login("cambiado")).get("refreshToken").asText(), status().isOk());
+    }
+
+    private String login(String nombre) throws Exception {
+        return mockMvc.perform(post("/acceso/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuario\": \"" + nombre + "\", \"password\": \"secreto\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private void pedir(String token, ResultMatcher esperado) throws Exception {
+        mockMvc.perform(get("/panel/memoria").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(esperado);
+    }
+
+    private String refrescar(String refresco, ResultMatcher esperado) throws Exception {
+        return mockMvc.perform(post("/acceso/refresh").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refresco + "\"}"))
+                .andExpect(esperado)
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode leer(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+}
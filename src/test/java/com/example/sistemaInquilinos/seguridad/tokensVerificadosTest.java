@@ -0,0 +1,70 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.entidad.Role;
+import com.example.sistemaInquilinos.entidad.usuario;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokensVerificadosServicio;
+import com.example.sistemaInquilinos.seguridad.dtos.usuarioRevocadoEvento;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba la caché de tokens verificados: los aciertos no repiten la verificación,
+ * las revocaciones la vacían para ese usuario y su memoria no pasa del máximo configurado.
+ */
+class tokensVerificadosTest {
+
+    private static final String SECRETO = "Y2xhdmUtZGUtcHJ1ZWJhcy1zb2xvLXBhcmEtdGVzdHMtand0LTAxMjM0NTY3ODk=";
+
+    private final jwtService jwtService = new jwtService(SECRETO, 60_000L, 604_800_000L);
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    @Test
+    void reutilizaLaVerificacionHastaQueSeRevocaElUsuario() {
+
+        tokensVerificadosServicio cache = new tokensVerificadosServicio(jwtService, registro, DataSize.ofMegabytes(1));
+        String ana = jwtService.getTokenFinal(crear(1, "ana"));
+        String luis = jwtService.getTokenFinal(crear(2, "luis"));
+
+        tokenVerificado primero = cache.verificar(ana);
+        assertThat(cache.verificar(ana)).isSameAs(primero);
+        cache.verificar(luis);
+
+        assertThat(registro.get("jwt.verificacion").timer().count()).isEqualTo(2);
+        assertThat(registro.get("jwt.cache.tasa.aciertos").gauge().value()).isGreaterThan(0);
+        assertThat(registro.get("jwt.cache.cpu.ahorrado").functionCounter().count()).isGreaterThanOrEqualTo(0);
+
+        cache.alRevocarUsuario(new usuarioRevocadoEvento(1));
+
+        assertThat(cache.entradas()).isEqualTo(1);
+        assertThat(cache.verificar(ana)).isNotSameAs(primero);
+        assertThat(registro.get("jwt.verificacion").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void noGuardaTokensCaducadosYRespetaLaMemoriaMaxima() {
+
+        tokensVerificadosServicio cache = new tokensVerificadosServicio(jwtService, registro, DataSize.ofKilobytes(10));
+
+        String caducado = new jwtService(SECRETO, -1_000L, 604_800_000L).getTokenFinal(crear(3, "caducado"));
+        assertThatThrownBy(() -> cache.verificar(caducado)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(cache.entradas()).isZero();
+
+        for (int i = 0; i < 200; i++) {
+            cache.verificar(jwtService.getTokenFinal(crear(100 + i, "usuario" + i)));
+        }
+
+        // Unos 500 bytes por entrada: en 10 KB caben alrededor de 20
+        assertThat(cache.entradas()).isBetween(1L, 25L);
+    }
+
+    private usuario crear(int id, String nombre) {
+        return usuario.builder().idUsuario(id).usuario(nombre).password("x").role(Role.USER).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.sistemaInquilinos.seguridad;
+
+import com.example.sistemaInquilinos.entidad.Role;
+import com.example.sistemaInquilinos.entidad.usuario;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.jwtService;
+import com.example.sistemaInquilinos.seguridad.creacionYValidacionToken.tokenVerificado;
+import com.example.sistemaInquilinos.seguridad.servicio.usuariosRevocadosServicio;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que llenar el mapa de usuarios revocados no vuelve a dar por buenos
+ * los tokens de las revocaciones descartadas.
+ */
+class usuariosRevocadosTest {
+
+    private static final String SECRETO = "Y2xhdmUtZGUtcHJ1ZWJhcy1zb2xvLXBhcmEtdGVzdHMtand0LTAxMjM0NTY3ODk=";
+
+    private final jwtService jwtService = new jwtService(SECRETO, 60_000L, 604_800_000L);
+
+    @Test
+    void alDesbordarseNoSePierdeNingunaRevocacion() throws Exception {
+
+        usuariosRevocadosServicio revocados = new usuariosRevocadosServicio(evento -> { }, 60_000L, 604_800_000L, 4);
+
+        tokenVerificado revocado = verificar(1, "revocado");
+        tokenVerificado ajeno = verificar(500, "ajeno");
+        Thread.sleep(5);
+
+        // Se revocan muchos más usuarios de los que caben: la entrada del 1 se acaba descartando
+        for (int id = 1; id <= 100; id++) {
+            revocados.revocar(id);
+        }
+
+        assertThat(revocados.estaRevocado(revocado)).isTrue();
+        // Sin saber de quién era la revocación descartada, los tokens anteriores se rechazan todos
+        assertThat(revocados.estaRevocado(ajeno)).isTrue();
+
+        // Los tokens emitidos después (nuevo login) valen
+        Thread.sleep(5);
+        assertThat(revocados.estaRevocado(verificar(1, "revocado"))).isFalse();
+        assertThat(revocados.estaRevocado(verificar(500, "ajeno"))).isFalse();
+    }
+
+    private tokenVerificado verificar(int id, String nombre) {
+        return jwtService.verificar(jwtService.getTokenFinal(
+                usuario.builder().idUsuario(id).usuario(nombre).password("x").role(Role.USER).build()));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.archivoPagosDTO;
+import com.example.sistemaInquilinos.dto.pagosDTO;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba el archivado por años: los pagos de un año cerrado y cobrado
+ * salen de la tabla pagos, se siguen pudiendo consultar en el archivo
+ * y el año deja de admitir pagos nuevos.
+ */
+@SpringBootTest
+class archivoPagosTest {
+
+    @Autowired
+    private archivoPagosServicio archivoPagosServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Test
+    void unAnioCobradoSeArchivaYSeSigueConsultando() {
+
+        List<inmueble> inmuebles = inmuebleRepositorio.findAll();
+        List<Integer> ids = List.of(
+                crearPago(2001, 1, true, inmuebles.get(0)),
+                crearPago(2001, 2, true, inmuebles.get(0)),
+                crearPago(2001, 1, true, inmuebles.get(1)));
+
+        archivoPagosDTO archivado = archivoPagosServicio.archivarAnio(2001);
+
+        assertThat(archivado.getPagos()).isEqualTo(3);
+        assertThat(archivado.getBloques()).isEqualTo(2);
+        assertThat(pagosRepositorio.findAllById(ids)).isEmpty();
+
+        assertThat(archivoPagosServicio.consultar(2001, null, null))
+                .extracting(pagosDTO::getIdPago)
+                .containsExactlyElementsOf(ids);
+        assertThat(archivoPagosServicio.consultar(2001, inmuebles.get(0).getIdInmueble(), 2))
+                .extracting(pagosDTO::getIdPago)
+                .containsExactly(ids.get(1));
+        assertThat(archivoPagosServicio.listarAnios(2001))
+                .extracting(archivoPagosDTO::getPagos)
+                .containsExactly(3L);
+
+        // El año queda cerrado
+        assertThatThrownBy(() -> crearPago(2001, 3, true, inmuebles.get(0)))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void noSeArchivaUnAnioConPagosSinCobrar() {
+
+        inmueble inmueble = inmuebleRepositorio.findAll().get(0);
+        Integer idPago = crearPago(2002, 6, false, inmueble);
+
+        assertThatThrownBy(() -> archivoPagosServicio.archivarAnio(2002))
+                .isInstanceOf(ResponseStatusException.class);
+
+        assertThat(pagosRepositorio.findById(idPago)).isPresent();
+        assertThat(archivoPagosServicio.estaArchivado(2002)).isFalse();
+    }
+
+    private Integer crearPago(int anio, int mes, boolean pagado, inmueble inmueble) {
+        return pagosServicio.guardarPago(
+                new pagos(null, anio, mes, null, null, pagado, inmueble.getInquilino(), inmueble, null)).getIdPago();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.campoAutocompletado;
+import com.example.sistemaInquilinos.dto.sugerenciaUbicacionDTO;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Comprueba el autocompletado de ciudad y código postal: sugiere sin tildes,
+ * ordena por número de inmuebles y sus cuentas siguen a las altas, cambios y bajas,
+ * sin que un evento atrasado deshaga un cambio más nuevo.
+ */
+@SpringBootTest
+class autocompletadoInmueblesTest {
+
+    @Autowired
+    private autocompletadoInmueblesServicio autocompletadoServicio;
+
+    @Autowired
+    private inmuebleServicio inmuebleServicio;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Test
+    void sugiereCiudadesPorPrefijoYCuentaPorEstado() {
+
+        Integer primero = crear("Zumárraga", "99700", estadoInmueble.OCUPADO);
+        crear("Zumarraga", "99701", estadoInmueble.VACIO);
+        crear("Zumaia", "99750", estadoInmueble.CON_DEUDA);
+
+        // Sin tildes y en minúsculas; primero la ciudad con más inmuebles
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CIUDAD, "zuma", 10))
+                .extracting(sugerenciaUbicacionDTO::getValor, sugerenciaUbicacionDTO::getInmuebles)
+                .containsExactly(
+                        tuple("Zumárraga", 2),
+                        tuple("Zumaia", 1));
+
+        sugerenciaUbicacionDTO codigos = autocompletadoServicio.contar(campoAutocompletado.CODIGO_POSTAL, "997");
+        assertThat(codigos.getInmuebles()).isEqualTo(3);
+        assertThat(codigos.getPorEstado())
+                .containsEntry(estadoInmueble.OCUPADO, 1)
+                .containsEntry(estadoInmueble.VACIO, 1)
+                .containsEntry(estadoInmueble.CON_DEUDA, 1);
+
+        // El recálculo de estado (versión nueva) mueve la cuenta sin cambiar la ciudad
+        eventos.publishEvent(new ubicacionInmueble(primero, "Zumárraga", "99700", estadoInmueble.CON_DEUDA, 1L));
+
+        assertThat(autocompletadoServicio.contar(campoAutocompletado.CIUDAD, "zumarraga").getPorEstado())
+                .containsEntry(estadoInmueble.OCUPADO, 0)
+                .containsEntry(estadoInmueble.CON_DEUDA, 1);
+    }
+
+    @Test
+    void sigueLosCambiosYLasBajas() {
+
+        Integer id = crear("Zorita del Maestrazgo", "99800", estadoInmueble.VACIO);
+
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CODIGO_POSTAL, "998", 10))
+                .extracting(sugerenciaUbicacionDTO::getValor)
+                .containsExactly("99800");
+
+        inmueble cambiado = inmuebleServicio.buscarInmueblePorId(id);
+        cambiado.setCiudad("Zorraquín");
+        cambiado.setCodigoPostal("99810");
+        inmuebleServicio.guardarInmueble(cambiado);
+
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CIUDAD, "zor", 10))
+                .extracting(sugerenciaUbicacionDTO::getValor)
+                .containsExactly("Zorraquín");
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CODIGO_POSTAL, "998", 10))
+                .extracting(sugerenciaUbicacionDTO::getValor)
+                .containsExactly("99810");
+
+        inmuebleServicio.eliminarPorId(id);
+
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CIUDAD, "zor", 10)).isEmpty();
+        assertThat(autocompletadoServicio.contar(campoAutocompletado.CODIGO_POSTAL, "998").getInmuebles()).isZero();
+    }
+
+    @Test
+    void descartaLosEventosAtrasados() {
+
+        Integer id = crear("Zerain", "99900", estadoInmueble.OCUPADO);
+
+        // El cambio de la versión 2 llega antes que el de la 1
+        eventos.publishEvent(new ubicacionInmueble(id, "Zestoa", "99910", estadoInmueble.CON_DEUDA, 2L));
+        eventos.publishEvent(new ubicacionInmueble(id, "Zegama", "99920", estadoInmueble.OCUPADO, 1L));
+
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CIUDAD, "ze", 10))
+                .extracting(sugerenciaUbicacionDTO::getValor)
+                .containsExactly("Zestoa");
+        assertThat(autocompletadoServicio.contar(campoAutocompletado.CIUDAD, "zestoa").getPorEstado())
+                .containsEntry(estadoInmueble.CON_DEUDA, 1);
+
+        // Tras la baja, un cambio anterior que llegue tarde no vuelve a añadirlo
+        inmuebleServicio.eliminarPorId(id);
+        eventos.publishEvent(new ubicacionInmueble(id, "Zestoa", "99910", estadoInmueble.CON_DEUDA, 2L));
+
+        assertThat(autocompletadoServicio.sugerir(campoAutocompletado.CIUDAD, "ze", 10)).isEmpty();
+    }
+
+    private Integer crear(String ciudad, String codigoPostal, estadoInmueble estado) {
+        return inmuebleServicio.guardarInmueble(
+                new inmueble(null, "Calle Autocompletado", ciudad, codigoPostal, 700.0, estado, null, null, null))
+                .getIdInmueble();
+    }
+}
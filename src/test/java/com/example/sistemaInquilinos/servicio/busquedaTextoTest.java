@@ -0,0 +1,168 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.documentoBusquedaEvento;
+import com.example.sistemaInquilinos.dto.resultadoBusquedaDTO;
+import com.example.sistemaInquilinos.dto.tipoDocumentoBusqueda;
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba la búsqueda de texto: el índice se actualiza al guardar y eliminar
+ * inquilinos, encuentra fragmentos sin tildes, descarta los cambios atrasados y se
+ * recupera de disco al arrancar (o se reconstruye si a disco le falta un cambio).
+ */
+@SpringBootTest
+class busquedaTextoTest {
+
+    @Autowired
+    private busquedaTextoServicio busquedaTextoServicio;
+
+    @Autowired
+    private inquilinoServicio inquilinoServicio;
+
+    @Autowired
+    private inquilinoRespositorio inquilinoRepositorio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void encuentraFragmentosSinTildesYOlvidaLosEliminados() {
+
+        Integer id = inquilinoServicio.guardarInquilino(
+                new inquilino(null, "Íñigo Azpeitía Olañeta", "77665544Q", "600000000", "inigo@correo.es", null))
+                .getIdInquilino();
+
+        // Sin tildes, en minúsculas y con un fragmento del apellido
+        assertThat(busquedaTextoServicio.buscar("inigo peiti", tipoDocumentoBusqueda.INQUILINO, 10).getResultados())
+                .extracting(resultadoBusquedaDTO.coincidencia::id)
+                .containsExactly(id);
+
+        // Final del DNI
+        assertThat(busquedaTextoServicio.buscar("5544q", null, 10).getResultados())
+                .extracting(resultadoBusquedaDTO.coincidencia::id)
+                .containsExactly(id);
+
+        // La palabra completa puntúa más que el fragmento
+        Integer otro = inquilinoServicio.guardarInquilino(
+                new inquilino(null, "Olañetazpe Ruiz", "11223344B", null, null, null)).getIdInquilino();
+
+        assertThat(busquedaTextoServicio.buscar("olaneta", tipoDocumentoBusqueda.INQUILINO, 10).getResultados())
+                .extracting(resultadoBusquedaDTO.coincidencia::id)
+                .containsExactly(id, otro);
+
+        inquilinoServicio.eliminarPorId(id);
+        inquilinoServicio.eliminarPorId(otro);
+
+        assertThat(busquedaTextoServicio.buscar("olaneta", null, 10).getResultados()).isEmpty();
+    }
+
+    @Test
+    void seRecuperaDeDiscoAlArrancar(@TempDir Path directorio) {
+
+        busquedaTextoServicio primero = nuevoServicio(directorio);
+        primero.arrancar();
+        int documentos = primero.documentos();
+
+        // Se guardan con el repositorio para que solo "primero" reciba los eventos
+        inquilino guardado = inquilinoRepositorio.save(
+                new inquilino(null, "Zuriñe Etxeberria", "70000001A", null, null, null));
+        inquilino borrado = inquilinoRepositorio.save(
+                new inquilino(null, "Zuriñe Goikoetxea", "70000002B", null, null, null));
+        inquilinoRepositorio.delete(borrado);
+
+        // Con compactar-cada=2, el segundo cambio escribe una copia nueva y el tercero queda en cambios.jsonl
+        primero.alCambiarDocumento(documentoBusquedaEvento.de(guardado));
+        primero.alCambiarDocumento(documentoBusquedaEvento.de(borrado));
+        primero.alCambiarDocumento(documentoBusquedaEvento.eliminado(tipoDocumentoBusqueda.INQUILINO,
+                borrado.getIdInquilino()));
+        primero.detener();
+
+        busquedaTextoServicio segundo = nuevoServicio(directorio);
+        segundo.arrancar();
+
+        assertThat(segundo.documentos()).isEqualTo(documentos + 1);
+        assertThat(segundo.buscar("zurine", null, 10).getResultados())
+                .extracting(resultadoBusquedaDTO.coincidencia::id)
+                .containsExactly(guardado.getIdInquilino());
+
+        segundo.detener();
+        inquilinoRepositorio.delete(guardado);
+    }
+
+    @Test
+    void seReconstruyeSiFaltaEnDiscoUnCambioConfirmado(@TempDir Path directorio) {
+
+        busquedaTextoServicio primero = nuevoServicio(directorio);
+        primero.arrancar();
+
+        inquilino inquilino = inquilinoRepositorio.save(
+                new inquilino(null, "Garazi Urrutia", "70000003C", null, null, null));
+        primero.alCambiarDocumento(documentoBusquedaEvento.de(inquilino));
+        primero.detener();
+
+        // Cambio confirmado que no llegó a disco (la aplicación se detuvo antes de anotarlo)
+        inquilino.setNombre("Garazi Lizarralde");
+        inquilino = inquilinoRepositorio.save(inquilino);
+
+        busquedaTextoServicio segundo = nuevoServicio(directorio);
+        segundo.arrancar();
+
+        assertThat(segundo.buscar("lizarralde", null, 10).getResultados())
+                .extracting(resultadoBusquedaDTO.coincidencia::id)
+                .containsExactly(inquilino.getIdInquilino());
+        assertThat(segundo.buscar("urrutia", null, 10).getResultados()).isEmpty();
+
+        segundo.detener();
+        inquilinoRepositorio.delete(inquilino);
+    }
+
+    @Test
+    void descartaLosCambiosAtrasados(@TempDir Path directorio) {
+
+        busquedaTextoServicio servicio = nuevoServicio(directorio);
+        servicio.arrancar();
+
+        // El cambio de la versión 1 se confirma antes, pero su evento llega después que el de la 2
+        servicio.alCambiarDocumento(new documentoBusquedaEvento(tipoDocumentoBusqueda.INQUILINO, -1,
+                Map.of("nombre", "Ainhoa Zabaleta"), 2L));
+        servicio.alCambiarDocumento(new documentoBusquedaEvento(tipoDocumentoBusqueda.INQUILINO, -1,
+                Map.of("nombre", "Ainhoa Mendizabal"), 1L));
+
+        assertThat(servicio.buscar("zabaleta", null, 10).getResultados()).hasSize(1);
+        assertThat(servicio.buscar("mendizabal", null, 10).getResultados()).isEmpty();
+
+        // Tras la baja, un cambio anterior que llegue tarde no lo vuelve a añadir
+        servicio.alCambiarDocumento(documentoBusquedaEvento.eliminado(tipoDocumentoBusqueda.INQUILINO, -1));
+        servicio.alCambiarDocumento(new documentoBusquedaEvento(tipoDocumentoBusqueda.INQUILINO, -1,
+                Map.of("nombre", "Ainhoa Zabaleta"), 2L));
+
+        assertThat(servicio.buscar("ainhoa", null, 10).getResultados()).isEmpty();
+
+        servicio.detener();
+    }
+
+    private busquedaTextoServicio nuevoServicio(Path directorio) {
+        return new busquedaTextoServicio(inquilinoRepositorio, inmuebleRepositorio, transactionTemplate,
+                objectMapper, new SimpleMeterRegistry(), directorio, false, 2);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.configuracion.cacheConfig;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.entidad.pagos;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que las lecturas en caché se eliminan justo cuando se guarda
+ * o elimina el dato correspondiente, y que se publican las métricas de la caché.
+ */
+@SpringBootTest
+class cacheLecturasTest {
+
+    @Autowired
+    private inmuebleServicio inmuebleServicio;
+
+    @Autowired
+    private inquilinoServicio inquilinoServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void vaciarCaches() {
+        cacheManager.getCacheNames().forEach(nombre -> cacheManager.getCache(nombre).clear());
+    }
+
+    @Test
+    void actualizarInmuebleEliminaSoloSuEntrada() {
+
+        inmueble primero = inmuebleServicio.buscarInmueblePorId(1);
+        inmueble segundo = inmuebleServicio.buscarInmueblePorId(2);
+
+        // La segunda lectura devuelve el mismo objeto guardado en caché
+        assertThat(inmuebleServicio.buscarInmueblePorId(1)).isSameAs(primero);
+
+        inmueble datos = new inmueble(null, "Calle Mayor 12", primero.getCiudad(), primero.getCodigoPostal(),
+                primero.getPrecioMensual(), primero.getEstado(), primero.getInquilino(), null, null);
+        inmuebleServicio.actualizarInmueble(1, datos);
+
+        assertThat(inmuebleServicio.buscarInmueblePorId(1).getDireccion()).isEqualTo("Calle Mayor 12");
+        assertThat(inmuebleServicio.buscarInmueblePorId(2)).isSameAs(segundo);
+    }
+
+    @Test
+    void actualizarInquilinoEliminaSuEntradaYLosInmuebles() {
+
+        inquilino antes = inquilinoServicio.buscarInquilinoPorId(1);
+        inmueble inmueble = inmuebleServicio.buscarInmueblePorId(1);
+
+        inquilinoServicio.actualizarInquilino(1,
+                new inquilino(null, "Carlos López Ruiz", antes.getDni(), antes.getTelefono(), antes.getEmail(), null));
+
+        assertThat(inquilinoServicio.buscarInquilinoPorId(1).getNombre()).isEqualTo("Carlos López Ruiz");
+        assertThat(inmuebleServicio.buscarInmueblePorId(1)).isNotSameAs(inmueble);
+        assertThat(inmuebleServicio.buscarInmueblePorId(1).getInquilino().getNombre())
+                .isEqualTo("Carlos López Ruiz");
+    }
+
+    @Test
+    void guardarYEliminarPagoVacianLosImpagos() {
+
+        int impagos = pagosServicio.listarImpagos().size();
+
+        inmueble inmueble = inmuebleServicio.buscarInmueblePorId(2);
+        pagos pago = pagosServicio.guardarPago(
+                new pagos(null, 2031, 1, null, null, false, inmueble.getInquilino(), inmueble, null));
+
+        assertThat(pagosServicio.listarImpagos()).hasSize(impagos + 1);
+
+        pagosServicio.eliminarPagoPorId(pago.getIdPago());
+
+        assertThat(pagosServicio.listarImpagos()).hasSize(impagos);
+    }
+
+    @Test
+    void publicaMetricasDeAciertosYFallos() {
+
+        inquilinoServicio.buscarInquilinoPorId(2);
+        inquilinoServicio.buscarInquilinoPorId(2);
+
+        assertThat(meterRegistry.get("cache.gets")
+                .tags("cache", cacheConfig.INQUILINOS, "result", "hit")
+                .functionCounter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets")
+                .tags("cache", cacheConfig.INQUILINOS, "result", "miss")
+                .functionCounter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("cache.evictions").tags("cache", cacheConfig.INQUILINOS).meter())
+                .isNotNull();
+    }
+}
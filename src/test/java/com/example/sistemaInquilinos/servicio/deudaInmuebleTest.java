@@ -0,0 +1,150 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.deudaInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.deudaInmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que la deuda acumulada que se mantiene por diferencias (altas, cobros,
+ * cambios de inmueble y bajas de pagos) coincide con la que se calcula desde cero,
+ * también si la reconstrucción se ejecuta mientras se guardan pagos.
+ */
+@SpringBootTest
+class deudaInmuebleTest {
+
+    @Autowired
+    private deudaInmuebleServicio deudaInmuebleServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private deudaInmuebleRepositorio deudaInmuebleRepositorio;
+
+    @Test
+    void laDeudaIncrementalCoincideConLaReconstruida() {
+
+        inmueble primero = nuevoInmueble("Calle Deuda 1", 300.0);
+        inmueble segundo = nuevoInmueble("Calle Deuda 2", 500.0);
+
+        pagos enero = pagosServicio.guardarPago(new pagos(null, 2080, 1, null, null, false, null, primero, null));
+        pagos febrero = pagosServicio.guardarPago(new pagos(null, 2080, 2, null, null, false, null, primero, null));
+        pagos marzo = pagosServicio.guardarPago(new pagos(null, 2080, 3, null, null, false, null, primero, null));
+        pagosServicio.guardarPago(new pagos(null, 2080, 1, null, null, false, null, segundo, null));
+
+        // Cobro, cambio de inmueble (y de precio), baja y vuelta a pendiente
+        enero.setPagado(true);
+        pagosServicio.guardarPago(enero);
+        febrero.setInmueble(segundo);
+        febrero = pagosServicio.guardarPago(febrero);
+        pagosServicio.eliminarPagoPorId(marzo.getIdPago());
+        febrero.setPagado(true);
+        febrero = pagosServicio.guardarPago(febrero);
+        febrero.setPagado(false);
+        pagosServicio.guardarPago(febrero);
+
+        List<deudaInmueble> incremental = deudas(primero, segundo);
+
+        assertThat(incremental).extracting(deudaInmueble::getMontoDeuda).containsExactly(0.0, 1000.0);
+        assertThat(incremental).extracting(deudaInmueble::getPagosPendientes).containsExactly(0L, 2L);
+
+        deudaInmuebleServicio.reconstruir();
+
+        assertThat(deudas(primero, segundo)).isEqualTo(incremental);
+    }
+
+    @Test
+    void reconstruirMientrasSeGuardanPagosNoPierdeNingunCambio() throws Exception {
+
+        List<inmueble> inmuebles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            inmueble inmueble = nuevoInmueble("Calle Deuda Paralela " + i, 100.0);
+            // Con un pago previo el inmueble ya tiene su fila de deuda
+            pagosServicio.guardarPago(new pagos(null, 2081, 1, null, null, false, null, inmueble, null));
+            inmuebles.add(inmueble);
+        }
+
+        CountDownLatch salida = new CountDownLatch(1);
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+
+        tareas.add(CompletableFuture.runAsync(() -> {
+            esperar(salida);
+            for (int i = 0; i < 20; i++) {
+                deudaInmuebleServicio.reconstruir();
+            }
+        }));
+        for (inmueble inmueble : inmuebles) {
+            tareas.add(CompletableFuture.runAsync(() -> {
+                esperar(salida);
+                for (int mes = 2; mes <= 12; mes++) {
+                    pagos pago = pagosServicio.guardarPago(
+                            new pagos(null, 2081, mes, null, null, false, null, inmueble, null));
+                    if (mes % 3 == 0) {
+                        pago.setPagado(true);
+                        pagosServicio.guardarPago(pago);
+                    } else if (mes % 4 == 0) {
+                        pagosServicio.eliminarPagoPorId(pago.getIdPago());
+                    }
+                }
+            }));
+        }
+        salida.countDown();
+        CompletableFuture.allOf(tareas.toArray(CompletableFuture[]::new)).get();
+
+        for (inmueble inmueble : inmuebles) {
+            List<pagos> pendientes = pagosRepositorio.findAll().stream()
+                    .filter(p -> p.getInmueble() != null
+                            && p.getInmueble().getIdInmueble().equals(inmueble.getIdInmueble()))
+                    .filter(p -> !p.getPagado())
+                    .toList();
+
+            assertThat(deudaInmuebleRepositorio.findById(inmueble.getIdInmueble()))
+                    .hasValueSatisfying(deuda -> {
+                        assertThat(deuda.getPagosPendientes()).isEqualTo(pendientes.size());
+                        assertThat(deuda.getMontoDeuda()).isEqualTo(pendientes.size() * 100.0);
+                    });
+        }
+    }
+
+    private List<deudaInmueble> deudas(inmueble... inmuebles) {
+        List<deudaInmueble> deudas = new ArrayList<>();
+        for (inmueble inmueble : inmuebles) {
+            deudas.add(deudaInmuebleRepositorio.findById(inmueble.getIdInmueble())
+                    .orElse(new deudaInmueble(inmueble.getIdInmueble(), 0.0, 0L)));
+        }
+        return deudas;
+    }
+
+    private inmueble nuevoInmueble(String direccion, double precio) {
+        return inmuebleRepositorio.save(new inmueble(null, direccion, "Albacete", "02001", precio,
+                estadoInmueble.OCUPADO, null, null, null));
+    }
+
+    private static void esperar(CountDownLatch salida) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que los eventos descartados por haber demasiados inmuebles pendientes
+ * no se pierden: la recuperación periódica recalcula también esos inmuebles.
+ */
+// Un solo inmueble pendiente a la vez y un margen largo: el segundo evento se descarta
+@SpringBootTest(properties = {
+        "estado-inmueble.recalculo.maximo-pendientes=1",
+        "estado-inmueble.recalculo.ventana=500ms",
+        "estado-inmueble.recalculo.recuperacion-ms=200"})
+class estadoInmuebleDescartesTest {
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Test
+    void losInmueblesDescartadosSeRecalculanDespues() throws Exception {
+
+        inmueble apuntado = nuevoInmueble("Calle Descartes 1");
+        inmueble descartado = nuevoInmueble("Calle Descartes 2");
+        double descartadosAntes = registro.counter("inmuebles.estado.eventos.descartados").count();
+
+        pagosServicio.guardarPago(new pagos(null, 2036, 1, null, null, false, null, apuntado, null));
+        pagosServicio.guardarPago(new pagos(null, 2036, 1, null, null, false, null, descartado, null));
+
+        assertThat(registro.counter("inmuebles.estado.eventos.descartados").count())
+                .isGreaterThan(descartadosAntes);
+
+        esperarEstado(apuntado.getIdInmueble(), estadoInmueble.CON_DEUDA);
+        esperarEstado(descartado.getIdInmueble(), estadoInmueble.CON_DEUDA);
+    }
+
+    private inmueble nuevoInmueble(String direccion) {
+        return inmuebleRepositorio.save(new inmueble(null, direccion, "Madrid", "28051", 650.0,
+                estadoInmueble.OCUPADO, null, null, null));
+    }
+
+    private void esperarEstado(Integer idInmueble, estadoInmueble esperado) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (inmuebleRepositorio.findById(idInmueble).orElseThrow().getEstado() == esperado) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(inmuebleRepositorio.findById(idInmueble).orElseThrow().getEstado()).isEqualTo(esperado);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.inquilino;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inquilinoRespositorio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que el estado del inmueble (OCUPADO / CON_DEUDA) se recalcula
+ * en segundo plano tras los cambios en sus pagos, y que los eventos
+ * seguidos del mismo inmueble se agrupan en un solo recálculo.
+ */
+@SpringBootTest
+class estadoInmuebleTest {
+
+    @Autowired
+    private estadoInmuebleServicio estadoInmuebleServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private inquilinoRespositorio inquilinoRepositorio;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void elEstadoSigueALaDeudaDelInmueble() throws Exception {
+
+        inmueble inmueble = nuevoInmueble(estadoInmueble.OCUPADO);
+
+        pagos pago = pagosServicio.guardarPago(
+                new pagos(null, 2034, 1, null, null, false, inmueble.getInquilino(), inmueble, null));
+
+        esperarEstado(inmueble.getIdInmueble(), estadoInmueble.CON_DEUDA);
+
+        ObjectNode pagado = objectMapper.createObjectNode().put("pagado", true);
+        pagosServicio.parchearPago(pago.getIdPago(), pagado);
+
+        esperarEstado(inmueble.getIdInmueble(), estadoInmueble.OCUPADO);
+    }
+
+    @Test
+    void losInmueblesVaciosNoCambian() throws Exception {
+
+        inmueble inmueble = nuevoInmueble(estadoInmueble.VACIO);
+
+        pagosServicio.guardarPago(
+                new pagos(null, 2034, 2, null, null, false, inmueble.getInquilino(), inmueble, null));
+
+        esperarSinPendientes();
+
+        assertThat(inmuebleRepositorio.findById(inmueble.getIdInmueble()).orElseThrow().getEstado())
+                .isEqualTo(estadoInmueble.VACIO);
+    }
+
+    @Test
+    void losEventosDelMismoInmuebleSeAgrupan() throws Exception {
+
+        inmueble inmueble = nuevoInmueble(estadoInmueble.OCUPADO);
+        double agrupadosAntes = registro.counter("inmuebles.estado.eventos.agrupados").count();
+
+        for (int i = 0; i < 50; i++) {
+            estadoInmuebleServicio.programar(inmueble.getIdInmueble());
+        }
+
+        esperarSinPendientes();
+
+        // Como mucho unos pocos recálculos; el resto de eventos se suman al pendiente
+        assertThat(registro.counter("inmuebles.estado.eventos.agrupados").count() - agrupadosAntes)
+                .isGreaterThanOrEqualTo(45);
+    }
+
+    private inmueble nuevoInmueble(estadoInmueble estado) {
+        inquilino inquilino = inquilinoRepositorio.save(
+                new inquilino(null, "Estado", "66666666E", "600666000", "estado@email.com", null));
+        return inmuebleRepositorio.save(
+                new inmueble(null, "Calle Estado 1", "Madrid", "28050", 700.0, estado, inquilino, null, null));
+    }
+
+    private void esperarEstado(Integer idInmueble, estadoInmueble esperado) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (inmuebleRepositorio.findById(idInmueble).orElseThrow().getEstado() == esperado) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(inmuebleRepositorio.findById(idInmueble).orElseThrow().getEstado()).isEqualTo(esperado);
+    }
+
+    private void esperarSinPendientes() throws InterruptedException {
+        for (int i = 0; i < 100 && estadoInmuebleServicio.pendientes() > 0; i++) {
+            Thread.sleep(50);
+        }
+        // Margen para que termine el recálculo que ya ha salido de pendientes
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.deudaInmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.facturacionMensualRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba que la facturación mensual nunca crea dos pagos del mismo inmueble y mes:
+ * ni al repetirla, ni si ya hay un pago manual, ni con dos instancias a la vez.
+ * Tampoco se puede crear a mano un pago de un mes ya facturado.
+ */
+@SpringBootTest
+class facturacionMensualTest {
+
+    private static final double PRECIO = 450.0;
+
+    @Autowired
+    private facturacionMensualServicio facturacionMensualServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private deudaInmuebleRepositorio deudaInmuebleRepositorio;
+
+    // Para crear una segunda instancia del servicio (con su propio bloqueo)
+    @Autowired
+    private facturacionMensualRepositorio facturacionMensualRepositorio;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private outboxServicio outboxServicio;
+
+    @Autowired
+    private archivoPagosServicio archivoPagosServicio;
+
+    @Test
+    void facturarDosVecesOConUnPagoManualNoDuplica() {
+
+        inmueble sinPago = nuevoInmueble("Calle Factura 1");
+        inmueble conPagoManual = nuevoInmueble("Calle Factura 2");
+        pagos manual = pagosServicio.guardarPago(new pagos(null, 2091, 4, null, null, false, null, conPagoManual, null));
+
+        assertThat(facturacionMensualServicio.generarMes(2091, 4).getPagosGenerados()).isPositive();
+
+        assertThat(pagosDe(sinPago, 2091, 4)).hasSize(1);
+        assertThat(pagosDe(conPagoManual, 2091, 4)).extracting(pagos::getIdPago).containsExactly(manual.getIdPago());
+
+        // La segunda vez ya no queda nada por facturar
+        assertThat(facturacionMensualServicio.generarMes(2091, 4).getPagosGenerados()).isZero();
+        assertThat(pagosDe(sinPago, 2091, 4)).hasSize(1);
+        comprobarDeuda(sinPago);
+        comprobarDeuda(conPagoManual);
+
+        // Ni a mano
+        assertThatThrownBy(() -> pagosServicio.guardarPago(
+                new pagos(null, 2091, 4, null, null, false, null, sinPago, null)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(pagosDe(sinPago, 2091, 4)).hasSize(1);
+        comprobarDeuda(sinPago);
+    }
+
+    @Test
+    void dosInstanciasALaVezNoDuplicanPagos() throws Exception {
+
+        List<inmueble> inmuebles = List.of(nuevoInmueble("Calle Factura 3"), nuevoInmueble("Calle Factura 4"));
+
+        facturacionMensualServicio otraInstancia = new facturacionMensualServicio(facturacionMensualRepositorio,
+                transactionTemplate, eventos, outboxServicio, archivoPagosServicio, 1000);
+
+        CountDownLatch salida = new CountDownLatch(1);
+        CompletableFuture<Integer> primera = CompletableFuture.supplyAsync(() -> {
+            esperar(salida);
+            return facturacionMensualServicio.generarMes(2092, 5).getPagosGenerados();
+        });
+        CompletableFuture<Integer> segunda = CompletableFuture.supplyAsync(() -> {
+            esperar(salida);
+            return otraInstancia.generarMes(2092, 5).getPagosGenerados();
+        });
+        salida.countDown();
+
+        int generados = primera.get() + segunda.get();
+
+        assertThat(pagosRepositorio.findAll().stream()
+                .filter(p -> p.getAnio() == 2092 && p.getMes() == 5)
+                .count()).isEqualTo(generados);
+        for (inmueble inmueble : inmuebles) {
+            assertThat(pagosDe(inmueble, 2092, 5)).hasSize(1);
+            comprobarDeuda(inmueble);
+        }
+    }
+
+    /**
+     * El inmueble debe exactamente un mes: la deuda no se ha sumado dos veces.
+     */
+    private void comprobarDeuda(inmueble inmueble) {
+        assertThat(deudaInmuebleRepositorio.findById(inmueble.getIdInmueble()))
+                .hasValueSatisfying(deuda -> {
+                    assertThat(deuda.getMontoDeuda()).isEqualTo(PRECIO);
+                    assertThat(deuda.getPagosPendientes()).isEqualTo(1L);
+                });
+    }
+
+    private List<pagos> pagosDe(inmueble inmueble, int anio, int mes) {
+        return pagosRepositorio.findAll().stream()
+                .filter(p -> p.getInmueble() != null
+                        && p.getInmueble().getIdInmueble().equals(inmueble.getIdInmueble()))
+                .filter(p -> p.getAnio() == anio && p.getMes() == mes)
+                .toList();
+    }
+
+    private inmueble nuevoInmueble(String direccion) {
+        return inmuebleRepositorio.save(new inmueble(null, direccion, "Cuenca", "16001", PRECIO,
+                estadoInmueble.OCUPADO, null, null, null));
+    }
+
+    private static void esperar(CountDownLatch salida) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.agregadoOutbox;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.eventoOutbox;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.entidad.tipoEventoOutbox;
+import com.example.sistemaInquilinos.repositorio.eventoOutboxRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.IllegalTransactionStateException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba que los cambios de pagos (y los cambios de estado de inmuebles que
+ * provocan) llegan a los destinos del outbox y que los eventos entregados se borran de la tabla.
+ */
+@SpringBootTest
+class outboxTest {
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private publicadorOutbox publicadorOutbox;
+
+    @Autowired
+    private destinoEventosMemoria destinoMemoria;
+
+    @Autowired
+    private outboxServicio outboxServicio;
+
+    @Autowired
+    private eventoOutboxRepositorio eventoOutboxRepositorio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void elPagoCreadoLlegaAlDestinoYSeBorra() throws Exception {
+
+        inmueble inmueble = inmuebleRepositorio.findAll().get(0);
+
+        pagos pago = pagosServicio.guardarPago(
+                new pagos(null, 2035, 3, null, null, false, inmueble.getInquilino(), inmueble, null));
+
+        eventoOutbox evento = esperarEvento(pago.getIdPago());
+
+        assertThat(evento.getTipo()).isEqualTo(tipoEventoOutbox.CREADO);
+        assertThat(objectMapper.readTree(evento.getCarga()).get("mes").asInt()).isEqualTo(3);
+        assertThat(eventoOutboxRepositorio.findById(evento.getIdEvento())).isEmpty();
+    }
+
+    @Test
+    void elCambioDeEstadoEnSegundoPlanLlegaAlDestino() throws Exception {
+
+        inmueble inmueble = inmuebleRepositorio.save(new inmueble(null, "Calle Outbox 1", "Zaragoza", "50002",
+                300.0, estadoInmueble.OCUPADO, null, null, null));
+
+        // El pago pendiente pone el inmueble en CON_DEUDA desde estadoInmuebleServicio
+        pagosServicio.guardarPago(new pagos(null, 2035, 4, null, null, false, null, inmueble, null));
+
+        eventoOutbox evento = esperarEvento(agregadoOutbox.INMUEBLE, inmueble.getIdInmueble());
+
+        assertThat(evento.getTipo()).isEqualTo(tipoEventoOutbox.MODIFICADO);
+        assertThat(objectMapper.readTree(evento.getCarga()).get("estado").asText())
+                .isEqualTo(estadoInmueble.CON_DEUDA.name());
+    }
+
+    @Test
+    void noSePuedeRegistrarFueraDeUnaTransaccion() {
+
+        assertThatThrownBy(() -> outboxServicio.registrar(
+                agregadoOutbox.PAGO, 1, tipoEventoOutbox.MODIFICADO, null))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    /**
+     * Vacía el outbox hasta que el evento del pago aparece en el destino en memoria
+     * (la tarea programada también puede haberlo entregado).
+     */
+    private eventoOutbox esperarEvento(Integer idPago) throws InterruptedException {
+        return esperarEvento(agregadoOutbox.PAGO, idPago);
+    }
+
+    private eventoOutbox esperarEvento(agregadoOutbox agregado, Integer idAgregado) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            publicadorOutbox.publicarPendientes();
+
+            Optional<eventoOutbox> evento = destinoMemoria.eventos().stream()
+                    .filter(e -> e.getAgregado() == agregado && idAgregado.equals(e.getIdAgregado()))
+                    .findFirst();
+
+            if (evento.isPresent()) {
+                return evento.get();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("El evento de " + agregado + " " + idAgregado + " no ha llegado al destino");
+    }
+}
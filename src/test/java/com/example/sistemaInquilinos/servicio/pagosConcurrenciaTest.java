@@ -0,0 +1,192 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.deudaInmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.example.sistemaInquilinos.repositorio.resumenMensualRepositorio;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de estrés: muchos hilos registran y marcan como pagados pagos de los
+ * mismos inmuebles a la vez. La deuda acumulada debe coincidir al final con la
+ * suma real de los pagos pendientes, y cada alta debe ver la deuda que dejó
+ * la anterior (sin saltos ni repeticiones). Varios borrados del mismo pago a la
+ * vez solo lo descuentan una vez (también si el pago no tiene inmueble).
+ */
+@SpringBootTest
+class pagosConcurrenciaTest {
+
+    private static final int HILOS = 8;
+    private static final int PAGOS_POR_HILO = 25;
+    private static final double PRECIO = 100.0;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private deudaInmuebleRepositorio deudaInmuebleRepositorio;
+
+    @Autowired
+    private resumenMensualRepositorio resumenMensualRepositorio;
+
+    @Test
+    void pagosConcurrentesDelMismoInmuebleMantienenLaDeuda() throws Exception {
+
+        List<inmueble> inmuebles = List.of(nuevoInmueble("Calle Estrés 1"), nuevoInmueble("Calle Estrés 2"));
+        int pagosPorInmueble = HILOS / inmuebles.size() * PAGOS_POR_HILO;
+
+        // 1) Altas concurrentes: cada hilo crea pagos de uno de los dos inmuebles
+        Queue<pagos> creados = new ConcurrentLinkedQueue<>();
+        enParalelo(hilo -> {
+            inmueble inmueble = inmuebles.get(hilo % inmuebles.size());
+            for (int i = 0; i < PAGOS_POR_HILO; i++) {
+                // Un mes distinto por pago: un inmueble solo puede tener un pago por mes
+                creados.add(pagosServicio.guardarPago(
+                        new pagos(null, 2040 + hilo * 3 + i / 12, i % 12 + 1, null, null, false, null, inmueble, null)));
+            }
+        });
+
+        for (inmueble inmueble : inmuebles) {
+            // Cada alta ha visto la deuda de la anterior: los importes son 100, 200, ... sin repetirse
+            assertThat(creados.stream()
+                    .filter(p -> p.getInmueble().getIdInmueble().equals(inmueble.getIdInmueble()))
+                    .map(pagos::getMontoDeuda)
+                    .distinct()
+                    .count()).isEqualTo(pagosPorInmueble);
+            comprobarDeuda(inmueble, pagosPorInmueble);
+        }
+
+        // 2) Cobros concurrentes: uno de cada cinco pagos se marca como pagado
+        List<pagos> aCobrar = creados.stream().filter(p -> p.getIdPago() % 5 == 0).toList();
+        enParalelo(hilo -> {
+            for (int i = hilo; i < aCobrar.size(); i += HILOS) {
+                pagos pago = aCobrar.get(i);
+                pago.setPagado(true);
+                pagosServicio.guardarPago(pago);
+            }
+        });
+
+        for (inmueble inmueble : inmuebles) {
+            long cobrados = aCobrar.stream()
+                    .filter(p -> p.getInmueble().getIdInmueble().equals(inmueble.getIdInmueble()))
+                    .count();
+            comprobarDeuda(inmueble, pagosPorInmueble - cobrados);
+        }
+    }
+
+    @Test
+    void borradosConcurrentesDelMismoPagoSoloDescuentanUnaVez() throws Exception {
+
+        inmueble inmueble = nuevoInmueble("Calle Estrés 3");
+        pagos mantenido = pagosServicio.guardarPago(
+                new pagos(null, 2060, 1, null, null, false, null, inmueble, null));
+        pagos borrado = pagosServicio.guardarPago(
+                new pagos(null, 2060, 2, null, null, false, null, inmueble, null));
+
+        // Todos los hilos borran el mismo pago a la vez
+        enParalelo(hilo -> pagosServicio.eliminarPagoPorId(borrado.getIdPago()));
+
+        assertThat(pagosRepositorio.findById(borrado.getIdPago())).isEmpty();
+        assertThat(pagosRepositorio.findById(mantenido.getIdPago())).isPresent();
+        comprobarDeuda(inmueble, 1);
+
+        assertThat(resumenMensualRepositorio.listarPorAnioYMes(2060, 1))
+                .singleElement()
+                .satisfies(resumen -> {
+                    assertThat(resumen.getImporteFacturado()).isEqualTo(PRECIO);
+                    assertThat(resumen.getPagosFacturados()).isEqualTo(1L);
+                });
+        assertThat(resumenMensualRepositorio.listarPorAnioYMes(2060, 2))
+                .singleElement()
+                .satisfies(resumen -> {
+                    assertThat(resumen.getImporteFacturado()).isZero();
+                    assertThat(resumen.getPagosFacturados()).isZero();
+                });
+    }
+
+    @Test
+    void seBorraUnPagoSinInmueble() {
+
+        // La columna id_inmueble admite null (p. ej. pagos antiguos cuyo inmueble se desvinculó)
+        pagos huerfano = pagosRepositorio.save(new pagos(null, 2061, 1, PRECIO, 0.0, true, null, null, null));
+
+        pagosServicio.eliminarPagoPorId(huerfano.getIdPago());
+
+        assertThat(pagosRepositorio.findById(huerfano.getIdPago())).isEmpty();
+    }
+
+    /**
+     * La deuda acumulada coincide con la suma real de los pagos pendientes del inmueble.
+     */
+    private void comprobarDeuda(inmueble inmueble, long pendientesEsperados) {
+
+        List<pagos> pendientes = pagosRepositorio.findAll().stream()
+                .filter(p -> p.getInmueble() != null
+                        && p.getInmueble().getIdInmueble().equals(inmueble.getIdInmueble()))
+                .filter(p -> !p.getPagado())
+                .toList();
+
+        assertThat(pendientes).hasSize((int) pendientesEsperados);
+        assertThat(deudaInmuebleRepositorio.findById(inmueble.getIdInmueble()))
+                .hasValueSatisfying(deuda -> {
+                    assertThat(deuda.getMontoDeuda()).isEqualTo(pendientesEsperados * PRECIO);
+                    assertThat(deuda.getPagosPendientes()).isEqualTo(pendientesEsperados);
+                });
+    }
+
+    /**
+     * Lanza la tarea en HILOS hilos a la vez y espera a que terminen todos.
+     */
+    private void enParalelo(IntConsumer tarea) throws Exception {
+
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        try {
+            for (int h = 0; h < HILOS; h++) {
+                int hilo = h;
+                tareas.add(hilos.submit(() -> {
+                    salida.await();
+                    tarea.accept(hilo);
+                    return null;
+                }));
+            }
+            salida.countDown();
+
+            for (Future<?> resultado : tareas) {
+                resultado.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private inmueble nuevoInmueble(String direccion) {
+        return inmuebleRepositorio.save(new inmueble(null, direccion, "Zaragoza", "50001", PRECIO,
+                estadoInmueble.OCUPADO, null, null, null));
+    }
+}
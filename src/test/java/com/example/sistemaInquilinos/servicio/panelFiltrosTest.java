@@ -0,0 +1,181 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.atributosPago;
+import com.example.sistemaInquilinos.dto.conteoPanelDTO;
+import com.example.sistemaInquilinos.dto.ubicacionInmueble;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba los conteos de los paneles: combinan filtros de pagos y de su inmueble,
+ * siguen a los cambios (sin que un evento atrasado de un inmueble o un pago deshaga
+ * uno más nuevo ni devuelva uno borrado) y el mapa
+ * de bits comprimido da los mismos resultados que un BitSet.
+ */
+@SpringBootTest
+class panelFiltrosTest {
+
+    // Ciudad que solo usan los inmuebles de este test
+    private static final String CIUDAD = "Soria";
+
+    @Autowired
+    private panelFiltrosServicio panelFiltrosServicio;
+
+    @Autowired
+    private inmuebleServicio inmuebleServicio;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Test
+    void combinaFiltrosDePagosYDeSuInmueble() {
+
+        inmueble ocupado = crearInmueble(estadoInmueble.OCUPADO);
+        inmueble vacio = crearInmueble(estadoInmueble.VACIO);
+
+        crearPago(2003, 1, false, ocupado);
+        crearPago(2003, 2, true, ocupado);
+        pagos cambiado = crearPago(2003, 3, false, ocupado);
+        crearPago(2003, 2, false, vacio);
+
+        // El recálculo puede haber pasado ya el inmueble ocupado a CON_DEUDA
+        List<estadoInmueble> alquilado = List.of(estadoInmueble.OCUPADO, estadoInmueble.CON_DEUDA);
+
+        conteoPanelDTO impagos = panelFiltrosServicio.contarPagos(
+                List.of(2003), null, false, alquilado, List.of(CIUDAD), "mes");
+
+        assertThat(impagos.getTotal()).isEqualTo(2);
+        assertThat(impagos.getGrupos()).containsEntry("1", 1).containsEntry("3", 1);
+
+        // Se cobra un pago y el inmueble vacío pasa a ocupado
+        cambiado.setPagado(true);
+        pagosServicio.guardarPago(cambiado);
+        vacio.setEstado(estadoInmueble.OCUPADO);
+        inmuebleServicio.guardarInmueble(vacio);
+
+        assertThat(panelFiltrosServicio.contarPagos(
+                List.of(2003), List.of(2), false, alquilado, List.of(CIUDAD), null).getTotal())
+                .isEqualTo(1);
+        assertThat(panelFiltrosServicio.contarInmuebles(alquilado, List.of(CIUDAD), null).getTotal()).isEqualTo(2);
+        assertThat(panelFiltrosServicio.contarInmuebles(null, List.of(CIUDAD), "estado").getGrupos())
+                .doesNotContainKey("VACIO");
+
+        pagosServicio.eliminarPagoPorId(cambiado.getIdPago());
+
+        assertThat(panelFiltrosServicio.contarPagos(List.of(2003), null, null, null, List.of(CIUDAD), "pagado")
+                .getGrupos())
+                .containsEntry("false", 2)
+                .containsEntry("true", 1);
+        assertThat(panelFiltrosServicio.memoria().getBytesTotales()).isPositive();
+    }
+
+    @Test
+    void descartaLosEventosAtrasadosDeUnInmueble() {
+
+        Integer id = crearInmueble(estadoInmueble.OCUPADO).getIdInmueble();
+
+        // El cambio de la versión 2 llega antes que el de la 1
+        eventos.publishEvent(new ubicacionInmueble(id, "Teruel", "44001", estadoInmueble.CON_DEUDA, 2L));
+        eventos.publishEvent(new ubicacionInmueble(id, "Huesca", "22001", estadoInmueble.OCUPADO, 1L));
+
+        assertThat(panelFiltrosServicio.contarInmuebles(
+                List.of(estadoInmueble.CON_DEUDA), List.of("Teruel"), null).getTotal()).isEqualTo(1);
+        assertThat(panelFiltrosServicio.contarInmuebles(null, List.of("Huesca"), null).getTotal()).isZero();
+
+        // Tras la baja, un cambio anterior que llegue tarde no vuelve a añadirlo
+        inmuebleServicio.eliminarPorId(id);
+        eventos.publishEvent(new ubicacionInmueble(id, "Teruel", "44001", estadoInmueble.CON_DEUDA, 2L));
+
+        assertThat(panelFiltrosServicio.contarInmuebles(null, List.of("Teruel"), null).getTotal()).isZero();
+    }
+
+    @Test
+    void descartaLosEventosAtrasadosDeUnPago() {
+
+        inmueble inmueble = crearInmueble(estadoInmueble.OCUPADO);
+        Integer id = crearPago(2004, 1, false, inmueble).getIdPago();
+        Integer idInmueble = inmueble.getIdInmueble();
+
+        // El cambio de la versión 2 llega antes que el de la 1
+        eventos.publishEvent(new atributosPago(id, idInmueble, 2004, 2, true, 2L));
+        eventos.publishEvent(new atributosPago(id, idInmueble, 2004, 1, false, 1L));
+
+        conteoPanelDTO delAnio = panelFiltrosServicio.contarPagos(
+                List.of(2004), null, null, null, List.of(CIUDAD), "mes");
+        assertThat(delAnio.getTotal()).isEqualTo(1);
+        assertThat(delAnio.getGrupos()).containsOnlyKeys("2");
+        assertThat(panelFiltrosServicio.contarPagos(List.of(2004), null, true, null, List.of(CIUDAD), null)
+                .getTotal()).isEqualTo(1);
+
+        // Tras la baja, un cambio anterior que llegue tarde no vuelve a añadirlo
+        pagosServicio.eliminarPagoPorId(id);
+        eventos.publishEvent(new atributosPago(id, idInmueble, 2004, 2, true, 2L));
+
+        assertThat(panelFiltrosServicio.contarPagos(List.of(2004), null, null, null, List.of(CIUDAD), null)
+                .getTotal()).isZero();
+    }
+
+    @Test
+    void elMapaDeBitsCoincideConUnBitSet() {
+
+        Random aleatorio = new Random(42);
+        mapaBits a = new mapaBits();
+        mapaBits b = new mapaBits();
+        BitSet esperadoA = new BitSet();
+        BitSet esperadoB = new BitSet();
+
+        // "a" denso en el primer bloque (pasa a mapa de bits) y "b" disperso en varios bloques
+        for (int i = 0; i < 20_000; i++) {
+            int valor = aleatorio.nextInt(30_000);
+            a.anadir(valor);
+            esperadoA.set(valor);
+        }
+        for (int i = 0; i < 3_000; i++) {
+            int valor = aleatorio.nextInt(300_000);
+            b.anadir(valor);
+            esperadoB.set(valor);
+        }
+        // Al quitar casi todos, "a" vuelve a ser un array
+        for (int valor = 0; valor < 28_000; valor++) {
+            a.quitar(valor);
+            esperadoA.clear(valor);
+        }
+
+        BitSet and = (BitSet) esperadoA.clone();
+        and.and(esperadoB);
+        BitSet or = (BitSet) esperadoA.clone();
+        or.or(esperadoB);
+
+        assertThat(a.cardinalidad()).isEqualTo(esperadoA.cardinality());
+        assertThat(mapaBits.and(a, b).cardinalidad()).isEqualTo(and.cardinality());
+        assertThat(mapaBits.andCardinalidad(a, b)).isEqualTo(and.cardinality());
+        assertThat(mapaBits.or(a, b).cardinalidad()).isEqualTo(or.cardinality());
+
+        BitSet recorrido = new BitSet();
+        mapaBits.or(a, b).recorrer(recorrido::set);
+        assertThat(recorrido).isEqualTo(or);
+    }
+
+    private inmueble crearInmueble(estadoInmueble estado) {
+        return inmuebleServicio.guardarInmueble(
+                new inmueble(null, "Calle Panel", CIUDAD, "42001", 600.0, estado, null, null, null));
+    }
+
+    private pagos crearPago(int anio, int mes, boolean pagado, inmueble inmueble) {
+        return pagosServicio.guardarPago(new pagos(null, anio, mes, null, null, pagado, null, inmueble, null));
+    }
+}
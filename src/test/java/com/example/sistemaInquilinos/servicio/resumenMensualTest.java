@@ -0,0 +1,166 @@
+package com.example.sistemaInquilinos.servicio;
+
+import com.example.sistemaInquilinos.dto.resumenMensualDTO;
+import com.example.sistemaInquilinos.entidad.estadoInmueble;
+import com.example.sistemaInquilinos.entidad.inmueble;
+import com.example.sistemaInquilinos.entidad.pagos;
+import com.example.sistemaInquilinos.repositorio.inmuebleRepositorio;
+import com.example.sistemaInquilinos.repositorio.pagosRepositorio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que, cuando un inmueble cambia de ciudad, sus importes pasan a la fila
+ * de la ciudad nueva del resumen mensual: los cambios posteriores de sus pagos no dejan
+ * importes en la ciudad anterior ni negativos en la nueva. Y que reconstruirlo mientras
+ * se guardan pagos no pierde ninguno de esos cambios.
+ */
+@SpringBootTest
+class resumenMensualTest {
+
+    private static final int ANIO = 2070;
+    private static final double PRECIO = 500.0;
+
+    @Autowired
+    private pagosServicio pagosServicio;
+
+    @Autowired
+    private inmuebleServicio inmuebleServicio;
+
+    @Autowired
+    private resumenMensualServicio resumenMensualServicio;
+
+    @Autowired
+    private inmuebleRepositorio inmuebleRepositorio;
+
+    @Autowired
+    private pagosRepositorio pagosRepositorio;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void alCambiarDeCiudadSusImportesSeMuevenDeFila() {
+
+        inmueble inmueble = inmuebleRepositorio.save(new inmueble(null, "Calle Resumen 1", "Bilbao", "48001",
+                PRECIO, estadoInmueble.OCUPADO, null, null, null));
+
+        pagos cobrado = pagosServicio.guardarPago(new pagos(null, ANIO, 1, null, null, true, null, inmueble, null));
+        pagos pendiente = pagosServicio.guardarPago(new pagos(null, ANIO, 2, null, null, false, null, inmueble, null));
+
+        assertThat(porCiudad(1)).containsOnlyKeys("Bilbao");
+        assertThat(porCiudad(2)).containsOnlyKeys("Bilbao");
+
+        // PATCH de la ciudad: los dos pagos pasan a Vitoria
+        ObjectNode cambios = objectMapper.createObjectNode().put("ciudad", "Vitoria");
+        inmuebleServicio.parchearInmueble(inmueble.getIdInmueble(), cambios);
+
+        Map<String, resumenMensualDTO> enero = porCiudad(1);
+        assertThat(enero.get("Bilbao").getImporteFacturado()).isZero();
+        assertThat(enero.get("Bilbao").getPagosFacturados()).isZero();
+        assertThat(enero.get("Vitoria").getImporteFacturado()).isEqualTo(PRECIO);
+        assertThat(enero.get("Vitoria").getImporteCobrado()).isEqualTo(PRECIO);
+        assertThat(enero.get("Vitoria").getPagosCobrados()).isEqualTo(1L);
+
+        Map<String, resumenMensualDTO> febrero = porCiudad(2);
+        assertThat(febrero.get("Bilbao").getImporteFacturado()).isZero();
+        assertThat(febrero.get("Vitoria").getImporteFacturado()).isEqualTo(PRECIO);
+        assertThat(febrero.get("Vitoria").getImporteCobrado()).isZero();
+
+        // Los cambios posteriores restan de la ciudad nueva sin dejarla en negativo
+        pagosServicio.eliminarPagoPorId(cobrado.getIdPago());
+        pagosServicio.eliminarPagoPorId(pendiente.getIdPago());
+
+        for (int mes = 1; mes <= 2; mes++) {
+            Map<String, resumenMensualDTO> resumen = porCiudad(mes);
+            assertThat(resumen.get("Bilbao").getImporteFacturado()).isZero();
+            assertThat(resumen.get("Vitoria").getImporteFacturado()).isZero();
+            assertThat(resumen.get("Vitoria").getImporteCobrado()).isZero();
+            assertThat(resumen.get("Vitoria").getPagosFacturados()).isZero();
+        }
+    }
+
+    @Test
+    void reconstruirMientrasSeGuardanPagosNoPierdeNingunCambio() throws Exception {
+
+        int anio = ANIO + 1;
+        List<inmueble> inmuebles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            inmuebles.add(inmuebleRepositorio.save(new inmueble(null, "Calle Resumen Paralela " + i, "Zamora",
+                    "49001", PRECIO, estadoInmueble.OCUPADO, null, null, null)));
+        }
+
+        CountDownLatch salida = new CountDownLatch(1);
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+
+        tareas.add(CompletableFuture.runAsync(() -> {
+            esperar(salida);
+            for (int i = 0; i < 20; i++) {
+                resumenMensualServicio.reconstruir();
+            }
+        }));
+        for (inmueble inmueble : inmuebles) {
+            tareas.add(CompletableFuture.runAsync(() -> {
+                esperar(salida);
+                for (int mes = 1; mes <= 12; mes++) {
+                    pagos pago = pagosServicio.guardarPago(
+                            new pagos(null, anio, mes, null, null, false, null, inmueble, null));
+                    if (mes % 3 == 0) {
+                        pago.setPagado(true);
+                        pagosServicio.guardarPago(pago);
+                    } else if (mes % 4 == 0) {
+                        pagosServicio.eliminarPagoPorId(pago.getIdPago());
+                    }
+                }
+            }));
+        }
+        salida.countDown();
+        CompletableFuture.allOf(tareas.toArray(CompletableFuture[]::new)).get();
+
+        List<pagos> guardados = pagosRepositorio.findAll().stream()
+                .filter(p -> p.getAnio() == anio && p.getInmueble() != null
+                        && "Zamora".equals(p.getInmueble().getCiudad()))
+                .toList();
+
+        for (int mes = 1; mes <= 12; mes++) {
+            int m = mes;
+            long facturados = guardados.stream().filter(p -> p.getMes() == m).count();
+            long cobrados = guardados.stream().filter(p -> p.getMes() == m && p.getPagado()).count();
+
+            resumenMensualDTO zamora = resumenMensualServicio.consultarMes(anio, mes).stream()
+                    .filter(fila -> fila.getCiudad().equals("Zamora"))
+                    .findFirst()
+                    .orElseThrow();
+
+            assertThat(zamora.getPagosFacturados()).as("mes %d", mes).isEqualTo(facturados);
+            assertThat(zamora.getPagosCobrados()).as("mes %d", mes).isEqualTo(cobrados);
+            assertThat(zamora.getImporteFacturado()).as("mes %d", mes).isEqualTo(facturados * PRECIO);
+            assertThat(zamora.getImporteCobrado()).as("mes %d", mes).isEqualTo(cobrados * PRECIO);
+        }
+    }
+
+    private Map<String, resumenMensualDTO> porCiudad(int mes) {
+        return resumenMensualServicio.consultarMes(ANIO, mes).stream()
+                .collect(Collectors.toMap(resumenMensualDTO::getCiudad, fila -> fila));
+    }
+
+    private static void esperar(CountDownLatch salida) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}